@@ -0,0 +1,42 @@
+package cn.king.benchmark;
+
+import cn.king.client.AsyncClientProperties;
+import cn.king.client.AsyncEsClient;
+import cn.king.config.ESProperties;
+import cn.king.config.WireFormats;
+import cn.king.resilience.Resilience;
+import cn.king.resilience.ResilienceProperties;
+import cn.king.slowlog.SlowQueryProperties;
+import cn.king.slowlog.SlowQueryRecorder;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 19:20
+ * @version: 1.0.0
+ * @description: 不启动 spring，手工组装基准要用的客户端。连接池按高并发放大，避免测成连接池排队
+ */
+final class Clients {
+
+    private Clients() {
+    }
+
+    static RestHighLevelClient highLevel(HttpHost host) {
+        return new RestHighLevelClient(RestClient.builder(host)
+                .setHttpClientConfigCallback(builder -> builder.setMaxConnTotal(256).setMaxConnPerRoute(256)));
+    }
+
+    /**
+     * 与应用中的配置一致，只关掉慢查询记录
+     */
+    static AsyncEsClient async(RestHighLevelClient client) {
+        SlowQueryProperties slowQuery = new SlowQueryProperties();
+        slowQuery.setEnabled(false);
+        slowQuery.setFile("");
+        return new AsyncEsClient(client, new AsyncClientProperties(), event -> {
+        }, new Resilience(new ResilienceProperties()), new SlowQueryRecorder(client, slowQuery),
+                new WireFormats(new ESProperties()));
+    }
+}
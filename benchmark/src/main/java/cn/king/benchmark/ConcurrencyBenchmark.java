@@ -0,0 +1,99 @@
+package cn.king.benchmark;
+
+import cn.king.client.AsyncEsClient;
+import cn.king.config.ESProperties;
+import cn.king.config.WireFormats;
+import cn.king.mapping.ProductDecoder;
+import cn.king.mapping.TypedSearchClient;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 19:50
+ * @version: 1.0.0
+ * @description: 多线程并发搜索的吞吐。线程数用 -t 覆盖，服务端延迟用 -p latencyMillis= 覆盖。
+ * <p>
+ * 1. sync：high level client 的同步 search
+ * 2. async：AsyncEsClient（并发上限、超时、熔断都在路径上）再 join
+ * 3. typed：TypedSearchClient，跳过 SearchResponse 直接解码
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class ConcurrencyBenchmark {
+
+    @Param({"20"})
+    public int hits;
+
+    @Param({"512"})
+    public int sourceBytes;
+
+    @Param({"0", "5"})
+    public long latencyMillis;
+
+    private StubEsServer server;
+
+    private RestHighLevelClient client;
+
+    private AsyncEsClient asyncClient;
+
+    private TypedSearchClient typedClient;
+
+    private final SearchRequest request = new SearchRequest("product")
+            .source(new SearchSourceBuilder().query(QueryBuilders.termQuery("desc", "浣熊")).size(20));
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = new StubEsServer(hits, sourceBytes, latencyMillis, 64);
+        client = Clients.highLevel(server.host());
+        asyncClient = Clients.async(client);
+        typedClient = new TypedSearchClient(asyncClient, new WireFormats(new ESProperties()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        asyncClient.close();
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public Object sync() throws IOException {
+        return client.search(request, RequestOptions.DEFAULT);
+    }
+
+    @Benchmark
+    public Object async() {
+        return asyncClient.search(request).join();
+    }
+
+    @Benchmark
+    public Object typed() {
+        return typedClient.search(request, ProductDecoder.INSTANCE).join();
+    }
+}
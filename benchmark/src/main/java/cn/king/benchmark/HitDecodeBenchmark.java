@@ -0,0 +1,100 @@
+package cn.king.benchmark;
+
+import cn.king.entity.Product;
+import cn.king.mapping.HitDecoder;
+import cn.king.mapping.ProductDecoder;
+import cn.king.mapping.SourceParsers;
+import com.alibaba.fastjson.JSON;
+import com.fasterxml.jackson.core.JsonParser;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.SearchHit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 19:45
+ * @version: 1.0.0
+ * @description: 命中结果的解码，不走网络。
+ * <p>
+ * 1. fastjson：已有代码的写法，getSourceAsString() 后 fastjson 反序列化
+ * 2. typed：HitDecoder 直接解码 SearchHit 的 _source 字节
+ * 3. parseResponse：high level client 把响应字节解析成 SearchResponse 的开销，前两项都要先付这一步
+ * 4. typedStream：HitDecoder.parseSearchResponse 从响应字节一遍解码，不经过 SearchResponse，对应 TypedSearchClient
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HitDecodeBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int hits;
+
+    @Param({"512"})
+    public int sourceBytes;
+
+    private byte[] responseBytes;
+
+    private SearchResponse response;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        responseBytes = StubEsServer.searchResponse(hits, sourceBytes);
+        response = parseResponse();
+    }
+
+    @Benchmark
+    public List<Product> fastjson() {
+        SearchHit[] array = response.getHits().getHits();
+        List<Product> result = new ArrayList<>(array.length);
+        for (SearchHit hit : array) {
+            Product product = JSON.parseObject(hit.getSourceAsString(), Product.class);
+            product.setId(hit.getId());
+            result.add(product);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Product> typed() {
+        return HitDecoder.decode(response.getHits(), ProductDecoder.INSTANCE);
+    }
+
+    @Benchmark
+    public SearchResponse parseResponse() throws IOException {
+        try (XContentParser parser = XContentType.JSON.xContent().createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, responseBytes)) {
+            return SearchResponse.fromXContent(parser);
+        }
+    }
+
+    @Benchmark
+    public Object typedStream() throws IOException {
+        try (JsonParser parser = SourceParsers.parser(XContentType.JSON, new ByteArrayInputStream(responseBytes))) {
+            return HitDecoder.parseSearchResponse(parser, ProductDecoder.INSTANCE);
+        }
+    }
+}
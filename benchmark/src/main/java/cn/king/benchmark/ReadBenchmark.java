@@ -0,0 +1,79 @@
+package cn.king.benchmark;
+
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 19:35
+ * @version: 1.0.0
+ * @description: 逐条 get 与 mget 的对比。每次调用读 batchSize 条文档
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadBenchmark {
+
+    @Param({"20"})
+    public int batchSize;
+
+    @Param({"512"})
+    public int sourceBytes;
+
+    @Param({"0", "2"})
+    public long latencyMillis;
+
+    private StubEsServer server;
+
+    private RestHighLevelClient client;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = new StubEsServer(10, sourceBytes, latencyMillis, 16);
+        client = Clients.highLevel(server.host());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) throws IOException {
+        for (int i = 0; i < batchSize; i++) {
+            blackhole.consume(client.get(new GetRequest("product", Integer.toString(i)), RequestOptions.DEFAULT));
+        }
+    }
+
+    @Benchmark
+    public Object mget() throws IOException {
+        MultiGetRequest request = new MultiGetRequest();
+        for (int i = 0; i < batchSize; i++) {
+            request.add("product", Integer.toString(i));
+        }
+        return client.mget(request, RequestOptions.DEFAULT);
+    }
+}
@@ -0,0 +1,66 @@
+package cn.king.benchmark;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 19:40
+ * @version: 1.0.0
+ * @description: 搜索请求的构建和序列化，不走网络。查询的形状取自 test09（bool + 排序 + 聚合）和 test13（高亮）
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchRequestBenchmark {
+
+    @Benchmark
+    public SearchSourceBuilder build() {
+        return source();
+    }
+
+    @Benchmark
+    public BytesReference buildAndSerialize() throws IOException {
+        return XContentHelper.toXContent(source(), XContentType.JSON, false);
+    }
+
+    @Benchmark
+    public BytesReference buildAndSerializeSmile() throws IOException {
+        return XContentHelper.toXContent(source(), XContentType.SMILE, false);
+    }
+
+    static SearchSourceBuilder source() {
+        return new SearchSourceBuilder()
+                .query(QueryBuilders.boolQuery()
+                        .must(QueryBuilders.matchQuery("desc", "小浣熊"))
+                        .filter(QueryBuilders.rangeQuery("price").gte(0).lte(10))
+                        .filter(QueryBuilders.termQuery("title", "小浣熊干脆面")))
+                .sort("price", SortOrder.DESC)
+                .from(0)
+                .size(20)
+                .aggregation(AggregationBuilders.terms("price_group").field("price")
+                        .subAggregation(AggregationBuilders.avg("avg_price").field("price")))
+                .highlighter(new HighlightBuilder().field("desc").preTags("<em>").postTags("</em>"));
+    }
+}
@@ -0,0 +1,288 @@
+package cn.king.benchmark;
+
+import cn.king.entity.Product;
+import cn.king.mapping.ProductEncoder;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 19:00
+ * @version: 1.0.0
+ * @description: es 的本地替身。用 jdk 自带的 HttpServer 按路径返回预先生成好的响应，
+ * 响应的命中数、每个文档的大小和服务端延迟都可以配置，只测客户端自己的开销。
+ * <p>
+ * 支持 _search、_doc（get/index）、_mget、_bulk，其余路径返回 404。bulk 按请求体的行数返回同样条数的结果
+ */
+public class StubEsServer implements AutoCloseable {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final byte[] NOT_FOUND = "{\"error\":\"not found\",\"status\":404}".getBytes();
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final long latencyMillis;
+
+    private final byte[] searchResponse;
+
+    private final byte[] getResponse;
+
+    private final int sourceBytes;
+
+    /**
+     * mget 和 bulk 的响应按条数缓存
+     */
+    private final Map<Integer, byte[]> mgetResponses = new ConcurrentHashMap<>();
+
+    private final Map<Integer, byte[]> bulkResponses = new ConcurrentHashMap<>();
+
+    private final byte[] indexResponse;
+
+    /**
+     * @param hits          搜索响应中的命中数
+     * @param sourceBytes   每个文档 _source 的大致字节数
+     * @param latencyMillis 每个请求在服务端停留的时间
+     * @param threads       服务端线程数，有延迟时决定了能同时处理多少请求
+     */
+    public StubEsServer(int hits, int sourceBytes, long latencyMillis, int threads) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.sourceBytes = sourceBytes;
+        this.searchResponse = searchResponse(hits, sourceBytes);
+        this.getResponse = render(generator -> writeGet(generator, "1", sourceBytes));
+        this.indexResponse = render(generator -> writeIndex(generator, "1", -1));
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("stub-es-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    public HttpHost host() {
+        return new HttpHost(server.getAddress().getHostString(), server.getAddress().getPort(), "http");
+    }
+
+    /**
+     * 搜索响应的原始字节，给不需要网络的解码基准用
+     */
+    public static byte[] searchResponse(int hits, int sourceBytes) {
+        return render(generator -> {
+            generator.writeStartObject();
+            generator.writeNumberField("took", 1);
+            generator.writeBooleanField("timed_out", false);
+            generator.writeObjectFieldStart("_shards");
+            generator.writeNumberField("total", 1);
+            generator.writeNumberField("successful", 1);
+            generator.writeNumberField("skipped", 0);
+            generator.writeNumberField("failed", 0);
+            generator.writeEndObject();
+            generator.writeObjectFieldStart("hits");
+            generator.writeObjectFieldStart("total");
+            generator.writeNumberField("value", hits);
+            generator.writeStringField("relation", "eq");
+            generator.writeEndObject();
+            generator.writeNumberField("max_score", 1.0);
+            generator.writeArrayFieldStart("hits");
+            for (int i = 0; i < hits; i++) {
+                generator.writeStartObject();
+                generator.writeStringField("_index", "product");
+                generator.writeStringField("_type", "_doc");
+                generator.writeStringField("_id", Integer.toString(i));
+                generator.writeNumberField("_score", 1.0);
+                generator.writeFieldName("_source");
+                ProductEncoder.INSTANCE.encode(product(i, sourceBytes), generator);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * 大小约为 sourceBytes 的文档，desc 用中文填充
+     */
+    public static Product product(int i, int sourceBytes) {
+        StringBuilder desc = new StringBuilder("小浣熊很好吃");
+        // 一个汉字 utf-8 下占 3 个字节，其余字段大约 60 字节
+        while (desc.length() * 3 < sourceBytes - 60) {
+            desc.append("，香辣蟹味");
+        }
+        return new Product(Integer.toString(i), "小浣熊干脆面 " + i, 1.5 + i % 100, "2022-02-02", desc.toString());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            int[] counts = drain(exchange.getRequestBody());
+            if (latencyMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            }
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            byte[] body;
+            int status = 200;
+            if (path.endsWith("/_search")) {
+                body = searchResponse;
+            } else if (path.endsWith("/_mget")) {
+                // {"docs":[{"_id":"1"},...]} 不逐个解析，按 _id 出现的次数算
+                body = mgetResponses.computeIfAbsent(counts[1], this::mgetResponse);
+            } else if (path.endsWith("/_bulk")) {
+                // 只有 index 操作，一条占两行
+                body = bulkResponses.computeIfAbsent(counts[0] / 2, StubEsServer::bulkResponse);
+            } else if (path.contains("/_doc")) {
+                if ("GET".equals(method)) {
+                    body = getResponse;
+                } else {
+                    body = indexResponse;
+                    status = 201;
+                }
+            } else {
+                body = NOT_FOUND;
+                status = 404;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+        }
+    }
+
+    /**
+     * 读完请求体，返回 {行数, "_id" 出现的次数}，分别用于 bulk 和 mget
+     */
+    private static int[] drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        int lines = 0;
+        int ids = 0;
+        int matched = 0;
+        byte[] id = "\"_id\"".getBytes();
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            for (int i = 0; i < n; i++) {
+                byte b = buffer[i];
+                if (b == '\n') {
+                    lines++;
+                }
+                matched = b == id[matched] ? matched + 1 : (b == id[0] ? 1 : 0);
+                if (matched == id.length) {
+                    ids++;
+                    matched = 0;
+                }
+            }
+        }
+        return new int[]{lines, ids};
+    }
+
+    private byte[] mgetResponse(int docs) {
+        return render(generator -> {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("docs");
+            for (int i = 0; i < docs; i++) {
+                writeGet(generator, Integer.toString(i), sourceBytes);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        });
+    }
+
+    private static byte[] bulkResponse(int items) {
+        return render(generator -> {
+            generator.writeStartObject();
+            generator.writeNumberField("took", 1);
+            generator.writeBooleanField("errors", false);
+            generator.writeArrayFieldStart("items");
+            for (int i = 0; i < items; i++) {
+                generator.writeStartObject();
+                generator.writeFieldName("index");
+                writeIndex(generator, Integer.toString(i), 201);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        });
+    }
+
+    private static void writeGet(JsonGenerator generator, String id, int sourceBytes) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("_index", "product");
+        generator.writeStringField("_type", "_doc");
+        generator.writeStringField("_id", id);
+        generator.writeNumberField("_version", 1);
+        generator.writeNumberField("_seq_no", 0);
+        generator.writeNumberField("_primary_term", 1);
+        generator.writeBooleanField("found", true);
+        generator.writeFieldName("_source");
+        ProductEncoder.INSTANCE.encode(product(Integer.parseInt(id), sourceBytes), generator);
+        generator.writeEndObject();
+    }
+
+    /**
+     * @param status bulk 条目中带 status，单条 index 的响应不带，传 -1
+     */
+    private static void writeIndex(JsonGenerator generator, String id, int status) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("_index", "product");
+        generator.writeStringField("_type", "_doc");
+        generator.writeStringField("_id", id);
+        generator.writeNumberField("_version", 1);
+        generator.writeStringField("result", "created");
+        generator.writeObjectFieldStart("_shards");
+        generator.writeNumberField("total", 2);
+        generator.writeNumberField("successful", 1);
+        generator.writeNumberField("failed", 0);
+        generator.writeEndObject();
+        generator.writeNumberField("_seq_no", 0);
+        generator.writeNumberField("_primary_term", 1);
+        if (status > 0) {
+            generator.writeNumberField("status", status);
+        }
+        generator.writeEndObject();
+    }
+
+    private static byte[] render(JsonWriter writer) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JSON.createGenerator(out)) {
+            writer.write(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface JsonWriter {
+
+        void write(JsonGenerator generator) throws IOException;
+    }
+}
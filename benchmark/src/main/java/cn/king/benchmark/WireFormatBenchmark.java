@@ -0,0 +1,273 @@
+package cn.king.benchmark;
+
+import cn.king.entity.Product;
+import cn.king.mapping.DocumentSerializer;
+import cn.king.mapping.HitDecoder;
+import cn.king.mapping.PooledBytes;
+import cn.king.mapping.ProductDecoder;
+import cn.king.mapping.ProductEncoder;
+import cn.king.mapping.SourceParsers;
+import cn.king.mapping.TypedSearchResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/22 14:00
+ * @version: 1.0.0
+ * @description: json、smile、cbor 以及 gzip 压缩的体积和 cpu 对比，不走网络。
+ * <p>
+ * 1. bulk：batchSize 条 index 的请求体，action 行和 _source 按 es 的写法用格式的分隔符隔开。es 的 bulk 只接受 json 和 smile
+ * 2. search：请求体是 SearchRequestBenchmark 中的查询，响应是 hits 条命中的搜索响应，按 TypedSearchClient 的方式解码
+ * 3. 每种负载分别测编码、解码、gzip 压缩和解压，后两项是开启 compression 时两端多出的开销
+ * <p>
+ * 编码和压缩的方法把这次的字节数写进 Sizes，结果中 encodedBytes、gzipBytes 两列就是请求体或响应体的大小。
+ * 写入的是最后一次的值而不是累加，所以只能单线程运行。
+ * 替身文档的 desc 是重复的文字，gzip 的压缩率会比真实数据高，gzipBytes 只适合在格式之间横向比较
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @State(Scope.Thread)
+    public static class Bulk {
+
+        @Param({"JSON", "SMILE"})
+        public XContentType format;
+
+        @Param({"100"})
+        public int batchSize;
+
+        @Param({"512"})
+        public int sourceBytes;
+
+        private final DocumentSerializer serializer = new DocumentSerializer();
+
+        private List<Product> products;
+
+        private byte[] encoded;
+
+        private byte[] gzipped;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            products = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                products.add(StubEsServer.product(i, sourceBytes));
+            }
+            encoded = encodeBulk(this);
+            gzipped = gzip(encoded);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Search {
+
+        @Param({"JSON", "SMILE", "CBOR"})
+        public XContentType format;
+
+        @Param({"10", "100"})
+        public int hits;
+
+        @Param({"512"})
+        public int sourceBytes;
+
+        private byte[] response;
+
+        private byte[] gzippedResponse;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            response = convert(StubEsServer.searchResponse(hits, sourceBytes), format);
+            gzippedResponse = gzip(response);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Sizes {
+
+        public long encodedBytes;
+
+        public long gzipBytes;
+    }
+
+    @Benchmark
+    public byte[] bulkEncode(Bulk bulk, Sizes sizes) throws IOException {
+        byte[] body = encodeBulk(bulk);
+        sizes.encodedBytes = body.length;
+        return body;
+    }
+
+    @Benchmark
+    public List<Product> bulkDecode(Bulk bulk) throws IOException {
+        return decodeBulk(bulk.encoded, bulk.format);
+    }
+
+    @Benchmark
+    public byte[] bulkGzip(Bulk bulk, Sizes sizes) throws IOException {
+        byte[] body = gzip(bulk.encoded);
+        sizes.encodedBytes = bulk.encoded.length;
+        sizes.gzipBytes = body.length;
+        return body;
+    }
+
+    @Benchmark
+    public byte[] bulkGunzip(Bulk bulk) throws IOException {
+        return gunzip(bulk.gzipped);
+    }
+
+    @Benchmark
+    public BytesReference searchRequestEncode(Search search, Sizes sizes) throws IOException {
+        BytesReference body = XContentHelper.toXContent(SearchRequestBenchmark.source(), search.format, false);
+        sizes.encodedBytes = body.length();
+        return body;
+    }
+
+    @Benchmark
+    public TypedSearchResponse<Product> searchResponseDecode(Search search) throws IOException {
+        try (JsonParser parser = SourceParsers.parser(search.format, new ByteArrayInputStream(search.response))) {
+            return HitDecoder.parseSearchResponse(parser, ProductDecoder.INSTANCE);
+        }
+    }
+
+    @Benchmark
+    public byte[] searchResponseGzip(Search search, Sizes sizes) throws IOException {
+        byte[] body = gzip(search.response);
+        sizes.encodedBytes = search.response.length;
+        sizes.gzipBytes = body.length;
+        return body;
+    }
+
+    @Benchmark
+    public byte[] searchResponseGunzip(Search search) throws IOException {
+        return gunzip(search.gzippedResponse);
+    }
+
+    /**
+     * 和 high level client 生成的 bulk 请求体相同：每条 action 行、_source 后面各跟一个分隔符
+     */
+    private static byte[] encodeBulk(Bulk bulk) throws IOException {
+        byte separator = bulk.format.xContent().streamSeparator();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bulk.batchSize * (bulk.sourceBytes + 64));
+        for (Product product : bulk.products) {
+            try (JsonGenerator generator = SourceParsers.factory(bulk.format).createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeObjectFieldStart("index");
+                generator.writeStringField("_index", "product");
+                generator.writeStringField("_id", product.getId());
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            out.write(separator);
+            PooledBytes source = bulk.serializer.serialize(product, ProductEncoder.INSTANCE, bulk.format);
+            try {
+                source.bytes().writeTo(out);
+            } finally {
+                source.release();
+            }
+            out.write(separator);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 按分隔符切开，action 行完整解析一遍，_source 解码成 Product，大致是协调节点解析 bulk 的工作量
+     */
+    private static List<Product> decodeBulk(byte[] body, XContentType format) throws IOException {
+        byte separator = format.xContent().streamSeparator();
+        List<Product> products = new ArrayList<>();
+        String id = null;
+        int from = 0;
+        for (int i = 0; i < body.length; i++) {
+            if (body[i] != separator) {
+                continue;
+            }
+            if (id == null) {
+                id = actionId(body, from, i - from, format);
+            } else {
+                products.add(HitDecoder.decode(id, new BytesArray(body, from, i - from), ProductDecoder.INSTANCE));
+                id = null;
+            }
+            from = i + 1;
+        }
+        return products;
+    }
+
+    private static String actionId(byte[] body, int offset, int length, XContentType format) throws IOException {
+        String id = "";
+        try (JsonParser parser = SourceParsers.factory(format).createParser(body, offset, length)) {
+            while (parser.nextToken() != null) {
+                if ("_id".equals(parser.getCurrentName()) && parser.currentToken().isScalarValue()) {
+                    id = parser.getText();
+                }
+            }
+        }
+        return id;
+    }
+
+    /**
+     * 把 json 的响应转成指定格式，模拟 es 按 Accept 头返回的响应
+     */
+    private static byte[] convert(byte[] json, XContentType format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = SourceParsers.factory(XContentType.JSON).createParser(json);
+             JsonGenerator generator = SourceParsers.factory(format).createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+        byte[] buffer = new byte[8192];
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,118 @@
+package cn.king.benchmark;
+
+import cn.king.entity.Product;
+import cn.king.mapping.DocumentSerializer;
+import cn.king.mapping.PooledIndexRequest;
+import cn.king.mapping.ProductEncoder;
+import com.alibaba.fastjson.JSON;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 19:30
+ * @version: 1.0.0
+ * @description: 逐条 index 与 bulk 的对比。每次调用写 batchSize 条文档，结果的 ops/s 乘以 batchSize 才是文档吞吐。
+ * <p>
+ * 1. singleIndex：和 test01 一样，fastjson 转成字符串后逐条 index
+ * 2. bulk：同样的字符串放进一个 bulk
+ * 3. bulkSerialized：DocumentSerializer 直接编码进池化缓冲区后 bulk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WriteBenchmark {
+
+    @Param({"100"})
+    public int batchSize;
+
+    @Param({"512"})
+    public int sourceBytes;
+
+    @Param({"0"})
+    public long latencyMillis;
+
+    private StubEsServer server;
+
+    private RestHighLevelClient client;
+
+    private final DocumentSerializer serializer = new DocumentSerializer();
+
+    private List<Product> products;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = new StubEsServer(10, sourceBytes, latencyMillis, 16);
+        client = Clients.highLevel(server.host());
+        products = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            products.add(StubEsServer.product(i, sourceBytes));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public void singleIndex(Blackhole blackhole) throws IOException {
+        for (Product product : products) {
+            IndexRequest request = new IndexRequest("product").id(product.getId())
+                    .source(JSON.toJSONString(product), XContentType.JSON);
+            blackhole.consume(client.index(request, RequestOptions.DEFAULT));
+        }
+    }
+
+    @Benchmark
+    public Object bulk() throws IOException {
+        BulkRequest bulk = new BulkRequest();
+        for (Product product : products) {
+            bulk.add(new IndexRequest("product").id(product.getId())
+                    .source(JSON.toJSONString(product), XContentType.JSON));
+        }
+        return client.bulk(bulk, RequestOptions.DEFAULT);
+    }
+
+    @Benchmark
+    public Object bulkSerialized() throws IOException {
+        BulkRequest bulk = new BulkRequest();
+        for (Product product : products) {
+            bulk.add(serializer.indexRequest("product", product.getId(), product, ProductEncoder.INSTANCE));
+        }
+        try {
+            return client.bulk(bulk, RequestOptions.DEFAULT);
+        } finally {
+            for (DocWriteRequest<?> request : bulk.requests()) {
+                PooledIndexRequest.releaseIfPooled(request);
+            }
+        }
+    }
+}
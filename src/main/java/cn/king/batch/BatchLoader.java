@@ -0,0 +1,17 @@
+package cn.king.batch;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 19:05
+ * @version: 1.0.0
+ * @description: 把一批 key 合成一个请求发出去，并逐个完成 results 中对应位置的 future。
+ * 单个条目失败时只让对应的 future 失败；返回的 future 完成后仍未完成的条目由 MicroBatcher 统一以失败处理
+ */
+@FunctionalInterface
+public interface BatchLoader<K, V> {
+
+    CompletableFuture<?> load(List<K> keys, List<CompletableFuture<V>> results);
+}
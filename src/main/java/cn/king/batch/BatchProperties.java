@@ -0,0 +1,88 @@
+package cn.king.batch;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 19:00
+ * @version: 1.0.0
+ * @description: 请求自动合批配置
+ */
+@ConfigurationProperties(prefix = "elasticsearch.batch")
+public class BatchProperties {
+
+    /**
+     * get 合并成 mget
+     */
+    private Window get = new Window(Duration.ofMillis(2), 100);
+
+    /**
+     * search 合并成 msearch
+     */
+    private Window search = new Window(Duration.ofMillis(5), 20);
+
+    public Window getGet() {
+        return get;
+    }
+
+    public void setGet(Window get) {
+        this.get = get;
+    }
+
+    public Window getSearch() {
+        return search;
+    }
+
+    public void setSearch(Window search) {
+        this.search = search;
+    }
+
+    public static class Window {
+
+        private boolean enabled = true;
+
+        /**
+         * 第一个请求到达后最多等多久再发出，即合批给单个请求增加的最大延迟
+         */
+        private Duration maxWait;
+
+        /**
+         * 攒够这么多个就立即发出
+         */
+        private int maxSize;
+
+        public Window() {
+        }
+
+        public Window(Duration maxWait, int maxSize) {
+            this.maxWait = maxWait;
+            this.maxSize = maxSize;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+}
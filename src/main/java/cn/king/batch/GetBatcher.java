@@ -0,0 +1,162 @@
+package cn.king.batch;
+
+import cn.king.client.AsyncEsClient;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 19:20
+ * @version: 1.0.0
+ * @description: 把并发的按 id 查询合并成 mget。用法和 AsyncEsClient.get 一样，返回结果也一样：
+ * 文档不存在时 GetResponse.isExists() 为 false，索引不存在等错误以异常失败。
+ * <p>
+ * 1. 同一批内索引、id、routing、source 过滤等完全相同的请求只查一次
+ * 2. preference、realtime、refresh 是整个 mget 请求级别的参数，指定了非默认值的 get 不合批，直接单独发送
+ */
+@Component
+public class GetBatcher {
+
+    private final AsyncEsClient client;
+
+    private final boolean enabled;
+
+    private final ScheduledExecutorService timer;
+
+    private final MicroBatcher<GetKey, GetResponse> batcher;
+
+    public GetBatcher(AsyncEsClient client, BatchProperties properties) {
+        this.client = client;
+        BatchProperties.Window window = properties.getGet();
+        this.enabled = window.isEnabled();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("es-get-batcher-");
+        threadFactory.setDaemon(true);
+        this.timer = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        this.batcher = new MicroBatcher<>("mget", window.getMaxWait(), window.getMaxSize(), true,
+                this::load, timer);
+    }
+
+    public CompletableFuture<GetResponse> get(String index, String id) {
+        return get(new GetRequest(index, id));
+    }
+
+    public CompletableFuture<GetResponse> get(GetRequest request) {
+        if (!enabled || !batchable(request)) {
+            return client.get(request);
+        }
+        return batcher.submit(new GetKey(request));
+    }
+
+    public MicroBatcher<?, GetResponse> getBatcher() {
+        return batcher;
+    }
+
+    private CompletableFuture<?> load(List<GetKey> keys, List<CompletableFuture<GetResponse>> results) {
+        MultiGetRequest mget = new MultiGetRequest();
+        for (GetKey key : keys) {
+            mget.add(key.toItem());
+        }
+        return client.mget(mget).thenAccept(response -> {
+            // mget 的响应和请求按位置一一对应
+            MultiGetItemResponse[] items = response.getResponses();
+            for (int i = 0; i < items.length; i++) {
+                MultiGetItemResponse item = items[i];
+                if (item.isFailed()) {
+                    results.get(i).completeExceptionally(item.getFailure().getFailure());
+                } else {
+                    results.get(i).complete(item.getResponse());
+                }
+            }
+        });
+    }
+
+    private static boolean batchable(GetRequest request) {
+        return request.preference() == null && request.realtime() && !request.refresh();
+    }
+
+    @PreDestroy
+    public void close() {
+        batcher.flush();
+        timer.shutdown();
+    }
+
+    /**
+     * 一次 get 中决定返回内容的全部参数，用于去重
+     */
+    static final class GetKey {
+
+        final String index;
+
+        final String id;
+
+        final String routing;
+
+        final String[] storedFields;
+
+        final FetchSourceContext fetchSourceContext;
+
+        final long version;
+
+        final VersionType versionType;
+
+        final int hash;
+
+        GetKey(GetRequest request) {
+            this.index = request.index();
+            this.id = request.id();
+            this.routing = request.routing();
+            this.storedFields = request.storedFields();
+            this.fetchSourceContext = request.fetchSourceContext();
+            this.version = request.version();
+            this.versionType = request.versionType();
+            this.hash = Objects.hash(index, id, routing, Arrays.hashCode(storedFields), fetchSourceContext,
+                    version, versionType);
+        }
+
+        MultiGetRequest.Item toItem() {
+            return new MultiGetRequest.Item(index, id)
+                    .routing(routing)
+                    .storedFields(storedFields)
+                    .fetchSourceContext(fetchSourceContext)
+                    .version(version)
+                    .versionType(versionType);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof GetKey)) {
+                return false;
+            }
+            GetKey other = (GetKey) o;
+            return version == other.version
+                    && index.equals(other.index)
+                    && id.equals(other.id)
+                    && Objects.equals(routing, other.routing)
+                    && Arrays.equals(storedFields, other.storedFields)
+                    && Objects.equals(fetchSourceContext, other.fetchSourceContext)
+                    && versionType == other.versionType;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package cn.king.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 19:10
+ * @version: 1.0.0
+ * @description: 通用的请求合批（类似 DataLoader）。同一窗口内并发到达的请求攒成一批交给 BatchLoader，
+ * 第一个请求到达后最多等 maxWait，攒够 maxSize 个立即发出。
+ * <p>
+ * 开启去重时，同一批内 key 相同的请求只发一次，每个调用方拿到各自的 future，取消互不影响
+ */
+public class MicroBatcher<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(MicroBatcher.class);
+
+    private final String name;
+
+    private final long maxWaitNanos;
+
+    private final int maxSize;
+
+    private final boolean dedupe;
+
+    private final BatchLoader<K, V> loader;
+
+    private final ScheduledExecutorService timer;
+
+    private final Object lock = new Object();
+
+    private Batch<K, V> current;
+
+    /**
+     * 调用次数
+     */
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * 去重后实际发出的条目数
+     */
+    private final LongAdder loadedKeys = new LongAdder();
+
+    /**
+     * 发出的批次数
+     */
+    private final LongAdder batches = new LongAdder();
+
+    public MicroBatcher(String name, Duration maxWait, int maxSize, boolean dedupe, BatchLoader<K, V> loader,
+                        ScheduledExecutorService timer) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize 必须大于 0");
+        }
+        this.name = name;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.maxSize = maxSize;
+        this.dedupe = dedupe;
+        this.loader = loader;
+        this.timer = timer;
+    }
+
+    public CompletableFuture<V> submit(K key) {
+        requests.increment();
+        CompletableFuture<V> shared;
+        Batch<K, V> full = null;
+        Batch<K, V> scheduled = null;
+        synchronized (lock) {
+            if (current == null) {
+                current = new Batch<>(dedupe);
+                scheduled = current;
+            }
+            shared = current.add(key);
+            if (current.size() >= maxSize) {
+                full = current;
+                current = null;
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        } else if (scheduled != null) {
+            Batch<K, V> batch = scheduled;
+            timer.schedule(() -> flush(batch), maxWaitNanos, TimeUnit.NANOSECONDS);
+        }
+        // 给每个调用方一个独立的 future，一个调用方 cancel 不会影响同一个 key 的其他调用方
+        return dedupe ? shared.thenApply(Function.identity()) : shared;
+    }
+
+    /**
+     * 立即发出当前批次
+     */
+    public void flush() {
+        Batch<K, V> batch;
+        synchronized (lock) {
+            batch = current;
+            current = null;
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public long loadedKeys() {
+        return loadedKeys.sum();
+    }
+
+    public long batches() {
+        return batches.sum();
+    }
+
+    /**
+     * 平均每批的调用数
+     */
+    public double averageBatchSize() {
+        long b = batches.sum();
+        return b == 0 ? 0 : (double) requests.sum() / b;
+    }
+
+    private void flush(Batch<K, V> batch) {
+        synchronized (lock) {
+            if (current != batch) {
+                // 已经因为攒满发出去了
+                return;
+            }
+            current = null;
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        batches.increment();
+        loadedKeys.add(batch.size());
+        CompletableFuture<?> loaded;
+        try {
+            loaded = loader.load(batch.keys, batch.results);
+        } catch (Exception e) {
+            loaded = new CompletableFuture<>();
+            loaded.completeExceptionally(e);
+        }
+        loaded.whenComplete((ignored, e) -> {
+            if (e != null) {
+                log.debug("[{}] 批次失败 size={}", name, batch.size(), e);
+            }
+            for (CompletableFuture<V> result : batch.results) {
+                if (!result.isDone()) {
+                    result.completeExceptionally(e != null ? e
+                            : new IllegalStateException("[" + name + "] 批次结果中缺少条目"));
+                }
+            }
+        });
+    }
+
+    private static final class Batch<K, V> {
+
+        final List<K> keys = new ArrayList<>();
+
+        final List<CompletableFuture<V>> results = new ArrayList<>();
+
+        final Map<K, CompletableFuture<V>> byKey;
+
+        Batch(boolean dedupe) {
+            this.byKey = dedupe ? new HashMap<>() : null;
+        }
+
+        CompletableFuture<V> add(K key) {
+            if (byKey != null) {
+                CompletableFuture<V> existing = byKey.get(key);
+                if (existing != null) {
+                    return existing;
+                }
+            }
+            CompletableFuture<V> result = new CompletableFuture<>();
+            keys.add(key);
+            results.add(result);
+            if (byKey != null) {
+                byKey.put(key, result);
+            }
+            return result;
+        }
+
+        int size() {
+            return keys.size();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package cn.king.batch;
+
+import cn.king.client.AsyncEsClient;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 20:00
+ * @version: 1.0.0
+ * @description: 把互不相关的并发搜索合并成 msearch，结果按位置拆回给各个调用方，单个搜索失败只影响它自己。
+ * <p>
+ * 两种用法：
+ * 1. search()：和其他线程的搜索一起按时间窗口自动合批，适合请求量大的接口
+ * 2. scope()：一个页面要发的几个搜索先收集起来，close 时作为一个 msearch 发出，不需要等待窗口
+ * <p>
+ * scroll 搜索不能放进 msearch，直接单独发送
+ */
+@Component
+public class SearchBatcher {
+
+    private final AsyncEsClient client;
+
+    private final boolean enabled;
+
+    private final int maxSize;
+
+    private final ScheduledExecutorService timer;
+
+    private final MicroBatcher<SearchRequest, SearchResponse> batcher;
+
+    public SearchBatcher(AsyncEsClient client, BatchProperties properties) {
+        this.client = client;
+        BatchProperties.Window window = properties.getSearch();
+        this.enabled = window.isEnabled();
+        this.maxSize = window.getMaxSize();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("es-search-batcher-");
+        threadFactory.setDaemon(true);
+        this.timer = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        // SearchRequest 的 equals 要比较整个查询，去重的代价比重复查询还大，不去重
+        this.batcher = new MicroBatcher<>("msearch", window.getMaxWait(), maxSize, false, this::load, timer);
+    }
+
+    public CompletableFuture<SearchResponse> search(SearchRequest request) {
+        if (!enabled || request.scroll() != null) {
+            return client.search(request);
+        }
+        return batcher.submit(request);
+    }
+
+    /**
+     * 开启一个收集范围，用 try-with-resources 包住一个页面的所有搜索
+     */
+    public Scope scope() {
+        return new Scope();
+    }
+
+    public MicroBatcher<SearchRequest, SearchResponse> getBatcher() {
+        return batcher;
+    }
+
+    private CompletableFuture<?> load(List<SearchRequest> requests, List<CompletableFuture<SearchResponse>> results) {
+        MultiSearchRequest msearch = new MultiSearchRequest();
+        requests.forEach(msearch::add);
+        return client.msearch(msearch).thenAccept(response -> {
+            MultiSearchResponse.Item[] items = response.getResponses();
+            for (int i = 0; i < items.length; i++) {
+                MultiSearchResponse.Item item = items[i];
+                if (item.isFailure()) {
+                    results.get(i).completeExceptionally(item.getFailure());
+                } else {
+                    results.get(i).complete(item.getResponse());
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        batcher.flush();
+        timer.shutdown();
+    }
+
+    /**
+     * 页面级的收集范围，登记搜索非线程安全。超过 maxSize 个搜索时拆成多个 msearch 并发发送。
+     * 只能执行一次，close 在 execute 之后不再发送
+     */
+    public class Scope implements AutoCloseable {
+
+        private final List<SearchRequest> requests = new ArrayList<>();
+
+        private final List<CompletableFuture<SearchResponse>> results = new ArrayList<>();
+
+        private final AtomicBoolean executed = new AtomicBoolean();
+
+        private Scope() {
+        }
+
+        /**
+         * 登记一个搜索，返回的 future 在 execute 或 close 之后才会完成
+         */
+        public CompletableFuture<SearchResponse> search(SearchRequest request) {
+            if (executed.get()) {
+                throw new IllegalStateException("scope 已经执行");
+            }
+            if (request.scroll() != null) {
+                return client.search(request);
+            }
+            CompletableFuture<SearchResponse> result = new CompletableFuture<>();
+            requests.add(request);
+            results.add(result);
+            return result;
+        }
+
+        /**
+         * 发出登记的所有搜索，返回的 future 在全部完成（无论成败）后完成
+         *
+         * @throws IllegalStateException 已经执行过
+         */
+        public CompletableFuture<Void> execute() {
+            if (!executed.compareAndSet(false, true)) {
+                throw new IllegalStateException("scope 已经执行");
+            }
+            return send();
+        }
+
+        private CompletableFuture<Void> send() {
+            List<CompletableFuture<?>> chunks = new ArrayList<>();
+            for (int from = 0; from < requests.size(); from += maxSize) {
+                int to = Math.min(from + maxSize, requests.size());
+                List<CompletableFuture<SearchResponse>> chunkResults = results.subList(from, to);
+                CompletableFuture<?> loaded = load(requests.subList(from, to), chunkResults);
+                chunks.add(loaded.handle((ignored, e) -> {
+                    for (CompletableFuture<SearchResponse> result : chunkResults) {
+                        if (!result.isDone()) {
+                            result.completeExceptionally(e != null ? e
+                                    : new IllegalStateException("msearch 结果中缺少条目"));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0]));
+        }
+
+        @Override
+        public void close() {
+            if (executed.compareAndSet(false, true)) {
+                send();
+            }
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package cn.king.bulk;
+
+import cn.king.client.DocumentWriteEvent;
+import cn.king.client.OperationType;
+import cn.king.config.WireFormats;
+import cn.king.mapping.PooledIndexRequest;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 10:30
+ * @version: 1.0.0
+ * @description: 批量写入。生产者把文档放进有界队列，分发线程按条数/字节数/时间攒批后调用 bulkAsync。
+ * <p>
+ * 背压：在途的 bulk 请求数达到 concurrentRequests 时分发线程阻塞，队列随之堆满，生产者的 add 被阻塞、offer 返回 false。
+ * <p>
+ * 重试：只重试 bulk 响应中失败且可重试（429/502/503/504）的条目，等待时间指数增长。
+ * 一批数据在重试期间一直占着在途名额，集群忙的时候写入会自然慢下来。
+ * 整个请求失败（网络异常等）时整批重试，没有指定 id 的文档可能因此重复写入
+ * <p>
+ * 每个写入成功的条目发布一个 DocumentWriteEvent。PooledIndexRequest 在得到最终结果后自动释放缓冲区
+ * <p>
+ * bulk 请求的格式跟随 WireFormats 中写操作的配置，同一批中所有文档的 XContentType 必须一致
+ * <p>
+ * 分发线程遇到无法加入 bulk 的请求（如没有 source 的 IndexRequest）或其他运行时异常时，记为失败并继续运行，
+ * 不会因为一条坏数据退出，让之后提交的文档永远等不到结果
+ */
+@Service
+public class BulkIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkIngestionService.class);
+
+    /**
+     * 分发线程等待新文档的最长时间，决定了 flush() 的响应速度
+     */
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final RestHighLevelClient client;
+
+    private final BulkProperties properties;
+
+    private final BlockingQueue<DocWriteRequest<?>> queue;
+
+    private final Semaphore inFlight;
+
+    private final ScheduledExecutorService retryScheduler;
+
+    private final Thread dispatcher;
+
+    /**
+     * 已提交但还没有最终结果（成功或最终失败）的文档数
+     */
+    private final AtomicLong pending = new AtomicLong();
+
+    private final BulkStats stats = new BulkStats();
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final WireFormats wireFormats;
+
+    private volatile boolean running = true;
+
+    private volatile boolean flushRequested;
+
+    public BulkIngestionService(RestHighLevelClient client, BulkProperties properties,
+                                ApplicationEventPublisher eventPublisher, WireFormats wireFormats) {
+        this.client = client;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.wireFormats = wireFormats;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.inFlight = new Semaphore(properties.getConcurrentRequests());
+        CustomizableThreadFactory retryThreadFactory = new CustomizableThreadFactory("es-bulk-retry-");
+        retryThreadFactory.setDaemon(true);
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(retryThreadFactory);
+        this.dispatcher = new Thread(this::dispatch, "es-bulk-dispatcher");
+        this.dispatcher.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        dispatcher.start();
+    }
+
+    /**
+     * 提交一条写请求，队列满时阻塞
+     */
+    public void add(DocWriteRequest<?> request) throws InterruptedException {
+        checkRunning();
+        pending.incrementAndGet();
+        try {
+            queue.put(request);
+        } catch (InterruptedException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+        stats.submitted.increment();
+    }
+
+    /**
+     * 提交一条写请求，队列满时最多等待 timeout，超时返回 false
+     */
+    public boolean offer(DocWriteRequest<?> request, long timeout, TimeUnit unit) throws InterruptedException {
+        checkRunning();
+        pending.incrementAndGet();
+        if (queue.offer(request, timeout, unit)) {
+            stats.submitted.increment();
+            return true;
+        }
+        pending.decrementAndGet();
+        stats.queueRejections.increment();
+        return false;
+    }
+
+    /**
+     * 索引一条文档，队列满时阻塞
+     */
+    public void index(String index, String id, BytesReference source, XContentType xContentType) throws InterruptedException {
+        add(new IndexRequest(index).id(id).source(source, xContentType));
+    }
+
+    /**
+     * 让分发线程立即发送已攒下的文档
+     */
+    public void flush() {
+        flushRequested = true;
+    }
+
+    /**
+     * 等待所有已提交的文档得到最终结果
+     *
+     * @return 超时返回 false
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (pending.get() > 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            flush();
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    public BulkStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 当前排队中的文档数
+     */
+    public int queueSize() {
+        return queue.size();
+    }
+
+    private void checkRunning() {
+        if (!running) {
+            throw new IllegalStateException("BulkIngestionService 已关闭");
+        }
+    }
+
+    private void dispatch() {
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        int maxActions = properties.getActions();
+        long maxBytes = properties.getSize().toBytes();
+        BulkRequest batch = null;
+        long deadline = 0;
+        try {
+            while (running || !queue.isEmpty() || batch != null) {
+                try {
+                    long waitNanos = batch == null ? POLL_NANOS : Math.min(deadline - System.nanoTime(), POLL_NANOS);
+                    DocWriteRequest<?> request = waitNanos > 0 ? queue.poll(waitNanos, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (request != null) {
+                        if (batch == null) {
+                            batch = new BulkRequest();
+                            deadline = System.nanoTime() + flushIntervalNanos;
+                        }
+                        append(batch, request);
+                        // 队列里已有的文档不等待，直接攒进来
+                        while (batch.numberOfActions() < maxActions && batch.estimatedSizeInBytes() < maxBytes
+                                && (request = queue.poll()) != null) {
+                            append(batch, request);
+                        }
+                        if (batch.numberOfActions() == 0) {
+                            batch = null;
+                        }
+                    }
+                    if (batch == null) {
+                        flushRequested = false;
+                        continue;
+                    }
+                    if (batch.numberOfActions() >= maxActions || batch.estimatedSizeInBytes() >= maxBytes
+                            || System.nanoTime() - deadline >= 0 || flushRequested || !running) {
+                        flushRequested = false;
+                        // 在途请求满了在这里阻塞，背压由此传递给生产者
+                        inFlight.acquire();
+                        BulkRequest sending = batch;
+                        batch = null;
+                        send(sending, 0);
+                    }
+                } catch (RuntimeException e) {
+                    log.error("bulk 分发出错，当前批次记为失败 actions={}", batch == null ? 0 : batch.numberOfActions(), e);
+                    if (batch != null) {
+                        failAll(batch, e);
+                        batch = null;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (batch != null) {
+                failAll(batch, e);
+            }
+        }
+    }
+
+    /**
+     * 把请求加入批次，加不进去的直接记为失败
+     */
+    private void append(BulkRequest batch, DocWriteRequest<?> request) {
+        try {
+            batch.add(request);
+        } catch (RuntimeException e) {
+            log.error("请求无法加入 bulk，记为失败 index={} id={}", request.index(), request.id(), e);
+            PooledIndexRequest.releaseIfPooled(request);
+            stats.failed.increment();
+            pending.decrementAndGet();
+        }
+    }
+
+    /**
+     * 发送一个 bulk 请求，测试中替换为不访问 es 的实现
+     */
+    void bulkAsync(BulkRequest bulk, ActionListener<BulkResponse> listener) {
+        client.bulkAsync(bulk, wireFormats.options(OperationType.WRITE), listener);
+    }
+
+    private void send(BulkRequest bulk, int attempt) {
+        long start = System.nanoTime();
+        try {
+            bulkAsync(bulk, new ActionListener<BulkResponse>() {
+                @Override
+                public void onResponse(BulkResponse response) {
+                    stats.recordBatch(System.nanoTime() - start);
+                    onBulkResponse(bulk, response, attempt);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    onBulkFailure(bulk, e, attempt);
+                }
+            });
+        } catch (Exception e) {
+            onBulkFailure(bulk, e, attempt);
+        }
+    }
+
+    private void onBulkResponse(BulkRequest bulk, BulkResponse response, int attempt) {
+        if (log.isDebugEnabled()) {
+            log.debug("bulk 完成 actions={} took={} attempt={} failures={}",
+                    bulk.numberOfActions(), response.getTook(), attempt, response.hasFailures());
+        }
+        List<DocWriteRequest<?>> requests = bulk.requests();
+        BulkRequest retry = null;
+        for (BulkItemResponse item : response.getItems()) {
+            if (!item.isFailed()) {
+                DocWriteRequest<?> request = requests.get(item.getItemId());
+                eventPublisher.publishEvent(DocumentWriteEvent.of(request, item.getResponse()));
+                PooledIndexRequest.releaseIfPooled(request);
+                stats.succeeded.increment();
+                pending.decrementAndGet();
+                continue;
+            }
+            RestStatus status = item.getFailure().getStatus();
+            if (status == RestStatus.TOO_MANY_REQUESTS) {
+                stats.esRejections.increment();
+            }
+            if (isRetryable(status) && attempt < properties.getMaxRetries()) {
+                if (retry == null) {
+                    retry = new BulkRequest();
+                }
+                retry.add(requests.get(item.getItemId()));
+            } else {
+                PooledIndexRequest.releaseIfPooled(requests.get(item.getItemId()));
+                stats.failed.increment();
+                pending.decrementAndGet();
+                log.warn("bulk 条目写入失败 index={} id={} status={} reason={}",
+                        item.getIndex(), item.getId(), status, item.getFailureMessage());
+            }
+        }
+        if (retry != null) {
+            scheduleRetry(retry, attempt + 1);
+        } else {
+            inFlight.release();
+        }
+    }
+
+    private void onBulkFailure(BulkRequest bulk, Exception e, int attempt) {
+        if (isRetryable(e) && attempt < properties.getMaxRetries()) {
+            if (e instanceof ElasticsearchException && ((ElasticsearchException) e).status() == RestStatus.TOO_MANY_REQUESTS) {
+                stats.esRejections.add(bulk.numberOfActions());
+            }
+            scheduleRetry(bulk, attempt + 1);
+            return;
+        }
+        log.error("bulk 请求失败 actions={} attempt={}", bulk.numberOfActions(), attempt, e);
+        failAll(bulk, e);
+        inFlight.release();
+    }
+
+    private void failAll(BulkRequest bulk, Exception e) {
+        bulk.requests().forEach(PooledIndexRequest::releaseIfPooled);
+        stats.failed.add(bulk.numberOfActions());
+        pending.addAndGet(-bulk.numberOfActions());
+    }
+
+    private void scheduleRetry(BulkRequest retry, int attempt) {
+        stats.retried.add(retry.numberOfActions());
+        long delay = Math.min(properties.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20),
+                properties.getMaxBackoff().toMillis());
+        retryScheduler.schedule(() -> send(retry, attempt), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static boolean isRetryable(RestStatus status) {
+        return status == RestStatus.TOO_MANY_REQUESTS
+                || status == RestStatus.BAD_GATEWAY
+                || status == RestStatus.SERVICE_UNAVAILABLE
+                || status == RestStatus.GATEWAY_TIMEOUT;
+    }
+
+    private static boolean isRetryable(Exception e) {
+        if (e instanceof ElasticsearchException) {
+            return isRetryable(((ElasticsearchException) e).status());
+        }
+        return e instanceof IOException;
+    }
+
+    /**
+     * 停止接收新文档，把队列中和在途的文档处理完再退出
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        long timeoutMillis = Math.max(properties.getMaxBackoff().toMillis() * 2, 30000);
+        dispatcher.join(timeoutMillis);
+        if (!inFlight.tryAcquire(properties.getConcurrentRequests(), timeoutMillis, TimeUnit.MILLISECONDS)) {
+            log.warn("关闭时仍有 bulk 请求未完成 pending={}", pending.get());
+        }
+        retryScheduler.shutdownNow();
+        log.info("BulkIngestionService 已关闭 {}", stats);
+    }
+}
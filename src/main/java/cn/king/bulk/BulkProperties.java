@@ -0,0 +1,120 @@
+package cn.king.bulk;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 10:20
+ * @version: 1.0.0
+ * @description: 批量写入配置。攒够 actions 条、攒够 size 字节、或距第一条超过 flushInterval，三者满足其一就发一批
+ */
+@ConfigurationProperties(prefix = "elasticsearch.bulk")
+public class BulkProperties {
+
+    /**
+     * 每批最大文档数
+     */
+    private int actions = 1000;
+
+    /**
+     * 每批最大字节数
+     */
+    private DataSize size = DataSize.ofMegabytes(5);
+
+    /**
+     * 一批最多攒多久
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * 同时在途的 bulk 请求数
+     */
+    private int concurrentRequests = 4;
+
+    /**
+     * 待发送队列容量。队列满了生产者会被阻塞（add）或被拒绝（offer）
+     */
+    private int queueCapacity = 50000;
+
+    /**
+     * 失败条目的最大重试次数
+     */
+    private int maxRetries = 5;
+
+    /**
+     * 第一次重试的等待时间，之后每次翻倍
+     */
+    private Duration initialBackoff = Duration.ofMillis(100);
+
+    /**
+     * 重试等待时间上限
+     */
+    private Duration maxBackoff = Duration.ofSeconds(10);
+
+    public int getActions() {
+        return actions;
+    }
+
+    public void setActions(int actions) {
+        this.actions = actions;
+    }
+
+    public DataSize getSize() {
+        return size;
+    }
+
+    public void setSize(DataSize size) {
+        this.size = size;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public int getConcurrentRequests() {
+        return concurrentRequests;
+    }
+
+    public void setConcurrentRequests(int concurrentRequests) {
+        this.concurrentRequests = concurrentRequests;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public void setInitialBackoff(Duration initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(Duration maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+}
@@ -0,0 +1,117 @@
+package cn.king.bulk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 10:25
+ * @version: 1.0.0
+ * @description: 批量写入的统计。计数全部用 LongAdder，写入线程之间不争抢
+ */
+public class BulkStats {
+
+    /**
+     * 生产者提交的文档数
+     */
+    final LongAdder submitted = new LongAdder();
+
+    /**
+     * 写入成功的文档数
+     */
+    final LongAdder succeeded = new LongAdder();
+
+    /**
+     * 最终失败（不可重试或重试次数用完）的文档数
+     */
+    final LongAdder failed = new LongAdder();
+
+    /**
+     * 被重试的条目数
+     */
+    final LongAdder retried = new LongAdder();
+
+    /**
+     * 队列满了 offer 失败的次数，即对生产者的拒绝
+     */
+    final LongAdder queueRejections = new LongAdder();
+
+    /**
+     * es 返回 429 的条目数，即集群对我们的拒绝
+     */
+    final LongAdder esRejections = new LongAdder();
+
+    /**
+     * 已完成的 bulk 请求数（含重试）
+     */
+    final LongAdder batches = new LongAdder();
+
+    final LongAdder batchLatencyNanos = new LongAdder();
+
+    final LongAccumulator maxBatchLatencyNanos = new LongAccumulator(Long::max, 0);
+
+    volatile long lastBatchLatencyNanos;
+
+    void recordBatch(long latencyNanos) {
+        batches.increment();
+        batchLatencyNanos.add(latencyNanos);
+        maxBatchLatencyNanos.accumulate(latencyNanos);
+        lastBatchLatencyNanos = latencyNanos;
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public long getSucceeded() {
+        return succeeded.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getRetried() {
+        return retried.sum();
+    }
+
+    public long getQueueRejections() {
+        return queueRejections.sum();
+    }
+
+    public long getEsRejections() {
+        return esRejections.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public double getAvgBatchLatencyMillis() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) batchLatencyNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public long getMaxBatchLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxBatchLatencyNanos.get());
+    }
+
+    public long getLastBatchLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastBatchLatencyNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "BulkStats{submitted=" + getSubmitted() +
+                ", succeeded=" + getSucceeded() +
+                ", failed=" + getFailed() +
+                ", retried=" + getRetried() +
+                ", queueRejections=" + getQueueRejections() +
+                ", esRejections=" + getEsRejections() +
+                ", batches=" + getBatches() +
+                ", avgBatchLatencyMillis=" + String.format("%.1f", getAvgBatchLatencyMillis()) +
+                ", maxBatchLatencyMillis=" + getMaxBatchLatencyMillis() +
+                '}';
+    }
+}
@@ -0,0 +1,203 @@
+package cn.king.cache;
+
+import cn.king.client.AsyncEsClient;
+import cn.king.client.DocumentWriteEvent;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 15:30
+ * @version: 1.0.0
+ * @description: 带本地缓存的搜索。适合条件相同、结果集小、反复执行的热点查询，如 term/range/prefix 查询。
+ * <p>
+ * 1. 淘汰：caffeine 的 W-TinyLFU，同时受条数、估算字节数和过期时间限制
+ * 2. 失效：每个索引维护一个版本号，经过我们写入路径的写操作（DocumentWriteEvent）会把对应索引的版本号加一。
+ * 缓存条目记录了查询发出前各索引的版本号，读取时版本号对不上就当作未命中重新查询，写入时不需要遍历缓存
+ * 3. 相同的查询同时未命中时只会发一次请求
+ * 4. 通配符索引和 _all 依赖全局版本号，任何写入都会使其失效。通过别名查询的，写入时也要用同一个别名，否则只能等过期
+ */
+@Component
+public class CachingSearchClient {
+
+    private final AsyncEsClient client;
+
+    private final SearchCacheProperties properties;
+
+    private final AsyncCache<SearchCacheKey, CachedResponse> cache;
+
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final AtomicLong globalGeneration = new AtomicLong();
+
+    /**
+     * 因为写入而失效的次数
+     */
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * 命中缓存节省下来的 es 耗时（took 之和）
+     */
+    private final LongAdder savedTookMillis = new LongAdder();
+
+    public CachingSearchClient(AsyncEsClient client, SearchCacheProperties properties) {
+        this.client = client;
+        this.properties = properties;
+        long maxBytes = properties.getMaxSize().toBytes();
+        // 每条至少按 maxBytes / maxEntries 计重，这样条数和字节数两个上限都能生效
+        int minWeight = (int) Math.max(1, maxBytes / properties.getMaxEntries());
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((SearchCacheKey key, CachedResponse value) -> Math.max(minWeight, key.weight() + value.weight))
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .buildAsync();
+    }
+
+    public CompletableFuture<SearchResponse> search(SearchRequest request) {
+        if (!cacheable(request)) {
+            return client.search(request);
+        }
+        SearchCacheKey key = SearchCacheKey.of(request);
+        // 这次调用自己发出的查询不算节省
+        AtomicBoolean loaded = new AtomicBoolean();
+        CompletableFuture<CachedResponse> future = cache.get(key, (k, executor) -> {
+            loaded.set(true);
+            return load(request, k);
+        });
+        return future.thenCompose(cached -> {
+            if (cached.isFresh(currentGenerations(key))) {
+                if (!loaded.get()) {
+                    savedTookMillis.add(cached.response.getTook().millis());
+                }
+                return CompletableFuture.completedFuture(cached.response);
+            }
+            // 查询之后有写入，丢掉旧结果重新查。并发的重复请求只会有一个真正发出去
+            invalidations.increment();
+            cache.asMap().remove(key, future);
+            return cache.get(key, (k, executor) -> load(request, k)).thenApply(reloaded -> reloaded.response);
+        });
+    }
+
+    @EventListener
+    public void onWrite(DocumentWriteEvent event) {
+        invalidate(event.getIndex());
+    }
+
+    /**
+     * 使某个索引的所有缓存失效，如别名切换之后
+     */
+    public void invalidate(String index) {
+        generations.computeIfAbsent(index, i -> new AtomicLong()).incrementAndGet();
+        globalGeneration.incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    public long invalidations() {
+        return invalidations.sum();
+    }
+
+    public long savedTookMillis() {
+        return savedTookMillis.sum();
+    }
+
+    public long estimatedSize() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    private boolean cacheable(SearchRequest request) {
+        if (!properties.isEnabled() || request.scroll() != null) {
+            return false;
+        }
+        SearchSourceBuilder source = request.source();
+        if (source == null) {
+            return true;
+        }
+        if (source.pointInTimeBuilder() != null || source.profile()) {
+            return false;
+        }
+        // size 未设置时 es 默认返回 10 条
+        int size = source.size() < 0 ? 10 : source.size();
+        return size <= properties.getMaxHits();
+    }
+
+    private CompletableFuture<CachedResponse> load(SearchRequest request, SearchCacheKey key) {
+        // 版本号必须在请求发出之前取，查询期间发生的写入会让这条结果在下次读取时失效
+        long[] snapshot = currentGenerations(key);
+        return client.search(request).thenApply(response -> new CachedResponse(response, snapshot));
+    }
+
+    private long[] currentGenerations(SearchCacheKey key) {
+        String[] indices = key.indices();
+        long[] current = new long[indices.length + 1];
+        for (int i = 0; i < indices.length; i++) {
+            if (isPattern(indices[i])) {
+                // 通配符无法知道具体写了哪个索引，用全局版本号
+                current[i] = globalGeneration.get();
+            } else {
+                AtomicLong generation = generations.get(indices[i]);
+                current[i] = generation == null ? 0 : generation.get();
+            }
+        }
+        current[indices.length] = indices.length == 0 ? globalGeneration.get() : 0;
+        return current;
+    }
+
+    private static boolean isPattern(String index) {
+        return index.indexOf('*') >= 0 || "_all".equals(index);
+    }
+
+    private static final class CachedResponse {
+
+        final SearchResponse response;
+
+        final long[] generations;
+
+        final int weight;
+
+        CachedResponse(SearchResponse response, long[] generations) {
+            this.response = response;
+            this.generations = generations;
+            this.weight = estimateWeight(response);
+        }
+
+        boolean isFresh(long[] current) {
+            return Arrays.equals(generations, current);
+        }
+
+        private static int estimateWeight(SearchResponse response) {
+            int weight = 512;
+            for (SearchHit hit : response.getHits().getHits()) {
+                BytesReference source = hit.getSourceRef();
+                weight += 256 + (source == null ? 0 : source.length());
+            }
+            if (response.getAggregations() != null) {
+                weight += 1024 * response.getAggregations().asList().size();
+            }
+            return weight;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package cn.king.cache;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 15:25
+ * @version: 1.0.0
+ * @description: 缓存 key。由索引、影响结果的请求参数、以及 SearchSourceBuilder 序列化后的字节组成。
+ * 同一个结构的 builder 序列化结果是确定的，字节相同即视为同一个查询
+ */
+final class SearchCacheKey {
+
+    private final String[] indices;
+
+    private final String routing;
+
+    private final String preference;
+
+    private final String searchType;
+
+    private final BytesReference body;
+
+    private final int hash;
+
+    private SearchCacheKey(String[] indices, String routing, String preference, String searchType, BytesReference body) {
+        this.indices = indices;
+        this.routing = routing;
+        this.preference = preference;
+        this.searchType = searchType;
+        this.body = body;
+        this.hash = Objects.hash(Arrays.hashCode(indices), routing, preference, searchType, body);
+    }
+
+    static SearchCacheKey of(SearchRequest request) {
+        String[] indices = request.indices().clone();
+        // 索引顺序不影响结果
+        Arrays.sort(indices);
+        BytesReference body;
+        try {
+            body = request.source() == null ? BytesArray.EMPTY
+                    : XContentHelper.toXContent(request.source(), XContentType.JSON, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new SearchCacheKey(indices, request.routing(), request.preference(), request.searchType().name(), body);
+    }
+
+    String[] indices() {
+        return indices;
+    }
+
+    /**
+     * 估算占用的字节数
+     */
+    int weight() {
+        return body.length() + 64;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchCacheKey)) {
+            return false;
+        }
+        SearchCacheKey that = (SearchCacheKey) o;
+        return hash == that.hash
+                && Arrays.equals(indices, that.indices)
+                && Objects.equals(routing, that.routing)
+                && Objects.equals(preference, that.preference)
+                && Objects.equals(searchType, that.searchType)
+                && body.equals(that.body);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", indices) + " " + body.utf8ToString();
+    }
+}
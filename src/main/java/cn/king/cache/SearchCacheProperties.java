@@ -0,0 +1,78 @@
+package cn.king.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 15:20
+ * @version: 1.0.0
+ * @description: 搜索结果缓存配置
+ */
+@ConfigurationProperties(prefix = "elasticsearch.cache")
+public class SearchCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 最大缓存条数
+     */
+    private int maxEntries = 10000;
+
+    /**
+     * 缓存结果的总大小上限（估算值）
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 写入后多久过期。不经过我们写入路径的改动（如 kibana 里直接改）只能靠过期
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    /**
+     * 请求的 size 超过这个值的查询不缓存，只缓存小结果集
+     */
+    private int maxHits = 100;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public DataSize getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(DataSize maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public int getMaxHits() {
+        return maxHits;
+    }
+
+    public void setMaxHits(int maxHits) {
+        this.maxHits = maxHits;
+    }
+}
@@ -0,0 +1,92 @@
+package cn.king.client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 11:10
+ * @version: 1.0.0
+ * @description: 异步客户端配置
+ */
+@ConfigurationProperties(prefix = "elasticsearch.async")
+public class AsyncClientProperties {
+
+    /**
+     * 默认超时时间，从提交开始算，包含排队时间。超时后会中断 http 请求
+     */
+    private Duration timeout = Duration.ofSeconds(10);
+
+    /**
+     * 每种操作的并发上限
+     */
+    private Map<OperationType, Limit> limits = new EnumMap<>(OperationType.class);
+
+    public AsyncClientProperties() {
+        limits.put(OperationType.SEARCH, new Limit(256, 4096));
+        limits.put(OperationType.GET, new Limit(256, 4096));
+        limits.put(OperationType.WRITE, new Limit(64, 1024));
+        limits.put(OperationType.ADMIN, new Limit(8, 64));
+    }
+
+    public Limit limit(OperationType type) {
+        Limit limit = limits.get(type);
+        return limit == null ? new Limit() : limit;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public Map<OperationType, Limit> getLimits() {
+        return limits;
+    }
+
+    public void setLimits(Map<OperationType, Limit> limits) {
+        this.limits = limits;
+    }
+
+    public static class Limit {
+
+        /**
+         * 同时在途的请求数上限
+         */
+        private int maxInFlight = 128;
+
+        /**
+         * 超过在途上限后最多排队的请求数，再多就直接拒绝
+         */
+        private int maxQueued = 1024;
+
+        public Limit() {
+        }
+
+        public Limit(int maxInFlight, int maxQueued) {
+            this.maxInFlight = maxInFlight;
+            this.maxQueued = maxQueued;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public int getMaxQueued() {
+            return maxQueued;
+        }
+
+        public void setMaxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+        }
+    }
+}
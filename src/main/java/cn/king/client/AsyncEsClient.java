@@ -0,0 +1,401 @@
+package cn.king.client;
+
+import cn.king.config.WireFormats;
+import cn.king.resilience.OperationGuard;
+import cn.king.resilience.Resilience;
+import cn.king.routing.NodePin;
+import cn.king.slowlog.SlowQueryRecorder;
+import org.apache.http.HttpHost;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeResponse;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.action.support.master.AcknowledgedResponse;
+import org.elasticsearch.action.update.UpdateResponse;
+import org.elasticsearch.client.Cancellable;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 11:20
+ * @version: 1.0.0
+ * @description: 基于 RestHighLevelClient 的 *Async 方法的异步客户端，返回 CompletableFuture。
+ * <p>
+ * 1. 每种操作类型单独限制在途请求数，超出的请求排队，排队也满了直接拒绝（RequestRejectedException）
+ * 2. 超时或调用方 cancel 时，会通过 Cancellable 中断底层的 http 请求，连接立即归还连接池
+ * 3. 回调运行在 http 客户端的 io 线程上，不要在 thenApply 之类的回调里做阻塞操作，重活请用 *Async 并指定线程池
+ * 4. 写操作成功后发布 DocumentWriteEvent，返回的 future 在事件处理完之后才完成，调用方紧接着的查询能看到缓存失效
+ * 5. 进入并发队列之前先经过 Resilience（熔断、限速、自适应并发上限），不通过的请求直接以 RequestRejectedException 失败
+ * 6. search 完成后交给 SlowQueryRecorder，超过阈值的记为慢查询
+ * 7. 不指定 RequestOptions 的方法使用 WireFormats 中按操作类型配置的格式（json/smile/cbor）
+ * 8. refresh/forcemerge/别名/settings 等管理操作走 ADMIN 的并发上限，不占用读写的名额
+ * 9. 在 NodePin.with 中调用时，请求固定发到指定节点，排队后在其他线程上发出也一样
+ */
+@Component
+public class AsyncEsClient {
+
+    private final RestHighLevelClient client;
+
+    private final AsyncClientProperties properties;
+
+    private final Map<OperationType, ConcurrencyLimiter> limiters = new EnumMap<>(OperationType.class);
+
+    private final ScheduledThreadPoolExecutor timer;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Resilience resilience;
+
+    private final SlowQueryRecorder slowQueryRecorder;
+
+    private final WireFormats wireFormats;
+
+    public AsyncEsClient(RestHighLevelClient client, AsyncClientProperties properties,
+                         ApplicationEventPublisher eventPublisher, Resilience resilience,
+                         SlowQueryRecorder slowQueryRecorder, WireFormats wireFormats) {
+        this.client = client;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.resilience = resilience;
+        this.slowQueryRecorder = slowQueryRecorder;
+        this.wireFormats = wireFormats;
+        for (OperationType type : OperationType.values()) {
+            AsyncClientProperties.Limit limit = properties.limit(type);
+            limiters.put(type, new ConcurrencyLimiter(type, limit.getMaxInFlight(), limit.getMaxQueued()));
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("es-async-timer-");
+        threadFactory.setDaemon(true);
+        this.timer = new ScheduledThreadPoolExecutor(1, threadFactory);
+        // 请求完成时取消的超时任务立即移出队列，否则每个请求的超时任务都要在堆里留到超时时间
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    public CompletableFuture<SearchResponse> search(SearchRequest request) {
+        return search(request, wireFormats.options(OperationType.SEARCH), properties.getTimeout());
+    }
+
+    public CompletableFuture<SearchResponse> search(SearchRequest request, RequestOptions options, Duration timeout) {
+        if (!slowQueryRecorder.isEnabled()) {
+            return execute(OperationType.SEARCH, request, options, timeout, client::searchAsync);
+        }
+        long start = System.nanoTime();
+        CompletableFuture<SearchResponse> future = execute(OperationType.SEARCH, request, options, timeout, client::searchAsync);
+        // 返回原来的 future，调用方 cancel 时才能中断 http 请求
+        future.whenComplete((response, e) -> {
+            if (response != null) {
+                slowQueryRecorder.onSearch(request, response, System.nanoTime() - start);
+            }
+        });
+        return future;
+    }
+
+    public CompletableFuture<SearchResponse> scroll(SearchScrollRequest request) {
+        return execute(OperationType.SEARCH, request, wireFormats.options(OperationType.SEARCH), properties.getTimeout(),
+                client::scrollAsync);
+    }
+
+    public CompletableFuture<MultiSearchResponse> msearch(MultiSearchRequest request) {
+        return msearch(request, wireFormats.options(OperationType.SEARCH), properties.getTimeout());
+    }
+
+    public CompletableFuture<MultiSearchResponse> msearch(MultiSearchRequest request, RequestOptions options, Duration timeout) {
+        return execute(OperationType.SEARCH, request, options, timeout, client::msearchAsync);
+    }
+
+    public CompletableFuture<GetResponse> get(GetRequest request) {
+        return get(request, wireFormats.options(OperationType.GET), properties.getTimeout());
+    }
+
+    public CompletableFuture<GetResponse> get(GetRequest request, RequestOptions options, Duration timeout) {
+        return execute(OperationType.GET, request, options, timeout, client::getAsync);
+    }
+
+    public CompletableFuture<MultiGetResponse> mget(MultiGetRequest request) {
+        return mget(request, wireFormats.options(OperationType.GET), properties.getTimeout());
+    }
+
+    public CompletableFuture<MultiGetResponse> mget(MultiGetRequest request, RequestOptions options, Duration timeout) {
+        return execute(OperationType.GET, request, options, timeout, client::mgetAsync);
+    }
+
+    public CompletableFuture<IndexResponse> index(IndexRequest request) {
+        return map(execute(OperationType.WRITE, request, wireFormats.options(OperationType.WRITE),
+                properties.getTimeout(), client::indexAsync), response -> publish(request, response));
+    }
+
+    public CompletableFuture<UpdateResponse> update(UpdateRequest request) {
+        return map(execute(OperationType.WRITE, request, wireFormats.options(OperationType.WRITE),
+                properties.getTimeout(), client::updateAsync), response -> publish(request, response));
+    }
+
+    public CompletableFuture<DeleteResponse> delete(DeleteRequest request) {
+        return map(execute(OperationType.WRITE, request, wireFormats.options(OperationType.WRITE),
+                properties.getTimeout(), client::deleteAsync), response -> publish(request, response));
+    }
+
+    public CompletableFuture<BulkResponse> bulk(BulkRequest request) {
+        return bulk(request, wireFormats.options(OperationType.WRITE), properties.getTimeout());
+    }
+
+    public CompletableFuture<BulkResponse> bulk(BulkRequest request, RequestOptions options, Duration timeout) {
+        return map(execute(OperationType.WRITE, request, options, timeout, client::bulkAsync), response -> {
+            publishBulkEvents(eventPublisher, request, response);
+            return response;
+        });
+    }
+
+    private <R extends DocWriteResponse> R publish(DocWriteRequest<?> request, R response) {
+        eventPublisher.publishEvent(DocumentWriteEvent.of(request, response));
+        return response;
+    }
+
+    /**
+     * 通过 low level client 发送原始请求，同样受并发上限和超时控制。用于需要自己解析响应字节的场景。
+     * 非 2xx 的响应以 ResponseException 失败
+     */
+    public CompletableFuture<Response> perform(OperationType type, Request request) {
+        return execute(type, request, request.getOptions(), properties.getTimeout(), (req, options, listener) ->
+                client.getLowLevelClient().performRequestAsync(req, new ResponseListener() {
+                    @Override
+                    public void onSuccess(Response response) {
+                        listener.onResponse(response);
+                    }
+
+                    @Override
+                    public void onFailure(Exception exception) {
+                        listener.onFailure(exception);
+                    }
+                }));
+    }
+
+    public CompletableFuture<RefreshResponse> refresh(RefreshRequest request) {
+        return execute(OperationType.ADMIN, request, wireFormats.options(OperationType.ADMIN), properties.getTimeout(),
+                (req, options, listener) -> client.indices().refreshAsync(req, options, listener));
+    }
+
+    /**
+     * force merge 耗时很长，timeout 一般要单独指定
+     */
+    public CompletableFuture<ForceMergeResponse> forcemerge(ForceMergeRequest request, Duration timeout) {
+        return execute(OperationType.ADMIN, request, wireFormats.options(OperationType.ADMIN), timeout,
+                (req, options, listener) -> client.indices().forcemergeAsync(req, options, listener));
+    }
+
+    public CompletableFuture<AcknowledgedResponse> updateAliases(IndicesAliasesRequest request) {
+        return execute(OperationType.ADMIN, request, wireFormats.options(OperationType.ADMIN), properties.getTimeout(),
+                (req, options, listener) -> client.indices().updateAliasesAsync(req, options, listener));
+    }
+
+    public CompletableFuture<AcknowledgedResponse> putSettings(UpdateSettingsRequest request) {
+        return execute(OperationType.ADMIN, request, wireFormats.options(OperationType.ADMIN), properties.getTimeout(),
+                (req, options, listener) -> client.indices().putSettingsAsync(req, options, listener));
+    }
+
+    /**
+     * 为 bulk 中每个成功的条目发布写入事件
+     */
+    public static void publishBulkEvents(ApplicationEventPublisher eventPublisher, BulkRequest request,
+                                         BulkResponse response) {
+        List<DocWriteRequest<?>> requests = request.requests();
+        for (BulkItemResponse item : response.getItems()) {
+            if (!item.isFailed()) {
+                eventPublisher.publishEvent(DocumentWriteEvent.of(requests.get(item.getItemId()), item.getResponse()));
+            }
+        }
+    }
+
+    /**
+     * 并发执行多个搜索，全部成功后按提交顺序返回。任意一个失败则整体失败，其余未完成的请求会被取消
+     */
+    public CompletableFuture<List<SearchResponse>> fanOut(Collection<SearchRequest> requests) {
+        List<CompletableFuture<SearchResponse>> futures = new ArrayList<>(requests.size());
+        for (SearchRequest request : requests) {
+            futures.add(search(request));
+        }
+        return allOf(futures);
+    }
+
+    /**
+     * 并发执行多个搜索，把每个结果转换后返回
+     */
+    public <T> CompletableFuture<List<T>> fanOut(Collection<SearchRequest> requests, Function<SearchResponse, T> mapper) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(requests.size());
+        for (SearchRequest request : requests) {
+            futures.add(map(search(request), mapper));
+        }
+        return allOf(futures);
+    }
+
+    /**
+     * 和 raw.thenApply(mapper) 相同，但返回的 future 被取消（或被调用方提前完成）时也会取消 raw。
+     * 直接 thenApply 得到的 future 取消时 raw 不受影响，http 请求会一直执行到结束或超时
+     */
+    public static <T, R> CompletableFuture<R> map(CompletableFuture<T> raw, Function<? super T, ? extends R> mapper) {
+        CompletableFuture<R> derived = raw.thenApply(mapper);
+        derived.whenComplete((result, e) -> {
+            if (!raw.isDone()) {
+                raw.cancel(false);
+            }
+        });
+        return derived;
+    }
+
+    /**
+     * 等待所有 future 完成，按顺序收集结果。任意一个失败时取消其余的 future
+     */
+    public static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+        CompletableFuture<List<T>> result = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<T> list = new ArrayList<>(futures.size());
+                    for (CompletableFuture<T> future : futures) {
+                        list.add(future.join());
+                    }
+                    return list;
+                });
+        for (CompletableFuture<T> future : futures) {
+            future.whenComplete((response, e) -> {
+                if (e != null) {
+                    futures.forEach(f -> f.cancel(false));
+                }
+            });
+        }
+        // 调用方取消整体结果时，取消所有子请求
+        result.whenComplete((list, e) -> {
+            if (result.isCancelled()) {
+                futures.forEach(f -> f.cancel(false));
+            }
+        });
+        return result;
+    }
+
+    public ConcurrencyLimiter limiter(OperationType type) {
+        return limiters.get(type);
+    }
+
+    /**
+     * 还在等待触发的超时任务数
+     */
+    int pendingTimeouts() {
+        return timer.getQueue().size();
+    }
+
+    private <Req, Resp> CompletableFuture<Resp> execute(OperationType type, Req request, RequestOptions options,
+                                                        Duration timeout, AsyncCall<Req, Resp> call) {
+        CompletableFuture<Resp> future = new CompletableFuture<>();
+        if (resilience.isEnabled()) {
+            OperationGuard.Permit permit;
+            try {
+                permit = resilience.guard(type).acquire();
+            } catch (RequestRejectedException e) {
+                future.completeExceptionally(e);
+                return future;
+            }
+            future.whenComplete((response, e) -> permit.complete(Resilience.classify(e)));
+        }
+        ScheduledFuture<?> timeoutTask = timer.schedule(
+                () -> future.completeExceptionally(new TimeoutException("[" + type + "] 请求超时 " + timeout)),
+                timeout.toMillis(), TimeUnit.MILLISECONDS);
+        future.whenComplete((response, e) -> timeoutTask.cancel(false));
+        ConcurrencyLimiter limiter = limiters.get(type);
+        // 排队的请求可能在别的请求完成时由 io 线程发出，固定的节点要跟着请求走
+        HttpHost pin = NodePin.current();
+        try {
+            limiter.submit(() -> NodePin.run(pin, () -> dispatch(limiter, future, request, options, call)));
+        } catch (RequestRejectedException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <Req, Resp> void dispatch(ConcurrencyLimiter limiter, CompletableFuture<Resp> future, Req request,
+                                      RequestOptions options, AsyncCall<Req, Resp> call) {
+        if (future.isDone()) {
+            // 排队期间已超时或已被取消
+            limiter.release();
+            return;
+        }
+        AtomicBoolean responded = new AtomicBoolean();
+        Cancellable cancellable;
+        try {
+            cancellable = call.call(request, options, new ActionListener<Resp>() {
+                @Override
+                public void onResponse(Resp response) {
+                    responded.set(true);
+                    future.complete(response);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    responded.set(true);
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (Exception e) {
+            limiter.release();
+            future.completeExceptionally(e);
+            return;
+        }
+        future.whenComplete((response, e) -> {
+            limiter.release();
+            if (!responded.get()) {
+                // 超时或被取消，中断 http 请求
+                cancellable.cancel();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface AsyncCall<Req, Resp> {
+
+        Cancellable call(Req request, RequestOptions options, ActionListener<Resp> listener);
+    }
+}
@@ -0,0 +1,110 @@
+package cn.king.client;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 11:15
+ * @version: 1.0.0
+ * @description: 非阻塞的并发限制。拿到名额的任务立即执行，拿不到的进入等待队列，由释放名额的线程接着执行，
+ * 全程不阻塞任何线程。等待队列满了直接拒绝。
+ * 任务在执行线程上同步失败并 release 时不会递归执行下一个任务，由外层正在 drain 的循环接着执行，排队再多也不会栈溢出
+ */
+public class ConcurrencyLimiter {
+
+    private final OperationType operationType;
+
+    private final int maxInFlight;
+
+    private final int maxQueued;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 当前线程是否已经在 drain 的循环里
+     */
+    private final ThreadLocal<Boolean> draining = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    public ConcurrencyLimiter(OperationType operationType, int maxInFlight, int maxQueued) {
+        this.operationType = operationType;
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * 提交任务。任务执行时已占用一个名额，任务负责在请求结束后调用 release()
+     *
+     * @throws RequestRejectedException 等待队列已满
+     */
+    public void submit(Runnable task) {
+        if (tryAcquire()) {
+            task.run();
+            return;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            throw new RequestRejectedException(operationType,
+                    "在途请求数已达上限 " + maxInFlight + "，且排队请求数已达上限 " + maxQueued);
+        }
+        waiting.offer(task);
+        // 入队期间可能恰好有名额被释放
+        drain();
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+
+    private void drain() {
+        if (draining.get()) {
+            // 外层循环会在任务返回后继续取下一个
+            return;
+        }
+        draining.set(Boolean.TRUE);
+        try {
+            while (!waiting.isEmpty() && tryAcquire()) {
+                Runnable task = waiting.poll();
+                if (task == null) {
+                    inFlight.decrementAndGet();
+                    // 名额还回去之后可能又有新任务入队
+                    continue;
+                }
+                queued.decrementAndGet();
+                task.run();
+            }
+        } finally {
+            draining.set(Boolean.FALSE);
+        }
+    }
+
+    private boolean tryAcquire() {
+        for (; ; ) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package cn.king.client;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.util.Map;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 15:00
+ * @version: 1.0.0
+ * @description: 文档写入成功的事件。经过 AsyncEsClient 和 BulkIngestionService 的写入在 es 确认之后发布，
+ * 监听者（缓存失效等）在发布线程上同步执行，通常是 http 客户端的 io 线程，不能做阻塞操作
+ */
+public class DocumentWriteEvent {
+
+    public enum Type {
+        INDEX, UPDATE, DELETE
+    }
+
+    /**
+     * 写请求中的索引名，可能是别名
+     */
+    private final String index;
+
+    private final String id;
+
+    private final Type type;
+
+    /**
+     * index 时为完整文档，update 时为局部文档（脚本更新时为 null），delete 时为 null。
+     * 可能引用池化的缓冲区，事件处理完后就会被复用，需要保留的监听者必须自己复制
+     */
+    private final BytesReference source;
+
+    private final XContentType xContentType;
+
+    private final long seqNo;
+
+    private final long primaryTerm;
+
+    private Map<String, Object> sourceAsMap;
+
+    public DocumentWriteEvent(String index, String id, Type type, BytesReference source, XContentType xContentType,
+                              long seqNo, long primaryTerm) {
+        this.index = index;
+        this.id = id;
+        this.type = type;
+        this.source = source;
+        this.xContentType = xContentType;
+        this.seqNo = seqNo;
+        this.primaryTerm = primaryTerm;
+    }
+
+    public static DocumentWriteEvent of(DocWriteRequest<?> request, DocWriteResponse response) {
+        BytesReference source = null;
+        XContentType xContentType = null;
+        Type type;
+        if (request instanceof IndexRequest) {
+            type = Type.INDEX;
+            source = ((IndexRequest) request).source();
+            xContentType = ((IndexRequest) request).getContentType();
+        } else if (request instanceof UpdateRequest) {
+            type = Type.UPDATE;
+            IndexRequest doc = ((UpdateRequest) request).doc();
+            if (doc != null) {
+                source = doc.source();
+                xContentType = doc.getContentType();
+            }
+        } else if (request instanceof DeleteRequest) {
+            type = Type.DELETE;
+        } else {
+            throw new IllegalArgumentException("不支持的写请求类型 " + request.getClass());
+        }
+        return new DocumentWriteEvent(request.index(), response.getId(), type, source, xContentType,
+                response.getSeqNo(), response.getPrimaryTerm());
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public BytesReference getSource() {
+        return source;
+    }
+
+    public XContentType getXContentType() {
+        return xContentType;
+    }
+
+    public long getSeqNo() {
+        return seqNo;
+    }
+
+    public long getPrimaryTerm() {
+        return primaryTerm;
+    }
+
+    /**
+     * 第一次调用时才解析 source
+     */
+    public synchronized Map<String, Object> sourceAsMap() {
+        if (sourceAsMap == null && source != null) {
+            sourceAsMap = XContentHelper.convertToMap(source, false, xContentType).v2();
+        }
+        return sourceAsMap;
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentWriteEvent{index=" + index + ", id=" + id + ", type=" + type + ", seqNo=" + seqNo + '}';
+    }
+}
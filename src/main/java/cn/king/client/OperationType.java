@@ -0,0 +1,30 @@
+package cn.king.client;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 11:00
+ * @version: 1.0.0
+ * @description: 操作类型。并发上限按类型分别控制，避免慢查询占满名额导致写入也进不来
+ */
+public enum OperationType {
+
+    /**
+     * search / msearch / scroll
+     */
+    SEARCH,
+
+    /**
+     * get / mget
+     */
+    GET,
+
+    /**
+     * index / update / delete / bulk
+     */
+    WRITE,
+
+    /**
+     * 索引管理、集群管理类操作
+     */
+    ADMIN
+}
@@ -0,0 +1,23 @@
+package cn.king.client;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 11:05
+ * @version: 1.0.0
+ * @description: 客户端主动拒绝的请求，请求没有发到 es。调用方应当快速失败或降级，而不是重试
+ */
+public class RequestRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final OperationType operationType;
+
+    public RequestRejectedException(OperationType operationType, String message) {
+        super("[" + operationType + "] " + message);
+        this.operationType = operationType;
+    }
+
+    public OperationType getOperationType() {
+        return operationType;
+    }
+}
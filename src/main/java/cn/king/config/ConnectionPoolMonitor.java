@@ -0,0 +1,91 @@
+package cn.king.config;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.IntervalTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 9:50
+ * @version: 1.0.0
+ * @description: es 连接池使用情况。leased 为正在使用的连接，pending 为排队等连接的请求，
+ * pending 长期大于 0 说明池子小了，leased 长期远小于 max 说明池子大了。
+ * 日志间隔取 ESProperties 中已经绑定的 Duration，1m、PT1M 等写法都可以
+ */
+@Component
+public class ConnectionPoolMonitor implements SchedulingConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPoolMonitor.class);
+
+    private final PoolingNHttpClientConnectionManager connectionManager;
+
+    private final RestHighLevelClient client;
+
+    private final ESProperties properties;
+
+    public ConnectionPoolMonitor(PoolingNHttpClientConnectionManager esConnectionManager, RestHighLevelClient client,
+                                 ESProperties properties) {
+        this.connectionManager = esConnectionManager;
+        this.client = client;
+        this.properties = properties;
+    }
+
+    /**
+     * 整个池子的统计
+     */
+    public PoolStats totalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * 每个节点的统计。节点列表取 RestClient 当前的节点，开启嗅探后会随集群变化
+     */
+    public Map<HttpHost, PoolStats> routeStats() {
+        Map<HttpHost, PoolStats> stats = new LinkedHashMap<>();
+        for (Node node : client.getLowLevelClient().getNodes()) {
+            HttpHost host = node.getHost();
+            boolean secure = "https".equalsIgnoreCase(host.getSchemeName());
+            stats.put(host, connectionManager.getStats(new HttpRoute(host, null, secure)));
+        }
+        return stats;
+    }
+
+    /**
+     * 连接池使用率：leased / max
+     */
+    public double utilization() {
+        PoolStats total = totalStats();
+        return total.getMax() == 0 ? 0 : (double) total.getLeased() / total.getMax();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        long interval = properties.getPoolStatsLogInterval().toMillis();
+        registrar.addFixedDelayTask(new IntervalTask(this::logStats, interval, interval));
+    }
+
+    public void logStats() {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        PoolStats total = totalStats();
+        log.info("es连接池 leased={} pending={} available={} max={} utilization={}",
+                total.getLeased(), total.getPending(), total.getAvailable(), total.getMax(),
+                String.format("%.2f", utilization()));
+        if (log.isDebugEnabled()) {
+            routeStats().forEach((host, stats) -> log.debug("es连接池 route={} {}", host, stats));
+        }
+    }
+}
@@ -1,12 +1,23 @@
 package cn.king.config;
 
 import org.apache.http.HttpHost;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
 import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestClientBuilder;
 import org.elasticsearch.client.RestHighLevelClient;
-import org.springframework.beans.factory.annotation.Value;
+import org.elasticsearch.client.sniff.SniffOnFailureListener;
+import org.elasticsearch.client.sniff.Sniffer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
 
 /**
  * @author: wjl@king.cn
@@ -17,12 +28,74 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class ESConfig {
 
-    @Value("${elasticsearch.host}")
-    private String host;
+    @Autowired
+    private ESProperties properties;
+
+    /**
+     * 节点失败时触发嗅探。sniffer 创建之后才会绑定上去
+     */
+    private final SniffOnFailureListener sniffOnFailureListener = new SniffOnFailureListener();
+
+    /**
+     * 自己创建连接池，而不是用 RestClientBuilder 默认的 30/10，这样才能拿到池子的使用情况。
+     * 连接池由 RestClient 负责关闭，这里不指定销毁方法
+     */
+    @Bean(destroyMethod = "")
+    public PoolingNHttpClientConnectionManager esConnectionManager() throws IOReactorException {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(properties.getIoThreadCount())
+                .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                .setSoTimeout((int) properties.getSocketTimeout().toMillis())
+                .setSoKeepAlive(true)
+                .setTcpNoDelay(true)
+                .build();
+        PoolingNHttpClientConnectionManager connectionManager =
+                new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+        connectionManager.setMaxTotal(properties.getMaxConnTotal());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConnPerRoute());
+        return connectionManager;
+    }
+
+    @Bean
+    public RestHighLevelClient restHighLevelClient(PoolingNHttpClientConnectionManager esConnectionManager,
+                                                   ObjectProvider<RestClientCustomizer> customizers) {
+        List<HttpHost> hosts = properties.httpHosts();
+        long keepAliveMillis = properties.getKeepAlive().toMillis();
+        RestClientBuilder builder = RestClient.builder(hosts.toArray(new HttpHost[0]))
+                .setRequestConfigCallback(requestConfigBuilder -> requestConfigBuilder
+                        .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                        .setSocketTimeout((int) properties.getSocketTimeout().toMillis())
+                        .setConnectionRequestTimeout((int) properties.getConnectionRequestTimeout().toMillis()))
+                .setHttpClientConfigCallback(httpClientBuilder -> {
+                    httpClientBuilder
+                            .setConnectionManager(esConnectionManager)
+                            .setKeepAliveStrategy((response, context) -> keepAliveMillis);
+                    customizers.orderedStream().forEach(customizer -> customizer.customize(httpClientBuilder));
+                    return httpClientBuilder;
+                });
+        builder.setCompressionEnabled(properties.isCompression());
+        if (properties.getSniff().isEnabled() && properties.getSniff().isOnFailure()) {
+            builder.setFailureListener(sniffOnFailureListener);
+        }
+        customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+        return new RestHighLevelClient(builder);
+    }
 
+    /**
+     * 节点嗅探。定时从集群拉取可用节点，替换掉配置的节点列表
+     */
     @Bean
-    public RestHighLevelClient restHighLevelClient() {
-        return new RestHighLevelClient(RestClient.builder(new HttpHost("txyun", 9200, "http")));
+    @ConditionalOnProperty(prefix = "elasticsearch.sniff", name = "enabled", havingValue = "true")
+    public Sniffer sniffer(RestHighLevelClient restHighLevelClient) {
+        ESProperties.Sniff sniff = properties.getSniff();
+        Sniffer sniffer = Sniffer.builder(restHighLevelClient.getLowLevelClient())
+                .setSniffIntervalMillis((int) sniff.getInterval().toMillis())
+                .setSniffAfterFailureDelayMillis((int) sniff.getAfterFailureDelay().toMillis())
+                .build();
+        if (sniff.isOnFailure()) {
+            sniffOnFailureListener.setSniffer(sniffer);
+        }
+        return sniffer;
     }
 
 }
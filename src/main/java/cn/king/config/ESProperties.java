@@ -0,0 +1,260 @@
+package cn.king.config;
+
+import cn.king.client.OperationType;
+import org.apache.http.HttpHost;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 9:30
+ * @version: 1.0.0
+ * @description: es 传输层配置。对应 application.yml 中 elasticsearch 前缀下的配置
+ */
+@ConfigurationProperties(prefix = "elasticsearch")
+public class ESProperties {
+
+    /**
+     * 单节点写法，如 txyun:9200。兼容旧配置，配置了 nodes 时以 nodes 为准
+     */
+    private String host;
+
+    /**
+     * 节点列表，如 http://es01:9200
+     */
+    private List<String> nodes = new ArrayList<>();
+
+    /**
+     * 建立 tcp 连接的超时时间
+     */
+    private Duration connectTimeout = Duration.ofSeconds(1);
+
+    /**
+     * 等待响应数据的超时时间
+     */
+    private Duration socketTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 从连接池中获取连接的超时时间。池子打满时请求最多排队这么久
+     */
+    private Duration connectionRequestTimeout = Duration.ofMillis(500);
+
+    /**
+     * 连接池总连接数。apache 默认只有 30
+     */
+    private int maxConnTotal = 200;
+
+    /**
+     * 每个节点（route）的最大连接数。apache 默认只有 10
+     */
+    private int maxConnPerRoute = 100;
+
+    /**
+     * io reactor 线程数，默认为 cpu 核数
+     */
+    private int ioThreadCount = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 空闲连接的保活时间。es 不返回 Keep-Alive 头，不设置的话连接会一直保留到被服务端或防火墙掐断
+     */
+    private Duration keepAlive = Duration.ofMinutes(5);
+
+    /**
+     * 连接池使用情况的日志打印间隔
+     */
+    private Duration poolStatsLogInterval = Duration.ofMinutes(1);
+
+    /**
+     * gzip 压缩请求体，同时声明接受 gzip 响应（es 的 http.compression 默认开启）。省带宽，两端多花 cpu
+     */
+    private boolean compression = false;
+
+    /**
+     * 每种操作使用的格式，默认 json。读操作决定响应格式（Accept 头），写操作还决定 DocumentSerializer 默认的 bulk 请求体格式。
+     * high level client 的 bulk 只支持 json 和 smile
+     */
+    private Map<OperationType, XContentType> formats = new EnumMap<>(OperationType.class);
+
+    private final Sniff sniff = new Sniff();
+
+    /**
+     * 解析出所有节点。nodes 为空时退回到 host
+     */
+    public List<HttpHost> httpHosts() {
+        List<HttpHost> hosts = new ArrayList<>();
+        for (String node : nodes) {
+            if (StringUtils.hasText(node)) {
+                hosts.add(HttpHost.create(node.trim()));
+            }
+        }
+        if (hosts.isEmpty() && StringUtils.hasText(host)) {
+            hosts.add(HttpHost.create(host.trim()));
+        }
+        if (hosts.isEmpty()) {
+            throw new IllegalStateException("elasticsearch.nodes 和 elasticsearch.host 至少配置一个");
+        }
+        return hosts;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(List<String> nodes) {
+        this.nodes = nodes;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public void setSocketTimeout(Duration socketTimeout) {
+        this.socketTimeout = socketTimeout;
+    }
+
+    public Duration getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    public int getMaxConnTotal() {
+        return maxConnTotal;
+    }
+
+    public void setMaxConnTotal(int maxConnTotal) {
+        this.maxConnTotal = maxConnTotal;
+    }
+
+    public int getMaxConnPerRoute() {
+        return maxConnPerRoute;
+    }
+
+    public void setMaxConnPerRoute(int maxConnPerRoute) {
+        this.maxConnPerRoute = maxConnPerRoute;
+    }
+
+    public int getIoThreadCount() {
+        return ioThreadCount;
+    }
+
+    public void setIoThreadCount(int ioThreadCount) {
+        this.ioThreadCount = ioThreadCount;
+    }
+
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(Duration keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public Duration getPoolStatsLogInterval() {
+        return poolStatsLogInterval;
+    }
+
+    public void setPoolStatsLogInterval(Duration poolStatsLogInterval) {
+        this.poolStatsLogInterval = poolStatsLogInterval;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    public Map<OperationType, XContentType> getFormats() {
+        return formats;
+    }
+
+    public void setFormats(Map<OperationType, XContentType> formats) {
+        this.formats = formats;
+    }
+
+    public Sniff getSniff() {
+        return sniff;
+    }
+
+    /**
+     * 节点嗅探配置。开启后定时从集群拉取节点列表，替换掉 nodes 中配置的节点
+     */
+    public static class Sniff {
+
+        private boolean enabled = false;
+
+        /**
+         * 定时嗅探间隔
+         */
+        private Duration interval = Duration.ofMinutes(5);
+
+        /**
+         * 节点请求失败后，间隔多久再嗅探一次
+         */
+        private Duration afterFailureDelay = Duration.ofMinutes(1);
+
+        /**
+         * 节点请求失败时是否立即触发嗅探
+         */
+        private boolean onFailure = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public Duration getAfterFailureDelay() {
+            return afterFailureDelay;
+        }
+
+        public void setAfterFailureDelay(Duration afterFailureDelay) {
+            this.afterFailureDelay = afterFailureDelay;
+        }
+
+        public boolean isOnFailure() {
+            return onFailure;
+        }
+
+        public void setOnFailure(boolean onFailure) {
+            this.onFailure = onFailure;
+        }
+    }
+}
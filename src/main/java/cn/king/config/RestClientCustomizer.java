@@ -0,0 +1,26 @@
+package cn.king.config;
+
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.elasticsearch.client.RestClientBuilder;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 9:35
+ * @version: 1.0.0
+ * @description: 构建 RestClient 时的扩展点。容器中的所有实现会在 ESConfig 中依次应用。
+ * RestClientBuilder 的 httpClientConfigCallback 只能设置一个，所以对 HttpAsyncClientBuilder 的定制统一走这里
+ */
+public interface RestClientCustomizer {
+
+    /**
+     * 定制 RestClientBuilder，如 NodeSelector、压缩等
+     */
+    default void customize(RestClientBuilder builder) {
+    }
+
+    /**
+     * 定制底层的 HttpAsyncClientBuilder，如拦截器
+     */
+    default void customize(HttpAsyncClientBuilder builder) {
+    }
+}
@@ -0,0 +1,51 @@
+package cn.king.config;
+
+import cn.king.client.OperationType;
+import org.apache.http.HttpHeaders;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 18:00
+ * @version: 1.0.0
+ * @description: 每种操作的传输格式。非 json 的操作预先建好带 Accept 头的 RequestOptions，es 按 Accept 返回 smile/cbor，
+ * high level client 按响应的 Content-Type 解析，调用方无感知。
+ * <p>
+ * 写操作的格式同时是 DocumentSerializer 默认的编码格式。一个 bulk 里所有条目的格式必须一致，
+ * 往同一个 BulkIngestionService 里既放 smile 文档又放 json 文档（如 source(Map)）会被 high level client 拒绝
+ */
+@Component
+public class WireFormats {
+
+    private final Map<OperationType, XContentType> formats = new EnumMap<>(OperationType.class);
+
+    private final Map<OperationType, RequestOptions> options = new EnumMap<>(OperationType.class);
+
+    public WireFormats(ESProperties properties) {
+        for (OperationType type : OperationType.values()) {
+            XContentType format = properties.getFormats().getOrDefault(type, XContentType.JSON);
+            if (type == OperationType.WRITE && format != XContentType.JSON && format != XContentType.SMILE) {
+                throw new IllegalArgumentException("写操作只支持 json 和 smile，配置的是 " + format);
+            }
+            formats.put(type, format);
+            options.put(type, format == XContentType.JSON ? RequestOptions.DEFAULT
+                    : RequestOptions.DEFAULT.toBuilder().addHeader(HttpHeaders.ACCEPT, format.mediaTypeWithoutParameters()).build());
+        }
+    }
+
+    public XContentType format(OperationType type) {
+        return formats.get(type);
+    }
+
+    /**
+     * 带格式的默认 RequestOptions，需要其他定制时在此基础上 toBuilder()
+     */
+    public RequestOptions options(OperationType type) {
+        return options.get(type);
+    }
+}
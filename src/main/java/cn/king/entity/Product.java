@@ -0,0 +1,106 @@
+package cn.king.entity;
+
+import com.alibaba.fastjson.annotation.JSONField;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 16:00
+ * @version: 1.0.0
+ * @description: product 索引的文档
+ * <p>
+ * PUT /product
+ * {
+ * "mappings": {
+ * "properties": {
+ * "title":{"type": "keyword"},
+ * "price":{"type": "double"},
+ * "create_time":{"type": "date"},
+ * "desc":{"type": "text","analyzer": "ik_max_word"}
+ * }
+ * }
+ * }
+ */
+public class Product {
+
+    /**
+     * 文档 id，不在 _source 中
+     */
+    @JSONField(serialize = false)
+    private String id;
+
+    private String title;
+
+    /**
+     * _source 中没有 price 时为 0
+     */
+    private double price;
+
+    /**
+     * 原样保存 es 中的日期字符串，如 2022-02-02
+     */
+    @JSONField(name = "create_time")
+    private String createTime;
+
+    private String desc;
+
+    public Product() {
+    }
+
+    public Product(String id, String title, double price, String createTime, String desc) {
+        this.id = id;
+        this.title = title;
+        this.price = price;
+        this.createTime = createTime;
+        this.desc = desc;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public void setPrice(double price) {
+        this.price = price;
+    }
+
+    public String getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(String createTime) {
+        this.createTime = createTime;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+
+    public void setDesc(String desc) {
+        this.desc = desc;
+    }
+
+    @Override
+    public String toString() {
+        return "Product{id=" + id +
+                ", title=" + title +
+                ", price=" + price +
+                ", createTime=" + createTime +
+                ", desc=" + desc +
+                '}';
+    }
+}
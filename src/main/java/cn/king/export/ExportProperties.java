@@ -0,0 +1,68 @@
+package cn.king.export;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 14:00
+ * @version: 1.0.0
+ * @description: 索引导出配置
+ */
+@ConfigurationProperties(prefix = "elasticsearch.export")
+public class ExportProperties {
+
+    /**
+     * 导出线程数，同时处理的 slice 数
+     */
+    private int workers = 4;
+
+    /**
+     * 每次 scroll 拉取的文档数
+     */
+    private int batchSize = 2000;
+
+    /**
+     * scroll 上下文的保活时间，即两批之间的最长间隔
+     */
+    private Duration scrollKeepAlive = Duration.ofMinutes(5);
+
+    /**
+     * 每个 slice 的写缓冲区大小
+     */
+    private DataSize bufferSize = DataSize.ofMegabytes(1);
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getScrollKeepAlive() {
+        return scrollKeepAlive;
+    }
+
+    public void setScrollKeepAlive(Duration scrollKeepAlive) {
+        this.scrollKeepAlive = scrollKeepAlive;
+    }
+
+    public DataSize getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(DataSize bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+}
@@ -0,0 +1,63 @@
+package cn.king.export;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 14:10
+ * @version: 1.0.0
+ * @description: 导出结果。docs/bytes 只统计本次运行写入的部分，断点续传时不含之前已写入的
+ */
+public class ExportResult {
+
+    private final String index;
+
+    private final int slices;
+
+    private final long docs;
+
+    private final long bytes;
+
+    private final long elapsedMillis;
+
+    public ExportResult(String index, int slices, long docs, long bytes, long elapsedMillis) {
+        this.index = index;
+        this.slices = slices;
+        this.docs = docs;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public int getSlices() {
+        return slices;
+    }
+
+    public long getDocs() {
+        return docs;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public double docsPerSecond() {
+        return elapsedMillis == 0 ? 0 : docs * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportResult{index=" + index +
+                ", slices=" + slices +
+                ", docs=" + docs +
+                ", bytes=" + bytes +
+                ", elapsedMillis=" + elapsedMillis +
+                ", docsPerSecond=" + String.format("%.0f", docsPerSecond()) +
+                '}';
+    }
+}
@@ -0,0 +1,249 @@
+package cn.king.export;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 14:15
+ * @version: 1.0.0
+ * @description: 并行导出整个索引为 ndjson。
+ * <p>
+ * 1. sliced scroll：把索引切成 slices 份，每份一个 scroll 并行拉取，slices 一般取分片数的整数倍
+ * 2. 每个 slice 写一个文件 {index}-{slice}.ndjson，_source 的原始字节直接写入 FileChannel，不转成 String
+ * 3. 每写完一批 fsync 一次并记录检查点 {index}-{slice}.checkpoint。中断后重新执行同一个导出会跳过已完成的 slice，
+ * 未完成的 slice 截断到检查点位置后跳过已处理的命中继续写。跳过依赖 _doc 顺序不变，导出期间索引不能有写入。
+ * 检查点记录了 slice 总数，用不同的 slices 继续同一个目录的导出会直接失败
+ */
+@Component
+public class IndexExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexExporter.class);
+
+    private final RestHighLevelClient client;
+
+    private final ExportProperties properties;
+
+    private final ExecutorService workers;
+
+    public IndexExporter(RestHighLevelClient client, ExportProperties properties) {
+        this.client = client;
+        this.properties = properties;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("es-export-");
+        threadFactory.setDaemon(true);
+        this.workers = Executors.newFixedThreadPool(properties.getWorkers(), threadFactory);
+    }
+
+    public ExportResult export(String index, Path outputDir, int slices) throws IOException, InterruptedException {
+        return export(index, QueryBuilders.matchAllQuery(), outputDir, slices);
+    }
+
+    public ExportResult export(String index, QueryBuilder query, Path outputDir, int slices)
+            throws IOException, InterruptedException {
+        Files.createDirectories(outputDir);
+        checkSlices(index, outputDir, slices);
+        long start = System.currentTimeMillis();
+        AtomicLong docs = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>(slices);
+        for (int i = 0; i < slices; i++) {
+            int slice = i;
+            futures.add(workers.submit(() -> {
+                exportSlice(index, query, slice, slices, outputDir, docs, bytes);
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IOException("导出 " + index + " 失败，重新执行可从检查点继续", e.getCause());
+        }
+        ExportResult result = new ExportResult(index, slices, docs.get(), bytes.get(), System.currentTimeMillis() - start);
+        log.info("导出完成 {}", result);
+        return result;
+    }
+
+    private void exportSlice(String index, QueryBuilder query, int slice, int slices, Path outputDir,
+                             AtomicLong totalDocs, AtomicLong totalBytes) throws IOException {
+        Path output = outputDir.resolve(index + "-" + slice + ".ndjson");
+        Path checkpointFile = outputDir.resolve(index + "-" + slice + ".checkpoint");
+        SliceCheckpoint checkpoint = SliceCheckpoint.load(checkpointFile);
+        if (checkpoint.isDone()) {
+            log.info("slice {}/{} 已导出，跳过", slice, slices);
+            return;
+        }
+        long skip = checkpoint.getHits();
+        long hitCount = checkpoint.getHits();
+        long docs = checkpoint.getDocs();
+        long bytes = checkpoint.getBytes();
+        TimeValue keepAlive = TimeValue.timeValueMillis(properties.getScrollKeepAlive().toMillis());
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) properties.getBufferSize().toBytes());
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // 丢掉检查点之后写了一半的数据
+            channel.truncate(bytes);
+            channel.position(bytes);
+            SearchSourceBuilder source = new SearchSourceBuilder()
+                    .query(query)
+                    .size(properties.getBatchSize())
+                    // 按 _doc 排序是最快的遍历方式
+                    .sort("_doc");
+            if (slices > 1) {
+                source.slice(new SliceBuilder(slice, slices));
+            }
+            SearchResponse response = client.search(new SearchRequest(index).scroll(keepAlive).source(source),
+                    RequestOptions.DEFAULT);
+            String scrollId = response.getScrollId();
+            try {
+                SearchHit[] hits = response.getHits().getHits();
+                while (hits.length > 0) {
+                    long batchDocs = 0;
+                    long batchBytes = 0;
+                    for (SearchHit hit : hits) {
+                        if (skip > 0) {
+                            skip--;
+                            continue;
+                        }
+                        // 没有 _source 的命中也算处理过，恢复时一并跳过
+                        hitCount++;
+                        BytesReference sourceRef = hit.getSourceRef();
+                        if (sourceRef == null) {
+                            continue;
+                        }
+                        batchBytes += write(channel, buffer, sourceRef);
+                        batchDocs++;
+                    }
+                    drain(channel, buffer);
+                    channel.force(false);
+                    docs += batchDocs;
+                    bytes += batchBytes;
+                    totalDocs.addAndGet(batchDocs);
+                    totalBytes.addAndGet(batchBytes);
+                    new SliceCheckpoint(slices, hitCount, docs, bytes, false).save(checkpointFile);
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new IOException("slice " + slice + " 被中断");
+                    }
+                    response = client.scroll(new SearchScrollRequest(scrollId).scroll(keepAlive), RequestOptions.DEFAULT);
+                    scrollId = response.getScrollId();
+                    hits = response.getHits().getHits();
+                }
+            } finally {
+                clearScroll(scrollId);
+            }
+        }
+        new SliceCheckpoint(slices, hitCount, docs, bytes, true).save(checkpointFile);
+        log.info("slice {}/{} 导出完成 docs={} bytes={}", slice, slices, docs, bytes);
+    }
+
+    /**
+     * 目录中已有的检查点必须来自同样 slice 总数的导出
+     */
+    static void checkSlices(String index, Path outputDir, int slices) throws IOException {
+        if (slices < 1) {
+            throw new IllegalArgumentException("slices 必须大于 0: " + slices);
+        }
+        for (int slice = 0; slice < slices; slice++) {
+            int previous = SliceCheckpoint.load(outputDir.resolve(index + "-" + slice + ".checkpoint")).getSlices();
+            if (previous != 0 && previous != slices) {
+                throw new IllegalStateException(outputDir + " 中 " + index + " 的检查点来自 slices=" + previous +
+                        " 的导出，不能用 slices=" + slices + " 继续，请换一个目录或者删除旧文件");
+            }
+        }
+        if (Files.exists(outputDir.resolve(index + "-" + slices + ".checkpoint"))) {
+            throw new IllegalStateException(outputDir + " 中 " + index + " 的检查点来自 slices 更多的导出，" +
+                    "不能用 slices=" + slices + " 继续，请换一个目录或者删除旧文件");
+        }
+    }
+
+    /**
+     * 写入一条文档的 _source 和换行符，返回写入的字节数
+     */
+    private static long write(FileChannel channel, ByteBuffer buffer, BytesReference source) throws IOException {
+        BytesRefIterator iterator = source.iterator();
+        BytesRef chunk;
+        while ((chunk = iterator.next()) != null) {
+            put(channel, buffer, chunk.bytes, chunk.offset, chunk.length);
+        }
+        if (!buffer.hasRemaining()) {
+            drain(channel, buffer);
+        }
+        buffer.put((byte) '\n');
+        return source.length() + 1;
+    }
+
+    private static void put(FileChannel channel, ByteBuffer buffer, byte[] bytes, int offset, int length)
+            throws IOException {
+        if (length > buffer.remaining()) {
+            drain(channel, buffer);
+            if (length > buffer.capacity()) {
+                // 超过缓冲区的大文档直接写
+                ByteBuffer wrapped = ByteBuffer.wrap(bytes, offset, length);
+                while (wrapped.hasRemaining()) {
+                    channel.write(wrapped);
+                }
+                return;
+            }
+        }
+        buffer.put(bytes, offset, length);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void clearScroll(String scrollId) {
+        if (scrollId == null) {
+            return;
+        }
+        try {
+            ClearScrollRequest request = new ClearScrollRequest();
+            request.addScrollId(scrollId);
+            client.clearScroll(request, RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            log.warn("清除 scroll 失败，等待 keep_alive 过期后自动释放", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,102 @@
+package cn.king.export;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 14:05
+ * @version: 1.0.0
+ * @description: 单个 slice 的导出进度。每写完一批并 fsync 之后更新，先写临时文件再原子替换，中途崩溃不会留下半个检查点
+ */
+public class SliceCheckpoint {
+
+    /**
+     * 导出时的 slice 总数。总数不同时同一个编号对应的是另一部分文档，检查点不能沿用
+     */
+    private final int slices;
+
+    /**
+     * 已经处理过的命中数，包括没有 _source 而没写入的，恢复时跳过这么多条
+     */
+    private final long hits;
+
+    /**
+     * 已写入并落盘的文档数
+     */
+    private final long docs;
+
+    /**
+     * 已写入并落盘的字节数，恢复时输出文件截断到这个位置
+     */
+    private final long bytes;
+
+    private final boolean done;
+
+    public SliceCheckpoint(int slices, long hits, long docs, long bytes, boolean done) {
+        this.slices = slices;
+        this.hits = hits;
+        this.docs = docs;
+        this.bytes = bytes;
+        this.done = done;
+    }
+
+    public static SliceCheckpoint load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return new SliceCheckpoint(0, 0, 0, 0, false);
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        long docs = Long.parseLong(properties.getProperty("docs", "0"));
+        return new SliceCheckpoint(
+                Integer.parseInt(properties.getProperty("slices", "0")),
+                Long.parseLong(properties.getProperty("hits", Long.toString(docs))),
+                docs,
+                Long.parseLong(properties.getProperty("bytes", "0")),
+                Boolean.parseBoolean(properties.getProperty("done", "false")));
+    }
+
+    public void save(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("slices", Integer.toString(slices));
+        properties.setProperty("hits", Long.toString(hits));
+        properties.setProperty("docs", Long.toString(docs));
+        properties.setProperty("bytes", Long.toString(bytes));
+        properties.setProperty("done", Boolean.toString(done));
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            properties.store(out, null);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return 0 表示没有记录
+     */
+    public int getSlices() {
+        return slices;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getDocs() {
+        return docs;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+}
@@ -0,0 +1,76 @@
+package cn.king.mapping;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 17:00
+ * @version: 1.0.0
+ * @description: 可复用的字节缓冲区池。持续写入时每个文档都 new 一个 byte[]，对 gc 的压力很大，
+ * 请求结束后把缓冲区还回来给下一个文档用。池中缓冲区数量有上限，过大的缓冲区不回收
+ */
+public class BytesPool {
+
+    private final Queue<PooledBytes> free = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    private final int maxPooled;
+
+    private final int initialCapacity;
+
+    private final int maxRetainedCapacity;
+
+    private final LongAdder allocations = new LongAdder();
+
+    private final LongAdder reuses = new LongAdder();
+
+    /**
+     * @param maxPooled           池中最多保留的缓冲区个数，一般取最大在途文档数
+     * @param initialCapacity     新缓冲区的初始大小，取文档的典型大小
+     * @param maxRetainedCapacity 超过这个大小的缓冲区用完直接丢弃，避免个别大文档长期占用内存
+     */
+    public BytesPool(int maxPooled, int initialCapacity, int maxRetainedCapacity) {
+        this.maxPooled = maxPooled;
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+    }
+
+    public PooledBytes acquire() {
+        PooledBytes bytes = free.poll();
+        if (bytes == null) {
+            allocations.increment();
+            return new PooledBytes(this, initialCapacity);
+        }
+        pooled.decrementAndGet();
+        reuses.increment();
+        bytes.reset();
+        return bytes;
+    }
+
+    void release(PooledBytes bytes) {
+        if (bytes.capacity() > maxRetainedCapacity) {
+            return;
+        }
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+        free.offer(bytes);
+    }
+
+    public long allocations() {
+        return allocations.sum();
+    }
+
+    public long reuses() {
+        return reuses.sum();
+    }
+
+    public int pooled() {
+        return pooled.get();
+    }
+}
@@ -0,0 +1,74 @@
+package cn.king.mapping;
+
+import cn.king.client.OperationType;
+import cn.king.config.WireFormats;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 17:25
+ * @version: 1.0.0
+ * @description: 写入路径的序列化。对象直接编码进池化缓冲区，再交给 IndexRequest.source(BytesReference, XContentType)，
+ * 中间不产生 String，也不产生新的 byte[]。不指定格式时使用 WireFormats 中写操作的格式
+ */
+@Component
+public class DocumentSerializer {
+
+    private final BytesPool pool;
+
+    private final XContentType defaultType;
+
+    public DocumentSerializer() {
+        this(new BytesPool(4096, 1024, 64 * 1024));
+    }
+
+    @Autowired
+    public DocumentSerializer(WireFormats wireFormats) {
+        this(new BytesPool(4096, 1024, 64 * 1024), wireFormats.format(OperationType.WRITE));
+    }
+
+    public DocumentSerializer(BytesPool pool) {
+        this(pool, XContentType.JSON);
+    }
+
+    public DocumentSerializer(BytesPool pool, XContentType defaultType) {
+        this.pool = pool;
+        this.defaultType = defaultType;
+    }
+
+    public <T> PooledIndexRequest indexRequest(String index, String id, T document, SourceEncoder<T> encoder) {
+        return indexRequest(index, id, document, encoder, defaultType);
+    }
+
+    public <T> PooledIndexRequest indexRequest(String index, String id, T document, SourceEncoder<T> encoder,
+                                               XContentType xContentType) {
+        PooledBytes buffer = serialize(document, encoder, xContentType);
+        PooledIndexRequest request = new PooledIndexRequest(index, buffer);
+        request.id(id).source(buffer.bytes(), xContentType);
+        return request;
+    }
+
+    /**
+     * 编码到池化缓冲区，用完调用 PooledBytes.release()
+     */
+    public <T> PooledBytes serialize(T document, SourceEncoder<T> encoder, XContentType xContentType) {
+        PooledBytes buffer = pool.acquire();
+        try (JsonGenerator generator = SourceParsers.factory(xContentType).createGenerator(buffer)) {
+            encoder.encode(document, generator);
+        } catch (IOException e) {
+            buffer.release();
+            throw new UncheckedIOException(e);
+        }
+        return buffer;
+    }
+
+    public BytesPool getPool() {
+        return pool;
+    }
+}
@@ -0,0 +1,180 @@
+package cn.king.mapping;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 16:25
+ * @version: 1.0.0
+ * @description: 把命中结果解码成对象，替代 getSourceAsString() + fastjson 的写法。
+ * <p>
+ * 1. decode(SearchHits)：high level client 已经解析好的结果，直接解码每个 hit 的 _source 字节
+ * 2. parseSearchResponse：原始响应流，一遍扫描完成，不创建 SearchResponse/SearchHit，也不创建中间的 Map 和 String
+ */
+public final class HitDecoder {
+
+    private HitDecoder() {
+    }
+
+    public static <T> List<T> decode(SearchHits hits, SourceDecoder<T> decoder) {
+        SearchHit[] array = hits.getHits();
+        List<T> result = new ArrayList<>(array.length);
+        for (SearchHit hit : array) {
+            BytesReference source = hit.getSourceRef();
+            if (source != null) {
+                result.add(decode(hit.getId(), source, decoder));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 文档不存在时返回 null
+     */
+    public static <T> T decode(GetResponse response, SourceDecoder<T> decoder) {
+        if (!response.isExists() || response.isSourceEmpty()) {
+            return null;
+        }
+        return decode(response.getId(), response.getSourceInternal(), decoder);
+    }
+
+    public static <T> T decode(String id, BytesReference source, SourceDecoder<T> decoder) {
+        try (JsonParser parser = SourceParsers.parser(source)) {
+            parser.nextToken();
+            return decoder.decode(id, parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("解码文档 " + id + " 失败", e);
+        }
+    }
+
+    /**
+     * 解析 _search 的原始响应。parser 停在响应的第一个 token 之前
+     */
+    public static <T> TypedSearchResponse<T> parseSearchResponse(JsonParser parser, SourceDecoder<T> decoder)
+            throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("搜索响应不是 json 对象");
+        }
+        long took = -1;
+        HitsHolder<T> holder = new HitsHolder<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "took":
+                    took = parser.getLongValue();
+                    break;
+                case "hits":
+                    parseHits(parser, decoder, holder);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return new TypedSearchResponse<>(took, holder.total, holder.hits, holder.lastSort);
+    }
+
+    private static <T> void parseHits(JsonParser parser, SourceDecoder<T> decoder, HitsHolder<T> holder)
+            throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("total".equals(field)) {
+                holder.total = token == JsonToken.START_OBJECT ? parseTotal(parser) : parser.getLongValue();
+            } else if ("hits".equals(field) && token == JsonToken.START_ARRAY) {
+                holder.hits = new ArrayList<>();
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    parseHit(parser, decoder, holder);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static long parseTotal(JsonParser parser) throws IOException {
+        long total = -1;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("value".equals(field)) {
+                total = parser.getLongValue();
+            }
+        }
+        return total;
+    }
+
+    private static <T> void parseHit(JsonParser parser, SourceDecoder<T> decoder, HitsHolder<T> holder)
+            throws IOException {
+        String id = null;
+        T document = null;
+        Object[] sort = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "_id":
+                    id = parser.getText();
+                    break;
+                case "_source":
+                    // es 输出 hit 时 _id 总在 _source 之前
+                    document = decoder.decode(id, parser);
+                    break;
+                case "sort":
+                    sort = token == JsonToken.START_ARRAY ? parseSort(parser) : null;
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        if (document != null) {
+            holder.hits.add(document);
+        }
+        holder.lastSort = sort;
+    }
+
+    private static Object[] parseSort(JsonParser parser) throws IOException {
+        List<Object> values = new ArrayList<>(2);
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            switch (token) {
+                case VALUE_NUMBER_INT:
+                    values.add(parser.getLongValue());
+                    break;
+                case VALUE_NUMBER_FLOAT:
+                    values.add(parser.getDoubleValue());
+                    break;
+                case VALUE_NULL:
+                    values.add(null);
+                    break;
+                case VALUE_TRUE:
+                case VALUE_FALSE:
+                    values.add(parser.getBooleanValue());
+                    break;
+                default:
+                    values.add(parser.getText());
+            }
+        }
+        return values.toArray();
+    }
+
+    private static final class HitsHolder<T> {
+
+        long total = -1;
+
+        List<T> hits = Collections.emptyList();
+
+        Object[] lastSort;
+    }
+}
@@ -0,0 +1,83 @@
+package cn.king.mapping;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 17:05
+ * @version: 1.0.0
+ * @description: 从 BytesPool 借出的缓冲区。bytes() 直接引用内部数组，不复制，所以 release() 之后不能再使用之前拿到的 bytes()
+ */
+public final class PooledBytes extends OutputStream {
+
+    private final BytesPool pool;
+
+    private byte[] buffer;
+
+    private int count;
+
+    private boolean released;
+
+    PooledBytes(BytesPool pool, int initialCapacity) {
+        this.pool = pool;
+        this.buffer = new byte[initialCapacity];
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    /**
+     * 生成器关闭时会连带关闭输出流，这里什么也不做，缓冲区通过 release() 归还
+     */
+    @Override
+    public void close() {
+    }
+
+    public BytesReference bytes() {
+        return new BytesArray(buffer, 0, count);
+    }
+
+    public int length() {
+        return count;
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    void reset() {
+        count = 0;
+        released = false;
+    }
+
+    /**
+     * 归还到池中，重复调用无效
+     */
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        pool.release(this);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length << 1));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package cn.king.mapping;
+
+import org.elasticsearch.action.index.IndexRequest;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 17:20
+ * @version: 1.0.0
+ * @description: _source 引用池化缓冲区的 IndexRequest。请求得到最终结果（成功、或不再重试的失败）之后必须调用 release()，
+ * BulkIngestionService 会自动处理；直接发送的请求由调用方在回调中释放
+ */
+public class PooledIndexRequest extends IndexRequest {
+
+    private final PooledBytes buffer;
+
+    PooledIndexRequest(String index, PooledBytes buffer) {
+        super(index);
+        this.buffer = buffer;
+    }
+
+    public void release() {
+        buffer.release();
+    }
+
+    /**
+     * 如果是 PooledIndexRequest 则释放其缓冲区
+     */
+    public static void releaseIfPooled(Object request) {
+        if (request instanceof PooledIndexRequest) {
+            ((PooledIndexRequest) request).release();
+        }
+    }
+}
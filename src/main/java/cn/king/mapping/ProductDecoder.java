@@ -0,0 +1,54 @@
+package cn.king.mapping;
+
+import cn.king.entity.Product;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 16:15
+ * @version: 1.0.0
+ * @description: Product 的解码器。jackson 解析出的字段名是 intern 过的，按字段名 switch 不会产生新对象
+ */
+public class ProductDecoder implements SourceDecoder<Product> {
+
+    public static final ProductDecoder INSTANCE = new ProductDecoder();
+
+    private static final String[] FIELDS = {"title", "price", "create_time", "desc"};
+
+    @Override
+    public Product decode(String id, JsonParser parser) throws IOException {
+        Product product = new Product();
+        product.setId(id);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "title":
+                    product.setTitle(parser.getText());
+                    break;
+                case "price":
+                    product.setPrice(parser.getValueAsDouble());
+                    break;
+                case "create_time":
+                    product.setCreateTime(parser.getText());
+                    break;
+                case "desc":
+                    product.setDesc(parser.getText());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return product;
+    }
+
+    @Override
+    public String[] fields() {
+        return FIELDS.clone();
+    }
+}
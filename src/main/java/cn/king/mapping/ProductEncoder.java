@@ -0,0 +1,46 @@
+package cn.king.mapping;
+
+import cn.king.entity.Product;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 17:15
+ * @version: 1.0.0
+ * @description: Product 的编码器。字段名预先编码好，写入时直接复制字节。为 null 的字段不写
+ */
+public class ProductEncoder implements SourceEncoder<Product> {
+
+    public static final ProductEncoder INSTANCE = new ProductEncoder();
+
+    private static final SerializedString TITLE = new SerializedString("title");
+
+    private static final SerializedString PRICE = new SerializedString("price");
+
+    private static final SerializedString CREATE_TIME = new SerializedString("create_time");
+
+    private static final SerializedString DESC = new SerializedString("desc");
+
+    @Override
+    public void encode(Product product, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (product.getTitle() != null) {
+            generator.writeFieldName(TITLE);
+            generator.writeString(product.getTitle());
+        }
+        generator.writeFieldName(PRICE);
+        generator.writeNumber(product.getPrice());
+        if (product.getCreateTime() != null) {
+            generator.writeFieldName(CREATE_TIME);
+            generator.writeString(product.getCreateTime());
+        }
+        if (product.getDesc() != null) {
+            generator.writeFieldName(DESC);
+            generator.writeString(product.getDesc());
+        }
+        generator.writeEndObject();
+    }
+}
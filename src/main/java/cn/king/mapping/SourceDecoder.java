@@ -0,0 +1,28 @@
+package cn.king.mapping;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 16:05
+ * @version: 1.0.0
+ * @description: 把 _source 直接解码成对象。每个文档类型手写一个实现，相当于预先生成好的字段访问代码，
+ * 不经过 Map，不经过 String，也不走反射
+ */
+public interface SourceDecoder<T> {
+
+    /**
+     * 解码一个 _source 对象
+     *
+     * @param id     文档 id
+     * @param parser 停在 _source 的 START_OBJECT 上，返回时必须停在对应的 END_OBJECT 上
+     */
+    T decode(String id, JsonParser parser) throws IOException;
+
+    /**
+     * 解码时会读取的字段，可以用作 _source 过滤的 includes
+     */
+    String[] fields();
+}
@@ -0,0 +1,19 @@
+package cn.king.mapping;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 17:10
+ * @version: 1.0.0
+ * @description: 把对象直接写成 _source，与 SourceDecoder 对应。每个文档类型手写一个实现
+ */
+public interface SourceEncoder<T> {
+
+    /**
+     * 写入一个完整的 _source 对象，包括首尾的 START_OBJECT / END_OBJECT
+     */
+    void encode(T value, JsonGenerator generator) throws IOException;
+}
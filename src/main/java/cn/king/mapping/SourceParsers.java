@@ -0,0 +1,80 @@
+package cn.king.mapping;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 16:10
+ * @version: 1.0.0
+ * @description: 按 XContentType 创建 jackson 的流式解析器。factory 线程安全，全局共用
+ */
+public final class SourceParsers {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final SmileFactory SMILE = new SmileFactory();
+
+    private static final CBORFactory CBOR = new CBORFactory();
+
+    private SourceParsers() {
+    }
+
+    public static JsonFactory factory(XContentType xContentType) {
+        switch (xContentType) {
+            case JSON:
+                return JSON;
+            case SMILE:
+                return SMILE;
+            case CBOR:
+                return CBOR;
+            default:
+                throw new IllegalArgumentException("不支持的格式 " + xContentType);
+        }
+    }
+
+    /**
+     * 直接在 BytesReference 的底层数组上解析，只有由多段组成的 BytesReference 才会复制
+     */
+    public static JsonParser parser(BytesReference source) throws IOException {
+        BytesRef ref = source.toBytesRef();
+        return factory(detect(ref.bytes, ref.offset, ref.length)).createParser(ref.bytes, ref.offset, ref.length);
+    }
+
+    public static XContentType detect(BytesReference source) {
+        BytesRef ref = source.toBytesRef();
+        return detect(ref.bytes, ref.offset, ref.length);
+    }
+
+    /**
+     * 按开头的字节判断格式，判断方式和已废弃的 XContentFactory.xContentType 相同：
+     * smile 以 ":)\n" 开头，cbor 文档是 map（主类型 5）或以自描述标签 0xd9d9f7 开头，其余按 json 处理
+     */
+    static XContentType detect(byte[] bytes, int offset, int length) {
+        if (length >= 3 && bytes[offset] == ':' && bytes[offset + 1] == ')' && bytes[offset + 2] == '\n') {
+            return XContentType.SMILE;
+        }
+        if (length >= 1) {
+            int first = bytes[offset] & 0xff;
+            if ((first & 0xe0) == 0xa0) {
+                return XContentType.CBOR;
+            }
+            if (length >= 3 && first == 0xd9 && (bytes[offset + 1] & 0xff) == 0xd9 && (bytes[offset + 2] & 0xff) == 0xf7) {
+                return XContentType.CBOR;
+            }
+        }
+        return XContentType.JSON;
+    }
+
+    public static JsonParser parser(XContentType xContentType, InputStream in) throws IOException {
+        return factory(xContentType).createParser(in);
+    }
+}
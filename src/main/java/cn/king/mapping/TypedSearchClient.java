@@ -0,0 +1,106 @@
+package cn.king.mapping;
+
+import cn.king.client.AsyncEsClient;
+import cn.king.client.OperationType;
+import cn.king.config.WireFormats;
+import com.fasterxml.jackson.core.JsonParser;
+import org.apache.http.Header;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 16:35
+ * @version: 1.0.0
+ * @description: 返回强类型结果的搜索。绕过 high level client 的响应解析，
+ * 直接从 http 响应流中把 _source 解码成对象，并用 filter_path 让 es 只返回需要的部分
+ * <p>
+ * 响应格式跟随 WireFormats 中搜索的配置，smile/cbor 同样直接解码。
+ * 解码发生在 http 客户端的 io 线程上，单页几千条以内没有问题，更大的页请在自己的线程池中消费
+ */
+@Component
+public class TypedSearchClient {
+
+    /**
+     * 只要 took、总数、_id、_source 和 sort，其余字段（_index、_type、_score、_shards 等）不返回
+     */
+    private static final String FILTER_PATH = "took,hits.total,hits.hits._id,hits.hits._source,hits.hits.sort";
+
+    private final AsyncEsClient client;
+
+    private final WireFormats wireFormats;
+
+    public TypedSearchClient(AsyncEsClient client, WireFormats wireFormats) {
+        this.client = client;
+        this.wireFormats = wireFormats;
+    }
+
+    public <T> CompletableFuture<TypedSearchResponse<T>> search(SearchRequest request, SourceDecoder<T> decoder) {
+        return search(toHttpRequest(request), decoder);
+    }
+
+    /**
+     * 发送请求体已经写好的 _search 请求（如 QueryTemplate 渲染出的字节），这里补上 filter_path 和响应格式
+     */
+    public <T> CompletableFuture<TypedSearchResponse<T>> search(Request httpRequest, SourceDecoder<T> decoder) {
+        httpRequest.addParameter("filter_path", FILTER_PATH);
+        httpRequest.setOptions(wireFormats.options(OperationType.SEARCH));
+        return client.perform(OperationType.SEARCH, httpRequest).thenApply(response -> {
+            try (InputStream in = response.getEntity().getContent();
+                 JsonParser parser = SourceParsers.parser(contentType(response), in)) {
+                return HitDecoder.parseSearchResponse(parser, decoder);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    static Request toHttpRequest(SearchRequest request) {
+        String indices = String.join(",", request.indices());
+        Request httpRequest = new Request("POST", indices.isEmpty() ? "/_search" : "/" + indices + "/_search");
+        if (request.routing() != null) {
+            httpRequest.addParameter("routing", request.routing());
+        }
+        if (request.preference() != null) {
+            httpRequest.addParameter("preference", request.preference());
+        }
+        if (request.requestCache() != null) {
+            httpRequest.addParameter("request_cache", request.requestCache().toString());
+        }
+        SearchSourceBuilder source = request.source();
+        if (source != null) {
+            try {
+                BytesRef body = XContentHelper.toXContent(source, XContentType.JSON, false).toBytesRef();
+                httpRequest.setEntity(new ByteArrayEntity(body.bytes, body.offset, body.length, ContentType.APPLICATION_JSON));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return httpRequest;
+    }
+
+    static XContentType contentType(Response response) {
+        Header header = response.getEntity().getContentType();
+        String value = header == null ? "" : header.getValue();
+        if (value.contains("smile")) {
+            return XContentType.SMILE;
+        }
+        if (value.contains("cbor")) {
+            return XContentType.CBOR;
+        }
+        return XContentType.JSON;
+    }
+}
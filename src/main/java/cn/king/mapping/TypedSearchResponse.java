@@ -0,0 +1,49 @@
+package cn.king.mapping;
+
+import java.util.List;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 16:20
+ * @version: 1.0.0
+ * @description: 直接从响应字节解码出来的搜索结果，只保留 took、总数、文档和最后一条的 sort 值
+ */
+public class TypedSearchResponse<T> {
+
+    private final long took;
+
+    /**
+     * track_total_hits=false 时为 -1
+     */
+    private final long totalHits;
+
+    private final List<T> hits;
+
+    /**
+     * 最后一条的 sort 值，可以直接作为下一页的 search_after
+     */
+    private final Object[] lastSortValues;
+
+    public TypedSearchResponse(long took, long totalHits, List<T> hits, Object[] lastSortValues) {
+        this.took = took;
+        this.totalHits = totalHits;
+        this.hits = hits;
+        this.lastSortValues = lastSortValues;
+    }
+
+    public long getTook() {
+        return took;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    public List<T> getHits() {
+        return hits;
+    }
+
+    public Object[] getLastSortValues() {
+        return lastSortValues;
+    }
+}
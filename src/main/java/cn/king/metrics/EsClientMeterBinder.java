@@ -0,0 +1,103 @@
+package cn.king.metrics;
+
+import cn.king.bulk.BulkIngestionService;
+import cn.king.bulk.BulkStats;
+import cn.king.client.AsyncEsClient;
+import cn.king.client.ConcurrencyLimiter;
+import cn.king.client.OperationType;
+import cn.king.resilience.OperationGuard;
+import cn.king.resilience.Resilience;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 14:45
+ * @version: 1.0.0
+ * @description: 客户端内部状态的 gauge：AsyncEsClient 每种操作的在途和排队数、连接池、Resilience 的拒绝数、批量写入的结果。
+ * 都是直接读已有的计数器，采集时才计算，不影响请求路径
+ */
+@Component
+public class EsClientMeterBinder implements MeterBinder {
+
+    private final AsyncEsClient client;
+
+    private final PoolingNHttpClientConnectionManager connectionManager;
+
+    private final Resilience resilience;
+
+    private final BulkIngestionService bulkIngestionService;
+
+    public EsClientMeterBinder(AsyncEsClient client, PoolingNHttpClientConnectionManager esConnectionManager,
+                               Resilience resilience, BulkIngestionService bulkIngestionService) {
+        this.client = client;
+        this.connectionManager = esConnectionManager;
+        this.resilience = resilience;
+        this.bulkIngestionService = bulkIngestionService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (OperationType type : OperationType.values()) {
+            String tag = type.name().toLowerCase();
+            ConcurrencyLimiter limiter = client.limiter(type);
+            Gauge.builder("es.client.inflight", limiter, ConcurrencyLimiter::inFlight)
+                    .description("AsyncEsClient 在途请求数")
+                    .tag("type", tag)
+                    .register(registry);
+            Gauge.builder("es.client.queued", limiter, ConcurrencyLimiter::queued)
+                    .description("AsyncEsClient 排队请求数")
+                    .tag("type", tag)
+                    .register(registry);
+            if (resilience.isEnabled()) {
+                OperationGuard guard = resilience.guard(type);
+                rejections(registry, guard, tag, "breaker", OperationGuard::getBreakerRejections);
+                rejections(registry, guard, tag, "rate", OperationGuard::getRateRejections);
+                rejections(registry, guard, tag, "limit", OperationGuard::getLimitRejections);
+                Gauge.builder("es.client.concurrency.limit", guard, OperationGuard::getConcurrencyLimit)
+                        .description("自适应并发上限，未开启时为 -1")
+                        .tag("type", tag)
+                        .register(registry);
+            }
+        }
+        Gauge.builder("es.client.pool.leased", connectionManager, m -> m.getTotalStats().getLeased())
+                .description("正在使用的连接数")
+                .register(registry);
+        Gauge.builder("es.client.pool.pending", connectionManager, m -> m.getTotalStats().getPending())
+                .description("等待连接的请求数")
+                .register(registry);
+        Gauge.builder("es.client.pool.available", connectionManager, m -> m.getTotalStats().getAvailable())
+                .description("空闲连接数")
+                .register(registry);
+        BulkStats bulkStats = bulkIngestionService.getStats();
+        FunctionCounter.builder("es.bulk.documents", bulkStats, BulkStats::getSucceeded)
+                .description("批量写入的文档数")
+                .tag("result", "succeeded")
+                .register(registry);
+        FunctionCounter.builder("es.bulk.documents", bulkStats, BulkStats::getFailed)
+                .description("批量写入的文档数")
+                .tag("result", "failed")
+                .register(registry);
+        FunctionCounter.builder("es.bulk.retried", bulkStats, BulkStats::getRetried)
+                .description("批量写入重试的文档数")
+                .register(registry);
+        Gauge.builder("es.bulk.queue", bulkIngestionService, BulkIngestionService::queueSize)
+                .description("批量写入排队中的文档数")
+                .register(registry);
+    }
+
+    private static void rejections(MeterRegistry registry, OperationGuard guard, String type, String reason,
+                                   ToDoubleFunction<OperationGuard> count) {
+        FunctionCounter.builder("es.client.rejections", guard, count)
+                .description("Resilience 拒绝的请求数")
+                .tag("type", type)
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
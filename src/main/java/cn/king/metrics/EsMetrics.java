@@ -0,0 +1,250 @@
+package cn.king.metrics;
+
+import cn.king.config.RestClientCustomizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpMessage;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.RequestLine;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 14:20
+ * @version: 1.0.0
+ * @description: 按操作、按索引统计 es 请求，通过 micrometer 发布，actuator 的 metrics 端点可以查看。
+ * <p>
+ * 1. es.client.requests：Timer，从发出请求到收到响应的时间，count 即吞吐量，分位数由 micrometer 基于 HdrHistogram 计算
+ * 2. es.client.request.size / es.client.response.size：请求体和响应体字节数，取不到长度（分块传输）的不记
+ * 3. es.client.responses：按状态码计数
+ * <p>
+ * 统计挂在 http 拦截器上，所有经过 RestClient 的请求（high level client、AsyncEsClient.perform、bulk 等）都会被记录。
+ * 连接失败、超时被中断等没有收到响应的请求不在这里，见 Resilience 的统计。
+ * <p>
+ * meter 在第一次遇到某个操作和索引时创建并缓存，之后的查找只做下标和字符比较，记录时不分配对象，
+ * 每个请求唯一的分配是放进 http 上下文的开始时间
+ */
+@Component
+public class EsMetrics implements RestClientCustomizer {
+
+    static final String ALL_INDICES = "_all";
+
+    static final String OTHER_INDICES = "_other";
+
+    private static final String METERS = EsMetrics.class.getName() + ".meters";
+
+    private static final String START_NANOS = EsMetrics.class.getName() + ".start";
+
+    private final MeterRegistry registry;
+
+    private final MetricsProperties properties;
+
+    /**
+     * 启动时建好，之后只读
+     */
+    private final Map<EsOperation, OperationMeters> operations = new EnumMap<>(EsOperation.class);
+
+    public EsMetrics(MeterRegistry registry, MetricsProperties properties) {
+        this.registry = registry;
+        this.properties = properties;
+        for (EsOperation operation : EsOperation.values()) {
+            operations.put(operation, new OperationMeters(operation));
+        }
+    }
+
+    @Override
+    public void customize(HttpAsyncClientBuilder builder) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        builder.addInterceptorLast((HttpRequestInterceptor) (request, context) -> onRequest(request, context));
+        builder.addInterceptorLast((HttpResponseInterceptor) (response, context) -> onResponse(response, context));
+    }
+
+    void onRequest(HttpRequest request, HttpContext context) {
+        RequestLine line = request.getRequestLine();
+        IndexMeters meters = meters(line.getMethod(), line.getUri());
+        context.setAttribute(METERS, meters);
+        context.setAttribute(START_NANOS, System.nanoTime());
+        if (request instanceof HttpEntityEnclosingRequest) {
+            long length = contentLength(request, ((HttpEntityEnclosingRequest) request).getEntity());
+            if (length >= 0) {
+                meters.requestSize.record(length);
+            }
+        }
+    }
+
+    void onResponse(HttpResponse response, HttpContext context) {
+        Object meters = context.getAttribute(METERS);
+        Object start = context.getAttribute(START_NANOS);
+        if (meters == null || start == null) {
+            return;
+        }
+        IndexMeters indexMeters = (IndexMeters) meters;
+        indexMeters.latency.record(System.nanoTime() - (Long) start, TimeUnit.NANOSECONDS);
+        indexMeters.status(response.getStatusLine().getStatusCode()).increment();
+        long length = contentLength(response, response.getEntity());
+        if (length >= 0) {
+            indexMeters.responseSize.record(length);
+        }
+    }
+
+    /**
+     * 找到请求对应的 meter，没有就创建
+     */
+    IndexMeters meters(String method, String uri) {
+        OperationMeters operationMeters = operations.get(EsOperation.of(method, uri));
+        if (!properties.isPerIndex()) {
+            return operationMeters.all;
+        }
+        int from = EsOperation.pathStart(uri);
+        int to = EsOperation.indexEnd(uri, from);
+        return to < 0 ? operationMeters.all : operationMeters.find(uri, from, to);
+    }
+
+    /**
+     * 优先取 Content-Length 头，没有时取 entity 的长度，都没有返回 -1
+     */
+    private static long contentLength(HttpMessage message, HttpEntity entity) {
+        Header header = message.getFirstHeader(HttpHeaders.CONTENT_LENGTH);
+        if (header != null) {
+            try {
+                return Long.parseLong(header.getValue());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return entity == null ? -1 : entity.getContentLength();
+    }
+
+    /**
+     * 一种操作下所有索引的 meter。索引数组写时复制，读不加锁
+     */
+    private final class OperationMeters {
+
+        private final EsOperation operation;
+
+        private final IndexMeters all;
+
+        private volatile IndexMeters[] indices = new IndexMeters[0];
+
+        private IndexMeters other;
+
+        OperationMeters(EsOperation operation) {
+            this.operation = operation;
+            this.all = new IndexMeters(operation, ALL_INDICES);
+        }
+
+        IndexMeters find(String uri, int from, int to) {
+            int length = to - from;
+            for (IndexMeters meters : indices) {
+                if (meters.index.length() == length && uri.regionMatches(from, meters.index, 0, length)) {
+                    return meters;
+                }
+            }
+            return register(uri.substring(from, to));
+        }
+
+        private synchronized IndexMeters register(String index) {
+            IndexMeters[] current = indices;
+            for (IndexMeters meters : current) {
+                if (meters.index.equals(index)) {
+                    return meters;
+                }
+            }
+            if (current.length >= properties.getMaxIndices()) {
+                if (other == null) {
+                    other = new IndexMeters(operation, OTHER_INDICES);
+                }
+                return other;
+            }
+            IndexMeters meters = new IndexMeters(operation, index);
+            IndexMeters[] next = new IndexMeters[current.length + 1];
+            System.arraycopy(current, 0, next, 0, current.length);
+            next[current.length] = meters;
+            indices = next;
+            return meters;
+        }
+    }
+
+    /**
+     * 一种操作在一个索引上的 meter
+     */
+    final class IndexMeters {
+
+        /**
+         * 状态码 100-599 各占一个位置，其余的放在 0
+         */
+        private static final int STATUS_SLOTS = 600;
+
+        private final EsOperation operation;
+
+        final String index;
+
+        final Timer latency;
+
+        final DistributionSummary requestSize;
+
+        final DistributionSummary responseSize;
+
+        private final AtomicReferenceArray<Counter> statuses = new AtomicReferenceArray<>(STATUS_SLOTS);
+
+        IndexMeters(EsOperation operation, String index) {
+            this.operation = operation;
+            this.index = index;
+            this.latency = Timer.builder("es.client.requests")
+                    .description("es 请求延迟")
+                    .tag("operation", operation.tag())
+                    .tag("index", index)
+                    .publishPercentiles(properties.getPercentiles())
+                    .publishPercentileHistogram(properties.isPercentileHistogram())
+                    .minimumExpectedValue(properties.getMinimumExpectedLatency())
+                    .maximumExpectedValue(properties.getMaximumExpectedLatency())
+                    .distributionStatisticExpiry(properties.getDistributionExpiry())
+                    .register(registry);
+            this.requestSize = size("es.client.request.size", "es 请求体大小");
+            this.responseSize = size("es.client.response.size", "es 响应体大小");
+        }
+
+        Counter status(int code) {
+            int slot = code >= 100 && code < STATUS_SLOTS ? code : 0;
+            Counter counter = statuses.get(slot);
+            if (counter == null) {
+                counter = Counter.builder("es.client.responses")
+                        .description("es 响应数，按状态码")
+                        .tag("operation", operation.tag())
+                        .tag("index", index)
+                        .tag("status", slot == 0 ? "other" : Integer.toString(slot))
+                        .register(registry);
+                // registry 对相同名字和标签返回同一个 counter，并发创建也没有问题
+                statuses.set(slot, counter);
+            }
+            return counter;
+        }
+
+        private DistributionSummary size(String name, String description) {
+            return DistributionSummary.builder(name)
+                    .description(description)
+                    .baseUnit("bytes")
+                    .tag("operation", operation.tag())
+                    .tag("index", index)
+                    .register(registry);
+        }
+    }
+}
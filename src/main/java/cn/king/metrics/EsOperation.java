@@ -0,0 +1,111 @@
+package cn.king.metrics;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 14:05
+ * @version: 1.0.0
+ * @description: 指标中的操作类型，由 http 方法和请求路径识别，比 OperationType 细。
+ * 解析只做下标比较，不切分字符串
+ */
+public enum EsOperation {
+
+    SEARCH, MSEARCH, SCROLL, COUNT, GET, MGET, INDEX, UPDATE, DELETE, BULK, OTHER;
+
+    /**
+     * 标签值，预先算好避免每次 toLowerCase
+     */
+    private final String tag = name().toLowerCase();
+
+    public String tag() {
+        return tag;
+    }
+
+    /**
+     * @param method http 方法
+     * @param uri    请求行中的 uri，可以带查询参数，也可以是带 scheme 和 host 的绝对地址
+     */
+    static EsOperation of(String method, String uri) {
+        int from = pathStart(uri);
+        int end = pathEnd(uri, from);
+        int segmentEnd = segmentEnd(uri, from, end);
+        if (from < segmentEnd && uri.charAt(from) != '_') {
+            // 第一段是索引名，跳过
+            from = segmentEnd + 1;
+            segmentEnd = segmentEnd(uri, from, end);
+        }
+        if (from >= segmentEnd) {
+            return OTHER;
+        }
+        if (segmentEquals(uri, from, segmentEnd, "_search")) {
+            return segmentEquals(uri, segmentEnd + 1, segmentEnd(uri, segmentEnd + 1, end), "scroll") ? SCROLL : SEARCH;
+        }
+        if (segmentEquals(uri, from, segmentEnd, "_doc")) {
+            if ("GET".equals(method) || "HEAD".equals(method)) {
+                return GET;
+            }
+            return "DELETE".equals(method) ? DELETE : INDEX;
+        }
+        if (segmentEquals(uri, from, segmentEnd, "_bulk")) {
+            return BULK;
+        }
+        if (segmentEquals(uri, from, segmentEnd, "_update")) {
+            return UPDATE;
+        }
+        if (segmentEquals(uri, from, segmentEnd, "_create")) {
+            return INDEX;
+        }
+        if (segmentEquals(uri, from, segmentEnd, "_mget")) {
+            return MGET;
+        }
+        if (segmentEquals(uri, from, segmentEnd, "_msearch")) {
+            return MSEARCH;
+        }
+        if (segmentEquals(uri, from, segmentEnd, "_count")) {
+            return COUNT;
+        }
+        return OTHER;
+    }
+
+    /**
+     * 索引名在 uri 中的结束位置（不含）。路径的第一段以 _ 开头（_search、_bulk 等）或者为空时返回 -1
+     */
+    static int indexEnd(String uri, int from) {
+        int end = segmentEnd(uri, from, pathEnd(uri, from));
+        return from < end && uri.charAt(from) != '_' ? end : -1;
+    }
+
+    /**
+     * 路径第一段的起始位置，跳过开头的 / 以及绝对地址中的 scheme 和 host
+     */
+    static int pathStart(String uri) {
+        int from = 0;
+        int scheme = uri.indexOf("://");
+        if (scheme >= 0 && scheme < uri.indexOf('/')) {
+            from = uri.indexOf('/', scheme + 3);
+            if (from < 0) {
+                return uri.length();
+            }
+        }
+        while (from < uri.length() && uri.charAt(from) == '/') {
+            from++;
+        }
+        return from;
+    }
+
+    private static int pathEnd(String uri, int from) {
+        int query = uri.indexOf('?', from);
+        return query < 0 ? uri.length() : query;
+    }
+
+    private static int segmentEnd(String uri, int from, int end) {
+        if (from >= end) {
+            return end;
+        }
+        int slash = uri.indexOf('/', from);
+        return slash < 0 || slash > end ? end : slash;
+    }
+
+    private static boolean segmentEquals(String uri, int from, int to, String name) {
+        return to - from == name.length() && uri.regionMatches(from, name, 0, name.length());
+    }
+}
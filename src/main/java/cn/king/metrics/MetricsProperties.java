@@ -0,0 +1,116 @@
+package cn.king.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 14:00
+ * @version: 1.0.0
+ * @description: es 请求指标的配置
+ */
+@ConfigurationProperties(prefix = "elasticsearch.metrics")
+public class MetricsProperties {
+
+    /**
+     * 是否记录请求级别的指标，关闭后不注册 http 拦截器，连接池和并发队列的 gauge 不受影响
+     */
+    private boolean enabled = true;
+
+    /**
+     * 是否按索引分别统计。关闭时所有请求的 index 标签都是 _all
+     */
+    private boolean perIndex = true;
+
+    /**
+     * 每种操作最多单独统计多少个索引，超出的归到 _other，防止按天滚动的索引把标签数撑爆
+     */
+    private int maxIndices = 100;
+
+    /**
+     * 客户端计算并发布的分位数
+     */
+    private double[] percentiles = {0.5, 0.99, 0.999};
+
+    /**
+     * 是否发布直方图桶，需要在服务端（prometheus 等）跨实例聚合分位数时打开
+     */
+    private boolean percentileHistogram = false;
+
+    /**
+     * 直方图覆盖的延迟范围，范围外的样本仍然计数，只是分位数不精确
+     */
+    private Duration minimumExpectedLatency = Duration.ofMillis(1);
+
+    private Duration maximumExpectedLatency = Duration.ofSeconds(60);
+
+    /**
+     * 分位数统计的时间窗口，窗口外的样本不再参与计算
+     */
+    private Duration distributionExpiry = Duration.ofMinutes(2);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isPerIndex() {
+        return perIndex;
+    }
+
+    public void setPerIndex(boolean perIndex) {
+        this.perIndex = perIndex;
+    }
+
+    public int getMaxIndices() {
+        return maxIndices;
+    }
+
+    public void setMaxIndices(int maxIndices) {
+        this.maxIndices = maxIndices;
+    }
+
+    public double[] getPercentiles() {
+        return percentiles;
+    }
+
+    public void setPercentiles(double[] percentiles) {
+        this.percentiles = percentiles;
+    }
+
+    public boolean isPercentileHistogram() {
+        return percentileHistogram;
+    }
+
+    public void setPercentileHistogram(boolean percentileHistogram) {
+        this.percentileHistogram = percentileHistogram;
+    }
+
+    public Duration getMinimumExpectedLatency() {
+        return minimumExpectedLatency;
+    }
+
+    public void setMinimumExpectedLatency(Duration minimumExpectedLatency) {
+        this.minimumExpectedLatency = minimumExpectedLatency;
+    }
+
+    public Duration getMaximumExpectedLatency() {
+        return maximumExpectedLatency;
+    }
+
+    public void setMaximumExpectedLatency(Duration maximumExpectedLatency) {
+        this.maximumExpectedLatency = maximumExpectedLatency;
+    }
+
+    public Duration getDistributionExpiry() {
+        return distributionExpiry;
+    }
+
+    public void setDistributionExpiry(Duration distributionExpiry) {
+        this.distributionExpiry = distributionExpiry;
+    }
+}
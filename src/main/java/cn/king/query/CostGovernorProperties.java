@@ -0,0 +1,122 @@
+package cn.king.query;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 23:10
+ * @version: 1.0.0
+ * @description: 查询成本控制配置，按接口（endpoint）配置策略，没有配置的项取 defaults
+ */
+@ConfigurationProperties(prefix = "elasticsearch.cost-governor")
+public class CostGovernorProperties {
+
+    private boolean enabled = true;
+
+    private Policy defaults = new Policy();
+
+    private Map<String, Policy> endpoints = new HashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Policy getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Policy defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Policy> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, Policy> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    /**
+     * 接口的策略，和 defaults 合并后的结果
+     */
+    public Policy policy(String endpoint) {
+        Policy policy = endpoint == null ? null : endpoints.get(endpoint);
+        return policy == null ? defaults : policy.orElse(defaults);
+    }
+
+    /**
+     * 所有项都可以不配置（null），不配置时取 defaults，defaults 也没配置时不处理
+     */
+    public static class Policy {
+
+        /**
+         * 总数最多精确统计到多少，0 表示不统计。只作用于调用方没有设置 track_total_hits 的请求，不高于 es 默认的 10000
+         */
+        private Integer trackTotalHitsUpTo;
+
+        /**
+         * 调用方没有指定 _source 过滤时，只取解码器会读取的字段
+         */
+        private Boolean trimSource;
+
+        /**
+         * 只要聚合结果（size=0）的搜索打开分片请求缓存
+         */
+        private Boolean requestCacheForAggregations;
+
+        /**
+         * 只判断是否存在：不返回文档，每个分片找到一个就停
+         */
+        private Boolean existenceCheck;
+
+        Policy orElse(Policy defaults) {
+            Policy merged = new Policy();
+            merged.trackTotalHitsUpTo = trackTotalHitsUpTo != null ? trackTotalHitsUpTo : defaults.trackTotalHitsUpTo;
+            merged.trimSource = trimSource != null ? trimSource : defaults.trimSource;
+            merged.requestCacheForAggregations = requestCacheForAggregations != null
+                    ? requestCacheForAggregations : defaults.requestCacheForAggregations;
+            merged.existenceCheck = existenceCheck != null ? existenceCheck : defaults.existenceCheck;
+            return merged;
+        }
+
+        public Integer getTrackTotalHitsUpTo() {
+            return trackTotalHitsUpTo;
+        }
+
+        public void setTrackTotalHitsUpTo(Integer trackTotalHitsUpTo) {
+            this.trackTotalHitsUpTo = trackTotalHitsUpTo;
+        }
+
+        public Boolean getTrimSource() {
+            return trimSource;
+        }
+
+        public void setTrimSource(Boolean trimSource) {
+            this.trimSource = trimSource;
+        }
+
+        public Boolean getRequestCacheForAggregations() {
+            return requestCacheForAggregations;
+        }
+
+        public void setRequestCacheForAggregations(Boolean requestCacheForAggregations) {
+            this.requestCacheForAggregations = requestCacheForAggregations;
+        }
+
+        public Boolean getExistenceCheck() {
+            return existenceCheck;
+        }
+
+        public void setExistenceCheck(Boolean existenceCheck) {
+            this.existenceCheck = existenceCheck;
+        }
+    }
+}
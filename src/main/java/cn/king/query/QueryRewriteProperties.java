@@ -0,0 +1,66 @@
+package cn.king.query;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 22:10
+ * @version: 1.0.0
+ * @description: 查询改写配置
+ */
+@ConfigurationProperties(prefix = "elasticsearch.query-rewrite")
+public class QueryRewriteProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 精确值字段（keyword、数值、日期）。这些字段上的 term/terms 查询对所有命中文档打分相同，
+     * 移到 filter 不改变排序。text 字段上的 term 查询打分和词频有关，不能移。以 .keyword 结尾的字段自动算作精确值字段
+     */
+    private Set<String> exactFields = new LinkedHashSet<>();
+
+    /**
+     * 没有聚合时把 post_filter 并入 bool.filter
+     */
+    private boolean postFilterToFilter = true;
+
+    /**
+     * 按非 _score 字段排序时整个查询不打分
+     */
+    private boolean skipScoringUnderSort = true;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Set<String> getExactFields() {
+        return exactFields;
+    }
+
+    public void setExactFields(Set<String> exactFields) {
+        this.exactFields = exactFields;
+    }
+
+    public boolean isPostFilterToFilter() {
+        return postFilterToFilter;
+    }
+
+    public void setPostFilterToFilter(boolean postFilterToFilter) {
+        this.postFilterToFilter = postFilterToFilter;
+    }
+
+    public boolean isSkipScoringUnderSort() {
+        return skipScoringUnderSort;
+    }
+
+    public void setSkipScoringUnderSort(boolean skipScoringUnderSort) {
+        this.skipScoringUnderSort = skipScoringUnderSort;
+    }
+}
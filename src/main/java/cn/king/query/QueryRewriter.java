@@ -0,0 +1,256 @@
+package cn.king.query;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.ConstantScoreQueryBuilder;
+import org.elasticsearch.index.query.ExistsQueryBuilder;
+import org.elasticsearch.index.query.IdsQueryBuilder;
+import org.elasticsearch.index.query.MatchAllQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.index.query.TermsQueryBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.ScoreSortBuilder;
+import org.elasticsearch.search.sort.ScriptSortBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 22:20
+ * @version: 1.0.0
+ * @description: 发送前改写查询，把不需要打分的条件放进 bool.filter。filter 不计算分数，结果可以被节点的 query cache 缓存。
+ * <p>
+ * 1. bool.must 中的 range/exists/ids，以及精确值字段上的 term/terms 移到 filter。只在两种位置移动：
+ * 不打分的位置（filter、must_not 之下，或者排序不用分数），以及从根开始只经过 must 的位置，
+ * 后者每个命中文档都满足这些条件，少掉的是同一个常数，不改变排序。should 之下不同文档满足的分支不同，
+ * 常数只加在一部分文档上，打分时不改写；有 min_score 时常数会影响过滤，也不改写
+ * 2. 没有聚合时 post_filter 并入 bool.filter：post_filter 在查询之后才执行，既不缩小打分的范围也不会被缓存。
+ * 有聚合时不动，聚合依赖 post_filter 之前的结果集
+ * 3. 按非 _score 字段排序（且没有 track_scores、min_score、聚合、rescore）时，整个查询放进 bool.filter
+ * <p>
+ * 不修改传入的对象，改写后的查询共用没有改动的子查询
+ */
+@Component
+public class QueryRewriter {
+
+    private final QueryRewriteProperties properties;
+
+    public QueryRewriter(QueryRewriteProperties properties) {
+        this.properties = properties;
+    }
+
+    public RewriteResult rewrite(SearchSourceBuilder source) {
+        if (source == null || !properties.isEnabled()) {
+            return new RewriteResult(source, source, Collections.emptyList());
+        }
+        List<String> changes = new ArrayList<>();
+        QueryBuilder query = source.query();
+        QueryBuilder postFilter = source.postFilter();
+        if (query != null) {
+            Context context = !needsScores(source) ? Context.NON_SCORING
+                    : source.minScore() != null ? Context.SCORING : Context.CONSTANT_SHIFT;
+            query = rewrite(query, "query", context, changes);
+        }
+        if (postFilter != null && properties.isPostFilterToFilter() && source.aggregations() == null) {
+            query = addFilter(query, postFilter);
+            changes.add("post_filter " + describe(postFilter) + " 没有聚合依赖，并入 bool.filter");
+            postFilter = null;
+        }
+        if (query != null && !needsScores(source) && !isNonScoring(query)) {
+            query = QueryBuilders.boolQuery().filter(query);
+            changes.add("按非 _score 字段排序，查询整体放入 bool.filter，不再打分");
+        }
+        if (changes.isEmpty()) {
+            return new RewriteResult(source, source, changes);
+        }
+        SearchSourceBuilder rewritten = source.shallowCopy().query(query).postFilter(postFilter);
+        return new RewriteResult(source, rewritten, changes);
+    }
+
+    private QueryBuilder rewrite(QueryBuilder query, String path, Context context, List<String> changes) {
+        if (query instanceof BoolQueryBuilder) {
+            return rewriteBool((BoolQueryBuilder) query, path, context, changes);
+        }
+        if (context != Context.SCORING && isConstantScore(query)) {
+            changes.add(path + " " + describe(query) + " 不需要打分，放入 bool.filter");
+            return QueryBuilders.boolQuery().filter(query);
+        }
+        return query;
+    }
+
+    private BoolQueryBuilder rewriteBool(BoolQueryBuilder bool, String path, Context context, List<String> changes) {
+        List<QueryBuilder> must = new ArrayList<>(bool.must().size());
+        List<QueryBuilder> moved = new ArrayList<>();
+        boolean changed = false;
+        for (int i = 0; i < bool.must().size(); i++) {
+            QueryBuilder clause = bool.must().get(i);
+            if (context != Context.SCORING && isConstantScore(clause)) {
+                moved.add(clause);
+                changes.add(path + ".must[" + i + "] " + describe(clause) + " 移到 filter");
+            } else {
+                QueryBuilder rewritten = rewriteClause(clause, path + ".must[" + i + "]", context, changes);
+                changed |= rewritten != clause;
+                must.add(rewritten);
+            }
+        }
+        // should 子句本身不能移，否则“至少满足一个”的语义就变了；打分时其中嵌套的 bool 也不能动
+        Context shouldContext = context == Context.NON_SCORING ? Context.NON_SCORING : Context.SCORING;
+        List<QueryBuilder> should = rewriteClauses(bool.should(), path + ".should", shouldContext, changes);
+        List<QueryBuilder> filter = rewriteClauses(bool.filter(), path + ".filter", Context.NON_SCORING, changes);
+        List<QueryBuilder> mustNot = rewriteClauses(bool.mustNot(), path + ".must_not", Context.NON_SCORING, changes);
+        changed |= should != bool.should() || filter != bool.filter() || mustNot != bool.mustNot();
+        if (moved.isEmpty() && !changed) {
+            return bool;
+        }
+        BoolQueryBuilder copy = copyOf(bool, must, filter, mustNot, should);
+        moved.forEach(copy::filter);
+        return copy;
+    }
+
+    /**
+     * 改写其中嵌套的 bool，都没有变化时返回原来的列表
+     */
+    private List<QueryBuilder> rewriteClauses(List<QueryBuilder> clauses, String path, Context context,
+                                              List<String> changes) {
+        List<QueryBuilder> result = new ArrayList<>(clauses.size());
+        boolean changed = false;
+        for (int i = 0; i < clauses.size(); i++) {
+            QueryBuilder clause = clauses.get(i);
+            QueryBuilder rewritten = rewriteClause(clause, path + "[" + i + "]", context, changes);
+            changed |= rewritten != clause;
+            result.add(rewritten);
+        }
+        return changed ? result : clauses;
+    }
+
+    private QueryBuilder rewriteClause(QueryBuilder clause, String path, Context context, List<String> changes) {
+        return clause instanceof BoolQueryBuilder ? rewriteBool((BoolQueryBuilder) clause, path, context, changes) : clause;
+    }
+
+    /**
+     * 给查询加一个 filter 条件，不修改原来的对象
+     */
+    private static QueryBuilder addFilter(QueryBuilder query, QueryBuilder filter) {
+        if (query == null || (query instanceof MatchAllQueryBuilder && query.boost() == 1.0f)) {
+            return QueryBuilders.boolQuery().filter(filter);
+        }
+        if (query instanceof BoolQueryBuilder) {
+            BoolQueryBuilder bool = (BoolQueryBuilder) query;
+            BoolQueryBuilder copy = copyOf(bool, bool.must(), bool.filter(), bool.mustNot(), bool.should());
+            if (!bool.should().isEmpty() && bool.must().isEmpty() && bool.filter().isEmpty()
+                    && bool.minimumShouldMatch() == null) {
+                // 只有 should 时至少要满足一个，加了 filter 之后 should 就变成可选的了，要显式保留原来的语义
+                copy.minimumShouldMatch(1);
+            }
+            return copy.filter(filter);
+        }
+        return QueryBuilders.boolQuery().must(query).filter(filter);
+    }
+
+    private static BoolQueryBuilder copyOf(BoolQueryBuilder bool, List<QueryBuilder> must, List<QueryBuilder> filter,
+                                           List<QueryBuilder> mustNot, List<QueryBuilder> should) {
+        BoolQueryBuilder copy = QueryBuilders.boolQuery();
+        must.forEach(copy::must);
+        filter.forEach(copy::filter);
+        mustNot.forEach(copy::mustNot);
+        should.forEach(copy::should);
+        return copy.minimumShouldMatch(bool.minimumShouldMatch())
+                .adjustPureNegative(bool.adjustPureNegative())
+                .boost(bool.boost())
+                .queryName(bool.queryName());
+    }
+
+    /**
+     * 对每个命中文档的打分都相同的查询
+     */
+    private boolean isConstantScore(QueryBuilder query) {
+        if (query instanceof RangeQueryBuilder || query instanceof ExistsQueryBuilder || query instanceof IdsQueryBuilder) {
+            return true;
+        }
+        if (query instanceof TermQueryBuilder) {
+            return isExactField(((TermQueryBuilder) query).fieldName());
+        }
+        if (query instanceof TermsQueryBuilder) {
+            return isExactField(((TermsQueryBuilder) query).fieldName());
+        }
+        return false;
+    }
+
+    private boolean isExactField(String field) {
+        return properties.getExactFields().contains(field) || field.endsWith(".keyword");
+    }
+
+    /**
+     * 本身就不打分（或者打分是常数）的查询，不需要再包一层
+     */
+    private static boolean isNonScoring(QueryBuilder query) {
+        if (query instanceof MatchAllQueryBuilder || query instanceof ConstantScoreQueryBuilder) {
+            return true;
+        }
+        if (query instanceof BoolQueryBuilder) {
+            BoolQueryBuilder bool = (BoolQueryBuilder) query;
+            return bool.must().isEmpty() && bool.should().isEmpty();
+        }
+        return false;
+    }
+
+    private static boolean needsScores(SearchSourceBuilder source) {
+        List<SortBuilder<?>> sorts = source.sorts();
+        if (sorts == null || sorts.isEmpty()) {
+            return true;
+        }
+        // 聚合里的 top_hits 等可能用到分数
+        if (source.trackScores() || source.minScore() != null || source.aggregations() != null
+                || (source.rescores() != null && !source.rescores().isEmpty())) {
+            return true;
+        }
+        for (SortBuilder<?> sort : sorts) {
+            // 脚本里可以读 _score
+            if (sort instanceof ScoreSortBuilder || sort instanceof ScriptSortBuilder) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describe(QueryBuilder query) {
+        String field = null;
+        if (query instanceof RangeQueryBuilder) {
+            field = ((RangeQueryBuilder) query).fieldName();
+        } else if (query instanceof TermQueryBuilder) {
+            field = ((TermQueryBuilder) query).fieldName();
+        } else if (query instanceof TermsQueryBuilder) {
+            field = ((TermsQueryBuilder) query).fieldName();
+        } else if (query instanceof ExistsQueryBuilder) {
+            field = ((ExistsQueryBuilder) query).fieldName();
+        }
+        return field == null ? query.getName() : query.getName() + "(" + field + ")";
+    }
+
+    /**
+     * 子句所在位置的分数怎么使用
+     */
+    private enum Context {
+
+        /**
+         * 分数不使用
+         */
+        NON_SCORING,
+
+        /**
+         * 每个命中文档都满足这里的条件，常数分数对所有文档相同
+         */
+        CONSTANT_SHIFT,
+
+        /**
+         * 分数参与排序或过滤，并且不是每个命中文档都经过这里
+         */
+        SCORING
+    }
+}
@@ -0,0 +1,66 @@
+package cn.king.query;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 22:40
+ * @version: 1.0.0
+ * @description: 同一个查询改写前后各执行一次的对比
+ */
+public class RewriteComparison {
+
+    private final RewriteResult rewrite;
+
+    private final long originalTookMillis;
+
+    private final long rewrittenTookMillis;
+
+    private final long originalTotalHits;
+
+    private final long rewrittenTotalHits;
+
+    /**
+     * 返回的文档 id 集合是否相同。打分改变后同分文档的顺序可能不同，所以不比较顺序
+     */
+    private final boolean sameHits;
+
+    public RewriteComparison(RewriteResult rewrite, long originalTookMillis, long rewrittenTookMillis,
+                             long originalTotalHits, long rewrittenTotalHits, boolean sameHits) {
+        this.rewrite = rewrite;
+        this.originalTookMillis = originalTookMillis;
+        this.rewrittenTookMillis = rewrittenTookMillis;
+        this.originalTotalHits = originalTotalHits;
+        this.rewrittenTotalHits = rewrittenTotalHits;
+        this.sameHits = sameHits;
+    }
+
+    public RewriteResult getRewrite() {
+        return rewrite;
+    }
+
+    public long getOriginalTookMillis() {
+        return originalTookMillis;
+    }
+
+    public long getRewrittenTookMillis() {
+        return rewrittenTookMillis;
+    }
+
+    public long getOriginalTotalHits() {
+        return originalTotalHits;
+    }
+
+    public long getRewrittenTotalHits() {
+        return rewrittenTotalHits;
+    }
+
+    public boolean isSameHits() {
+        return sameHits;
+    }
+
+    @Override
+    public String toString() {
+        return "RewriteComparison{took " + originalTookMillis + "ms -> " + rewrittenTookMillis + "ms" +
+                ", totalHits " + originalTotalHits + " -> " + rewrittenTotalHits +
+                ", sameHits=" + sameHits + ", changes=" + rewrite.getChanges() + '}';
+    }
+}
@@ -0,0 +1,69 @@
+package cn.king.query;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.util.List;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 22:15
+ * @version: 1.0.0
+ * @description: 一次查询改写的结果，changes 记录了每一处改动，用于核对改写是否正确
+ */
+public class RewriteResult {
+
+    private final SearchSourceBuilder original;
+
+    private final SearchSourceBuilder rewritten;
+
+    private final List<String> changes;
+
+    public RewriteResult(SearchSourceBuilder original, SearchSourceBuilder rewritten, List<String> changes) {
+        this.original = original;
+        this.rewritten = rewritten;
+        this.changes = changes;
+    }
+
+    public SearchSourceBuilder getOriginal() {
+        return original;
+    }
+
+    /**
+     * 没有改动时和 original 是同一个对象
+     */
+    public SearchSourceBuilder getRewritten() {
+        return rewritten;
+    }
+
+    public List<String> getChanges() {
+        return changes;
+    }
+
+    public boolean isChanged() {
+        return !changes.isEmpty();
+    }
+
+    /**
+     * 改动列表加上改写前后的查询 json
+     */
+    public String explain() {
+        StringBuilder sb = new StringBuilder();
+        if (changes.isEmpty()) {
+            sb.append("无改动\n");
+        }
+        for (String change : changes) {
+            sb.append("- ").append(change).append('\n');
+        }
+        if (original != null) {
+            sb.append("改写前: ").append(Strings.toString(original)).append('\n');
+            sb.append("改写后: ").append(Strings.toString(rewritten)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "RewriteResult{changes=" + changes + '}';
+    }
+}
@@ -0,0 +1,97 @@
+package cn.king.query;
+
+import cn.king.client.AsyncEsClient;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 22:45
+ * @version: 1.0.0
+ * @description: 发送前自动改写查询的搜索。compare 用来上线前核对：改写前后各执行一次（都不走分片请求缓存），
+ * 比较耗时和命中的文档
+ */
+@Component
+public class RewritingSearchClient {
+
+    private static final Logger log = LoggerFactory.getLogger(RewritingSearchClient.class);
+
+    private final AsyncEsClient client;
+
+    private final QueryRewriter rewriter;
+
+    public RewritingSearchClient(AsyncEsClient client, QueryRewriter rewriter) {
+        this.client = client;
+        this.rewriter = rewriter;
+    }
+
+    public CompletableFuture<SearchResponse> search(SearchRequest request) {
+        RewriteResult result = rewriter.rewrite(request.source());
+        if (!result.isChanged()) {
+            return client.search(request);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("查询改写 {}", result.explain());
+        }
+        return client.search(withSource(request, result.getRewritten()));
+    }
+
+    public RewriteResult explain(SearchRequest request) {
+        return rewriter.rewrite(request.source());
+    }
+
+    public CompletableFuture<RewriteComparison> compare(SearchRequest request) {
+        RewriteResult result = rewriter.rewrite(request.source());
+        SearchRequest original = withSource(request, request.source()).requestCache(false);
+        SearchRequest rewritten = withSource(request, result.getRewritten()).requestCache(false);
+        // 先后执行，避免两个查询互相抢资源影响耗时
+        return client.search(original).thenCompose(before -> client.search(rewritten).thenApply(after ->
+                new RewriteComparison(result, before.getTook().millis(), after.getTook().millis(),
+                        totalHits(before), totalHits(after), ids(before).equals(ids(after)))));
+    }
+
+    private static long totalHits(SearchResponse response) {
+        return response.getHits().getTotalHits() == null ? -1 : response.getHits().getTotalHits().value;
+    }
+
+    private static Set<String> ids(SearchResponse response) {
+        Set<String> ids = new HashSet<>();
+        for (SearchHit hit : response.getHits().getHits()) {
+            ids.add(hit.getIndex() + '/' + hit.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * 复制请求级别的参数，换上新的 source，不修改调用方的请求
+     */
+    public static SearchRequest withSource(SearchRequest request, SearchSourceBuilder source) {
+        SearchRequest copy = new SearchRequest(request.indices(), source)
+                .routing(request.routing())
+                .preference(request.preference())
+                .indicesOptions(request.indicesOptions())
+                .searchType(request.searchType())
+                .requestCache(request.requestCache())
+                .scroll(request.scroll());
+        // 这两个参数未设置时为 null，由集群配置决定
+        if (request.allowPartialSearchResults() != null) {
+            copy.allowPartialSearchResults(request.allowPartialSearchResults());
+        }
+        if (request.getPreFilterShardSize() != null) {
+            copy.setPreFilterShardSize(request.getPreFilterShardSize());
+        }
+        copy.setBatchedReduceSize(request.getBatchedReduceSize());
+        copy.setMaxConcurrentShardRequests(request.getMaxConcurrentShardRequests());
+        copy.setCcsMinimizeRoundtrips(request.isCcsMinimizeRoundtrips());
+        return copy;
+    }
+}
@@ -0,0 +1,115 @@
+package cn.king.query;
+
+import cn.king.mapping.SourceDecoder;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.search.internal.SearchContext;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 23:20
+ * @version: 1.0.0
+ * @description: 按接口策略削减搜索在分片上的无用功，发送前调用 govern 得到调整后的请求。
+ * <p>
+ * 1. track_total_hits：精确统计总数要访问所有匹配的文档，列表页通常只需要“1000+”这样的数字
+ * 2. _source 过滤：typed 结果只读取解码器声明的字段，其余字段不用从磁盘读出、序列化和传输
+ * 3. request_cache：只要聚合结果的搜索，整个分片级结果可以缓存，索引 refresh 后自动失效
+ * 4. 存在性检查：size=0 + terminate_after=1，每个分片找到一个匹配就停
+ * <p>
+ * 调用方显式设置过的参数不覆盖，不修改传入的请求
+ */
+@Component
+public class SearchCostGovernor {
+
+    private final CostGovernorProperties properties;
+
+    private final LongAdder totalHitsCapped = new LongAdder();
+
+    private final LongAdder sourceTrimmed = new LongAdder();
+
+    private final LongAdder requestCacheEnabled = new LongAdder();
+
+    private final LongAdder existenceChecks = new LongAdder();
+
+    public SearchCostGovernor(CostGovernorProperties properties) {
+        this.properties = properties;
+    }
+
+    public SearchRequest govern(String endpoint, SearchRequest request) {
+        return govern(endpoint, request, null);
+    }
+
+    /**
+     * @param decoder 结果的解码器，用于 _source 过滤，可以为 null
+     */
+    public SearchRequest govern(String endpoint, SearchRequest request, SourceDecoder<?> decoder) {
+        if (!properties.isEnabled()) {
+            return request;
+        }
+        CostGovernorProperties.Policy policy = properties.policy(endpoint);
+        SearchSourceBuilder source = request.source() == null ? new SearchSourceBuilder() : request.source().shallowCopy();
+        boolean existence = Boolean.TRUE.equals(policy.getExistenceCheck());
+        if (existence) {
+            source.size(0).terminateAfter(1).trackTotalHitsUpTo(1);
+            existenceChecks.increment();
+        } else {
+            capTotalHits(source, policy.getTrackTotalHitsUpTo());
+            if (Boolean.TRUE.equals(policy.getTrimSource()) && decoder != null && source.fetchSource() == null
+                    && source.size() != 0) {
+                source.fetchSource(new FetchSourceContext(true, decoder.fields(), null));
+                sourceTrimmed.increment();
+            }
+        }
+        SearchRequest governed = RewritingSearchClient.withSource(request, source);
+        if (Boolean.TRUE.equals(policy.getRequestCacheForAggregations()) && request.requestCache() == null
+                && source.size() == 0 && source.aggregations() != null) {
+            // 显式打开后，即使索引设置了 index.requests.cache.enable=false 也会缓存
+            governed.requestCache(true);
+            requestCacheEnabled.increment();
+        }
+        return governed;
+    }
+
+    /**
+     * 存在性检查的结果
+     */
+    public static boolean exists(SearchResponse response) {
+        return response.getHits().getTotalHits() != null && response.getHits().getTotalHits().value > 0;
+    }
+
+    public long totalHitsCapped() {
+        return totalHitsCapped.sum();
+    }
+
+    public long sourceTrimmed() {
+        return sourceTrimmed.sum();
+    }
+
+    public long requestCacheEnabled() {
+        return requestCacheEnabled.sum();
+    }
+
+    public long existenceChecks() {
+        return existenceChecks.sum();
+    }
+
+    /**
+     * 只调整没有设置过 track_total_hits 的请求，不设置时 es 按 10000 统计，上限不低于它时不动
+     */
+    private void capTotalHits(SearchSourceBuilder source, Integer cap) {
+        if (cap == null || source.trackTotalHitsUpTo() != null || cap >= SearchContext.DEFAULT_TRACK_TOTAL_HITS_UP_TO) {
+            return;
+        }
+        if (cap == 0) {
+            source.trackTotalHits(false);
+        } else {
+            source.trackTotalHitsUpTo(cap);
+        }
+        totalHitsCapped.increment();
+    }
+}
@@ -0,0 +1,15 @@
+package cn.king.reindex;
+
+import cn.king.bulk.BulkIngestionService;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 21:45
+ * @version: 1.0.0
+ * @description: 往新索引里灌数据。实现方把文档写进 bulk，index 参数是新索引的名字，不要写别名
+ */
+@FunctionalInterface
+public interface DocumentLoader {
+
+    void load(String index, BulkIngestionService bulk) throws Exception;
+}
@@ -0,0 +1,107 @@
+package cn.king.reindex;
+
+import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 21:40
+ * @version: 1.0.0
+ * @description: 全量重建索引配置
+ */
+@ConfigurationProperties(prefix = "elasticsearch.fast-load")
+public class FastLoadProperties {
+
+    /**
+     * 加载完成后恢复的副本数，调用方传入的 settings 中有 index.number_of_replicas 时以调用方为准
+     */
+    private int replicas = 1;
+
+    /**
+     * 加载完成后恢复的 refresh 间隔，调用方传入的 settings 中有 index.refresh_interval 时以调用方为准
+     */
+    private String refreshInterval = "1s";
+
+    /**
+     * force merge 之后每个分片的段数
+     */
+    private int maxNumSegments = 1;
+
+    /**
+     * 等待加载的文档全部写完的最长时间
+     */
+    private Duration loadTimeout = Duration.ofHours(2);
+
+    /**
+     * force merge、等待副本分配这类慢操作的超时时间
+     */
+    private Duration adminTimeout = Duration.ofMinutes(30);
+
+    /**
+     * 切换别名前新索引要达到的健康状态。单节点集群有副本时永远到不了 green，需要改成 yellow
+     */
+    private ClusterHealthStatus waitForStatus = ClusterHealthStatus.GREEN;
+
+    /**
+     * 切换后是否删除旧索引。旧名字是具体索引（不是别名）时，切换会删除它和其中的数据，为 false 时加载前直接失败
+     */
+    private boolean deleteOld = false;
+
+    public int getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(int replicas) {
+        this.replicas = replicas;
+    }
+
+    public String getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(String refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    public int getMaxNumSegments() {
+        return maxNumSegments;
+    }
+
+    public void setMaxNumSegments(int maxNumSegments) {
+        this.maxNumSegments = maxNumSegments;
+    }
+
+    public Duration getLoadTimeout() {
+        return loadTimeout;
+    }
+
+    public void setLoadTimeout(Duration loadTimeout) {
+        this.loadTimeout = loadTimeout;
+    }
+
+    public Duration getAdminTimeout() {
+        return adminTimeout;
+    }
+
+    public void setAdminTimeout(Duration adminTimeout) {
+        this.adminTimeout = adminTimeout;
+    }
+
+    public ClusterHealthStatus getWaitForStatus() {
+        return waitForStatus;
+    }
+
+    public void setWaitForStatus(ClusterHealthStatus waitForStatus) {
+        this.waitForStatus = waitForStatus;
+    }
+
+    public boolean isDeleteOld() {
+        return deleteOld;
+    }
+
+    public void setDeleteOld(boolean deleteOld) {
+        this.deleteOld = deleteOld;
+    }
+}
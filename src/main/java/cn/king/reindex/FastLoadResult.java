@@ -0,0 +1,70 @@
+package cn.king.reindex;
+
+import java.util.List;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 21:45
+ * @version: 1.0.0
+ * @description: 一次全量重建的结果
+ */
+public class FastLoadResult {
+
+    private final String alias;
+
+    private final String index;
+
+    private final List<String> previousIndices;
+
+    private final long documents;
+
+    private final long loadMillis;
+
+    private final long totalMillis;
+
+    public FastLoadResult(String alias, String index, List<String> previousIndices, long documents,
+                          long loadMillis, long totalMillis) {
+        this.alias = alias;
+        this.index = index;
+        this.previousIndices = previousIndices;
+        this.documents = documents;
+        this.loadMillis = loadMillis;
+        this.totalMillis = totalMillis;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    /**
+     * 新建的带版本号的索引
+     */
+    public String getIndex() {
+        return index;
+    }
+
+    /**
+     * 切换前别名指向的索引
+     */
+    public List<String> getPreviousIndices() {
+        return previousIndices;
+    }
+
+    public long getDocuments() {
+        return documents;
+    }
+
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "FastLoadResult{alias=" + alias + ", index=" + index + ", previousIndices=" + previousIndices +
+                ", documents=" + documents + ", loadMillis=" + loadMillis + ", totalMillis=" + totalMillis + '}';
+    }
+}
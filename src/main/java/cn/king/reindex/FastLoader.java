@@ -0,0 +1,277 @@
+package cn.king.reindex;
+
+import cn.king.bulk.BulkIngestionService;
+import cn.king.bulk.BulkProperties;
+import cn.king.bulk.BulkStats;
+import cn.king.cache.CachingSearchClient;
+import cn.king.config.WireFormats;
+import org.apache.http.client.config.RequestConfig;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthRequest;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.client.GetAliasesResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.client.indices.GetMappingsRequest;
+import org.elasticsearch.client.indices.GetMappingsResponse;
+import org.elasticsearch.cluster.metadata.MappingMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 21:50
+ * @version: 1.0.0
+ * @description: 全量重建索引，读请求不中断。
+ * <p>
+ * 1. 新建带时间戳的索引 {alias}_yyyyMMddHHmmss，加载期间 refresh_interval=-1、number_of_replicas=0，
+ * 每个文档只写一次主分片，也不会产生大量小段
+ * 2. 每次加载新建一个专用的 BulkIngestionService 灌数据并等待全部写完，计数和等待不受其他写入影响，
+ * 有失败的文档时放弃并删除新索引。加载的文档不发布 DocumentWriteEvent
+ * 3. 恢复 refresh 间隔和副本数，force merge，等副本分配完成后 refresh
+ * 4. 用一个 _aliases 请求原子地把别名从旧索引切到新索引。旧名字是具体索引时（如 test01 直接建的 product），
+ * 别名不能和它同名，只能在同一个请求里删除它，旧数据随之丢失，所以只在 delete-old=true 时才允许，否则加载前就失败
+ * <p>
+ * 读写都要通过别名。加载期间写到别名上的数据仍然进入旧索引，切换后就丢了，调用方需要在加载期间暂停增量写入或事后补写
+ */
+@Component
+public class FastLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(FastLoader.class);
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private static final String REFRESH_INTERVAL = "index.refresh_interval";
+
+    private static final String NUMBER_OF_REPLICAS = "index.number_of_replicas";
+
+    /**
+     * 创建索引时由 es 生成、不能指定的 settings，以及加载期间不能保留的只读块
+     */
+    private static final String[] GENERATED_SETTINGS = {"index.uuid", "index.creation_date", "index.provided_name",
+            "index.version.", "index.resize.", "index.routing.allocation.initial_recovery.", "index.blocks."};
+
+    private final RestHighLevelClient client;
+
+    private final BulkProperties bulkProperties;
+
+    private final WireFormats wireFormats;
+
+    private final CachingSearchClient cache;
+
+    private final FastLoadProperties properties;
+
+    public FastLoader(RestHighLevelClient client, BulkProperties bulkProperties, WireFormats wireFormats,
+                      CachingSearchClient cache, FastLoadProperties properties) {
+        this.client = client;
+        this.bulkProperties = bulkProperties;
+        this.wireFormats = wireFormats;
+        this.cache = cache;
+        this.properties = properties;
+    }
+
+    /**
+     * 沿用当前索引的 mapping 和 settings（分片数、分词器等）重建
+     */
+    public FastLoadResult reload(String alias, DocumentLoader loader) throws Exception {
+        GetMappingsResponse response = client.indices().getMapping(new GetMappingsRequest().indices(alias),
+                RequestOptions.DEFAULT);
+        Map<String, MappingMetadata> mappings = response.mappings();
+        if (mappings.isEmpty()) {
+            throw new IllegalStateException(alias + " 不存在，请指定 mapping");
+        }
+        String current = mappings.keySet().iterator().next();
+        String mapping = mappings.get(current).source().string();
+        GetSettingsResponse settings = client.indices().getSettings(new GetSettingsRequest().indices(current),
+                RequestOptions.DEFAULT);
+        return reload(alias, mapping, copyableSettings(settings.getIndexToSettings().get(current)), loader);
+    }
+
+    /**
+     * @param alias    读写使用的名字，切换后成为指向新索引的别名
+     * @param mapping  新索引的 mapping，json 格式
+     * @param settings 新索引的 settings，如分片数、分词器
+     */
+    public FastLoadResult reload(String alias, String mapping, Settings settings, DocumentLoader loader)
+            throws Exception {
+        long start = System.currentTimeMillis();
+        checkSwappable(alias, isConcreteIndex(alias), properties.isDeleteOld());
+        String index = alias + "_" + LocalDateTime.now().format(SUFFIX);
+        Settings loadSettings = Settings.builder()
+                .put(settings)
+                .put(REFRESH_INTERVAL, "-1")
+                .put(NUMBER_OF_REPLICAS, 0)
+                .build();
+        client.indices().create(new CreateIndexRequest(index).mapping(mapping, XContentType.JSON).settings(loadSettings),
+                RequestOptions.DEFAULT);
+        log.info("创建索引 {}，开始加载", index);
+
+        long loadMillis;
+        long documents;
+        try {
+            long loadStart = System.currentTimeMillis();
+            BulkStats stats = load(index, loader);
+            loadMillis = System.currentTimeMillis() - loadStart;
+            if (stats.getFailed() > 0) {
+                throw new IllegalStateException(index + " 有 " + stats.getFailed() + " 个文档写入失败");
+            }
+            documents = stats.getSucceeded();
+            log.info("{} 加载完成 docs={} 耗时 {}ms", index, documents, loadMillis);
+
+            restoreSettings(index, settings);
+            client.indices().forcemerge(new ForceMergeRequest(index).maxNumSegments(properties.getMaxNumSegments()),
+                    slowOptions());
+            waitForHealth(index);
+            client.indices().refresh(new RefreshRequest(index), RequestOptions.DEFAULT);
+        } catch (Exception e) {
+            log.error("{} 加载失败，删除新索引", index, e);
+            deleteQuietly(Collections.singletonList(index));
+            throw e;
+        }
+
+        List<String> previous = swapAlias(alias, index);
+        cache.invalidate(alias);
+        if (properties.isDeleteOld() && !previous.isEmpty() && !previous.contains(alias)) {
+            deleteQuietly(previous);
+        }
+        FastLoadResult result = new FastLoadResult(alias, index, previous, documents, loadMillis,
+                System.currentTimeMillis() - start);
+        log.info("重建完成 {}", result);
+        return result;
+    }
+
+    /**
+     * 用专用的 BulkIngestionService 加载，返回只属于这次加载的统计
+     */
+    private BulkStats load(String index, DocumentLoader loader) throws Exception {
+        BulkIngestionService bulk = new BulkIngestionService(client, bulkProperties, event -> {
+        }, wireFormats);
+        bulk.start();
+        try {
+            loader.load(index, bulk);
+            if (!bulk.awaitIdle(properties.getLoadTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException(index + " 加载超时 " + properties.getLoadTimeout());
+            }
+            return bulk.getStats();
+        } finally {
+            bulk.close();
+        }
+    }
+
+    /**
+     * 旧索引的 settings 去掉 es 生成的部分，用于创建新索引
+     */
+    static Settings copyableSettings(Settings settings) {
+        if (settings == null) {
+            return Settings.EMPTY;
+        }
+        return settings.filter(key -> {
+            for (String generated : GENERATED_SETTINGS) {
+                if (generated.endsWith(".") ? key.startsWith(generated) : key.equals(generated)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * 旧名字是具体索引时切换别名必须删除它，不允许删除旧数据时直接失败
+     */
+    static void checkSwappable(String alias, boolean concreteIndex, boolean deleteOld) {
+        if (concreteIndex && !deleteOld) {
+            throw new IllegalStateException(alias + " 是具体索引而不是别名，切换时必须删除它，旧数据会丢失。" +
+                    "确认可以删除请设置 elasticsearch.fast-load.delete-old=true，或者先把它 reindex 到新名字并建好别名");
+        }
+    }
+
+    private boolean isConcreteIndex(String alias) throws IOException {
+        return !client.indices().existsAlias(new GetAliasesRequest(alias), RequestOptions.DEFAULT)
+                && client.indices().exists(new GetIndexRequest(alias), RequestOptions.DEFAULT);
+    }
+
+    private void restoreSettings(String index, Settings settings) throws IOException {
+        Settings.Builder restore = Settings.builder()
+                .put(NUMBER_OF_REPLICAS, settings.getAsInt(NUMBER_OF_REPLICAS, properties.getReplicas()));
+        String refreshInterval = settings.get(REFRESH_INTERVAL, properties.getRefreshInterval());
+        if (refreshInterval == null) {
+            restore.putNull(REFRESH_INTERVAL);
+        } else {
+            restore.put(REFRESH_INTERVAL, refreshInterval);
+        }
+        client.indices().putSettings(new UpdateSettingsRequest(index).settings(restore), RequestOptions.DEFAULT);
+    }
+
+    private void waitForHealth(String index) throws IOException {
+        TimeValue timeout = TimeValue.timeValueMillis(properties.getAdminTimeout().toMillis());
+        ClusterHealthResponse health = client.cluster().health(new ClusterHealthRequest(index)
+                .waitForStatus(properties.getWaitForStatus())
+                .timeout(timeout), slowOptions());
+        if (health.isTimedOut()) {
+            throw new IllegalStateException(index + " 在 " + timeout + " 内没有达到 " + properties.getWaitForStatus()
+                    + "，当前 " + health.getStatus());
+        }
+    }
+
+    /**
+     * @return 切换前别名指向的索引。旧名字是具体索引时返回它自己（已被删除）
+     */
+    private List<String> swapAlias(String alias, String index) throws IOException {
+        IndicesAliasesRequest request = new IndicesAliasesRequest();
+        request.addAliasAction(IndicesAliasesRequest.AliasActions.add().index(index).alias(alias));
+        List<String> previous = new ArrayList<>();
+        if (client.indices().existsAlias(new GetAliasesRequest(alias), RequestOptions.DEFAULT)) {
+            GetAliasesResponse aliases = client.indices().getAlias(new GetAliasesRequest(alias), RequestOptions.DEFAULT);
+            for (String old : aliases.getAliases().keySet()) {
+                request.addAliasAction(IndicesAliasesRequest.AliasActions.remove().index(old).alias(alias));
+                previous.add(old);
+            }
+        } else if (client.indices().exists(new GetIndexRequest(alias), RequestOptions.DEFAULT)) {
+            // 别名不能和已有的索引同名，旧索引必须在同一个请求里删除。加载期间可能有人把别名换成了索引，再检查一次
+            checkSwappable(alias, true, properties.isDeleteOld());
+            log.warn("{} 是具体索引，切换时将被删除", alias);
+            request.addAliasAction(IndicesAliasesRequest.AliasActions.removeIndex().index(alias));
+            previous.add(alias);
+        }
+        client.indices().updateAliases(request, RequestOptions.DEFAULT);
+        log.info("别名 {} 已从 {} 切换到 {}", alias, previous, index);
+        return previous;
+    }
+
+    private void deleteQuietly(List<String> indices) {
+        try {
+            client.indices().delete(new DeleteIndexRequest(indices.toArray(new String[0])), RequestOptions.DEFAULT);
+        } catch (Exception e) {
+            log.warn("删除索引 {} 失败", indices, e);
+        }
+    }
+
+    private RequestOptions slowOptions() {
+        int timeout = (int) properties.getAdminTimeout().toMillis();
+        return RequestOptions.DEFAULT.toBuilder()
+                .setRequestConfig(RequestConfig.custom().setSocketTimeout(timeout).build())
+                .build();
+    }
+}
@@ -0,0 +1,111 @@
+package cn.king.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 11:25
+ * @version: 1.0.0
+ * @description: 按耗时自适应的并发上限（AIMD）。
+ * <p>
+ * 1. 加性增：请求正常完成且并发接近上限时，上限每轮（约 limit 个请求）加 1
+ * 2. 乘性减：耗时超过最小耗时的 tolerance 倍（请求在 es 那边排队了），或出现 429/503/超时，上限乘以 backoffRatio，
+ * 每个往返时间最多减一次，避免一批慢请求把上限一下子压到底
+ * 3. 最小耗时每 1000 个样本重新测量一次，集群扩缩容之后能跟上新的基线
+ */
+final class AdaptiveLimiter {
+
+    private static final int MIN_RTT_RESET_SAMPLES = 1000;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final double latencyTolerance;
+
+    private final LongSupplier clock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+
+    private long minRttNanos = Long.MAX_VALUE;
+
+    private int samples;
+
+    private long lastDecreaseNanos;
+
+    AdaptiveLimiter(ResilienceProperties.Adaptive properties, LongSupplier clock) {
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.backoffRatio = properties.getBackoffRatio();
+        this.latencyTolerance = properties.getLatencyTolerance();
+        this.clock = clock;
+        this.limit = properties.getInitialLimit();
+    }
+
+    boolean tryAcquire() {
+        for (; ; ) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 请求正常完成
+     */
+    synchronized void onSuccess(long rttNanos) {
+        int current = inFlight.getAndDecrement();
+        if (++samples >= MIN_RTT_RESET_SAMPLES) {
+            samples = 0;
+            minRttNanos = rttNanos;
+        }
+        minRttNanos = Math.min(minRttNanos, rttNanos);
+        if (rttNanos > minRttNanos * latencyTolerance) {
+            decrease(rttNanos);
+        } else if (current * 2 >= limit) {
+            // 并发远低于上限时不增加，否则空闲期会把上限涨到没有意义的值
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * 429/503/超时等过载信号
+     */
+    synchronized void onOverload(long rttNanos) {
+        inFlight.decrementAndGet();
+        decrease(rttNanos);
+    }
+
+    /**
+     * 取消、客户端错误等不反映集群负载的结果
+     */
+    void onIgnore() {
+        inFlight.decrementAndGet();
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void decrease(long rttNanos) {
+        long now = clock.getAsLong();
+        if (now - lastDecreaseNanos < rttNanos) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+}
@@ -0,0 +1,146 @@
+package cn.king.resilience;
+
+import java.util.function.LongSupplier;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 11:35
+ * @version: 1.0.0
+ * @description: 熔断器。按最近 windowSize 个请求的过载失败率（429/503/超时等）决定是否熔断。
+ * <p>
+ * CLOSED -> 失败率达到阈值 -> OPEN -> 经过 openDuration -> HALF_OPEN，放行 halfOpenCalls 个试探请求，
+ * 全部成功回到 CLOSED，任意一个失败回到 OPEN
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final double failureRateThreshold;
+
+    private final int minimumCalls;
+
+    private final long openNanos;
+
+    private final int halfOpenCalls;
+
+    private final LongSupplier clock;
+
+    /**
+     * 最近的请求结果，true 表示失败
+     */
+    private final boolean[] outcomes;
+
+    private int index;
+
+    private int count;
+
+    private int failures;
+
+    private State state = State.CLOSED;
+
+    private long openedAtNanos;
+
+    private int halfOpenPermits;
+
+    private int halfOpenSuccesses;
+
+    CircuitBreaker(ResilienceProperties.Breaker properties, LongSupplier clock) {
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.minimumCalls = properties.getMinimumCalls();
+        this.openNanos = properties.getOpenDuration().toNanos();
+        this.halfOpenCalls = properties.getHalfOpenCalls();
+        this.clock = clock;
+        this.outcomes = new boolean[properties.getWindowSize()];
+    }
+
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAtNanos < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (count >= minimumCalls && failures >= failureRateThreshold * count) {
+            open();
+        }
+    }
+
+    /**
+     * 结果不计入统计，半开状态下把试探名额还回去
+     */
+    synchronized void onIgnore() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits++;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    /**
+     * 距离放行试探请求还有多久
+     */
+    synchronized long retryAfterMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, (openNanos - (clock.getAsLong() - openedAtNanos)) / 1_000_000);
+    }
+
+    private void record(boolean failure) {
+        if (count == outcomes.length) {
+            if (outcomes[index]) {
+                failures--;
+            }
+        } else {
+            count++;
+        }
+        outcomes[index] = failure;
+        if (failure) {
+            failures++;
+        }
+        index = (index + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtNanos = clock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        count = 0;
+        failures = 0;
+        index = 0;
+    }
+}
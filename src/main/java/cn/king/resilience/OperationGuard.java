@@ -0,0 +1,146 @@
+package cn.king.resilience;
+
+import cn.king.client.OperationType;
+import cn.king.client.RequestRejectedException;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 11:45
+ * @version: 1.0.0
+ * @description: 一种操作的准入控制，依次检查熔断器、令牌桶、自适应并发上限，任意一项不通过就拒绝，不排队
+ */
+public class OperationGuard {
+
+    private final OperationType type;
+
+    private final CircuitBreaker breaker;
+
+    private final TokenBucket bucket;
+
+    private final AdaptiveLimiter limiter;
+
+    private final LongSupplier clock;
+
+    private final LongAdder breakerRejections = new LongAdder();
+
+    private final LongAdder rateRejections = new LongAdder();
+
+    private final LongAdder limitRejections = new LongAdder();
+
+    OperationGuard(OperationType type, CircuitBreaker breaker, TokenBucket bucket, AdaptiveLimiter limiter,
+                   LongSupplier clock) {
+        this.type = type;
+        this.breaker = breaker;
+        this.bucket = bucket;
+        this.limiter = limiter;
+        this.clock = clock;
+    }
+
+    /**
+     * @throws RequestRejectedException 熔断中、超过速率或超过并发上限
+     */
+    public Permit acquire() {
+        if (breaker != null && !breaker.tryAcquire()) {
+            breakerRejections.increment();
+            throw new RequestRejectedException(type, "熔断中，" + breaker.retryAfterMillis() + "ms 后重试");
+        }
+        if (bucket != null && !bucket.tryAcquire()) {
+            rateRejections.increment();
+            if (breaker != null) {
+                breaker.onIgnore();
+            }
+            throw new RequestRejectedException(type, "超过速率限制");
+        }
+        if (limiter != null && !limiter.tryAcquire()) {
+            limitRejections.increment();
+            if (breaker != null) {
+                breaker.onIgnore();
+            }
+            throw new RequestRejectedException(type, "超过自适应并发上限 " + limiter.limit());
+        }
+        return new Permit(clock.getAsLong());
+    }
+
+    public String getBreakerState() {
+        return breaker == null ? "DISABLED" : breaker.state().name();
+    }
+
+    public int getConcurrencyLimit() {
+        return limiter == null ? -1 : limiter.limit();
+    }
+
+    public int getInFlight() {
+        return limiter == null ? -1 : limiter.inFlight();
+    }
+
+    public long getBreakerRejections() {
+        return breakerRejections.sum();
+    }
+
+    public long getRateRejections() {
+        return rateRejections.sum();
+    }
+
+    public long getLimitRejections() {
+        return limitRejections.sum();
+    }
+
+    /**
+     * 一个已放行的请求，结束时必须调用 complete 且只调用一次
+     */
+    public final class Permit {
+
+        private final long startNanos;
+
+        Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        public void complete(Outcome outcome) {
+            long rtt = clock.getAsLong() - startNanos;
+            switch (outcome) {
+                case SUCCESS:
+                    if (breaker != null) {
+                        breaker.onSuccess();
+                    }
+                    if (limiter != null) {
+                        limiter.onSuccess(rtt);
+                    }
+                    break;
+                case OVERLOAD:
+                    if (breaker != null) {
+                        breaker.onFailure();
+                    }
+                    if (limiter != null) {
+                        limiter.onOverload(rtt);
+                    }
+                    break;
+                default:
+                    if (breaker != null) {
+                        breaker.onIgnore();
+                    }
+                    if (limiter != null) {
+                        limiter.onIgnore();
+                    }
+            }
+        }
+    }
+
+    public enum Outcome {
+        /**
+         * 正常完成，包括 400/404 这类和集群负载无关的错误
+         */
+        SUCCESS,
+        /**
+         * 429/502/503/504、超时、连接失败
+         */
+        OVERLOAD,
+        /**
+         * 被取消或在客户端被拒绝，不计入统计
+         */
+        IGNORED
+    }
+}
@@ -0,0 +1,97 @@
+package cn.king.resilience;
+
+import cn.king.client.OperationType;
+import cn.king.client.RequestRejectedException;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.rest.RestStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 11:55
+ * @version: 1.0.0
+ * @description: 每种操作一个 OperationGuard。AsyncEsClient 在请求进入并发队列之前调用 acquire，
+ * 集群变慢时请求在客户端直接失败（RequestRejectedException），而不是在连接池和队列里越堆越多，
+ * 并发上限随耗时自动收缩，让吞吐量停在集群能承受的水平
+ */
+@Component
+public class Resilience {
+
+    private static final LongSupplier CLOCK = System::nanoTime;
+
+    private final boolean enabled;
+
+    private final Map<OperationType, OperationGuard> guards = new EnumMap<>(OperationType.class);
+
+    public Resilience(ResilienceProperties properties) {
+        this.enabled = properties.isEnabled();
+        for (OperationType type : OperationType.values()) {
+            ResilienceProperties.Rate rate = properties.getRates().get(type);
+            TokenBucket bucket = rate == null || rate.getPermitsPerSecond() <= 0 ? null
+                    : new TokenBucket(rate.getPermitsPerSecond(), rate.getBurst(), CLOCK);
+            CircuitBreaker breaker = properties.getBreaker().isEnabled()
+                    ? new CircuitBreaker(properties.getBreaker(), CLOCK) : null;
+            AdaptiveLimiter limiter = properties.getAdaptive().isEnabled()
+                    ? new AdaptiveLimiter(properties.getAdaptive(), CLOCK) : null;
+            guards.put(type, new OperationGuard(type, breaker, bucket, limiter, CLOCK));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public OperationGuard guard(OperationType type) {
+        return guards.get(type);
+    }
+
+    public Map<OperationType, OperationGuard> guards() {
+        return Collections.unmodifiableMap(guards);
+    }
+
+    /**
+     * 按异常判断请求结果对集群负载意味着什么
+     */
+    public static OperationGuard.Outcome classify(Throwable e) {
+        if (e == null) {
+            return OperationGuard.Outcome.SUCCESS;
+        }
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (e instanceof CancellationException || e instanceof RequestRejectedException) {
+            return OperationGuard.Outcome.IGNORED;
+        }
+        if (e instanceof ElasticsearchException) {
+            return isOverload(((ElasticsearchException) e).status()) ? OperationGuard.Outcome.OVERLOAD
+                    : OperationGuard.Outcome.SUCCESS;
+        }
+        if (e instanceof ResponseException) {
+            int code = ((ResponseException) e).getResponse().getStatusLine().getStatusCode();
+            return isOverload(RestStatus.fromCode(code)) ? OperationGuard.Outcome.OVERLOAD
+                    : OperationGuard.Outcome.SUCCESS;
+        }
+        if (e instanceof TimeoutException || e instanceof IOException) {
+            return OperationGuard.Outcome.OVERLOAD;
+        }
+        return OperationGuard.Outcome.SUCCESS;
+    }
+
+    private static boolean isOverload(RestStatus status) {
+        return status == RestStatus.TOO_MANY_REQUESTS
+                || status == RestStatus.BAD_GATEWAY
+                || status == RestStatus.SERVICE_UNAVAILABLE
+                || status == RestStatus.GATEWAY_TIMEOUT;
+    }
+}
@@ -0,0 +1,237 @@
+package cn.king.resilience;
+
+import cn.king.client.OperationType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 11:10
+ * @version: 1.0.0
+ * @description: 限流、自适应并发和熔断配置
+ */
+@ConfigurationProperties(prefix = "elasticsearch.resilience")
+public class ResilienceProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 每种操作的令牌桶，不配置的操作不限速
+     */
+    private Map<OperationType, Rate> rates = new EnumMap<>(OperationType.class);
+
+    private Adaptive adaptive = new Adaptive();
+
+    private Breaker breaker = new Breaker();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Map<OperationType, Rate> getRates() {
+        return rates;
+    }
+
+    public void setRates(Map<OperationType, Rate> rates) {
+        this.rates = rates;
+    }
+
+    public Adaptive getAdaptive() {
+        return adaptive;
+    }
+
+    public void setAdaptive(Adaptive adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    public Breaker getBreaker() {
+        return breaker;
+    }
+
+    public void setBreaker(Breaker breaker) {
+        this.breaker = breaker;
+    }
+
+    public static class Rate {
+
+        /**
+         * 每秒发放的令牌数，0 表示不限速
+         */
+        private double permitsPerSecond;
+
+        /**
+         * 桶的容量，即允许的突发请求数，不配置时等于 permitsPerSecond
+         */
+        private int burst;
+
+        public double getPermitsPerSecond() {
+            return permitsPerSecond;
+        }
+
+        public void setPermitsPerSecond(double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+    }
+
+    public static class Adaptive {
+
+        private boolean enabled = true;
+
+        private int initialLimit = 20;
+
+        private int minLimit = 4;
+
+        /**
+         * 自适应的上限，同时还受 elasticsearch.async.limits 的静态上限约束
+         */
+        private int maxLimit = 256;
+
+        /**
+         * 出现过载信号时并发上限乘以这个系数
+         */
+        private double backoffRatio = 0.9;
+
+        /**
+         * 耗时超过观察到的最小耗时的多少倍视为排队，开始降低并发
+         */
+        private double latencyTolerance = 2.0;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+
+        public double getLatencyTolerance() {
+            return latencyTolerance;
+        }
+
+        public void setLatencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+        }
+    }
+
+    public static class Breaker {
+
+        private boolean enabled = true;
+
+        /**
+         * 最近 windowSize 个请求中过载失败的比例达到这个值时熔断
+         */
+        private double failureRateThreshold = 0.5;
+
+        private int windowSize = 100;
+
+        /**
+         * 窗口内至少有这么多个请求才计算失败率
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * 熔断多久之后放行试探请求
+         */
+        private Duration openDuration = Duration.ofSeconds(5);
+
+        /**
+         * 半开状态放行的试探请求数，全部成功才恢复
+         */
+        private int halfOpenCalls = 5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public int getHalfOpenCalls() {
+            return halfOpenCalls;
+        }
+
+        public void setHalfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+        }
+    }
+}
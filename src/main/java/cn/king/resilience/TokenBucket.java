@@ -0,0 +1,41 @@
+package cn.king.resilience;
+
+import java.util.function.LongSupplier;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 11:20
+ * @version: 1.0.0
+ * @description: 令牌桶。取令牌时按经过的时间补充，不需要后台线程，拿不到直接返回 false，不等待
+ */
+final class TokenBucket {
+
+    private final double permitsPerNano;
+
+    private final double capacity;
+
+    private final LongSupplier clock;
+
+    private double tokens;
+
+    private long lastNanos;
+
+    TokenBucket(double permitsPerSecond, int burst, LongSupplier clock) {
+        this.permitsPerNano = permitsPerSecond / 1_000_000_000.0;
+        this.capacity = burst > 0 ? burst : Math.max(1, permitsPerSecond);
+        this.clock = clock;
+        this.tokens = capacity;
+        this.lastNanos = clock.getAsLong();
+    }
+
+    synchronized boolean tryAcquire() {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastNanos) * permitsPerNano);
+        lastNanos = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,362 @@
+package cn.king.rollup;
+
+import cn.king.client.DocumentWriteEvent;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.Stats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 20:50
+ * @version: 1.0.0
+ * @description: 一个索引上一个数值字段的增量聚合。
+ * <p>
+ * 值 -> 文档数 存在 LongLongHashMap 中，terms 和 min/max 由它得出，count/sum 单独累加。
+ * 删除和局部更新的事件里没有旧值，所以还要记下每个文档当前的值和 seqNo，用来算差量、丢弃乱序到达的旧事件。
+ * 删除（或者值被清空）后保留一个带 seqNo 的墓碑，挡住删除之后才到达的旧写入，墓碑在下次重建时清空，数量有上限。
+ * <p>
+ * 只支持单值字段。脚本更新等拿不到新值的写入会把状态标记为 dirty，下次对账时重建
+ */
+final class FieldRollup {
+
+    private static final Object ABSENT = new Object();
+
+    private static final Comparator<RollupBucket> TERMS_ORDER = Comparator
+            .comparingLong(RollupBucket::getDocCount).reversed()
+            .thenComparingDouble(RollupBucket::getKey);
+
+    final String index;
+
+    final String field;
+
+    private final String[] path;
+
+    private final RollupProperties.NumberType type;
+
+    private State state = new State();
+
+    /**
+     * 重建期间收到的差量，重建完成后在新状态上重放
+     */
+    private List<Delta> replay;
+
+    private boolean ready;
+
+    private boolean dirty;
+
+    /**
+     * 上次对账时发现不一致。刚写入还没 refresh 的文档聚合查不到，连续两次不一致才重建
+     */
+    private boolean suspect;
+
+    FieldRollup(String index, String field, RollupProperties.NumberType type) {
+        this.index = index;
+        this.field = field;
+        this.path = field.split("\\.");
+        this.type = type;
+    }
+
+    /**
+     * 把写入事件转成差量，不涉及这个字段的局部更新返回 null。在加锁之前调用，解析 source 不占锁
+     */
+    Delta delta(DocumentWriteEvent event) {
+        switch (event.getType()) {
+            case DELETE:
+                return new Delta(event.getId(), Delta.Kind.CLEAR, 0, event.getSeqNo());
+            case INDEX: {
+                Map<String, Object> source = event.sourceAsMap();
+                Object raw = source == null ? null : lookup(source);
+                return valueDelta(event, raw == ABSENT ? null : raw);
+            }
+            case UPDATE: {
+                Map<String, Object> source = event.sourceAsMap();
+                if (source == null) {
+                    // 脚本更新，不知道改成了什么
+                    return new Delta(event.getId(), Delta.Kind.UNKNOWN, 0, event.getSeqNo());
+                }
+                Object raw = lookup(source);
+                return raw == ABSENT ? null : valueDelta(event, raw);
+            }
+            default:
+                return null;
+        }
+    }
+
+    synchronized void apply(Delta delta) {
+        if (replay != null) {
+            replay.add(delta);
+        }
+        if (delta.kind == Delta.Kind.UNKNOWN) {
+            dirty = true;
+            return;
+        }
+        state.apply(delta);
+    }
+
+    synchronized boolean isReady() {
+        return ready;
+    }
+
+    synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * 按文档数降序、值升序返回前 size 个桶，和 es terms 聚合的默认顺序一致
+     */
+    synchronized List<RollupBucket> terms(int size) {
+        checkReady();
+        List<RollupBucket> buckets = new ArrayList<>(state.buckets.size());
+        state.buckets.forEach((key, count) -> buckets.add(new RollupBucket(Double.longBitsToDouble(key), count)));
+        buckets.sort(TERMS_ORDER);
+        return size < buckets.size() ? new ArrayList<>(buckets.subList(0, size)) : buckets;
+    }
+
+    synchronized RollupStats stats() {
+        checkReady();
+        double[] minMax = {Double.NaN, Double.NaN};
+        state.buckets.forEach((key, count) -> {
+            double value = Double.longBitsToDouble(key);
+            if (Double.isNaN(minMax[0]) || value < minMax[0]) {
+                minMax[0] = value;
+            }
+            if (Double.isNaN(minMax[1]) || value > minMax[1]) {
+                minMax[1] = value;
+            }
+        });
+        return new RollupStats(state.count, state.sum, minMax[0], minMax[1]);
+    }
+
+    /**
+     * 和真实聚合的结果比较
+     *
+     * @return 不一致的描述，一致时返回 null
+     */
+    synchronized String diff(Terms terms, Stats stats, double sumTolerance) {
+        if (stats.getCount() != state.count) {
+            return "count es=" + stats.getCount() + " rollup=" + state.count;
+        }
+        if (Math.abs(stats.getSum() - state.sum) > sumTolerance * Math.max(1, Math.abs(stats.getSum()))) {
+            return "sum es=" + stats.getSum() + " rollup=" + state.sum;
+        }
+        for (Terms.Bucket bucket : terms.getBuckets()) {
+            double value = type.normalize(bucket.getKeyAsNumber().doubleValue());
+            long count = state.buckets.get(key(value));
+            if (count != bucket.getDocCount()) {
+                return "bucket " + value + " es=" + bucket.getDocCount() + " rollup=" + count;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 对账结果不一致时调用，返回 true 表示上次也不一致，需要重建
+     */
+    synchronized boolean markSuspect(boolean mismatch) {
+        boolean rebuild = mismatch && suspect;
+        suspect = mismatch;
+        return rebuild;
+    }
+
+    synchronized void beginRebuild() {
+        replay = new ArrayList<>();
+    }
+
+    /**
+     * 用 scroll 得到的新状态替换当前状态，并重放重建期间的写入
+     */
+    synchronized void finishRebuild(State rebuilt) {
+        boolean unknown = false;
+        for (Delta delta : replay) {
+            if (delta.kind == Delta.Kind.UNKNOWN) {
+                unknown = true;
+            } else {
+                rebuilt.apply(delta);
+            }
+        }
+        state = rebuilt;
+        replay = null;
+        ready = true;
+        dirty = unknown;
+        suspect = false;
+    }
+
+    synchronized void abortRebuild() {
+        replay = null;
+    }
+
+    synchronized int documents() {
+        return state.docs.size();
+    }
+
+    /**
+     * 重建时从 _source 中取值，没有值或不是数值时返回 null
+     */
+    Double value(Map<String, Object> source) {
+        Object raw = lookup(source);
+        return raw == ABSENT ? null : toDouble(raw);
+    }
+
+    private Delta valueDelta(DocumentWriteEvent event, Object raw) {
+        Double value = toDouble(raw);
+        return value == null
+                ? new Delta(event.getId(), Delta.Kind.CLEAR, 0, event.getSeqNo())
+                : new Delta(event.getId(), Delta.Kind.SET, value, event.getSeqNo());
+    }
+
+    private Double toDouble(Object raw) {
+        double value;
+        if (raw instanceof Number) {
+            value = ((Number) raw).doubleValue();
+        } else if (raw instanceof String) {
+            // es 默认会把字符串形式的数字转成数值
+            try {
+                value = Double.parseDouble((String) raw);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        } else {
+            // null、数组、对象都不支持
+            return null;
+        }
+        return type.normalize(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object lookup(Map<String, Object> source) {
+        Object current = source;
+        for (String part : path) {
+            if (!(current instanceof Map)) {
+                return ABSENT;
+            }
+            Map<String, Object> map = (Map<String, Object>) current;
+            if (!map.containsKey(part)) {
+                return ABSENT;
+            }
+            current = map.get(part);
+        }
+        return current;
+    }
+
+    private void checkReady() {
+        if (!ready) {
+            throw new IllegalStateException("[" + index + "/" + field + "] 增量聚合还没有完成初始化");
+        }
+    }
+
+    static long key(double value) {
+        // -0.0 和 0.0 是同一个桶
+        return value == 0 ? 0L : Double.doubleToLongBits(value);
+    }
+
+    static final class Delta {
+
+        enum Kind {
+            SET, CLEAR, UNKNOWN
+        }
+
+        final String id;
+
+        final Kind kind;
+
+        final double value;
+
+        final long seqNo;
+
+        Delta(String id, Kind kind, double value, long seqNo) {
+            this.id = id;
+            this.kind = kind;
+            this.value = value;
+            this.seqNo = seqNo;
+        }
+    }
+
+    /**
+     * 聚合状态本身，非线程安全，由 FieldRollup 加锁保护。重建时在锁外单独构建
+     */
+    static final class State {
+
+        /**
+         * 墓碑数上限，超过时丢弃最早的。墓碑只需要覆盖响应乱序到达的时间窗口
+         */
+        static final int MAX_TOMBSTONES = 100_000;
+
+        final Map<String, DocValue> docs = new HashMap<>();
+
+        /**
+         * 已删除或者没有值的文档 -> 删除时的 seqNo，按删除先后排列
+         */
+        final LinkedHashMap<String, Long> tombstones = new LinkedHashMap<>();
+
+        final LongLongHashMap buckets = new LongLongHashMap();
+
+        long count;
+
+        double sum;
+
+        void set(String id, double value, long seqNo) {
+            apply(new Delta(id, Delta.Kind.SET, value, seqNo));
+        }
+
+        void apply(Delta delta) {
+            DocValue old = docs.get(delta.id);
+            Long deletedAt = old == null ? tombstones.get(delta.id) : null;
+            long lastSeqNo = old != null ? old.seqNo : deletedAt != null ? deletedAt : -1;
+            if (delta.seqNo >= 0 && delta.seqNo <= lastSeqNo) {
+                // 乱序到达的旧写入
+                return;
+            }
+            if (old != null) {
+                remove(old.value);
+            }
+            if (delta.kind == Delta.Kind.SET) {
+                tombstones.remove(delta.id);
+                docs.put(delta.id, new DocValue(delta.value, delta.seqNo));
+                buckets.addTo(key(delta.value), 1);
+                count++;
+                sum += delta.value;
+            } else {
+                docs.remove(delta.id);
+                if (delta.seqNo >= 0) {
+                    tombstones.remove(delta.id);
+                    tombstones.put(delta.id, delta.seqNo);
+                    if (tombstones.size() > MAX_TOMBSTONES) {
+                        Iterator<String> eldest = tombstones.keySet().iterator();
+                        eldest.next();
+                        eldest.remove();
+                    }
+                }
+            }
+        }
+
+        private void remove(double value) {
+            buckets.addTo(key(value), -1);
+            count--;
+            sum -= value;
+        }
+    }
+
+    static final class DocValue {
+
+        final double value;
+
+        final long seqNo;
+
+        DocValue(double value, long seqNo) {
+            this.value = value;
+            this.seqNo = seqNo;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FieldRollup{" + index + "/" + field + '}';
+    }
+}
@@ -0,0 +1,175 @@
+package cn.king.rollup;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 20:30
+ * @version: 1.0.0
+ * @description: long -> long 的开放寻址哈希表，线性探测，没有装箱。用来存“值 -> 文档数”，double 键先转成 long 位模式。
+ * 计数减到 0 的键直接删除（后移删除，不留墓碑），表的大小只和当前不同值的个数有关。非线程安全
+ */
+final class LongLongHashMap {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+
+    private long[] values;
+
+    /**
+     * 0 号键单独存放，表中用 0 表示空槽
+     */
+    private boolean hasZeroKey;
+
+    private long zeroValue;
+
+    private int size;
+
+    private int mask;
+
+    private int resizeAt;
+
+    LongLongHashMap() {
+        this(16);
+    }
+
+    LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    long get(long key) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : 0;
+        }
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * 给 key 的值加上 delta，结果为 0 时删除这个键
+     *
+     * @return 加完之后的值
+     */
+    long addTo(long key, long delta) {
+        if (key == 0) {
+            zeroValue += delta;
+            if (zeroValue == 0) {
+                if (hasZeroKey) {
+                    hasZeroKey = false;
+                    size--;
+                }
+            } else if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            return zeroValue;
+        }
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                long value = values[slot] + delta;
+                if (value == 0) {
+                    removeAt(slot);
+                } else {
+                    values[slot] = value;
+                }
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (delta == 0) {
+            return 0;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return delta;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(Consumer consumer) {
+        if (hasZeroKey) {
+            consumer.accept(0, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void removeAt(int slot) {
+        size--;
+        // 后移删除：把后面同一探测链上的键往前挪，保证查找不会在空槽处提前中断
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != 0) {
+            int ideal = slot(keys[next]);
+            // next 的理想位置不在 (gap, next] 之间，说明它可以挪到 gap
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+    }
+
+    private int slot(long key) {
+        // murmur3 的 fmix64，double 的位模式低位经常全是 0，必须充分打散
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int slot = slot(key);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    @Override
+    public String toString() {
+        return "LongLongHashMap{size=" + size + ", capacity=" + keys.length + '}';
+    }
+
+    @FunctionalInterface
+    interface Consumer {
+
+        void accept(long key, long value);
+    }
+}
@@ -0,0 +1,32 @@
+package cn.king.rollup;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 20:45
+ * @version: 1.0.0
+ * @description: terms 聚合的一个桶
+ */
+public class RollupBucket {
+
+    private final double key;
+
+    private final long docCount;
+
+    public RollupBucket(double key, long docCount) {
+        this.key = key;
+        this.docCount = docCount;
+    }
+
+    public double getKey() {
+        return key;
+    }
+
+    public long getDocCount() {
+        return docCount;
+    }
+
+    @Override
+    public String toString() {
+        return key + "--" + docCount;
+    }
+}
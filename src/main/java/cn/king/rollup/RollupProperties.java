@@ -0,0 +1,171 @@
+package cn.king.rollup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 20:40
+ * @version: 1.0.0
+ * @description: 增量聚合配置
+ */
+@ConfigurationProperties(prefix = "elasticsearch.rollup")
+public class RollupProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * 需要增量维护的 索引 + 数值字段
+     */
+    private List<Target> targets = new ArrayList<>();
+
+    /**
+     * 和真实聚合对账的间隔
+     */
+    private Duration reconcileInterval = Duration.ofMinutes(5);
+
+    /**
+     * 对账时 terms 聚合返回的桶数上限
+     */
+    private int maxBuckets = 10000;
+
+    /**
+     * sum 允许的相对误差，浮点数反复加减会有累积误差
+     */
+    private double sumTolerance = 1e-6;
+
+    /**
+     * 重建时 scroll 每批的文档数
+     */
+    private int scrollBatchSize = 5000;
+
+    private Duration scrollKeepAlive = Duration.ofMinutes(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<Target> getTargets() {
+        return targets;
+    }
+
+    public void setTargets(List<Target> targets) {
+        this.targets = targets;
+    }
+
+    public Duration getReconcileInterval() {
+        return reconcileInterval;
+    }
+
+    public void setReconcileInterval(Duration reconcileInterval) {
+        this.reconcileInterval = reconcileInterval;
+    }
+
+    public int getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    public void setMaxBuckets(int maxBuckets) {
+        this.maxBuckets = maxBuckets;
+    }
+
+    public double getSumTolerance() {
+        return sumTolerance;
+    }
+
+    public void setSumTolerance(double sumTolerance) {
+        this.sumTolerance = sumTolerance;
+    }
+
+    public int getScrollBatchSize() {
+        return scrollBatchSize;
+    }
+
+    public void setScrollBatchSize(int scrollBatchSize) {
+        this.scrollBatchSize = scrollBatchSize;
+    }
+
+    public Duration getScrollKeepAlive() {
+        return scrollKeepAlive;
+    }
+
+    public void setScrollKeepAlive(Duration scrollKeepAlive) {
+        this.scrollKeepAlive = scrollKeepAlive;
+    }
+
+    public static class Target {
+
+        /**
+         * 索引名，写入时用的名字必须和这里一致（同为别名或同为具体索引）
+         */
+        private String index;
+
+        /**
+         * 数值字段，支持 a.b 形式的对象字段
+         */
+        private String field;
+
+        /**
+         * 字段在 mapping 中的类型，决定值的精度，要和 es 聚合出来的桶 key 对得上
+         */
+        private NumberType type = NumberType.DOUBLE;
+
+        public String getIndex() {
+            return index;
+        }
+
+        public void setIndex(String index) {
+            this.index = index;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public void setField(String field) {
+            this.field = field;
+        }
+
+        public NumberType getType() {
+            return type;
+        }
+
+        public void setType(NumberType type) {
+            this.type = type;
+        }
+    }
+
+    public enum NumberType {
+
+        LONG {
+            @Override
+            double normalize(double value) {
+                return (double) (long) value;
+            }
+        },
+        FLOAT {
+            @Override
+            double normalize(double value) {
+                return (double) (float) value;
+            }
+        },
+        DOUBLE {
+            @Override
+            double normalize(double value) {
+                return value;
+            }
+        };
+
+        /**
+         * 按 es 索引时的精度截断，+0.0 和 -0.0 视为同一个值
+         */
+        abstract double normalize(double value);
+    }
+}
@@ -0,0 +1,200 @@
+package cn.king.rollup;
+
+import cn.king.client.DocumentWriteEvent;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.Stats;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.IntervalTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 21:10
+ * @version: 1.0.0
+ * @description: 增量维护的聚合，给看板用，替代每次刷新都要扫全索引的 terms/avg/sum/max 聚合。
+ * <p>
+ * 1. 经过我们写入路径的 index/update/delete（DocumentWriteEvent）实时更新内存中的聚合状态
+ * 2. 定时和真实聚合对账：连续两次不一致，或者有拿不到新值的写入（脚本更新）时，用 scroll 重建。
+ * 不经过我们写入路径的改动（kibana、其他服务）也靠对账修正
+ * 3. 启动后第一次对账时完成初始化，之前查询会抛 IllegalStateException，调用方应退回到真实聚合
+ * 4. 对账间隔取 RollupProperties 中已经绑定的 Duration，5m、PT5M 等写法都可以
+ */
+@Component
+@ConditionalOnProperty(prefix = "elasticsearch.rollup", name = "enabled", havingValue = "true")
+public class RollupService implements SchedulingConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupService.class);
+
+    private final RestHighLevelClient client;
+
+    private final RollupProperties properties;
+
+    private final Map<String, List<FieldRollup>> byIndex = new HashMap<>();
+
+    private final Map<String, FieldRollup> byTarget = new HashMap<>();
+
+    public RollupService(RestHighLevelClient client, RollupProperties properties) {
+        this.client = client;
+        this.properties = properties;
+        for (RollupProperties.Target target : properties.getTargets()) {
+            FieldRollup rollup = new FieldRollup(target.getIndex(), target.getField(), target.getType());
+            byIndex.computeIfAbsent(target.getIndex(), i -> new ArrayList<>()).add(rollup);
+            byTarget.put(target.getIndex() + '/' + target.getField(), rollup);
+        }
+    }
+
+    @EventListener
+    public void onWrite(DocumentWriteEvent event) {
+        List<FieldRollup> rollups = byIndex.get(event.getIndex());
+        if (rollups == null) {
+            return;
+        }
+        for (FieldRollup rollup : rollups) {
+            FieldRollup.Delta delta = rollup.delta(event);
+            if (delta != null) {
+                rollup.apply(delta);
+            }
+        }
+    }
+
+    /**
+     * 相当于 terms 聚合，按文档数降序返回前 size 个桶
+     */
+    public List<RollupBucket> terms(String index, String field, int size) {
+        return rollup(index, field).terms(size);
+    }
+
+    /**
+     * 相当于 stats 聚合，avg/sum/max/min 都从这里取
+     */
+    public RollupStats stats(String index, String field) {
+        return rollup(index, field).stats();
+    }
+
+    public boolean isReady(String index, String field) {
+        FieldRollup rollup = byTarget.get(index + '/' + field);
+        return rollup != null && rollup.isReady();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        // 启动后立即对账一次完成初始化
+        registrar.addFixedDelayTask(new IntervalTask(this::reconcile, properties.getReconcileInterval().toMillis(), 0));
+    }
+
+    public void reconcile() {
+        for (FieldRollup rollup : byTarget.values()) {
+            try {
+                reconcile(rollup);
+            } catch (Exception e) {
+                log.warn("{} 对账失败", rollup, e);
+            }
+        }
+    }
+
+    private void reconcile(FieldRollup rollup) throws IOException {
+        if (!rollup.isReady() || rollup.isDirty()) {
+            rebuild(rollup);
+            return;
+        }
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .size(0)
+                .trackTotalHits(false)
+                .aggregation(AggregationBuilders.terms("terms").field(rollup.field).size(properties.getMaxBuckets()))
+                .aggregation(AggregationBuilders.stats("stats").field(rollup.field));
+        SearchResponse response = client.search(new SearchRequest(rollup.index).source(source), RequestOptions.DEFAULT);
+        Terms terms = response.getAggregations().get("terms");
+        Stats stats = response.getAggregations().get("stats");
+        String diff = rollup.diff(terms, stats, properties.getSumTolerance());
+        if (diff != null) {
+            log.info("{} 和真实聚合不一致 {}", rollup, diff);
+        }
+        if (rollup.markSuspect(diff != null)) {
+            rebuild(rollup);
+        }
+    }
+
+    /**
+     * 用 scroll 读出所有文档的字段值重建状态。重建期间的写入先照常应用，重建完成后再在新状态上按 seqNo 重放
+     */
+    private void rebuild(FieldRollup rollup) throws IOException {
+        long start = System.currentTimeMillis();
+        rollup.beginRebuild();
+        try {
+            // 在开始记录重放之后 refresh，之前的写入一定能被 scroll 读到
+            client.indices().refresh(new RefreshRequest(rollup.index), RequestOptions.DEFAULT);
+            FieldRollup.State state = scroll(rollup);
+            rollup.finishRebuild(state);
+            log.info("{} 重建完成 docs={} 耗时 {}ms", rollup, rollup.documents(), System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            rollup.abortRebuild();
+            throw e;
+        }
+    }
+
+    private FieldRollup.State scroll(FieldRollup rollup) throws IOException {
+        TimeValue keepAlive = TimeValue.timeValueMillis(properties.getScrollKeepAlive().toMillis());
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(QueryBuilders.existsQuery(rollup.field))
+                .fetchSource(rollup.field, null)
+                .seqNoAndPrimaryTerm(true)
+                .size(properties.getScrollBatchSize())
+                .sort("_doc");
+        SearchResponse response = client.search(new SearchRequest(rollup.index).source(source).scroll(keepAlive),
+                RequestOptions.DEFAULT);
+        FieldRollup.State state = new FieldRollup.State();
+        String scrollId = response.getScrollId();
+        try {
+            while (response.getHits().getHits().length > 0) {
+                for (SearchHit hit : response.getHits().getHits()) {
+                    Double value = rollup.value(hit.getSourceAsMap());
+                    if (value != null) {
+                        state.set(hit.getId(), value, hit.getSeqNo());
+                    }
+                }
+                response = client.scroll(new SearchScrollRequest(scrollId).scroll(keepAlive), RequestOptions.DEFAULT);
+                scrollId = response.getScrollId();
+            }
+        } finally {
+            ClearScrollRequest clear = new ClearScrollRequest();
+            clear.addScrollId(scrollId);
+            try {
+                client.clearScroll(clear, RequestOptions.DEFAULT);
+            } catch (IOException e) {
+                log.warn("清理 scroll 失败", e);
+            }
+        }
+        return state;
+    }
+
+    private FieldRollup rollup(String index, String field) {
+        FieldRollup rollup = byTarget.get(index + '/' + field);
+        if (rollup == null) {
+            throw new IllegalArgumentException("没有配置 " + index + "/" + field + " 的增量聚合");
+        }
+        return rollup;
+    }
+}
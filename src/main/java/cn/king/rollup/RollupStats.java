@@ -0,0 +1,50 @@
+package cn.king.rollup;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 20:45
+ * @version: 1.0.0
+ * @description: 数值字段的 count/sum/min/max/avg，含义和 es 的 stats 聚合一致，没有值时 min/max/avg 为 NaN
+ */
+public class RollupStats {
+
+    private final long count;
+
+    private final double sum;
+
+    private final double min;
+
+    private final double max;
+
+    public RollupStats(long count, double sum, double min, double max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getAvg() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    @Override
+    public String toString() {
+        return "RollupStats{count=" + count + ", sum=" + sum + ", min=" + min + ", max=" + max + ", avg=" + getAvg() + '}';
+    }
+}
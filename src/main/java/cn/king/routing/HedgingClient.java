@@ -0,0 +1,192 @@
+package cn.king.routing;
+
+import cn.king.client.AsyncEsClient;
+import cn.king.client.OperationType;
+import org.apache.http.HttpHost;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 10:30
+ * @version: 1.0.0
+ * @description: 对冲请求（hedged request），只用于只读的 search/get。
+ * <p>
+ * 请求先发给得分最好的节点，超过最近耗时的 p 百分位还没有返回，就向第二好的节点再发一次，先返回的为准，另一个被取消。
+ * 第一个请求在对冲之前就失败时立即发对冲请求。两个请求通过 NodePin 分别固定到不同的节点上。
+ * <p>
+ * 对冲会多占用集群资源，percentile 取 95 时大约多出 5% 的请求。hedgeRate、hedgeWinRate 用来核对实际效果
+ */
+@Component
+public class HedgingClient {
+
+    private final AsyncEsClient client;
+
+    private final RestHighLevelClient restClient;
+
+    private final NodeLatencyTracker tracker;
+
+    private final RoutingProperties.Hedge properties;
+
+    private final Map<OperationType, LatencyWindow> windows = new EnumMap<>(OperationType.class);
+
+    private final ScheduledThreadPoolExecutor timer;
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder hedges = new LongAdder();
+
+    private final LongAdder hedgeWins = new LongAdder();
+
+    public HedgingClient(AsyncEsClient client, RestHighLevelClient restClient, NodeLatencyTracker tracker,
+                         RoutingProperties properties) {
+        this.client = client;
+        this.restClient = restClient;
+        this.tracker = tracker;
+        this.properties = properties.getHedge();
+        windows.put(OperationType.SEARCH, new LatencyWindow(this.properties.getWindowSize()));
+        windows.put(OperationType.GET, new LatencyWindow(this.properties.getWindowSize()));
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("es-hedge-timer-");
+        threadFactory.setDaemon(true);
+        this.timer = new ScheduledThreadPoolExecutor(1, threadFactory);
+        // 主请求在对冲延迟之前返回时，取消的对冲任务立即移出队列
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    public CompletableFuture<SearchResponse> search(SearchRequest request) {
+        return hedge(OperationType.SEARCH, () -> client.search(request));
+    }
+
+    public CompletableFuture<GetResponse> get(GetRequest request) {
+        return hedge(OperationType.GET, () -> client.get(request));
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public long hedges() {
+        return hedges.sum();
+    }
+
+    public long hedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * 发出对冲的请求占比
+     */
+    public double hedgeRate() {
+        long total = requests.sum();
+        return total == 0 ? 0 : (double) hedges.sum() / total;
+    }
+
+    /**
+     * 对冲请求先返回的占比，太低说明等待时间太短，白白多发了请求
+     */
+    public double hedgeWinRate() {
+        long fired = hedges.sum();
+        return fired == 0 ? 0 : (double) hedgeWins.sum() / fired;
+    }
+
+    /**
+     * 当前的对冲等待时间
+     */
+    public Duration hedgeDelay(OperationType type) {
+        return Duration.ofNanos(delayNanos(windows.get(type)));
+    }
+
+    private <T> CompletableFuture<T> hedge(OperationType type, Supplier<CompletableFuture<T>> call) {
+        if (!properties.isEnabled()) {
+            return call.get();
+        }
+        List<HttpHost> ranked = tracker.rank(restClient.getLowLevelClient().getNodes());
+        if (ranked.size() < 2) {
+            return call.get();
+        }
+        requests.increment();
+        LatencyWindow window = windows.get(type);
+        long start = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        List<CompletableFuture<T>> attempts = new CopyOnWriteArrayList<>();
+        AtomicBoolean hedged = new AtomicBoolean();
+        // 还没有结果的请求数，都失败了整体才失败
+        AtomicInteger outstanding = new AtomicInteger(1);
+        Runnable fireHedge = () -> {
+            if (result.isDone() || !hedged.compareAndSet(false, true)) {
+                return;
+            }
+            hedges.increment();
+            outstanding.incrementAndGet();
+            attempt(call, ranked.get(1), true, result, attempts, outstanding, null);
+        };
+        ScheduledFuture<?> hedgeTask = timer.schedule(fireHedge, delayNanos(window), TimeUnit.NANOSECONDS);
+        result.whenComplete((response, e) -> {
+            hedgeTask.cancel(false);
+            // 取消还在进行的另一个请求，AsyncEsClient 会中断对应的 http 请求
+            attempts.forEach(attempt -> attempt.cancel(false));
+            if (e == null) {
+                window.record(System.nanoTime() - start);
+            }
+        });
+        attempt(call, ranked.get(0), false, result, attempts, outstanding, fireHedge);
+        return result;
+    }
+
+    private <T> void attempt(Supplier<CompletableFuture<T>> call, HttpHost host, boolean isHedge,
+                             CompletableFuture<T> result, List<CompletableFuture<T>> attempts,
+                             AtomicInteger outstanding, Runnable onFailure) {
+        CompletableFuture<T> future = NodePin.with(host, call);
+        attempts.add(future);
+        future.whenComplete((response, e) -> {
+            if (e == null) {
+                if (result.complete(response) && isHedge) {
+                    hedgeWins.increment();
+                }
+                return;
+            }
+            if (onFailure != null) {
+                onFailure.run();
+            }
+            if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    private long delayNanos(LatencyWindow window) {
+        long min = properties.getMinDelay().toNanos();
+        long max = properties.getMaxDelay().toNanos();
+        // 样本太少时百分位不可靠
+        if (window.size() < 100) {
+            return max;
+        }
+        long value = window.percentile(properties.getPercentile());
+        return Math.max(min, Math.min(max, value));
+    }
+
+    @PreDestroy
+    public void close() {
+        timer.shutdownNow();
+    }
+}
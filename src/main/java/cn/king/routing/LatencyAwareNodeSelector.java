@@ -0,0 +1,58 @@
+package cn.king.routing;
+
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.NodeSelector;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 10:05
+ * @version: 1.0.0
+ * @description: 只保留得分在最优节点 slack 倍以内的节点，RestClient 在剩下的节点之间轮询，失败时按顺序重试其余节点。
+ * 没有样本或样本过期的节点总是保留，这样恢复正常的节点能重新被测量到
+ */
+public class LatencyAwareNodeSelector implements NodeSelector {
+
+    private final NodeLatencyTracker tracker;
+
+    private final RoutingProperties properties;
+
+    public LatencyAwareNodeSelector(NodeLatencyTracker tracker, RoutingProperties properties) {
+        this.tracker = tracker;
+        this.properties = properties;
+    }
+
+    @Override
+    public void select(Iterable<Node> nodes) {
+        List<Double> scores = new ArrayList<>();
+        double best = Double.MAX_VALUE;
+        for (Node node : nodes) {
+            double score = tracker.score(node.getHost());
+            scores.add(score);
+            if (score > 0 && score < best) {
+                best = score;
+            }
+        }
+        if (best == Double.MAX_VALUE) {
+            // 都没有样本
+            return;
+        }
+        double limit = best * properties.getSlack();
+        int i = 0;
+        for (Iterator<Node> it = nodes.iterator(); it.hasNext(); i++) {
+            it.next();
+            double score = scores.get(i);
+            if (score > limit) {
+                it.remove();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyAwareNodeSelector{slack=" + properties.getSlack() + '}';
+    }
+}
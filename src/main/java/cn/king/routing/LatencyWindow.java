@@ -0,0 +1,61 @@
+package cn.king.routing;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 10:15
+ * @version: 1.0.0
+ * @description: 最近 N 个耗时样本的环形缓冲，用来算对冲的等待时间。百分位最多每 100ms 重新排序计算一次
+ */
+class LatencyWindow {
+
+    private static final long RECOMPUTE_NANOS = 100_000_000L;
+
+    private final long[] samples;
+
+    private final AtomicLong count = new AtomicLong();
+
+    private volatile long cachedAtNanos;
+
+    private volatile double cachedPercentile = -1;
+
+    private volatile long cachedValue;
+
+    LatencyWindow(int size) {
+        this.samples = new long[size];
+    }
+
+    void record(long nanos) {
+        long index = count.getAndIncrement();
+        samples[(int) (index % samples.length)] = nanos;
+    }
+
+    long size() {
+        return Math.min(count.get(), samples.length);
+    }
+
+    /**
+     * 第 p 百分位的耗时（纳秒），没有样本时返回 -1
+     */
+    long percentile(double p) {
+        long now = System.nanoTime();
+        if (cachedPercentile == p && now - cachedAtNanos < RECOMPUTE_NANOS) {
+            return cachedValue;
+        }
+        int n = (int) size();
+        if (n == 0) {
+            return -1;
+        }
+        // 并发写入时拷贝到的个别样本可能是新旧混合的，对百分位影响可以忽略
+        long[] copy = Arrays.copyOf(samples, n);
+        Arrays.sort(copy);
+        int rank = (int) Math.ceil(p / 100.0 * n) - 1;
+        long value = copy[Math.max(0, Math.min(n - 1, rank))];
+        cachedValue = value;
+        cachedPercentile = p;
+        cachedAtNanos = now;
+        return value;
+    }
+}
@@ -0,0 +1,115 @@
+package cn.king.routing;
+
+import cn.king.config.RestClientCustomizer;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.NodeSelector;
+import org.elasticsearch.client.RestClientBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 9:50
+ * @version: 1.0.0
+ * @description: 统计每个节点的延迟，给 LatencyAwareNodeSelector 和对冲请求选节点用。
+ * <p>
+ * 1. 延迟：http 拦截器记录从发出请求到收到响应头的时间，算 EWMA
+ * 2. 在途请求数：直接取连接池中这个节点被占用的连接数加上排队数，超时、断连的请求也不会漏算
+ * 3. 得分 = EWMA × (在途 + 1)，越小越好。变慢或者堆积了请求的节点得分都会变差
+ */
+@Component
+public class NodeLatencyTracker implements RestClientCustomizer {
+
+    private static final String START_NANOS = NodeLatencyTracker.class.getName() + ".start";
+
+    private final PoolingNHttpClientConnectionManager connectionManager;
+
+    private final RoutingProperties properties;
+
+    private final ConcurrentMap<HttpHost, NodeStats> nodes = new ConcurrentHashMap<>();
+
+    public NodeLatencyTracker(PoolingNHttpClientConnectionManager esConnectionManager, RoutingProperties properties) {
+        this.connectionManager = esConnectionManager;
+        this.properties = properties;
+    }
+
+    @Override
+    public void customize(RestClientBuilder builder) {
+        // 对冲请求固定节点依赖这个 selector，不按延迟选择节点时也要设置
+        NodeSelector fallback = properties.isAdaptive() ? new LatencyAwareNodeSelector(this, properties) : NodeSelector.ANY;
+        builder.setNodeSelector(NodePin.selector(fallback));
+    }
+
+    @Override
+    public void customize(HttpAsyncClientBuilder builder) {
+        builder.addInterceptorLast((HttpRequestInterceptor) (request, context) ->
+                context.setAttribute(START_NANOS, System.nanoTime()));
+        builder.addInterceptorLast((HttpResponseInterceptor) (response, context) -> {
+            Object start = context.getAttribute(START_NANOS);
+            HttpHost host = HttpClientContext.adapt(context).getTargetHost();
+            if (start != null && host != null) {
+                record(host, System.nanoTime() - (Long) start, response.getStatusLine().getStatusCode() >= 500);
+            }
+        });
+    }
+
+    void record(HttpHost host, long latencyNanos, boolean error) {
+        nodes.computeIfAbsent(host, h -> new NodeStats(properties.getEwmaAlpha())).record(latencyNanos, error);
+    }
+
+    /**
+     * 节点的得分，没有样本或者样本过期时返回 0，让它优先被选中从而得到新样本
+     */
+    double score(HttpHost host) {
+        NodeStats stats = nodes.get(host);
+        if (stats == null || stats.isStale(properties.getStaleAfter().toNanos())) {
+            return 0;
+        }
+        return stats.ewmaNanos() * (inFlight(host) + 1);
+    }
+
+    /**
+     * 正在使用和排队等待的连接数，即在途请求数
+     */
+    public int inFlight(HttpHost host) {
+        boolean secure = "https".equalsIgnoreCase(host.getSchemeName());
+        PoolStats stats = connectionManager.getStats(new HttpRoute(host, null, secure));
+        return stats.getLeased() + stats.getPending();
+    }
+
+    /**
+     * 按得分从好到差排序
+     */
+    public List<HttpHost> rank(List<Node> candidates) {
+        List<HttpHost> hosts = new ArrayList<>(candidates.size());
+        for (Node node : candidates) {
+            hosts.add(node.getHost());
+        }
+        // 先打乱，得分相同（如都没有样本）的节点之间随机
+        Collections.shuffle(hosts);
+        Map<HttpHost, Double> scores = new HashMap<>();
+        hosts.forEach(host -> scores.put(host, score(host)));
+        hosts.sort(Comparator.comparingDouble(scores::get));
+        return hosts;
+    }
+
+    public Map<HttpHost, NodeStats> snapshot() {
+        return Collections.unmodifiableMap(nodes);
+    }
+}
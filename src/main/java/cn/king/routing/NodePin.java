@@ -0,0 +1,88 @@
+package cn.king.routing;
+
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.NodeSelector;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/22 10:00
+ * @version: 1.0.0
+ * @description: 把请求固定发到指定节点，对冲请求用它让两次请求落到不同的节点上。
+ * <p>
+ * 7.12 的 RequestOptions 不能指定 NodeSelector，只有 RestClientBuilder 上的一个，所以节点通过线程上下文传递：
+ * 1. 调用方在 with 中发起请求，AsyncEsClient 提交时记下当前固定的节点，排队后在别的线程上发出时重新设置，发出后立即清除
+ * 2. RestClient 在发出请求的线程上同步选节点，selector 读到固定的节点时只保留它，否则交给原来的 NodeSelector
+ * 3. 固定的节点不可用时请求直接失败，不会重试到其他节点
+ */
+public final class NodePin {
+
+    private static final ThreadLocal<HttpHost> PINNED = new ThreadLocal<>();
+
+    private NodePin() {
+    }
+
+    /**
+     * 当前线程固定的节点，没有时为 null
+     */
+    public static HttpHost current() {
+        return PINNED.get();
+    }
+
+    /**
+     * 在固定到 host 的上下文中执行，host 为 null 时清除外层固定的节点。结束后恢复原来的状态
+     */
+    public static <T> T with(HttpHost host, Supplier<T> action) {
+        HttpHost previous = PINNED.get();
+        set(host);
+        try {
+            return action.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    public static void run(HttpHost host, Runnable action) {
+        with(host, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private static void set(HttpHost host) {
+        if (host == null) {
+            PINNED.remove();
+        } else {
+            PINNED.set(host);
+        }
+    }
+
+    /**
+     * 设置到 RestClientBuilder 上的 NodeSelector，有固定的节点时只保留它，否则使用 fallback
+     */
+    public static NodeSelector selector(NodeSelector fallback) {
+        return new NodeSelector() {
+            @Override
+            public void select(Iterable<Node> nodes) {
+                HttpHost host = PINNED.get();
+                if (host == null) {
+                    fallback.select(nodes);
+                    return;
+                }
+                for (Iterator<Node> it = nodes.iterator(); it.hasNext(); ) {
+                    if (!host.equals(it.next().getHost())) {
+                        it.remove();
+                    }
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "NodePin{fallback=" + fallback + '}';
+            }
+        };
+    }
+}
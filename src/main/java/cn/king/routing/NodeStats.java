@@ -0,0 +1,61 @@
+package cn.king.routing;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 9:40
+ * @version: 1.0.0
+ * @description: 一个节点的延迟统计。EWMA 只在 io 线程上更新，用锁保证读到的 ewma 和 samples 一致
+ */
+public class NodeStats {
+
+    private final double alpha;
+
+    private double ewmaNanos;
+
+    private long samples;
+
+    private long errors;
+
+    private long lastSampleNanos;
+
+    NodeStats(double alpha) {
+        this.alpha = alpha;
+    }
+
+    synchronized void record(long latencyNanos, boolean error) {
+        // 5xx 按两倍耗时计入，让出错的节点得分变差
+        double value = error ? latencyNanos * 2.0 : latencyNanos;
+        ewmaNanos = samples == 0 ? value : ewmaNanos + alpha * (value - ewmaNanos);
+        samples++;
+        if (error) {
+            errors++;
+        }
+        lastSampleNanos = System.nanoTime();
+    }
+
+    public synchronized double getEwmaMillis() {
+        return ewmaNanos / 1_000_000.0;
+    }
+
+    synchronized double ewmaNanos() {
+        return ewmaNanos;
+    }
+
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    public synchronized long getErrors() {
+        return errors;
+    }
+
+    synchronized boolean isStale(long staleNanos) {
+        return samples == 0 || System.nanoTime() - lastSampleNanos > staleNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "NodeStats{ewmaMillis=" + String.format("%.2f", ewmaNanos / 1_000_000.0) +
+                ", samples=" + samples + ", errors=" + errors + '}';
+    }
+}
@@ -0,0 +1,139 @@
+package cn.king.routing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 9:30
+ * @version: 1.0.0
+ * @description: 按节点延迟选择节点和对冲请求的配置
+ */
+@ConfigurationProperties(prefix = "elasticsearch.routing")
+public class RoutingProperties {
+
+    /**
+     * 是否按延迟选择节点，关闭时 RestClient 按原来的方式轮询
+     */
+    private boolean adaptive = false;
+
+    /**
+     * EWMA 的平滑系数，越大越看重最近的样本
+     */
+    private double ewmaAlpha = 0.2;
+
+    /**
+     * 得分在最优节点的多少倍以内的节点都参与轮询，避免所有请求都压到一个节点上
+     */
+    private double slack = 1.5;
+
+    /**
+     * 多久没有样本的节点视为未知，重新参与轮询以便重新测量
+     */
+    private Duration staleAfter = Duration.ofSeconds(30);
+
+    private Hedge hedge = new Hedge();
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    public double getEwmaAlpha() {
+        return ewmaAlpha;
+    }
+
+    public void setEwmaAlpha(double ewmaAlpha) {
+        this.ewmaAlpha = ewmaAlpha;
+    }
+
+    public double getSlack() {
+        return slack;
+    }
+
+    public void setSlack(double slack) {
+        this.slack = slack;
+    }
+
+    public Duration getStaleAfter() {
+        return staleAfter;
+    }
+
+    public void setStaleAfter(Duration staleAfter) {
+        this.staleAfter = staleAfter;
+    }
+
+    public Hedge getHedge() {
+        return hedge;
+    }
+
+    public void setHedge(Hedge hedge) {
+        this.hedge = hedge;
+    }
+
+    public static class Hedge {
+
+        private boolean enabled = false;
+
+        /**
+         * 请求耗时超过最近耗时的这个百分位时，向第二个节点再发一次
+         */
+        private double percentile = 95;
+
+        private Duration minDelay = Duration.ofMillis(5);
+
+        /**
+         * 样本不足时也用这个值
+         */
+        private Duration maxDelay = Duration.ofMillis(500);
+
+        /**
+         * 计算百分位用的最近样本数
+         */
+        private int windowSize = 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+    }
+}
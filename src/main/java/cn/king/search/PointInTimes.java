@@ -0,0 +1,45 @@
+package cn.king.search;
+
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 13:00
+ * @version: 1.0.0
+ * @description: point in time 的打开和关闭。7.12 的 high level client 还没有 pit 的 api，直接走 low level client
+ * <p>
+ * POST /product/_pit?keep_alive=1m
+ * DELETE /_pit {"id": "..."}
+ */
+public final class PointInTimes {
+
+    private PointInTimes() {
+    }
+
+    public static String open(RestClient client, TimeValue keepAlive, String... indices) throws IOException {
+        Request request = new Request("POST", "/" + String.join(",", indices) + "/_pit");
+        request.addParameter("keep_alive", keepAlive.getStringRep());
+        Response response = client.performRequest(request);
+        try (InputStream content = response.getEntity().getContent()) {
+            Map<String, Object> body = XContentHelper.convertToMap(XContentType.JSON.xContent(), content, false);
+            return (String) body.get("id");
+        }
+    }
+
+    public static void close(RestClient client, String pitId) throws IOException {
+        Request request = new Request("DELETE", "/_pit");
+        request.setJsonEntity(Strings.toString(XContentFactory.jsonBuilder().startObject().field("id", pitId).endObject()));
+        client.performRequest(request);
+    }
+}
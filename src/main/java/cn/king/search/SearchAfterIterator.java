@@ -0,0 +1,159 @@
+package cn.king.search;
+
+import cn.king.client.AsyncEsClient;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 13:10
+ * @version: 1.0.0
+ * @description: 基于 point in time + search_after 的流式翻页。
+ * <p>
+ * from/size 翻页每一页都要在每个分片上取 from+size 条再丢掉前 from 条，越往后越慢，超过 index.max_result_window 直接报错。
+ * search_after 每一页只取 size 条，代价和页码无关。
+ * <p>
+ * 拿到一页之后立即异步请求下一页，调用方消费当前页的同时下一页已经在路上。
+ * 用完一定要 close，否则 pit 要等 keep_alive 过期才会释放。遍历结束时会自动关闭
+ */
+public class SearchAfterIterator implements Iterator<SearchHit>, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchAfterIterator.class);
+
+    private static final SearchHit[] EMPTY = new SearchHit[0];
+
+    private final AsyncEsClient client;
+
+    private final RestClient lowLevelClient;
+
+    private final SearchSourceBuilder source;
+
+    private final TimeValue keepAlive;
+
+    private final int pageSize;
+
+    private String pitId;
+
+    private SearchHit[] page = EMPTY;
+
+    private int position;
+
+    /**
+     * 预取中的下一页，为 null 表示没有下一页了
+     */
+    private CompletableFuture<SearchResponse> next;
+
+    private boolean closed;
+
+    /**
+     * @param source 查询条件。必须已经带上排序，且最后一个排序字段能唯一确定文档（如 _shard_doc）
+     */
+    SearchAfterIterator(AsyncEsClient client, RestClient lowLevelClient, String pitId, TimeValue keepAlive,
+                        SearchSourceBuilder source) {
+        if (source.size() <= 0) {
+            throw new IllegalArgumentException("每页条数必须大于 0: " + source.size());
+        }
+        this.client = client;
+        this.lowLevelClient = lowLevelClient;
+        this.pitId = pitId;
+        this.keepAlive = keepAlive;
+        this.source = source;
+        this.pageSize = source.size();
+        this.next = request(null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (position >= page.length) {
+            if (next == null) {
+                close();
+                return false;
+            }
+            fetch();
+        }
+        return true;
+    }
+
+    @Override
+    public SearchHit next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page[position++];
+    }
+
+    private void fetch() {
+        SearchResponse response;
+        try {
+            response = next.join();
+        } catch (CompletionException e) {
+            close();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            }
+            throw e;
+        }
+        if (response.pointInTimeId() != null) {
+            // es 可能返回新的 pit id，后续请求要用新的
+            pitId = response.pointInTimeId();
+        }
+        page = response.getHits().getHits();
+        position = 0;
+        // pageSize 大于 0，空页也在这里结束
+        if (page.length < pageSize) {
+            next = null;
+        } else {
+            // 预取下一页
+            next = request(page[page.length - 1].getSortValues());
+        }
+    }
+
+    private CompletableFuture<SearchResponse> request(Object[] searchAfter) {
+        SearchSourceBuilder pageSource = source.shallowCopy()
+                .pointInTimeBuilder(new PointInTimeBuilder(pitId).setKeepAlive(keepAlive));
+        if (searchAfter != null) {
+            pageSource.searchAfter(searchAfter);
+        }
+        // 使用 pit 时不能指定索引，也不能开启 ccs_minimize_roundtrips
+        SearchRequest request = new SearchRequest().source(pageSource);
+        request.setCcsMinimizeRoundtrips(false);
+        return client.search(request);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (next != null) {
+            next.cancel(false);
+            next = null;
+        }
+        page = EMPTY;
+        try {
+            PointInTimes.close(lowLevelClient, pitId);
+        } catch (IOException e) {
+            log.warn("关闭 pit 失败，等待 keep_alive 过期后自动释放", e);
+        }
+    }
+}
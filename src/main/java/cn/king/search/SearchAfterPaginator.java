@@ -0,0 +1,127 @@
+package cn.king.search;
+
+import cn.king.client.AsyncEsClient;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 13:20
+ * @version: 1.0.0
+ * @description: 深度翻页。替代 from((page-1)*size).size(size) 的写法
+ * <p>
+ * 1. 导出、全量遍历：iterator / stream，基于 pit + search_after，整个遍历过程看到的是同一份数据快照
+ * 2. "加载更多"类的无状态接口：page，把上一页最后一条的 sort 值作为游标交给前端，下一次原样带回来
+ */
+@Component
+public class SearchAfterPaginator {
+
+    public static final TimeValue DEFAULT_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    /**
+     * pit 中每个文档唯一的排序字段，作为 search_after 的兜底排序
+     */
+    private static final String SHARD_DOC = "_shard_doc";
+
+    private final AsyncEsClient asyncClient;
+
+    private final RestHighLevelClient client;
+
+    public SearchAfterPaginator(AsyncEsClient asyncClient, RestHighLevelClient client) {
+        this.asyncClient = asyncClient;
+        this.client = client;
+    }
+
+    public SearchAfterIterator iterator(SearchSourceBuilder source, String... indices) throws IOException {
+        return iterator(source, DEFAULT_PAGE_SIZE, DEFAULT_KEEP_ALIVE, indices);
+    }
+
+    /**
+     * 打开 pit 并返回逐条遍历的迭代器。source 会被修改：设置 size，并在排序末尾追加 _shard_doc
+     *
+     * @param pageSize  每页条数，必须大于 0
+     * @param keepAlive 两页之间的最长间隔，不是整个遍历的时间
+     */
+    public SearchAfterIterator iterator(SearchSourceBuilder source, int pageSize, TimeValue keepAlive,
+                                        String... indices) throws IOException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize 必须大于 0: " + pageSize);
+        }
+        source.size(pageSize);
+        if (!hasSort(source, SHARD_DOC)) {
+            source.sort(SortBuilders.fieldSort(SHARD_DOC).order(SortOrder.ASC));
+        }
+        String pitId = PointInTimes.open(client.getLowLevelClient(), keepAlive, indices);
+        try {
+            return new SearchAfterIterator(asyncClient, client.getLowLevelClient(), pitId, keepAlive, source);
+        } catch (RuntimeException e) {
+            // 迭代器没建起来，调用方拿不到 close 的机会
+            PointInTimes.close(client.getLowLevelClient(), pitId);
+            throw e;
+        }
+    }
+
+    /**
+     * 以 Stream 的形式遍历，用 try-with-resources 包起来，流关闭时释放 pit
+     */
+    public Stream<SearchHit> stream(SearchSourceBuilder source, String... indices) throws IOException {
+        return stream(source, DEFAULT_PAGE_SIZE, DEFAULT_KEEP_ALIVE, indices);
+    }
+
+    public Stream<SearchHit> stream(SearchSourceBuilder source, int pageSize, TimeValue keepAlive,
+                                    String... indices) throws IOException {
+        SearchAfterIterator iterator = iterator(source, pageSize, keepAlive, indices);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * 无状态翻页，不使用 pit，期间写入的数据可能出现或消失。
+     * source 的最后一个排序字段必须能唯一确定文档（如业务 id），否则排序值相同的文档会被跳过
+     *
+     * @param searchAfter 上一页最后一条的 getSortValues()，第一页传 null
+     */
+    public CompletableFuture<SearchResponse> page(SearchSourceBuilder source, Object[] searchAfter, String... indices) {
+        List<SortBuilder<?>> sorts = source.sorts();
+        if (sorts == null || sorts.isEmpty()) {
+            throw new IllegalArgumentException("search_after 翻页必须指定排序");
+        }
+        SearchSourceBuilder pageSource = source.shallowCopy().from(0);
+        if (searchAfter != null) {
+            pageSource.searchAfter(searchAfter);
+        }
+        return asyncClient.search(new SearchRequest(indices).source(pageSource));
+    }
+
+    private static boolean hasSort(SearchSourceBuilder source, String field) {
+        if (source.sorts() == null) {
+            return false;
+        }
+        for (SortBuilder<?> sort : source.sorts()) {
+            if (sort instanceof FieldSortBuilder && field.equals(((FieldSortBuilder) sort).getFieldName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
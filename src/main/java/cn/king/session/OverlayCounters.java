@@ -0,0 +1,39 @@
+package cn.king.session;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 14:05
+ * @version: 1.0.0
+ * @description: 所有会话共用的计数
+ */
+final class OverlayCounters {
+
+    /**
+     * 记录的写入
+     */
+    final LongAdder recorded = new LongAdder();
+
+    /**
+     * 修正了 _source 的命中
+     */
+    final LongAdder patched = new LongAdder();
+
+    /**
+     * 因为已删除而去掉的命中
+     */
+    final LongAdder dropped = new LongAdder();
+
+    /**
+     * 在搜索结果中看到已经 refresh 而提前移除的写入
+     */
+    final LongAdder retired = new LongAdder();
+
+    final LongAdder expired = new LongAdder();
+
+    /**
+     * 超过每个会话的条数上限被淘汰的写入
+     */
+    final LongAdder evicted = new LongAdder();
+}
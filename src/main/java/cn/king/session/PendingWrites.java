@@ -0,0 +1,264 @@
+package cn.king.session;
+
+import cn.king.client.DocumentWriteEvent;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchResponseSections;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.search.profile.SearchProfileShardResults;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 14:10
+ * @version: 1.0.0
+ * @description: 一个会话最近的写入，按 索引/id 记录写入后的文档状态和 seq_no/primary_term。
+ * <p>
+ * 1. 同一个文档多次写入合并成一条：index 之后的 update 合并到完整文档上，update 之间合并局部文档，脚本更新无法得知结果，只记位置
+ * 2. 搜索结果中的命中比记录的写入旧时（seq_no/primary_term 更小），说明这次写入还没有 refresh：
+ * 删除的文档从结果中去掉，index 的文档换成新的 _source，update 的文档把局部文档合并进 _source
+ * 3. 命中的 seq_no 已经追上记录的写入，说明 refresh 已经包含这次写入，记录提前移除；否则超过 ttl 后移除。
+ * 只有搜索命中能移除记录，实时 get 总能读到最新的 seq_no，不代表搜索已经可见
+ * 4. 条数有上限，按写入顺序淘汰最早的
+ */
+final class PendingWrites {
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    private final int maxEntries;
+
+    private final long ttlNanos;
+
+    private final LongSupplier clock;
+
+    private final OverlayCounters counters;
+
+    PendingWrites(int maxEntries, long ttlNanos, LongSupplier clock, OverlayCounters counters) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+        this.counters = counters;
+    }
+
+    void record(DocumentWriteEvent event) {
+        // 在锁外解析，source 可能引用池化的缓冲区，这里之后就不再引用
+        Map<String, Object> source = event.getSource() == null ? null : deepCopy(event.sourceAsMap());
+        String key = key(event.getIndex(), event.getId());
+        synchronized (this) {
+            long now = clock.getAsLong();
+            expire(now);
+            Entry previous = entries.get(key);
+            if (previous != null && !newer(event.getSeqNo(), event.getPrimaryTerm(), previous.seqNo, previous.primaryTerm)) {
+                // 并发写同一个文档时响应可能乱序到达，保留更新的那条
+                return;
+            }
+            DocumentWriteEvent.Type type = event.getType();
+            if (type == DocumentWriteEvent.Type.UPDATE && source != null && previous != null && previous.source != null
+                    && previous.type != DocumentWriteEvent.Type.DELETE) {
+                Map<String, Object> merged = deepCopy(previous.source);
+                XContentHelper.update(merged, source, false);
+                source = merged;
+                type = previous.type;
+            }
+            entries.remove(key);
+            entries.put(key, new Entry(type, source, event.getSeqNo(), event.getPrimaryTerm(), now + ttlNanos));
+            counters.recorded.increment();
+            if (entries.size() > maxEntries) {
+                Iterator<Entry> iterator = entries.values().iterator();
+                iterator.next();
+                iterator.remove();
+                counters.evicted.increment();
+            }
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        expire(clock.getAsLong());
+        return entries.isEmpty();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 用记录的写入修正搜索结果。请求需要带 seq_no_primary_term，否则无法判断命中是否已经包含写入，只能等 ttl
+     *
+     * @param request 原始请求，用来取索引名和 _source 过滤
+     */
+    SearchResponse apply(SearchRequest request, SearchResponse response) {
+        SearchHit[] hits = response.getHits().getHits();
+        List<SearchHit> kept = null;
+        synchronized (this) {
+            expire(clock.getAsLong());
+            if (entries.isEmpty()) {
+                return response;
+            }
+            for (int i = 0; i < hits.length; i++) {
+                SearchHit hit = hits[i];
+                Entry entry = lookup(hit.getIndex(), request.indices(), hit.getId(), hit.getSeqNo(), hit.getPrimaryTerm());
+                if (entry != null && entry.type == DocumentWriteEvent.Type.DELETE) {
+                    if (kept == null) {
+                        kept = new ArrayList<>(hits.length);
+                        for (int j = 0; j < i; j++) {
+                            kept.add(hits[j]);
+                        }
+                    }
+                    counters.dropped.increment();
+                    continue;
+                }
+                if (entry != null && entry.source != null && hit.hasSource()) {
+                    patch(request, hit, entry);
+                    counters.patched.increment();
+                }
+                if (kept != null) {
+                    kept.add(hit);
+                }
+            }
+        }
+        return kept == null ? response : withHits(response, kept, hits.length - kept.size());
+    }
+
+    /**
+     * 找到还没有 refresh 的写入。依次尝试命中所在的具体索引和请求中的索引名（可能是别名），已经可见或过期的顺便移除
+     */
+    private Entry lookup(String concreteIndex, String[] requestIndices, String id, long seqNo, long primaryTerm) {
+        String key = null;
+        Entry entry = concreteIndex == null ? null : entries.get(key = key(concreteIndex, id));
+        for (int i = 0; entry == null && i < requestIndices.length; i++) {
+            entry = entries.get(key = key(requestIndices[i], id));
+        }
+        if (entry == null) {
+            return null;
+        }
+        if (!newer(entry.seqNo, entry.primaryTerm, seqNo, primaryTerm)) {
+            entries.remove(key);
+            counters.retired.increment();
+            return null;
+        }
+        return entry;
+    }
+
+    private void patch(SearchRequest request, SearchHit hit, Entry entry) {
+        Map<String, Object> source = entry.source;
+        if (entry.type == DocumentWriteEvent.Type.UPDATE) {
+            source = hit.getSourceAsMap();
+            XContentHelper.update(source, deepCopy(entry.source), false);
+        }
+        FetchSourceContext fetchSource = request.source() == null ? null : request.source().fetchSource();
+        if (fetchSource != null && (fetchSource.includes().length > 0 || fetchSource.excludes().length > 0)) {
+            source = XContentMapValues.filter(source, fetchSource.includes(), fetchSource.excludes());
+        }
+        try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+            hit.sourceRef(BytesReference.bytes(builder.map(source)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 去掉已删除的文档之后重建响应，总数同样扣掉
+     */
+    private static SearchResponse withHits(SearchResponse response, List<SearchHit> kept, int dropped) {
+        SearchHits hits = response.getHits();
+        TotalHits total = hits.getTotalHits();
+        TotalHits newTotal = total == null ? null : new TotalHits(Math.max(0, total.value - dropped), total.relation);
+        SearchHits filtered = new SearchHits(kept.toArray(new SearchHit[0]), newTotal, hits.getMaxScore(),
+                hits.getSortFields(), hits.getCollapseField(), hits.getCollapseValues());
+        SearchResponseSections sections = new SearchResponseSections(filtered, response.getAggregations(),
+                response.getSuggest(), response.isTimedOut(), response.isTerminatedEarly(),
+                response.getProfileResults().isEmpty() ? null : new SearchProfileShardResults(response.getProfileResults()),
+                response.getNumReducePhases());
+        return new SearchResponse(sections, response.getScrollId(), response.getTotalShards(),
+                response.getSuccessfulShards(), response.getSkippedShards(), response.getTook().millis(),
+                response.getShardFailures(), response.getClusters(), response.pointInTimeId());
+    }
+
+    private void expire(long now) {
+        // 按写入顺序排列，过期的都在前面
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAtNanos - now > 0) {
+                return;
+            }
+            iterator.remove();
+            counters.expired.increment();
+        }
+    }
+
+    /**
+     * a 是否比 b 新。没有 seq_no 的命中（请求没有要求返回）primary_term 为 0，总是更旧
+     */
+    private static boolean newer(long seqNoA, long primaryTermA, long seqNoB, long primaryTermB) {
+        return primaryTermA > primaryTermB || (primaryTermA == primaryTermB && seqNoA > seqNoB);
+    }
+
+    private static String key(String index, String id) {
+        return index + '/' + id;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> deepCopy(Map<String, Object> map) {
+        Map<String, Object> copy = new LinkedHashMap<>(map.size());
+        for (Map.Entry<String, Object> e : map.entrySet()) {
+            copy.put(e.getKey(), copyValue(e.getValue()));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyValue(Object value) {
+        if (value instanceof Map) {
+            return deepCopy((Map<String, Object>) value);
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>(((List<Object>) value).size());
+            for (Object element : (List<Object>) value) {
+                list.add(copyValue(element));
+            }
+            return list;
+        }
+        return value;
+    }
+
+    private static final class Entry {
+
+        private final DocumentWriteEvent.Type type;
+
+        /**
+         * index 为完整文档，update 为合并后的局部文档，delete 和脚本更新为 null
+         */
+        private final Map<String, Object> source;
+
+        private final long seqNo;
+
+        private final long primaryTerm;
+
+        private final long expiresAtNanos;
+
+        private Entry(DocumentWriteEvent.Type type, Map<String, Object> source, long seqNo, long primaryTerm,
+                      long expiresAtNanos) {
+            this.type = type;
+            this.source = source;
+            this.seqNo = seqNo;
+            this.primaryTerm = primaryTerm;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
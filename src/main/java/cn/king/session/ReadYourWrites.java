@@ -0,0 +1,82 @@
+package cn.king.session;
+
+import cn.king.client.AsyncEsClient;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 14:40
+ * @version: 1.0.0
+ * @description: 读己之写。按会话 id 取 ReadYourWritesSession，同一个会话的写入对它之后的搜索立即可见，
+ * 用来替代写入时的强制 refresh。
+ * <p>
+ * 会话数和每个会话的写入条数都有上限，写入记录在 ttl 后或搜索结果显示已经 refresh 后移除，长时间不用的会话整个丢弃
+ * <pre>
+ * ReadYourWritesSession session = readYourWrites.session(userId);
+ * session.update(new UpdateRequest("product", "1").doc(...)).join();
+ * session.search(searchRequest).join(); // 修改后的文档
+ * </pre>
+ */
+@Component
+public class ReadYourWrites {
+
+    private final AsyncEsClient client;
+
+    private final ReadYourWritesProperties properties;
+
+    private final Cache<String, PendingWrites> sessions;
+
+    private final OverlayCounters counters = new OverlayCounters();
+
+    public ReadYourWrites(AsyncEsClient client, ReadYourWritesProperties properties) {
+        this.client = client;
+        this.properties = properties;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSessions())
+                .expireAfterAccess(properties.getSessionIdleTimeout())
+                .build();
+    }
+
+    public ReadYourWritesSession session(String sessionId) {
+        PendingWrites writes = sessions.get(sessionId, id -> new PendingWrites(properties.getMaxWritesPerSession(),
+                properties.getTtl().toNanos(), System::nanoTime, counters));
+        return new ReadYourWritesSession(sessionId, client, writes);
+    }
+
+    /**
+     * 会话结束（如用户登出）时主动丢弃
+     */
+    public void close(String sessionId) {
+        sessions.invalidate(sessionId);
+    }
+
+    public long sessionCount() {
+        return sessions.estimatedSize();
+    }
+
+    public long getRecorded() {
+        return counters.recorded.sum();
+    }
+
+    public long getPatched() {
+        return counters.patched.sum();
+    }
+
+    public long getDropped() {
+        return counters.dropped.sum();
+    }
+
+    public long getRetired() {
+        return counters.retired.sum();
+    }
+
+    public long getExpired() {
+        return counters.expired.sum();
+    }
+
+    public long getEvicted() {
+        return counters.evicted.sum();
+    }
+}
@@ -0,0 +1,67 @@
+package cn.king.session;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 14:00
+ * @version: 1.0.0
+ * @description: 读己之写（read-your-writes）配置
+ */
+@ConfigurationProperties(prefix = "elasticsearch.read-your-writes")
+public class ReadYourWritesProperties {
+
+    /**
+     * 同时跟踪的会话数上限，超出时淘汰最久没有使用的会话
+     */
+    private int maxSessions = 10000;
+
+    /**
+     * 每个会话最多记住的写入条数，超出时丢弃最早的
+     */
+    private int maxWritesPerSession = 1000;
+
+    /**
+     * 写入记录的保留时间，需要大于索引的 refresh_interval。搜索结果中看到了这次写入会提前移除
+     */
+    private Duration ttl = Duration.ofSeconds(10);
+
+    /**
+     * 会话多久没有读写就整个丢弃
+     */
+    private Duration sessionIdleTimeout = Duration.ofMinutes(10);
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    public void setMaxSessions(int maxSessions) {
+        this.maxSessions = maxSessions;
+    }
+
+    public int getMaxWritesPerSession() {
+        return maxWritesPerSession;
+    }
+
+    public void setMaxWritesPerSession(int maxWritesPerSession) {
+        this.maxWritesPerSession = maxWritesPerSession;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public Duration getSessionIdleTimeout() {
+        return sessionIdleTimeout;
+    }
+
+    public void setSessionIdleTimeout(Duration sessionIdleTimeout) {
+        this.sessionIdleTimeout = sessionIdleTimeout;
+    }
+}
@@ -0,0 +1,107 @@
+package cn.king.session;
+
+import cn.king.client.AsyncEsClient;
+import cn.king.client.DocumentWriteEvent;
+import cn.king.query.RewritingSearchClient;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.action.update.UpdateResponse;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 14:30
+ * @version: 1.0.0
+ * @description: 一个会话（用户、请求链路等）的读写入口。通过这里写入的文档，之后通过这里的搜索立即可见，
+ * 写入不需要 RefreshPolicy.IMMEDIATE / WAIT_FOR，也就不会为了一条写入生成一个小 segment。
+ * <p>
+ * 1. 已有文档的修改和删除在搜索结果中立即生效，聚合、排序和打分仍然基于 es 中已 refresh 的数据
+ * 2. 新增的文档要等 refresh 后才会出现在搜索结果中：客户端无法判断一个新文档是否满足查询条件
+ * 3. 写入和搜索要用同一个索引名或别名，或者搜索的是具体的索引名；通配符匹配不到记录的写入
+ * 4. get 本身是实时的，不需要修正，也不会移除记录：get 读到了写入，搜索不一定能看到
+ */
+public class ReadYourWritesSession {
+
+    private final String id;
+
+    private final AsyncEsClient client;
+
+    private final PendingWrites writes;
+
+    ReadYourWritesSession(String id, AsyncEsClient client, PendingWrites writes) {
+        this.id = id;
+        this.client = client;
+        this.writes = writes;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public CompletableFuture<IndexResponse> index(IndexRequest request) {
+        return client.index(request).thenApply(response -> record(request, response));
+    }
+
+    public CompletableFuture<UpdateResponse> update(UpdateRequest request) {
+        return client.update(request).thenApply(response -> record(request, response));
+    }
+
+    public CompletableFuture<DeleteResponse> delete(DeleteRequest request) {
+        return client.delete(request).thenApply(response -> record(request, response));
+    }
+
+    public CompletableFuture<BulkResponse> bulk(BulkRequest request) {
+        return client.bulk(request).thenApply(response -> {
+            List<DocWriteRequest<?>> requests = request.requests();
+            for (BulkItemResponse item : response.getItems()) {
+                if (!item.isFailed()) {
+                    writes.record(DocumentWriteEvent.of(requests.get(item.getItemId()), item.getResponse()));
+                }
+            }
+            return response;
+        });
+    }
+
+    /**
+     * 会话中没有未 refresh 的写入时原样转发；否则带上 seq_no_primary_term 查询，再用记录的写入修正结果
+     */
+    public CompletableFuture<SearchResponse> search(SearchRequest request) {
+        if (writes.isEmpty()) {
+            return client.search(request);
+        }
+        SearchSourceBuilder source = request.source() == null ? new SearchSourceBuilder() : request.source().shallowCopy();
+        SearchRequest tracked = RewritingSearchClient.withSource(request, source.seqNoAndPrimaryTerm(true));
+        return client.search(tracked).thenApply(response -> writes.apply(request, response));
+    }
+
+    public CompletableFuture<GetResponse> get(GetRequest request) {
+        return client.get(request);
+    }
+
+    /**
+     * 还没有确认 refresh 的写入条数
+     */
+    public int pending() {
+        return writes.size();
+    }
+
+    private <R extends DocWriteResponse> R record(DocWriteRequest<?> request, R response) {
+        writes.record(DocumentWriteEvent.of(request, response));
+        return response;
+    }
+}
@@ -0,0 +1,295 @@
+package cn.king.slowlog;
+
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.profile.ProfileResult;
+import org.elasticsearch.search.profile.ProfileShardResult;
+import org.elasticsearch.search.profile.SearchProfileShardResults;
+import org.elasticsearch.search.profile.query.QueryProfileShardResult;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 16:10
+ * @version: 1.0.0
+ * @description: 一条慢查询记录。写入 ndjson 时 profile 部分保持 es 返回的原样，可以直接贴进 Kibana 的 Search Profiler
+ */
+public class SlowQuery implements ToXContentObject {
+
+    private final long timestamp;
+
+    private final String[] indices;
+
+    /**
+     * 序列化后的 SearchSourceBuilder，过长时被截断
+     */
+    private final String source;
+
+    /**
+     * 客户端看到的耗时，包括排队、网络和响应解析
+     */
+    private final long elapsedMillis;
+
+    /**
+     * es 返回的 took
+     */
+    private final long tookMillis;
+
+    private final long totalHits;
+
+    private final int totalShards;
+
+    private final int failedShards;
+
+    private final boolean timedOut;
+
+    /**
+     * profile 重跑的 took，没有重跑时为 -1
+     */
+    private final long profileTookMillis;
+
+    private final List<ShardProfile> shards;
+
+    private final SearchProfileShardResults profile;
+
+    SlowQuery(long timestamp, String[] indices, String source, long elapsedMillis, long tookMillis, long totalHits,
+              int totalShards, int failedShards, boolean timedOut, long profileTookMillis,
+              Map<String, ProfileShardResult> profile) {
+        this.timestamp = timestamp;
+        this.indices = indices;
+        this.source = source;
+        this.elapsedMillis = elapsedMillis;
+        this.tookMillis = tookMillis;
+        this.totalHits = totalHits;
+        this.totalShards = totalShards;
+        this.failedShards = failedShards;
+        this.timedOut = timedOut;
+        this.profileTookMillis = profileTookMillis;
+        if (profile == null || profile.isEmpty()) {
+            this.shards = Collections.emptyList();
+            this.profile = null;
+        } else {
+            List<ShardProfile> shards = new ArrayList<>(profile.size());
+            profile.forEach((shardId, result) -> shards.add(ShardProfile.of(shardId, result)));
+            this.shards = Collections.unmodifiableList(shards);
+            this.profile = new SearchProfileShardResults(profile);
+        }
+    }
+
+    /**
+     * 加上 profile 结果后的新记录
+     */
+    SlowQuery withProfile(long profileTookMillis, Map<String, ProfileShardResult> profile) {
+        return new SlowQuery(timestamp, indices, source, elapsedMillis, tookMillis, totalHits, totalShards,
+                failedShards, timedOut, profileTookMillis, profile);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String[] getIndices() {
+        return indices;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getTookMillis() {
+        return tookMillis;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    public int getTotalShards() {
+        return totalShards;
+    }
+
+    public int getFailedShards() {
+        return failedShards;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public long getProfileTookMillis() {
+        return profileTookMillis;
+    }
+
+    public boolean isProfiled() {
+        return profile != null;
+    }
+
+    /**
+     * 每个分片的耗时汇总，没有 profile 时为空
+     */
+    public List<ShardProfile> getShards() {
+        return shards;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.field("timestamp", timestamp);
+        builder.array("indices", indices);
+        builder.field("elapsed_ms", elapsedMillis);
+        builder.field("took_ms", tookMillis);
+        builder.field("total_hits", totalHits);
+        builder.field("total_shards", totalShards);
+        builder.field("failed_shards", failedShards);
+        builder.field("timed_out", timedOut);
+        builder.field("source", source);
+        if (profile != null) {
+            builder.field("profile_took_ms", profileTookMillis);
+            builder.startArray("shard_summary");
+            for (ShardProfile shard : shards) {
+                shard.toXContent(builder, params);
+            }
+            builder.endArray();
+            // 输出 "profile": {"shards": [...]}
+            profile.toXContent(builder, params);
+        }
+        return builder.endObject();
+    }
+
+    @Override
+    public String toString() {
+        return "SlowQuery{indices=" + String.join(",", indices) + ", elapsed=" + elapsedMillis + "ms, took="
+                + tookMillis + "ms, profiled=" + isProfiled() + '}';
+    }
+
+    /**
+     * 一个分片上的耗时汇总。hotspot 是自身耗时（去掉子查询）最长的查询节点，通常就是该优化的地方
+     */
+    public static class ShardProfile implements ToXContentObject {
+
+        private final String shardId;
+
+        private final long queryNanos;
+
+        private final long rewriteNanos;
+
+        private final long collectorNanos;
+
+        private final long aggregationNanos;
+
+        private final String hotspotType;
+
+        private final String hotspotDescription;
+
+        private final long hotspotSelfNanos;
+
+        ShardProfile(String shardId, long queryNanos, long rewriteNanos, long collectorNanos, long aggregationNanos,
+                     ProfileResult hotspot, long hotspotSelfNanos) {
+            this.shardId = shardId;
+            this.queryNanos = queryNanos;
+            this.rewriteNanos = rewriteNanos;
+            this.collectorNanos = collectorNanos;
+            this.aggregationNanos = aggregationNanos;
+            this.hotspotType = hotspot == null ? null : hotspot.getQueryName();
+            this.hotspotDescription = hotspot == null ? null : hotspot.getLuceneDescription();
+            this.hotspotSelfNanos = hotspotSelfNanos;
+        }
+
+        static ShardProfile of(String shardId, ProfileShardResult result) {
+            long queryNanos = 0;
+            long rewriteNanos = 0;
+            long collectorNanos = 0;
+            ProfileResult[] hotspot = new ProfileResult[1];
+            long[] hotspotSelf = {-1};
+            for (QueryProfileShardResult query : result.getQueryProfileResults()) {
+                for (ProfileResult node : query.getQueryResults()) {
+                    queryNanos += node.getTime();
+                    findHotspot(node, hotspot, hotspotSelf);
+                }
+                rewriteNanos += query.getRewriteTime();
+                if (query.getCollectorResult() != null) {
+                    collectorNanos += query.getCollectorResult().getTime();
+                }
+            }
+            long aggregationNanos = 0;
+            if (result.getAggregationProfileResults() != null) {
+                for (ProfileResult node : result.getAggregationProfileResults().getProfileResults()) {
+                    aggregationNanos += node.getTime();
+                }
+            }
+            return new ShardProfile(shardId, queryNanos, rewriteNanos, collectorNanos, aggregationNanos,
+                    hotspot[0], Math.max(hotspotSelf[0], 0));
+        }
+
+        private static void findHotspot(ProfileResult node, ProfileResult[] hotspot, long[] hotspotSelf) {
+            long self = node.getTime();
+            for (ProfileResult child : node.getProfiledChildren()) {
+                self -= child.getTime();
+                findHotspot(child, hotspot, hotspotSelf);
+            }
+            if (self > hotspotSelf[0]) {
+                hotspot[0] = node;
+                hotspotSelf[0] = self;
+            }
+        }
+
+        public String getShardId() {
+            return shardId;
+        }
+
+        public long getQueryNanos() {
+            return queryNanos;
+        }
+
+        public long getRewriteNanos() {
+            return rewriteNanos;
+        }
+
+        public long getCollectorNanos() {
+            return collectorNanos;
+        }
+
+        public long getAggregationNanos() {
+            return aggregationNanos;
+        }
+
+        public String getHotspotType() {
+            return hotspotType;
+        }
+
+        public String getHotspotDescription() {
+            return hotspotDescription;
+        }
+
+        public long getHotspotSelfNanos() {
+            return hotspotSelfNanos;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("shard", shardId);
+            builder.field("query_nanos", queryNanos);
+            builder.field("rewrite_nanos", rewriteNanos);
+            builder.field("collector_nanos", collectorNanos);
+            builder.field("aggregation_nanos", aggregationNanos);
+            if (hotspotType != null) {
+                builder.startObject("hotspot");
+                builder.field("type", hotspotType);
+                builder.field("description", hotspotDescription);
+                builder.field("self_nanos", hotspotSelfNanos);
+                builder.endObject();
+            }
+            return builder.endObject();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package cn.king.slowlog;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 16:00
+ * @version: 1.0.0
+ * @description: 慢查询记录的配置
+ */
+@ConfigurationProperties(prefix = "elasticsearch.slow-query")
+public class SlowQueryProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 客户端看到的耗时（含排队和网络）超过多少算慢查询
+     */
+    private Duration threshold = Duration.ofMillis(500);
+
+    /**
+     * 慢查询中有多大比例用 profile 重跑一次
+     */
+    private double profileSampleRate = 0.1;
+
+    /**
+     * 每分钟最多重跑多少次，集群整体变慢时不至于用 profile 请求雪上加霜
+     */
+    private int maxProfilesPerMinute = 10;
+
+    /**
+     * 内存中保留最近多少条
+     */
+    private int bufferSize = 200;
+
+    /**
+     * 追加写入的 ndjson 文件，为空时不写文件
+     */
+    private String file = "logs/slow-query.ndjson";
+
+    /**
+     * 序列化后的查询超过这个长度时截断
+     */
+    private int maxSourceLength = 64 * 1024;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    public double getProfileSampleRate() {
+        return profileSampleRate;
+    }
+
+    public void setProfileSampleRate(double profileSampleRate) {
+        this.profileSampleRate = profileSampleRate;
+    }
+
+    public int getMaxProfilesPerMinute() {
+        return maxProfilesPerMinute;
+    }
+
+    public void setMaxProfilesPerMinute(int maxProfilesPerMinute) {
+        this.maxProfilesPerMinute = maxProfilesPerMinute;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public int getMaxSourceLength() {
+        return maxSourceLength;
+    }
+
+    public void setMaxSourceLength(int maxSourceLength) {
+        this.maxSourceLength = maxSourceLength;
+    }
+}
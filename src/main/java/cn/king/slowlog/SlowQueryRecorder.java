@@ -0,0 +1,248 @@
+package cn.king.slowlog;
+
+import cn.king.query.RewritingSearchClient;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 16:30
+ * @version: 1.0.0
+ * @description: 慢查询记录。AsyncEsClient 的 search 完成后调用 onSearch，耗时超过阈值的记下查询、索引和耗时，
+ * 按比例抽样用 profile(true) 重跑一次，拿到每个分片的 query/collector 耗时明细。
+ * <p>
+ * 1. 结果放在内存中的环形缓冲区（最近 bufferSize 条），同时追加到 ndjson 文件，一行一条
+ * 2. 同一时间最多一个 profile 请求在跑，每分钟有次数上限，profile 请求本身也有开销
+ * 3. profile 请求直接走 RestHighLevelClient，不占 AsyncEsClient 的并发名额，也不会再次触发慢查询记录
+ * 4. 写文件在单独的线程上，队列满时丢弃并计数，不阻塞 io 线程
+ */
+@Component
+public class SlowQueryRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryRecorder.class);
+
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final RestHighLevelClient client;
+
+    private final SlowQueryProperties properties;
+
+    private final long thresholdNanos;
+
+    private final SlowQuery[] ring;
+
+    private int next;
+
+    private int size;
+
+    private final ThreadPoolExecutor writer;
+
+    private final Path file;
+
+    private final AtomicBoolean profiling = new AtomicBoolean();
+
+    private long windowStartNanos = System.nanoTime();
+
+    private int profilesInWindow;
+
+    private final LongAdder captured = new LongAdder();
+
+    private final LongAdder profiled = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    public SlowQueryRecorder(RestHighLevelClient client, SlowQueryProperties properties) {
+        this.client = client;
+        this.properties = properties;
+        this.thresholdNanos = properties.getThreshold().toNanos();
+        this.ring = new SlowQuery[properties.getBufferSize()];
+        this.file = Strings.hasText(properties.getFile()) ? Paths.get(properties.getFile()) : null;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("es-slow-query-");
+        threadFactory.setDaemon(true);
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1000),
+                threadFactory, (task, executor) -> dropped.increment());
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 一次搜索完成。不慢的查询只做一次比较就返回
+     *
+     * @param elapsedNanos 客户端看到的耗时
+     */
+    public void onSearch(SearchRequest request, SearchResponse response, long elapsedNanos) {
+        if (elapsedNanos < thresholdNanos) {
+            return;
+        }
+        captured.increment();
+        SlowQuery slowQuery = capture(request, response, elapsedNanos);
+        if (request.source() != null && !request.source().profile() && sample()) {
+            profile(request, slowQuery);
+        } else {
+            record(slowQuery);
+        }
+    }
+
+    /**
+     * 最近的慢查询，按时间从旧到新
+     */
+    public synchronized List<SlowQuery> recent() {
+        List<SlowQuery> list = new ArrayList<>(size);
+        int start = (next - size + ring.length) % ring.length;
+        for (int i = 0; i < size; i++) {
+            list.add(ring[(start + i) % ring.length]);
+        }
+        return list;
+    }
+
+    public long getCaptured() {
+        return captured.sum();
+    }
+
+    public long getProfiled() {
+        return profiled.sum();
+    }
+
+    /**
+     * 写文件队列满而丢弃的条数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private SlowQuery capture(SearchRequest request, SearchResponse response, long elapsedNanos) {
+        return new SlowQuery(System.currentTimeMillis(), request.indices(), serialize(request.source()),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), response.getTook().millis(),
+                response.getHits().getTotalHits() == null ? -1 : response.getHits().getTotalHits().value,
+                response.getTotalShards(), response.getFailedShards(), response.isTimedOut(), -1, null);
+    }
+
+    private String serialize(SearchSourceBuilder source) {
+        if (source == null) {
+            return "{}";
+        }
+        try {
+            String json = XContentHelper.toXContent(source, XContentType.JSON, false).utf8ToString();
+            int max = properties.getMaxSourceLength();
+            return json.length() <= max ? json : json.substring(0, max) + "...(truncated)";
+        } catch (IOException e) {
+            return "serialize failed: " + e;
+        }
+    }
+
+    /**
+     * 抽中且没有超过频率限制
+     */
+    private boolean sample() {
+        if (ThreadLocalRandom.current().nextDouble() >= properties.getProfileSampleRate()) {
+            return false;
+        }
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (now - windowStartNanos >= MINUTE_NANOS) {
+                windowStartNanos = now;
+                profilesInWindow = 0;
+            }
+            if (profilesInWindow >= properties.getMaxProfilesPerMinute()) {
+                return false;
+            }
+            if (!profiling.compareAndSet(false, true)) {
+                return false;
+            }
+            profilesInWindow++;
+            return true;
+        }
+    }
+
+    private void profile(SearchRequest request, SlowQuery slowQuery) {
+        SearchRequest profileRequest = RewritingSearchClient.withSource(request, request.source().shallowCopy().profile(true))
+                .scroll((Scroll) null);
+        try {
+            client.searchAsync(profileRequest, RequestOptions.DEFAULT, new ActionListener<SearchResponse>() {
+                @Override
+                public void onResponse(SearchResponse response) {
+                    profiling.set(false);
+                    profiled.increment();
+                    record(slowQuery.withProfile(response.getTook().millis(), response.getProfileResults()));
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    profiling.set(false);
+                    log.warn("慢查询 profile 失败 indices={}", String.join(",", request.indices()), e);
+                    record(slowQuery);
+                }
+            });
+        } catch (Exception e) {
+            profiling.set(false);
+            log.warn("慢查询 profile 失败 indices={}", String.join(",", request.indices()), e);
+            record(slowQuery);
+        }
+    }
+
+    private void record(SlowQuery slowQuery) {
+        synchronized (this) {
+            ring[next] = slowQuery;
+            next = (next + 1) % ring.length;
+            size = Math.min(size + 1, ring.length);
+        }
+        if (log.isInfoEnabled()) {
+            log.info("慢查询 {}", slowQuery);
+        }
+        if (file != null) {
+            writer.execute(() -> append(slowQuery));
+        }
+    }
+
+    private void append(SlowQuery slowQuery) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            byte[] line = (Strings.toString(slowQuery) + '\n').getBytes(StandardCharsets.UTF_8);
+            try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(line);
+            }
+        } catch (IOException e) {
+            log.warn("慢查询写入文件失败 file={}", file, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,80 @@
+package cn.king.sync;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 16:05
+ * @version: 1.0.0
+ * @description: outbox 表中的一行变更
+ */
+public class OutboxEvent {
+
+    /**
+     * 外部版本号只支持整文档写入和删除，局部更新请在业务侧合并成完整文档
+     */
+    public enum Op {
+        INDEX, DELETE
+    }
+
+    private final long id;
+
+    private final String index;
+
+    private final String docId;
+
+    private final Op op;
+
+    /**
+     * 外部版本号，同一个文档的版本必须随变更递增，如业务表的版本列或更新时间的毫秒数
+     */
+    private final long version;
+
+    /**
+     * INDEX 时为完整文档的 json，DELETE 时为 null
+     */
+    private final String payload;
+
+    private final long createdAt;
+
+    public OutboxEvent(long id, String index, String docId, Op op, long version, String payload, long createdAt) {
+        this.id = id;
+        this.index = index;
+        this.docId = docId;
+        this.op = op;
+        this.version = version;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public String getDocId() {
+        return docId;
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxEvent{id=" + id + ", index=" + index + ", docId=" + docId + ", op=" + op + ", version=" + version + '}';
+    }
+}
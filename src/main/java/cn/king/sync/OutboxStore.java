@@ -0,0 +1,167 @@
+package cn.king.sync;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 16:10
+ * @version: 1.0.0
+ * @description: outbox 表和高水位表的读写。
+ * <p>
+ * 业务代码在修改业务表的同一个事务中调用 append，变更和业务数据一起提交或回滚，不会出现业务成功而 es 漏写的情况。
+ * 同步线程按分区读取 id 大于高水位的行，应用成功后推进高水位。
+ * 只在打开 elasticsearch.sync.enabled 或 elasticsearch.sync.outbox 时创建，关闭时不会建表
+ */
+@Component
+@ConditionalOnExpression("${elasticsearch.sync.enabled:false} or ${elasticsearch.sync.outbox:false}")
+public class OutboxStore {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private final JdbcTemplate jdbc;
+
+    private final SyncProperties properties;
+
+    private final String outbox;
+
+    private final String offsets;
+
+    private final RowMapper<OutboxEvent> rowMapper = (rs, rowNum) -> new OutboxEvent(rs.getLong("id"),
+            rs.getString("doc_index"), rs.getString("doc_id"), OutboxEvent.Op.valueOf(rs.getString("op")),
+            rs.getLong("version"), rs.getString("payload"), rs.getTimestamp("created_at").getTime());
+
+    public OutboxStore(JdbcTemplate jdbc, SyncProperties properties) {
+        this.jdbc = jdbc;
+        this.properties = properties;
+        this.outbox = identifier(properties.getOutboxTable());
+        this.offsets = identifier(properties.getOffsetTable());
+    }
+
+    @PostConstruct
+    public void createSchema() {
+        if (!properties.isCreateSchema()) {
+            return;
+        }
+        jdbc.execute("CREATE TABLE IF NOT EXISTS " + outbox + " (" +
+                "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "doc_index VARCHAR(255) NOT NULL, " +
+                "doc_id VARCHAR(512) NOT NULL, " +
+                "doc_hash INT NOT NULL, " +
+                "op VARCHAR(16) NOT NULL, " +
+                "version BIGINT NOT NULL, " +
+                "payload TEXT, " +
+                "created_at TIMESTAMP NOT NULL)");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS " + offsets + " (" +
+                "partition_no INT PRIMARY KEY, " +
+                "partition_count INT NOT NULL, " +
+                "last_id BIGINT NOT NULL, " +
+                "updated_at TIMESTAMP NOT NULL)");
+    }
+
+    /**
+     * 记录一次变更，需要在业务事务中调用
+     *
+     * @param payload INDEX 时为完整文档的 json，DELETE 时传 null
+     */
+    public void append(String index, String docId, OutboxEvent.Op op, long version, String payload) {
+        jdbc.update("INSERT INTO " + outbox + " (doc_index, doc_id, doc_hash, op, version, payload, created_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                index, docId, hash(docId), op.name(), version, payload, new Timestamp(System.currentTimeMillis()));
+    }
+
+    /**
+     * 读一个分区中 id 大于 afterId、写入时间不晚于 settledBefore 的行，按 id 升序
+     */
+    List<OutboxEvent> poll(int partition, int partitions, long afterId, long settledBefore, int limit) {
+        return jdbc.query("SELECT id, doc_index, doc_id, op, version, payload, created_at FROM " + outbox +
+                        " WHERE id > ? AND MOD(doc_hash, ?) = ? AND created_at <= ? ORDER BY id LIMIT ?",
+                rowMapper, afterId, partitions, partition, new Timestamp(settledBefore), limit);
+    }
+
+    /**
+     * 读一个分区中 id 不大于高水位、还留在表里的行。应用后的行已经删除，剩下的是高水位越过之后才提交的变更，
+     * 只在 purge-applied 打开时有意义
+     */
+    List<OutboxEvent> pollLate(int partition, int partitions, long upToId, int limit) {
+        return jdbc.query("SELECT id, doc_index, doc_id, op, version, payload, created_at FROM " + outbox +
+                        " WHERE id <= ? AND MOD(doc_hash, ?) = ? ORDER BY id LIMIT ?",
+                rowMapper, upToId, partitions, partition, limit);
+    }
+
+    /**
+     * 读取各分区的高水位。分区数和上次运行不同时，所有分区都从原来最小的高水位开始，
+     * 原来没有保存过高水位的分区按 0 计算，中间已经应用过的行会再应用一次，外部版本号保证结果不变
+     */
+    Map<Integer, Long> loadOffsets(int partitions) {
+        Map<Integer, Long> stored = new HashMap<>();
+        int previousPartitions = partitions;
+        for (Map<String, Object> row : jdbc.queryForList("SELECT partition_no, partition_count, last_id FROM " + offsets)) {
+            stored.put(((Number) row.get("partition_no")).intValue(), ((Number) row.get("last_id")).longValue());
+            int count = ((Number) row.get("partition_count")).intValue();
+            if (count != partitions) {
+                previousPartitions = count;
+            }
+        }
+        boolean repartitioned = previousPartitions != partitions;
+        long min = Long.MAX_VALUE;
+        for (int p = 0; p < previousPartitions; p++) {
+            min = Math.min(min, stored.getOrDefault(p, 0L));
+        }
+        Map<Integer, Long> result = new HashMap<>();
+        for (int p = 0; p < partitions; p++) {
+            result.put(p, repartitioned ? min : stored.getOrDefault(p, 0L));
+        }
+        if (repartitioned) {
+            jdbc.update("DELETE FROM " + offsets);
+            result.forEach((p, lastId) -> saveOffset(p, partitions, lastId));
+        }
+        return result;
+    }
+
+    void saveOffset(int partition, int partitions, long lastId) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int updated = jdbc.update("UPDATE " + offsets + " SET partition_count = ?, last_id = ?, updated_at = ? WHERE partition_no = ?",
+                partitions, lastId, now, partition);
+        if (updated == 0) {
+            jdbc.update("INSERT INTO " + offsets + " (partition_no, partition_count, last_id, updated_at) VALUES (?, ?, ?, ?)",
+                    partition, partitions, lastId, now);
+        }
+    }
+
+    /**
+     * 按 id 删除已经应用的行。不能按 id 范围删除，范围内晚提交、还没应用的行会被一起删掉
+     */
+    void purge(List<OutboxEvent> applied) {
+        List<Object[]> ids = new ArrayList<>(applied.size());
+        for (OutboxEvent event : applied) {
+            ids.add(new Object[]{event.getId()});
+        }
+        jdbc.batchUpdate("DELETE FROM " + outbox + " WHERE id = ?", ids);
+    }
+
+    static int hash(String docId) {
+        return docId.hashCode() & Integer.MAX_VALUE;
+    }
+
+    static int partition(String docId, int partitions) {
+        return hash(docId) % partitions;
+    }
+
+    private static String identifier(String name) {
+        if (!IDENTIFIER.matcher(name).matches()) {
+            throw new IllegalArgumentException("表名不合法 " + name);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,301 @@
+package cn.king.sync;
+
+import cn.king.client.AsyncEsClient;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 16:30
+ * @version: 1.0.0
+ * @description: 把 outbox 表中的变更同步到 es。
+ * <p>
+ * 1. 按文档 id 的哈希分区，每个分区一个线程，分区内按 outbox 的 id 顺序读取，同一个文档的变更不会并发应用
+ * 2. 一批变更先按文档合并（只保留版本最大的一条），再用一个 bulk 写入，写入使用外部版本号（VersionType.EXTERNAL）：
+ * 乱序到达或重放的旧变更会得到版本冲突，当作已经应用处理，所以重复执行是幂等的
+ * 3. 高水位（已应用的最大 outbox id）持久化在数据库中，重启后从高水位继续。有条目失败时高水位只推进到第一个失败的变更之前，
+ * 下一轮从那里重试，其间已成功的条目再次写入时同样只是版本冲突
+ * 4. 删除后 es 只在 index.gc_deletes（默认 60s）内保留删除的版本号，超过这个时间再重放更早的 INDEX 会把文档写回来，
+ * 停机时间较长时需要注意
+ * 5. 自增 id 不按提交顺序可见，只读取写入超过 settle-delay 的行。比这更长的事务提交时高水位可能已经越过它，
+ * purge-applied 打开时应用过的行会逐条删除，高水位以下剩下的行就是这种晚提交的变更，每轮先补上；
+ * 关闭时无法区分，这些变更会被永久跳过
+ * <p>
+ * 每个分区的复制延迟（最早未应用变更的等待时间）、应用数、冲突数和失败数通过 micrometer 暴露，延迟持续增长说明需要增加分区数
+ */
+@Component
+@ConditionalOnProperty(prefix = "elasticsearch.sync", name = "enabled", havingValue = "true")
+public class OutboxSyncEngine implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxSyncEngine.class);
+
+    private final AsyncEsClient client;
+
+    private final OutboxStore store;
+
+    private final SyncProperties properties;
+
+    private final Partition[] partitions;
+
+    private final ScheduledExecutorService workers;
+
+    public OutboxSyncEngine(AsyncEsClient client, OutboxStore store, SyncProperties properties) {
+        this.client = client;
+        this.store = store;
+        this.properties = properties;
+        this.partitions = new Partition[properties.getPartitions()];
+        for (int p = 0; p < partitions.length; p++) {
+            partitions[p] = new Partition(p);
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("es-sync-");
+        threadFactory.setDaemon(true);
+        this.workers = Executors.newScheduledThreadPool(partitions.length, threadFactory);
+    }
+
+    @PostConstruct
+    public void start() {
+        loadOffsets();
+        long interval = properties.getPollInterval().toMillis();
+        for (Partition partition : partitions) {
+            workers.scheduleWithFixedDelay(() -> drainQuietly(partition), 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void loadOffsets() {
+        store.loadOffsets(partitions.length).forEach((p, lastId) -> partitions[p].lastId = lastId);
+    }
+
+    private void drainQuietly(Partition partition) {
+        try {
+            drain(partition);
+        } catch (Exception e) {
+            log.warn("outbox 分区 {} 同步失败 lastId={}", partition.index, partition.lastId, e);
+        }
+    }
+
+    /**
+     * 应用一个分区中所有已经可见的变更，直到读到的行数不满一批或者有失败
+     */
+    void drain(int partition) {
+        drain(partitions[partition]);
+    }
+
+    private void drain(Partition partition) {
+        if (properties.isPurgeApplied()) {
+            applyLate(partition);
+        }
+        while (true) {
+            long now = System.currentTimeMillis();
+            List<OutboxEvent> events = store.poll(partition.index, partitions.length, partition.lastId,
+                    now - properties.getSettleDelay().toMillis(), properties.getBatchSize());
+            if (events.isEmpty()) {
+                partition.oldestPendingAt = 0;
+                return;
+            }
+            partition.oldestPendingAt = events.get(0).getCreatedAt();
+            long firstFailedId = apply(partition, events);
+            long applied = firstFailedId == Long.MAX_VALUE ? events.get(events.size() - 1).getId() : firstFailedId - 1;
+            if (applied > partition.lastId) {
+                store.saveOffset(partition.index, partitions.length, applied);
+                partition.lastId = applied;
+                if (properties.isPurgeApplied()) {
+                    store.purge(upTo(events, applied));
+                }
+            }
+            if (firstFailedId != Long.MAX_VALUE) {
+                // 有失败，下一轮从失败处重试，延迟继续增长
+                return;
+            }
+            if (events.size() < properties.getBatchSize()) {
+                partition.oldestPendingAt = 0;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 补上高水位以下晚提交的变更，全部成功后删除，有失败时下一轮整批重试
+     */
+    private void applyLate(Partition partition) {
+        List<OutboxEvent> late = store.pollLate(partition.index, partitions.length, partition.lastId,
+                properties.getBatchSize());
+        if (late.isEmpty()) {
+            return;
+        }
+        log.warn("outbox 分区 {} 有 {} 个变更在高水位 {} 之后才提交，settle-delay 小于事务耗时",
+                partition.index, late.size(), partition.lastId);
+        partition.late.add(late.size());
+        if (apply(partition, late) == Long.MAX_VALUE) {
+            store.purge(late);
+        }
+    }
+
+    private static List<OutboxEvent> upTo(List<OutboxEvent> events, long id) {
+        int end = 0;
+        while (end < events.size() && events.get(end).getId() <= id) {
+            end++;
+        }
+        return events.subList(0, end);
+    }
+
+    /**
+     * @return 第一个失败的变更的 id，全部成功时为 Long.MAX_VALUE
+     */
+    private long apply(Partition partition, List<OutboxEvent> events) {
+        // 同一个文档只保留版本最大的变更，记下它在这批中最早出现的位置，失败时高水位不能越过这里
+        Map<String, OutboxEvent> latest = new LinkedHashMap<>();
+        Map<String, Long> firstIds = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            String key = event.getIndex() + '/' + event.getDocId();
+            firstIds.putIfAbsent(key, event.getId());
+            OutboxEvent previous = latest.get(key);
+            if (previous == null || event.getVersion() >= previous.getVersion()) {
+                latest.put(key, event);
+            }
+        }
+        BulkRequest bulk = new BulkRequest();
+        List<String> keys = new ArrayList<>(latest.size());
+        latest.forEach((key, event) -> {
+            keys.add(key);
+            if (event.getOp() == OutboxEvent.Op.DELETE) {
+                bulk.add(new DeleteRequest(event.getIndex(), event.getDocId())
+                        .versionType(VersionType.EXTERNAL)
+                        .version(event.getVersion()));
+            } else {
+                bulk.add(new IndexRequest(event.getIndex())
+                        .id(event.getDocId())
+                        .source(event.getPayload(), XContentType.JSON)
+                        .versionType(VersionType.EXTERNAL)
+                        .version(event.getVersion()));
+            }
+        });
+        BulkResponse response;
+        try {
+            response = client.bulk(bulk).get(properties.getBulkTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return events.get(0).getId();
+        } catch (Exception e) {
+            partition.failures.add(keys.size());
+            log.warn("outbox 分区 {} bulk 失败 size={}", partition.index, keys.size(), e);
+            return events.get(0).getId();
+        }
+        long firstFailedId = Long.MAX_VALUE;
+        for (BulkItemResponse item : response.getItems()) {
+            if (!item.isFailed()) {
+                partition.applied.increment();
+            } else if (item.status() == RestStatus.CONFLICT) {
+                // es 中已经是相同或更新的版本
+                partition.conflicts.increment();
+            } else {
+                partition.failures.increment();
+                firstFailedId = Math.min(firstFailedId, firstIds.get(keys.get(item.getItemId())));
+                log.warn("outbox 变更应用失败 {}: {}", latest.get(keys.get(item.getItemId())), item.getFailureMessage());
+            }
+        }
+        return firstFailedId;
+    }
+
+    public long lastId(int partition) {
+        return partitions[partition].lastId;
+    }
+
+    public long lagMillis(int partition) {
+        return partitions[partition].lagMillis();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Partition partition : partitions) {
+            String tag = Integer.toString(partition.index);
+            Gauge.builder("es.sync.lag", partition, p -> p.lagMillis() / 1000.0)
+                    .description("分区中最早未应用的变更已经等待的时间")
+                    .baseUnit("seconds")
+                    .tag("partition", tag)
+                    .register(registry);
+            Gauge.builder("es.sync.high.water.mark", partition, p -> p.lastId)
+                    .description("分区已应用的最大 outbox id")
+                    .tag("partition", tag)
+                    .register(registry);
+            FunctionCounter.builder("es.sync.changes", partition.applied, LongAdder::sum)
+                    .description("应用到 es 的变更数")
+                    .tag("partition", tag)
+                    .tag("result", "applied")
+                    .register(registry);
+            FunctionCounter.builder("es.sync.changes", partition.conflicts, LongAdder::sum)
+                    .description("应用到 es 的变更数")
+                    .tag("partition", tag)
+                    .tag("result", "conflict")
+                    .register(registry);
+            FunctionCounter.builder("es.sync.changes", partition.failures, LongAdder::sum)
+                    .description("应用到 es 的变更数")
+                    .tag("partition", tag)
+                    .tag("result", "failed")
+                    .register(registry);
+            FunctionCounter.builder("es.sync.late", partition.late, LongAdder::sum)
+                    .description("高水位越过之后才提交、需要补上的变更数")
+                    .tag("partition", tag)
+                    .register(registry);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(properties.getBulkTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static final class Partition {
+
+        private final int index;
+
+        private volatile long lastId;
+
+        /**
+         * 最早未应用的变更的写入时间，没有时为 0
+         */
+        private volatile long oldestPendingAt;
+
+        private final LongAdder applied = new LongAdder();
+
+        private final LongAdder conflicts = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final LongAdder late = new LongAdder();
+
+        private Partition(int index) {
+            this.index = index;
+        }
+
+        private long lagMillis() {
+            return oldestPendingAt == 0 ? 0 : System.currentTimeMillis() - oldestPendingAt;
+        }
+    }
+}
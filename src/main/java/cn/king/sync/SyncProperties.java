@@ -0,0 +1,156 @@
+package cn.king.sync;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 16:00
+ * @version: 1.0.0
+ * @description: outbox 同步配置
+ */
+@ConfigurationProperties(prefix = "elasticsearch.sync")
+public class SyncProperties {
+
+    /**
+     * 是否在本实例上运行同步，打开后同时提供 OutboxStore
+     */
+    private boolean enabled = false;
+
+    /**
+     * 只负责写 outbox、不运行同步的实例打开这个来提供 OutboxStore。两个都关闭时不会访问数据库
+     */
+    private boolean outbox = false;
+
+    /**
+     * 分区数，同时也是同步线程数。文档按 id 的哈希分区，同一个文档的变更总在同一个分区内按顺序应用。
+     * 修改后所有分区从最小的高水位重新开始，重放依靠外部版本号保证幂等
+     */
+    private int partitions = 4;
+
+    /**
+     * 每个 bulk 最多包含的变更数
+     */
+    private int batchSize = 500;
+
+    /**
+     * 追上之后的轮询间隔
+     */
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    /**
+     * 只读取写入超过这个时间的行。自增 id 按分配顺序而不是提交顺序递增，
+     * 还没提交的小 id 会在大 id 之后才可见，需要大于写 outbox 的事务的最长耗时。
+     * 这是硬性限制：耗时更长的事务提交时高水位可能已经越过它的 id，只有 purge-applied 为 true 时才会被补上，
+     * 否则这条变更永远不会应用
+     */
+    private Duration settleDelay = Duration.ofSeconds(2);
+
+    /**
+     * 单个 bulk 的等待时间
+     */
+    private Duration bulkTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 启动时执行 CREATE TABLE IF NOT EXISTS，语句适用于 h2 和 mysql，其他数据库请自行建表
+     */
+    private boolean createSchema = true;
+
+    /**
+     * 应用后是否删除 outbox 中的行。打开时高水位以下剩下的行就是晚提交的变更，每轮会先补上它们
+     */
+    private boolean purgeApplied = true;
+
+    private String outboxTable = "es_outbox";
+
+    private String offsetTable = "es_sync_offset";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isOutbox() {
+        return outbox;
+    }
+
+    public void setOutbox(boolean outbox) {
+        this.outbox = outbox;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    public void setPollInterval(Duration pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public Duration getSettleDelay() {
+        return settleDelay;
+    }
+
+    public void setSettleDelay(Duration settleDelay) {
+        this.settleDelay = settleDelay;
+    }
+
+    public Duration getBulkTimeout() {
+        return bulkTimeout;
+    }
+
+    public void setBulkTimeout(Duration bulkTimeout) {
+        this.bulkTimeout = bulkTimeout;
+    }
+
+    public boolean isCreateSchema() {
+        return createSchema;
+    }
+
+    public void setCreateSchema(boolean createSchema) {
+        this.createSchema = createSchema;
+    }
+
+    public boolean isPurgeApplied() {
+        return purgeApplied;
+    }
+
+    public void setPurgeApplied(boolean purgeApplied) {
+        this.purgeApplied = purgeApplied;
+    }
+
+    public String getOutboxTable() {
+        return outboxTable;
+    }
+
+    public void setOutboxTable(String outboxTable) {
+        this.outboxTable = outboxTable;
+    }
+
+    public String getOffsetTable() {
+        return offsetTable;
+    }
+
+    public void setOffsetTable(String offsetTable) {
+        this.offsetTable = offsetTable;
+    }
+}
@@ -0,0 +1,135 @@
+package cn.king.template;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 9:30
+ * @version: 1.0.0
+ * @description: 把参数值直接写成 json 字节。字符串逐个字符转义并编码成 utf-8，整数逐位写出，都不创建中间对象
+ */
+final class JsonBytes {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private JsonBytes() {
+    }
+
+    static void writeString(String value, OutputStream out) {
+        try {
+            out.write('"');
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    out.write('\\');
+                    out.write(c);
+                } else if (c < 0x20) {
+                    writeControl(c, out);
+                } else if (c < 0x80) {
+                    out.write(c);
+                } else if (c < 0x800) {
+                    out.write(0xc0 | (c >> 6));
+                    out.write(0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    out.write(0xf0 | (codePoint >> 18));
+                    out.write(0x80 | ((codePoint >> 12) & 0x3f));
+                    out.write(0x80 | ((codePoint >> 6) & 0x3f));
+                    out.write(0x80 | (codePoint & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    // 落单的代理字符不是合法的 utf-16，和 String.getBytes 一样写成 ?
+                    out.write('?');
+                } else {
+                    out.write(0xe0 | (c >> 12));
+                    out.write(0x80 | ((c >> 6) & 0x3f));
+                    out.write(0x80 | (c & 0x3f));
+                }
+            }
+            out.write('"');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void writeLong(long value, OutputStream out) {
+        try {
+            if (value == Long.MIN_VALUE) {
+                out.write(MIN_LONG);
+                return;
+            }
+            if (value < 0) {
+                out.write('-');
+                value = -value;
+            }
+            long divisor = 1;
+            while (value / divisor >= 10) {
+                divisor *= 10;
+            }
+            for (; divisor > 0; divisor /= 10) {
+                out.write('0' + (int) (value / divisor % 10));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 整数值的 double 按整数写，避免 Double.toString 的分配；其余情况仍用 Double.toString，结果是合法的 json 数字
+     */
+    static void writeDouble(double value, OutputStream out) {
+        if (value == (long) value && Math.abs(value) < 1e15) {
+            writeLong((long) value, out);
+            return;
+        }
+        try {
+            out.write(Double.toString(value).getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void writeBoolean(boolean value, OutputStream out) {
+        try {
+            out.write(value ? TRUE : FALSE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeControl(char c, OutputStream out) throws IOException {
+        out.write('\\');
+        switch (c) {
+            case '\n':
+                out.write('n');
+                break;
+            case '\r':
+                out.write('r');
+                break;
+            case '\t':
+                out.write('t');
+                break;
+            case '\b':
+                out.write('b');
+                break;
+            case '\f':
+                out.write('f');
+                break;
+            default:
+                out.write('u');
+                out.write('0');
+                out.write('0');
+                out.write(HEX[c >> 4]);
+                out.write(HEX[c & 0xf]);
+        }
+    }
+}
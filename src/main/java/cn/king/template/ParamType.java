@@ -0,0 +1,32 @@
+package cn.king.template;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 9:00
+ * @version: 1.0.0
+ * @description: 查询模板参数的类型，决定绑定时怎么写字节
+ */
+public enum ParamType {
+
+    /**
+     * json 字符串，写入时转义
+     */
+    STRING,
+
+    /**
+     * 整数，不带引号
+     */
+    LONG,
+
+    /**
+     * 浮点数，不带引号
+     */
+    DOUBLE,
+
+    BOOLEAN,
+
+    /**
+     * 字符串数组，占位符必须是数组中唯一的元素，如 terms 查询的 ["{{tags}}"]
+     */
+    STRINGS
+}
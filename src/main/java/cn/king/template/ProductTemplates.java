@@ -0,0 +1,42 @@
+package cn.king.template;
+
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 10:00
+ * @version: 1.0.0
+ * @description: 商品搜索用到的查询模板。按关键词和价格区间查商品，价格倒序，只取 title 和 desc
+ * <pre>
+ * QueryTemplate template = registry.get(ProductTemplates.PRODUCT_SEARCH);
+ * templateSearchClient.search("product", template.params()
+ *         .set("keyword", "好吃").set("min_price", 1.0).set("max_price", 10.0).page(0, 20), ProductDecoder.INSTANCE);
+ * </pre>
+ * 高亮结果不在 TypedSearchClient 的 filter_path 中，这里不带高亮，需要高亮的模板请配合 high level client 使用
+ */
+@Configuration
+public class ProductTemplates {
+
+    public static final String PRODUCT_SEARCH = "product_search";
+
+    @Bean
+    public QueryTemplate productSearchTemplate() {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(QueryBuilders.boolQuery()
+                        .must(QueryBuilders.termQuery("desc", "{{keyword}}"))
+                        .filter(QueryBuilders.rangeQuery("price").gte("{{min_price}}").lte("{{max_price}}")))
+                .sort("price", SortOrder.DESC)
+                .fetchSource(new String[]{"title", "desc"}, new String[]{});
+        return QueryTemplate.builder(PRODUCT_SEARCH)
+                .source(source)
+                .param("keyword", ParamType.STRING)
+                .param("min_price", ParamType.DOUBLE)
+                .param("max_price", ParamType.DOUBLE)
+                .pageable()
+                .build();
+    }
+}
@@ -0,0 +1,459 @@
+package cn.king.template;
+
+import cn.king.mapping.PooledBytes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 9:10
+ * @version: 1.0.0
+ * @description: 预编译的查询模板。查询的形状（query、sort、_source 过滤、高亮）用 SearchSourceBuilder 写一次，
+ * 参数位置写成字符串占位符 "{{name}}"，编译时序列化成 json 并在占位符处切开，得到固定的字节片段和有类型的参数槽。
+ * <p>
+ * 每次请求只需要把片段和参数值依次写进缓冲区，不再创建 SearchSourceBuilder，也不再序列化。
+ * 数字和布尔参数写入时去掉占位符的引号，字符串参数按 json 规则转义。
+ * <p>
+ * from/size 是 SearchSourceBuilder 的 int 字段写不了占位符，声明 pageable() 后作为两个内置的 LONG 参数追加在最后
+ * <pre>
+ * QueryTemplate template = QueryTemplate.builder("product_search")
+ *         .source(new SearchSourceBuilder().query(QueryBuilders.termQuery("desc", "{{keyword}}")))
+ *         .param("keyword", ParamType.STRING)
+ *         .pageable()
+ *         .build();
+ * </pre>
+ */
+public final class QueryTemplate {
+
+    public static final String FROM = "from";
+
+    public static final String SIZE = "size";
+
+    private final String name;
+
+    /**
+     * segments.length == slots.length + 1，渲染时 segments[0] slots[0] segments[1] ... segments[n]
+     */
+    private final byte[][] segments;
+
+    private final int[] slots;
+
+    private final String[] paramNames;
+
+    private final ParamType[] paramTypes;
+
+    private QueryTemplate(String name, byte[][] segments, int[] slots, String[] paramNames, ParamType[] paramTypes) {
+        this.name = name;
+        this.segments = segments;
+        this.slots = slots;
+        this.paramNames = paramNames;
+        this.paramTypes = paramTypes;
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 参数的下标，热点路径上先取好下标再用 Params 的下标方法绑定，省去按名字查找
+     */
+    public int param(String paramName) {
+        for (int i = 0; i < paramNames.length; i++) {
+            if (paramNames[i].equals(paramName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("模板 " + name + " 没有参数 " + paramName);
+    }
+
+    public Params params() {
+        return new Params(this);
+    }
+
+    /**
+     * 把模板和参数写进缓冲区
+     */
+    public void render(Params params, PooledBytes out) {
+        if (params.template != this) {
+            throw new IllegalArgumentException("参数不属于模板 " + name);
+        }
+        for (int i = 0; i < slots.length; i++) {
+            out.write(segments[i], 0, segments[i].length);
+            params.write(slots[i], out);
+        }
+        byte[] last = segments[slots.length];
+        out.write(last, 0, last.length);
+    }
+
+    /**
+     * 转成 es 的 mustache 模板，用于保存为服务端的 stored search template。
+     * 字符串参数加引号（es 按 json 规则转义），数字和布尔直接替换，数组用 toJson
+     */
+    public String toMustache() {
+        StringBuilder mustache = new StringBuilder();
+        for (int i = 0; i <= slots.length; i++) {
+            byte[] segment = segments[i];
+            int from = 0;
+            int to = segment.length;
+            // 数组参数去掉外层的方括号，由 toJson 输出整个数组
+            if (i > 0 && paramTypes[slots[i - 1]] == ParamType.STRINGS) {
+                from = 1;
+            }
+            if (i < slots.length && paramTypes[slots[i]] == ParamType.STRINGS) {
+                to--;
+            }
+            mustache.append(new String(segment, from, to - from, StandardCharsets.UTF_8));
+            if (i < slots.length) {
+                String paramName = paramNames[slots[i]];
+                switch (paramTypes[slots[i]]) {
+                    case STRING:
+                        mustache.append("\"{{").append(paramName).append("}}\"");
+                        break;
+                    case STRINGS:
+                        mustache.append("{{#toJson}}").append(paramName).append("{{/toJson}}");
+                        break;
+                    default:
+                        mustache.append("{{").append(paramName).append("}}");
+                }
+            }
+        }
+        return mustache.toString();
+    }
+
+    String[] paramNames() {
+        return paramNames;
+    }
+
+    ParamType[] paramTypes() {
+        return paramTypes;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryTemplate{name=" + name + ", params=" + Arrays.toString(paramNames) + '}';
+    }
+
+    public static final class Builder {
+
+        private final String name;
+
+        private final Map<String, ParamType> params = new LinkedHashMap<>();
+
+        private SearchSourceBuilder source;
+
+        private boolean pageable;
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder source(SearchSourceBuilder source) {
+            this.source = source;
+            return this;
+        }
+
+        public Builder param(String paramName, ParamType type) {
+            if (FROM.equals(paramName) || SIZE.equals(paramName)) {
+                throw new IllegalArgumentException(paramName + " 是内置参数，请用 pageable()");
+            }
+            params.put(paramName, type);
+            return this;
+        }
+
+        /**
+         * 追加 from、size 两个 LONG 参数
+         */
+        public Builder pageable() {
+            this.pageable = true;
+            return this;
+        }
+
+        public QueryTemplate build() {
+            if (source == null) {
+                throw new IllegalArgumentException("模板 " + name + " 没有 source");
+            }
+            Map<String, ParamType> all = new LinkedHashMap<>(params);
+            byte[] json = serialize();
+            if (pageable) {
+                if (source.from() >= 0 || source.size() >= 0) {
+                    throw new IllegalArgumentException("模板 " + name + " 声明了 pageable()，source 中不能再设置 from/size");
+                }
+                all.put(FROM, ParamType.LONG);
+                all.put(SIZE, ParamType.LONG);
+                json = appendPaging(json);
+            }
+            String[] names = all.keySet().toArray(new String[0]);
+            ParamType[] types = all.values().toArray(new ParamType[0]);
+
+            List<byte[]> segments = new ArrayList<>();
+            List<Integer> slots = new ArrayList<>();
+            boolean[] used = new boolean[names.length];
+            int start = 0;
+            int open;
+            while ((open = indexOf(json, "\"{{", start)) >= 0) {
+                int close = indexOf(json, "}}\"", open + 3);
+                if (close < 0) {
+                    throw new IllegalArgumentException("模板 " + name + " 的占位符没有结束");
+                }
+                String paramName = new String(json, open + 3, close - open - 3, StandardCharsets.UTF_8);
+                int index = Arrays.asList(names).indexOf(paramName);
+                if (index < 0) {
+                    throw new IllegalArgumentException("模板 " + name + " 的占位符 " + paramName + " 没有声明类型");
+                }
+                int end = close + 3;
+                if (types[index] == ParamType.STRINGS && (open == 0 || json[open - 1] != '[' || json[end] != ']')) {
+                    throw new IllegalArgumentException("数组参数 " + paramName + " 必须是数组中唯一的元素");
+                }
+                segments.add(Arrays.copyOfRange(json, start, open));
+                slots.add(index);
+                used[index] = true;
+                start = end;
+            }
+            segments.add(Arrays.copyOfRange(json, start, json.length));
+            for (byte[] segment : segments) {
+                if (indexOf(segment, "{{", 0) >= 0) {
+                    throw new IllegalArgumentException("模板 " + name + " 的占位符必须是完整的字符串值，不能和其他文字拼在一起");
+                }
+            }
+            for (int i = 0; i < names.length; i++) {
+                if (!used[i]) {
+                    throw new IllegalArgumentException("模板 " + name + " 的参数 " + names[i] + " 没有出现在查询中");
+                }
+            }
+            int[] slotArray = new int[slots.size()];
+            for (int i = 0; i < slotArray.length; i++) {
+                slotArray[i] = slots.get(i);
+            }
+            return new QueryTemplate(name, segments.toArray(new byte[0][]), slotArray, names, types);
+        }
+
+        private byte[] serialize() {
+            try {
+                BytesRef bytes = XContentHelper.toXContent(source, XContentType.JSON, false).toBytesRef();
+                return Arrays.copyOfRange(bytes.bytes, bytes.offset, bytes.offset + bytes.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * 在最外层的 } 之前追加 "from":"{{from}}","size":"{{size}}"，走和其他参数一样的编译流程
+         */
+        private static byte[] appendPaging(byte[] json) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length + 40);
+            out.write(json, 0, json.length - 1);
+            if (json.length > 2) {
+                out.write(',');
+            }
+            byte[] paging = ("\"" + FROM + "\":\"{{" + FROM + "}}\",\"" + SIZE + "\":\"{{" + SIZE + "}}\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            out.write(paging, 0, paging.length);
+            return out.toByteArray();
+        }
+
+        private static int indexOf(byte[] bytes, String target, int from) {
+            byte[] pattern = target.getBytes(StandardCharsets.UTF_8);
+            outer:
+            for (int i = from; i <= bytes.length - pattern.length; i++) {
+                for (int j = 0; j < pattern.length; j++) {
+                    if (bytes[i + j] != pattern[j]) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * 一次请求的参数值。按参数类型分别存放，绑定数字不装箱。
+     * 不是线程安全的，可以每个请求新建，也可以每个线程持有一个、用完 clear() 后复用
+     */
+    public static final class Params {
+
+        private final QueryTemplate template;
+
+        private final Object[] objects;
+
+        private final long[] longs;
+
+        private final double[] doubles;
+
+        private final boolean[] bound;
+
+        private Params(QueryTemplate template) {
+            this.template = template;
+            int size = template.paramNames.length;
+            this.objects = new Object[size];
+            this.longs = new long[size];
+            this.doubles = new double[size];
+            this.bound = new boolean[size];
+        }
+
+        public Params set(String paramName, String value) {
+            return set(template.param(paramName), value);
+        }
+
+        public Params set(String paramName, long value) {
+            return set(template.param(paramName), value);
+        }
+
+        public Params set(String paramName, double value) {
+            return set(template.param(paramName), value);
+        }
+
+        public Params set(String paramName, boolean value) {
+            return set(template.param(paramName), value);
+        }
+
+        public Params set(String paramName, String... values) {
+            return set(template.param(paramName), values);
+        }
+
+        public Params set(int index, String value) {
+            check(index, ParamType.STRING);
+            if (value == null) {
+                throw new IllegalArgumentException("参数 " + template.paramNames[index] + " 不能为 null");
+            }
+            objects[index] = value;
+            bound[index] = true;
+            return this;
+        }
+
+        public Params set(int index, long value) {
+            check(index, ParamType.LONG);
+            longs[index] = value;
+            bound[index] = true;
+            return this;
+        }
+
+        public Params set(int index, double value) {
+            check(index, ParamType.DOUBLE);
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new IllegalArgumentException("参数 " + template.paramNames[index] + " 不是有效的数字 " + value);
+            }
+            doubles[index] = value;
+            bound[index] = true;
+            return this;
+        }
+
+        public Params set(int index, boolean value) {
+            check(index, ParamType.BOOLEAN);
+            longs[index] = value ? 1 : 0;
+            bound[index] = true;
+            return this;
+        }
+
+        public Params set(int index, String... values) {
+            check(index, ParamType.STRINGS);
+            for (String value : values) {
+                if (value == null) {
+                    throw new IllegalArgumentException("参数 " + template.paramNames[index] + " 的元素不能为 null");
+                }
+            }
+            objects[index] = values;
+            bound[index] = true;
+            return this;
+        }
+
+        /**
+         * 设置 pageable 模板的 from 和 size
+         */
+        public Params page(int from, int size) {
+            set(FROM, (long) from);
+            return set(SIZE, (long) size);
+        }
+
+        public void clear() {
+            Arrays.fill(objects, null);
+            Arrays.fill(bound, false);
+        }
+
+        public QueryTemplate template() {
+            return template;
+        }
+
+        /**
+         * 参数值转成 Map，用于 stored search template 的 params
+         */
+        Map<String, Object> asMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (int i = 0; i < bound.length; i++) {
+                checkBound(i);
+                switch (template.paramTypes[i]) {
+                    case STRING:
+                        map.put(template.paramNames[i], objects[i]);
+                        break;
+                    case STRINGS:
+                        map.put(template.paramNames[i], Arrays.asList((String[]) objects[i]));
+                        break;
+                    case LONG:
+                        map.put(template.paramNames[i], longs[i]);
+                        break;
+                    case DOUBLE:
+                        map.put(template.paramNames[i], doubles[i]);
+                        break;
+                    default:
+                        map.put(template.paramNames[i], longs[i] != 0);
+                }
+            }
+            return map;
+        }
+
+        private void check(int index, ParamType type) {
+            if (template.paramTypes[index] != type) {
+                throw new IllegalArgumentException("参数 " + template.paramNames[index] + " 的类型是 "
+                        + template.paramTypes[index] + "，不能绑定 " + type);
+            }
+        }
+
+        private void checkBound(int index) {
+            if (!bound[index]) {
+                throw new IllegalStateException("模板 " + template.name + " 的参数 " + template.paramNames[index] + " 没有设置");
+            }
+        }
+
+        void write(int index, PooledBytes out) {
+            checkBound(index);
+            switch (template.paramTypes[index]) {
+                case STRING:
+                    JsonBytes.writeString((String) objects[index], out);
+                    break;
+                case STRINGS:
+                    String[] values = (String[]) objects[index];
+                    for (int i = 0; i < values.length; i++) {
+                        if (i > 0) {
+                            out.write(',');
+                        }
+                        JsonBytes.writeString(values[i], out);
+                    }
+                    break;
+                case LONG:
+                    JsonBytes.writeLong(longs[index], out);
+                    break;
+                case DOUBLE:
+                    JsonBytes.writeDouble(doubles[index], out);
+                    break;
+                default:
+                    JsonBytes.writeBoolean(longs[index] != 0, out);
+            }
+        }
+    }
+}
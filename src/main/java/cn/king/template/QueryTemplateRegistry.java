@@ -0,0 +1,45 @@
+package cn.king.template;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 9:40
+ * @version: 1.0.0
+ * @description: 按名字查找查询模板。容器中所有 QueryTemplate 类型的 bean 启动时注册进来，
+ * 编译（序列化、切片、校验占位符）只在这时做一次，模板写错启动就会失败
+ */
+@Component
+public class QueryTemplateRegistry {
+
+    private final Map<String, QueryTemplate> templates = new LinkedHashMap<>();
+
+    public QueryTemplateRegistry(ObjectProvider<QueryTemplate> templates) {
+        templates.orderedStream().forEach(this::register);
+    }
+
+    private void register(QueryTemplate template) {
+        QueryTemplate previous = templates.putIfAbsent(template.getName(), template);
+        if (previous != null && previous != template) {
+            throw new IllegalStateException("查询模板重名 " + template.getName());
+        }
+    }
+
+    public QueryTemplate get(String name) {
+        QueryTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("没有查询模板 " + name);
+        }
+        return template;
+    }
+
+    public Collection<QueryTemplate> all() {
+        return Collections.unmodifiableCollection(templates.values());
+    }
+}
@@ -0,0 +1,105 @@
+package cn.king.template;
+
+import cn.king.client.AsyncEsClient;
+import cn.king.client.OperationType;
+import cn.king.mapping.BytesPool;
+import cn.king.mapping.PooledBytes;
+import cn.king.mapping.SourceDecoder;
+import cn.king.mapping.TypedSearchClient;
+import cn.king.mapping.TypedSearchResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 9:50
+ * @version: 1.0.0
+ * @description: 用查询模板搜索。
+ * <p>
+ * 1. search：模板在客户端渲染到池化的缓冲区，复制成刚好大小的数组作为 http 实体，缓冲区立即归还。
+ * 实体不能用池化的缓冲区：调用方取消或超时后 future 就完成了，io 线程（开启压缩时还有 gzip 包装）可能还在读请求体。
+ * 每次请求没有 SearchSourceBuilder，也没有序列化，结果按 TypedSearchClient 的方式直接解码
+ * 2. searchStored：先用 putStored 把模板以 mustache 形式存到 es（_scripts），请求只带模板 id 和参数，
+ * 请求体最小，但参数替换和查询解析在服务端做。适合查询体很大、参数很少的模板
+ */
+@Component
+public class TemplateSearchClient {
+
+    private final AsyncEsClient client;
+
+    private final TypedSearchClient typedSearchClient;
+
+    /**
+     * 渲染后的查询体一般不到 1k，超过 64k 的缓冲区不回收
+     */
+    private final BytesPool pool = new BytesPool(256, 1024, 64 * 1024);
+
+    public TemplateSearchClient(AsyncEsClient client, TypedSearchClient typedSearchClient) {
+        this.client = client;
+        this.typedSearchClient = typedSearchClient;
+    }
+
+    public <T> CompletableFuture<TypedSearchResponse<T>> search(String index, QueryTemplate.Params params,
+                                                                SourceDecoder<T> decoder) {
+        PooledBytes body = pool.acquire();
+        byte[] bytes;
+        try {
+            params.template().render(params, body);
+            bytes = BytesReference.toBytes(body.bytes());
+        } finally {
+            body.release();
+        }
+        Request request = new Request("POST", "/" + index + "/_search");
+        request.setEntity(new ByteArrayEntity(bytes, ContentType.APPLICATION_JSON));
+        return typedSearchClient.search(request, decoder);
+    }
+
+    /**
+     * 把模板保存为 es 的 stored search template，id 是模板名。模板变更后需要重新保存
+     */
+    public CompletableFuture<Response> putStored(QueryTemplate template) {
+        Request request = new Request("PUT", "/_scripts/" + template.getName());
+        try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+            builder.startObject()
+                    .startObject("script")
+                    .field("lang", "mustache")
+                    .field("source", template.toMustache())
+                    .endObject()
+                    .endObject();
+            request.setJsonEntity(Strings.toString(builder));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return client.perform(OperationType.ADMIN, request);
+    }
+
+    public <T> CompletableFuture<TypedSearchResponse<T>> searchStored(String index, QueryTemplate.Params params,
+                                                                      SourceDecoder<T> decoder) {
+        Request request = new Request("POST", "/" + index + "/_search/template");
+        try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+            builder.startObject()
+                    .field("id", params.template().getName())
+                    .field("params", params.asMap())
+                    .endObject();
+            request.setJsonEntity(Strings.toString(builder));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return typedSearchClient.search(request, decoder);
+    }
+
+    BytesPool pool() {
+        return pool;
+    }
+}
@@ -0,0 +1,80 @@
+package cn.king.update;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 18:00
+ * @version: 1.0.0
+ * @description: 局部更新合并缓冲的配置
+ */
+@ConfigurationProperties(prefix = "elasticsearch.update-buffer")
+public class UpdateBufferProperties {
+
+    /**
+     * 合并窗口。同一文档在窗口内的多次更新合并成一次
+     */
+    private Duration window = Duration.ofMillis(200);
+
+    /**
+     * 最多缓冲的文档数，超过后拒绝新的更新
+     */
+    private int maxPending = 100000;
+
+    /**
+     * 每个 bulk 最多包含的更新数
+     */
+    private int maxBatchSize = 1000;
+
+    /**
+     * 版本冲突时 es 内部的重试次数
+     */
+    private int retryOnConflict = 3;
+
+    /**
+     * 文档不存在时是否用局部文档创建
+     */
+    private boolean docAsUpsert = false;
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    public void setMaxPending(int maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getRetryOnConflict() {
+        return retryOnConflict;
+    }
+
+    public void setRetryOnConflict(int retryOnConflict) {
+        this.retryOnConflict = retryOnConflict;
+    }
+
+    public boolean isDocAsUpsert() {
+        return docAsUpsert;
+    }
+
+    public void setDocAsUpsert(boolean docAsUpsert) {
+        this.docAsUpsert = docAsUpsert;
+    }
+}
@@ -0,0 +1,304 @@
+package cn.king.update;
+
+import cn.king.client.AsyncEsClient;
+import cn.king.client.OperationType;
+import cn.king.client.RequestRejectedException;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.action.update.UpdateResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 18:10
+ * @version: 1.0.0
+ * @description: 局部更新的合并缓冲（write-behind）。同一个文档在一个窗口内的多次局部更新合并成一个 UpdateRequest，
+ * 每个窗口结束时把所有文档的合并结果作为一个 bulk 发出去。热点文档每秒几十次的读-改-写在 shard 上变成一次。
+ * <p>
+ * 1. 合并规则和 es 的局部更新一致：对象字段递归合并，其余字段后写覆盖先写
+ * 2. 同一个文档同时只有一个更新在途，在途期间到达的更新留到它完成之后的下一个窗口，保证按调用顺序生效
+ * 3. 返回的 future 在包含这次修改的 bulk 条目完成后完成，合并在一起的调用方拿到同一个 UpdateResponse
+ * 4. 数据只在内存中，进程崩溃会丢失最后一个窗口的更新，对此敏感的写入请直接用 AsyncEsClient.update
+ */
+@Component
+public class UpdateCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(UpdateCoalescer.class);
+
+    private final AsyncEsClient client;
+
+    private final UpdateBufferProperties properties;
+
+    private final ConcurrentMap<DocKey, PendingUpdate> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 已经发出、还没有结果的文档
+     */
+    private final Set<DocKey> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * 调用方提交的更新数
+     */
+    private final LongAdder received = new LongAdder();
+
+    /**
+     * 实际发给 es 的更新数
+     */
+    private final LongAdder sent = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    public UpdateCoalescer(AsyncEsClient client, UpdateBufferProperties properties) {
+        this.client = client;
+        this.properties = properties;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("es-update-flusher-");
+        threadFactory.setDaemon(true);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @PostConstruct
+    public void start() {
+        long window = properties.getWindow().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, window, window, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提交一次局部更新。partialDoc 会被复制，调用之后可以继续修改
+     */
+    public CompletableFuture<UpdateResponse> update(String index, String id, Map<String, ?> partialDoc) {
+        DocKey key = new DocKey(index, id);
+        if (pending.size() >= properties.getMaxPending() && !pending.containsKey(key)) {
+            CompletableFuture<UpdateResponse> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new RequestRejectedException(OperationType.WRITE,
+                    "更新缓冲已满 pending=" + pending.size()));
+            return rejected;
+        }
+        CompletableFuture<UpdateResponse> future = new CompletableFuture<>();
+        // compute 对同一个 key 是原子的，和 flush 中的 remove 互斥
+        pending.compute(key, (k, update) -> {
+            if (update == null) {
+                update = new PendingUpdate();
+            }
+            merge(update.doc, partialDoc);
+            update.waiters.add(future);
+            return update;
+        });
+        received.increment();
+        return future;
+    }
+
+    /**
+     * 立即发送当前缓冲中的更新，在途的文档除外
+     */
+    public synchronized void flush() {
+        BulkRequest bulk = null;
+        List<PendingUpdate> updates = null;
+        for (DocKey key : pending.keySet()) {
+            // 先占住在途标记再取出，之后到达的更新会进入新的 PendingUpdate，等这次完成后再发
+            if (!inFlight.add(key)) {
+                continue;
+            }
+            PendingUpdate update = pending.remove(key);
+            if (update == null) {
+                inFlight.remove(key);
+                continue;
+            }
+            if (bulk == null) {
+                bulk = new BulkRequest();
+                updates = new ArrayList<>();
+            }
+            update.key = key;
+            bulk.add(new UpdateRequest(key.index, key.id)
+                    .doc(update.doc)
+                    .docAsUpsert(properties.isDocAsUpsert())
+                    .retryOnConflict(properties.getRetryOnConflict()));
+            updates.add(update);
+            if (updates.size() >= properties.getMaxBatchSize()) {
+                send(bulk, updates);
+                bulk = null;
+            }
+        }
+        if (bulk != null) {
+            send(bulk, updates);
+        }
+    }
+
+    public long received() {
+        return received.sum();
+    }
+
+    public long sent() {
+        return sent.sum();
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+
+    /**
+     * 平均每次发给 es 的更新合并了多少次调用
+     */
+    public double coalesceRatio() {
+        long s = sent.sum();
+        return s == 0 ? 0 : (double) received.sum() / s;
+    }
+
+    /**
+     * 缓冲中等待发送的文档数
+     */
+    public int pendingSize() {
+        return pending.size();
+    }
+
+    private void send(BulkRequest bulk, List<PendingUpdate> updates) {
+        sent.add(updates.size());
+        client.bulk(bulk).whenComplete((response, e) -> {
+            if (e != null) {
+                log.warn("合并更新的 bulk 请求失败 actions={}", updates.size(), e);
+                failed.add(updates.size());
+                for (PendingUpdate update : updates) {
+                    inFlight.remove(update.key);
+                    update.fail(e);
+                }
+                return;
+            }
+            onResponse(response, updates);
+        });
+    }
+
+    private void onResponse(BulkResponse response, List<PendingUpdate> updates) {
+        for (BulkItemResponse item : response.getItems()) {
+            PendingUpdate update = updates.get(item.getItemId());
+            // 先解除在途标记，后面的更新才能进入下一个窗口
+            inFlight.remove(update.key);
+            if (item.isFailed()) {
+                failed.increment();
+                log.warn("合并更新失败 index={} id={} status={} reason={}",
+                        item.getIndex(), item.getId(), item.getFailure().getStatus(), item.getFailureMessage());
+                update.fail(item.getFailure().getCause());
+            } else {
+                UpdateResponse updateResponse = item.getResponse();
+                for (CompletableFuture<UpdateResponse> waiter : update.waiters) {
+                    waiter.complete(updateResponse);
+                }
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("合并更新 flush 失败", e);
+        }
+    }
+
+    /**
+     * 按 es 局部更新的规则把 source 合并进 target：两边都是对象时递归合并，否则覆盖
+     */
+    @SuppressWarnings("unchecked")
+    static void merge(Map<String, Object> target, Map<String, ?> source) {
+        for (Map.Entry<String, ?> entry : source.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Map) {
+                Object existing = target.get(entry.getKey());
+                Map<String, Object> nested = existing instanceof Map
+                        ? (Map<String, Object>) existing : new HashMap<>();
+                merge(nested, (Map<String, ?>) value);
+                target.put(entry.getKey(), nested);
+            } else {
+                target.put(entry.getKey(), value);
+            }
+        }
+    }
+
+    /**
+     * 停止定时发送，把缓冲中剩下的更新发完
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        flusher.shutdownNow();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!(pending.isEmpty() && inFlight.isEmpty()) && System.nanoTime() - deadline < 0) {
+            flush();
+            Thread.sleep(10);
+        }
+        if (!pending.isEmpty()) {
+            log.warn("关闭时仍有合并更新未发送 pending={}", pending.size());
+        }
+        log.info("UpdateCoalescer 已关闭 received={} sent={} failed={}", received.sum(), sent.sum(), failed.sum());
+    }
+
+    private static final class DocKey {
+
+        final String index;
+
+        final String id;
+
+        final int hash;
+
+        DocKey(String index, String id) {
+            this.index = Objects.requireNonNull(index, "index");
+            this.id = Objects.requireNonNull(id, "id");
+            this.hash = 31 * index.hashCode() + id.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DocKey)) {
+                return false;
+            }
+            DocKey other = (DocKey) o;
+            return index.equals(other.index) && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 一个文档在当前窗口内的合并结果。只在 ConcurrentMap.compute 中修改，取出后不再变化
+     */
+    private static final class PendingUpdate {
+
+        final Map<String, Object> doc = new HashMap<>();
+
+        final List<CompletableFuture<UpdateResponse>> waiters = new ArrayList<>(2);
+
+        DocKey key;
+
+        void fail(Throwable e) {
+            for (CompletableFuture<UpdateResponse> waiter : waiters) {
+                waiter.completeExceptionally(e);
+            }
+        }
+    }
+}
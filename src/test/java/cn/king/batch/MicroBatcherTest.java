@@ -0,0 +1,99 @@
+package cn.king.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 19:40
+ * @version: 1.0.0
+ * @description: 合批、去重和缺失条目
+ */
+public class MicroBatcherTest {
+
+    private ScheduledExecutorService timer;
+
+    private final List<List<String>> loaded = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        timer = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        timer.shutdownNow();
+    }
+
+    @Test
+    public void concurrentKeysShareOneBatch() {
+        MicroBatcher<String, String> batcher = batcher(Duration.ofMillis(20), 100);
+        CompletableFuture<String> a = batcher.submit("a");
+        CompletableFuture<String> b = batcher.submit("b");
+        CompletableFuture<String> a2 = batcher.submit("a");
+        assertEquals("A", a.join());
+        assertEquals("B", b.join());
+        assertEquals("A", a2.join());
+        assertEquals(1, loaded.size());
+        assertEquals(2, loaded.get(0).size());
+        assertEquals(3, batcher.requests());
+    }
+
+    @Test
+    public void fullBatchIsSentImmediately() {
+        MicroBatcher<String, String> batcher = batcher(Duration.ofHours(1), 2);
+        CompletableFuture<String> a = batcher.submit("a");
+        CompletableFuture<String> b = batcher.submit("b");
+        assertTrue(a.isDone());
+        assertTrue(b.isDone());
+    }
+
+    @Test
+    public void cancelDoesNotAffectOtherCallers() {
+        MicroBatcher<String, String> batcher = batcher(Duration.ofHours(1), 100);
+        CompletableFuture<String> first = batcher.submit("a");
+        CompletableFuture<String> second = batcher.submit("a");
+        first.cancel(false);
+        batcher.flush();
+        assertEquals("A", second.join());
+    }
+
+    @Test
+    public void missingItemFails() {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>("test", Duration.ofHours(1), 100, true,
+                (keys, results) -> {
+                    results.get(0).complete("first");
+                    return CompletableFuture.completedFuture(null);
+                }, timer);
+        CompletableFuture<String> a = batcher.submit("a");
+        CompletableFuture<String> b = batcher.submit("b");
+        batcher.flush();
+        assertEquals("first", a.join());
+        assertThrows(CompletionException.class, b::join);
+    }
+
+    private MicroBatcher<String, String> batcher(Duration maxWait, int maxSize) {
+        return new MicroBatcher<>("test", maxWait, maxSize, true, (keys, results) -> {
+            synchronized (loaded) {
+                loaded.add(new ArrayList<>(keys));
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                results.get(i).complete(keys.get(i).toUpperCase());
+            }
+            return CompletableFuture.completedFuture(null);
+        }, timer);
+    }
+}
@@ -0,0 +1,112 @@
+package cn.king.batch;
+
+import cn.king.client.AsyncEsClient;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.unit.TimeValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/21 17:30
+ * @version: 1.0.0
+ * @description: 页面级收集范围的拆分、单项失败和重复执行
+ */
+public class SearchBatcherTest {
+
+    private AsyncEsClient client;
+
+    private SearchBatcher batcher;
+
+    private final List<MultiSearchRequest> sent = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        client = mock(AsyncEsClient.class);
+        // 索引名为 missing 的搜索失败，其余返回同一个响应
+        when(client.msearch(any(MultiSearchRequest.class))).thenAnswer(invocation -> {
+            MultiSearchRequest msearch = invocation.getArgument(0);
+            sent.add(msearch);
+            List<SearchRequest> requests = msearch.requests();
+            MultiSearchResponse.Item[] items = new MultiSearchResponse.Item[requests.size()];
+            for (int i = 0; i < items.length; i++) {
+                items[i] = "missing".equals(requests.get(i).indices()[0])
+                        ? new MultiSearchResponse.Item(null, new IllegalArgumentException("no such index"))
+                        : new MultiSearchResponse.Item(mock(SearchResponse.class), null);
+            }
+            return CompletableFuture.completedFuture(new MultiSearchResponse(items, 1));
+        });
+        BatchProperties properties = new BatchProperties();
+        properties.getSearch().setMaxSize(2);
+        batcher = new SearchBatcher(client, properties);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        batcher.close();
+    }
+
+    @Test
+    public void scopeSplitsByMaxSize() {
+        List<CompletableFuture<SearchResponse>> results = new ArrayList<>();
+        try (SearchBatcher.Scope scope = batcher.scope()) {
+            for (int i = 0; i < 3; i++) {
+                results.add(scope.search(new SearchRequest("product")));
+            }
+        }
+        assertEquals(2, sent.size());
+        assertEquals(2, sent.get(0).requests().size());
+        assertEquals(1, sent.get(1).requests().size());
+        results.forEach(result -> assertTrue(result.isDone()));
+    }
+
+    @Test
+    public void failureOnlyAffectsItsOwnSearch() {
+        SearchBatcher.Scope scope = batcher.scope();
+        CompletableFuture<SearchResponse> ok = scope.search(new SearchRequest("product"));
+        CompletableFuture<SearchResponse> failed = scope.search(new SearchRequest("missing"));
+        scope.execute().join();
+        ok.join();
+        assertThrows(CompletionException.class, failed::join);
+    }
+
+    @Test
+    public void executeOnlyOnce() {
+        SearchBatcher.Scope scope = batcher.scope();
+        scope.search(new SearchRequest("product"));
+        scope.execute().join();
+        assertThrows(IllegalStateException.class, scope::execute);
+        assertThrows(IllegalStateException.class, () -> scope.search(new SearchRequest("product")));
+        // execute 之后的 close 不再发送
+        scope.close();
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    public void scrollSearchBypassesScope() {
+        CompletableFuture<SearchResponse> direct = CompletableFuture.completedFuture(mock(SearchResponse.class));
+        SearchRequest scroll = new SearchRequest("product").scroll(TimeValue.timeValueMinutes(1));
+        when(client.search(scroll)).thenReturn(direct);
+        try (SearchBatcher.Scope scope = batcher.scope()) {
+            assertSame(direct, scope.search(scroll));
+        }
+        assertTrue(sent.isEmpty());
+    }
+}
@@ -0,0 +1,195 @@
+package cn.king.bulk;
+
+import cn.king.config.ESProperties;
+import cn.king.config.WireFormats;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/21 16:30
+ * @version: 1.0.0
+ * @description: 攒批、只重试可重试的条目、背压，以及分发线程遇到坏请求后继续运行。bulk 请求不发给 es，由测试决定响应
+ */
+public class BulkIngestionServiceTest {
+
+    /**
+     * 每次 bulk 的请求
+     */
+    private final List<BulkRequest> bulks = new CopyOnWriteArrayList<>();
+
+    /**
+     * 还没有响应的 bulk
+     */
+    private final List<ActionListener<BulkResponse>> waiting = new CopyOnWriteArrayList<>();
+
+    /**
+     * 按文档 id 指定第一次写入时的失败状态，没有指定的成功
+     */
+    private final Map<String, RestStatus> failOnce = new ConcurrentHashMap<>();
+
+    private volatile boolean respond = true;
+
+    private BulkIngestionService service;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    private BulkIngestionService start(BulkProperties properties) {
+        service = new BulkIngestionService(mock(RestHighLevelClient.class), properties, event -> {
+        }, new WireFormats(new ESProperties())) {
+            @Override
+            void bulkAsync(BulkRequest bulk, ActionListener<BulkResponse> listener) {
+                bulks.add(bulk);
+                if (respond) {
+                    listener.onResponse(respond(bulk));
+                } else {
+                    waiting.add(listener);
+                }
+            }
+        };
+        service.start();
+        return service;
+    }
+
+    private static BulkProperties properties(int actions) {
+        BulkProperties properties = new BulkProperties();
+        properties.setActions(actions);
+        properties.setFlushInterval(Duration.ofSeconds(10));
+        properties.setInitialBackoff(Duration.ofMillis(1));
+        properties.setMaxBackoff(Duration.ofMillis(10));
+        return properties;
+    }
+
+    private BulkResponse respond(BulkRequest bulk) {
+        List<DocWriteRequest<?>> requests = bulk.requests();
+        BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+        for (int i = 0; i < items.length; i++) {
+            DocWriteRequest<?> request = requests.get(i);
+            RestStatus status = failOnce.remove(request.id());
+            if (status == null) {
+                items[i] = new BulkItemResponse(i, request.opType(), new IndexResponse(new ShardId(request.index(), "_na_", 0),
+                        "_doc", request.id(), 1, 1, 1, true));
+            } else {
+                items[i] = new BulkItemResponse(i, request.opType(), new BulkItemResponse.Failure(request.index(), "_doc",
+                        request.id(), new ElasticsearchStatusException("失败", status)));
+            }
+        }
+        return new BulkResponse(items, 1);
+    }
+
+    private static IndexRequest doc(int id) {
+        return new IndexRequest("product").id(Integer.toString(id)).source("{\"price\":" + id + "}", XContentType.JSON);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待超时");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void batchByActions() throws InterruptedException {
+        BulkIngestionService service = start(properties(3));
+        for (int i = 0; i < 7; i++) {
+            service.add(doc(i));
+        }
+        assertTrue(service.awaitIdle(5, TimeUnit.SECONDS));
+        List<Integer> sizes = new ArrayList<>();
+        bulks.forEach(bulk -> sizes.add(bulk.numberOfActions()));
+        assertEquals(7, sizes.stream().mapToInt(Integer::intValue).sum());
+        sizes.forEach(size -> assertTrue(size <= 3));
+        assertEquals(7, service.getStats().getSucceeded());
+    }
+
+    @Test
+    public void retryOnlyRetryableItems() throws InterruptedException {
+        failOnce.put("1", RestStatus.TOO_MANY_REQUESTS);
+        failOnce.put("2", RestStatus.BAD_REQUEST);
+        BulkIngestionService service = start(properties(3));
+        for (int i = 0; i < 3; i++) {
+            service.add(doc(i));
+        }
+        assertTrue(service.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(2, bulks.size());
+        assertEquals(1, bulks.get(1).numberOfActions());
+        assertEquals("1", bulks.get(1).requests().get(0).id());
+        BulkStats stats = service.getStats();
+        assertEquals(2, stats.getSucceeded());
+        assertEquals(1, stats.getFailed());
+        assertEquals(1, stats.getRetried());
+        assertEquals(1, stats.getEsRejections());
+    }
+
+    @Test
+    public void backpressureWhenRequestsInFlight() throws InterruptedException {
+        respond = false;
+        BulkProperties properties = properties(1);
+        properties.setConcurrentRequests(1);
+        properties.setQueueCapacity(2);
+        BulkIngestionService service = start(properties);
+        service.add(doc(1));
+        await(() -> bulks.size() == 1);
+        // 第二条被分发线程取走后阻塞在在途名额上，后面两条占满队列
+        service.add(doc(2));
+        await(() -> service.queueSize() == 0);
+        service.add(doc(3));
+        service.add(doc(4));
+        assertFalse(service.offer(doc(5), 50, TimeUnit.MILLISECONDS));
+        assertEquals(1, service.getStats().getQueueRejections());
+        assertEquals(1, bulks.size());
+
+        respond = true;
+        ActionListener<BulkResponse> first = waiting.remove(0);
+        first.onResponse(respond(bulks.get(0)));
+        assertTrue(service.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(4, service.getStats().getSucceeded());
+    }
+
+    @Test
+    public void dispatcherSurvivesBadRequest() throws InterruptedException {
+        BulkIngestionService service = start(properties(10));
+        // BulkRequest 不支持的请求类型，加入批次时抛出 IllegalArgumentException
+        service.add(mock(DocWriteRequest.class));
+        service.add(doc(1));
+        assertTrue(service.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(1, service.getStats().getFailed());
+        assertEquals(1, service.getStats().getSucceeded());
+
+        service.add(doc(2));
+        assertTrue(service.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(2, service.getStats().getSucceeded());
+    }
+}
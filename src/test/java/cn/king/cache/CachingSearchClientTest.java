@@ -0,0 +1,87 @@
+package cn.king.cache;
+
+import cn.king.client.AsyncEsClient;
+import cn.king.client.DocumentWriteEvent;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 15:50
+ * @version: 1.0.0
+ * @description: 搜索缓存的命中和写入失效
+ */
+public class CachingSearchClientTest {
+
+    private AsyncEsClient client;
+
+    private SearchResponse response;
+
+    private CachingSearchClient cachingClient;
+
+    @BeforeEach
+    public void setUp() {
+        client = mock(AsyncEsClient.class);
+        response = mock(SearchResponse.class);
+        when(response.getHits()).thenReturn(SearchHits.empty());
+        when(response.getTook()).thenReturn(TimeValue.timeValueMillis(5));
+        when(client.search(any(SearchRequest.class))).thenAnswer(invocation -> CompletableFuture.completedFuture(response));
+        cachingClient = new CachingSearchClient(client, new SearchCacheProperties());
+    }
+
+    @Test
+    public void sameQueryHitsCache() {
+        assertSame(response, cachingClient.search(priceRange()).join());
+        assertSame(response, cachingClient.search(priceRange()).join());
+        verify(client, times(1)).search(any(SearchRequest.class));
+        assertEquals(1, cachingClient.stats().hitCount());
+        assertEquals(5, cachingClient.savedTookMillis());
+    }
+
+    @Test
+    public void writeInvalidatesIndex() {
+        cachingClient.search(priceRange()).join();
+        cachingClient.onWrite(new DocumentWriteEvent("product", "1", DocumentWriteEvent.Type.DELETE, null, null, 1, 1));
+        cachingClient.search(priceRange()).join();
+        verify(client, times(2)).search(any(SearchRequest.class));
+        assertEquals(1, cachingClient.invalidations());
+    }
+
+    @Test
+    public void writeToOtherIndexKeepsEntry() {
+        cachingClient.search(priceRange()).join();
+        cachingClient.onWrite(new DocumentWriteEvent("fruit", "1", DocumentWriteEvent.Type.DELETE, null, null, 1, 1));
+        cachingClient.search(priceRange()).join();
+        verify(client, times(1)).search(any(SearchRequest.class));
+    }
+
+    @Test
+    public void largePagesBypassCache() {
+        SearchRequest request = new SearchRequest("product")
+                .source(new SearchSourceBuilder().query(QueryBuilders.matchAllQuery()).size(1000));
+        cachingClient.search(request).join();
+        cachingClient.search(request).join();
+        verify(client, times(2)).search(any(SearchRequest.class));
+    }
+
+    private static SearchRequest priceRange() {
+        return new SearchRequest("product")
+                .source(new SearchSourceBuilder().query(QueryBuilders.rangeQuery("price").gte(0).lte(10)));
+    }
+}
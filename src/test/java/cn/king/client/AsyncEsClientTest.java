@@ -0,0 +1,123 @@
+package cn.king.client;
+
+import cn.king.config.ESProperties;
+import cn.king.config.WireFormats;
+import cn.king.resilience.Resilience;
+import cn.king.resilience.ResilienceProperties;
+import cn.king.slowlog.SlowQueryProperties;
+import cn.king.slowlog.SlowQueryRecorder;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/21 14:20
+ * @version: 1.0.0
+ * @description: 异步客户端的超时任务回收、取消和 ADMIN 并发上限。mock 的 RestHighLevelClient 没有底层连接，请求在调用线程上同步失败
+ */
+public class AsyncEsClientTest {
+
+    private AsyncEsClient client;
+
+    @BeforeEach
+    public void setUp() {
+        RestHighLevelClient restClient = mock(RestHighLevelClient.class);
+        SlowQueryProperties slowQuery = new SlowQueryProperties();
+        slowQuery.setEnabled(false);
+        ResilienceProperties resilience = new ResilienceProperties();
+        resilience.setEnabled(false);
+        client = new AsyncEsClient(restClient, new AsyncClientProperties(), event -> {
+        }, new Resilience(resilience), new SlowQueryRecorder(restClient, slowQuery),
+                new WireFormats(new ESProperties()));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void completedRequestsLeaveNoTimeoutTasks() {
+        for (int i = 0; i < 1000; i++) {
+            CompletableFuture<RefreshResponse> future = client.refresh(new RefreshRequest("product"));
+            assertTrue(future.isCompletedExceptionally());
+        }
+        assertEquals(0, client.pendingTimeouts());
+    }
+
+    @Test
+    public void adminOperationsUseAdminLimit() {
+        ConcurrencyLimiter admin = client.limiter(OperationType.ADMIN);
+        // 占满 ADMIN 的名额，读写不受影响
+        for (int i = 0; i < admin.maxInFlight(); i++) {
+            admin.submit(() -> {
+            });
+        }
+        CompletableFuture<RefreshResponse> future = client.refresh(new RefreshRequest("product"));
+        assertEquals(1, admin.queued());
+        assertEquals(0, client.limiter(OperationType.SEARCH).inFlight());
+        assertFalse(future.isDone());
+
+        admin.release();
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(0, admin.queued());
+    }
+
+    @Test
+    public void cancelMappedFutureCancelsRaw() {
+        CompletableFuture<String> raw = new CompletableFuture<>();
+        CompletableFuture<Integer> mapped = AsyncEsClient.map(raw, String::length);
+        mapped.cancel(false);
+        assertTrue(raw.isCancelled());
+
+        CompletableFuture<String> done = new CompletableFuture<>();
+        CompletableFuture<Integer> length = AsyncEsClient.map(done, String::length);
+        done.complete("es01");
+        assertEquals(4, length.join());
+    }
+
+    @Test
+    public void cancelWriteAbortsQueuedRequest() {
+        ConcurrencyLimiter write = client.limiter(OperationType.WRITE);
+        for (int i = 0; i < write.maxInFlight(); i++) {
+            write.submit(() -> {
+            });
+        }
+        CompletableFuture<IndexResponse> future = client.index(new IndexRequest("product").id("1")
+                .source("title", "小浣熊"));
+        assertEquals(1, client.pendingTimeouts());
+        // 原始请求被取消，超时任务随之移除，排到时不会再发出
+        future.cancel(false);
+        assertEquals(0, client.pendingTimeouts());
+    }
+
+    @Test
+    public void cancelMappedFanOutCancelsSearches() {
+        ConcurrencyLimiter search = client.limiter(OperationType.SEARCH);
+        for (int i = 0; i < search.maxInFlight(); i++) {
+            search.submit(() -> {
+            });
+        }
+        List<SearchRequest> requests = Arrays.asList(new SearchRequest("product"), new SearchRequest("fruit"));
+        CompletableFuture<List<Long>> result = client.fanOut(requests, response -> response.getTook().millis());
+        assertEquals(2, client.pendingTimeouts());
+        result.cancel(false);
+        assertEquals(0, client.pendingTimeouts());
+    }
+}
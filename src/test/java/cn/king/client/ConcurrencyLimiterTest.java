@@ -0,0 +1,54 @@
+package cn.king.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/21 14:00
+ * @version: 1.0.0
+ * @description: 并发限制的排队、拒绝和释放
+ */
+public class ConcurrencyLimiterTest {
+
+    @Test
+    public void queueAndReject() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(OperationType.SEARCH, 1, 1);
+        AtomicInteger ran = new AtomicInteger();
+        limiter.submit(ran::incrementAndGet);
+        limiter.submit(ran::incrementAndGet);
+        assertEquals(1, ran.get());
+        assertEquals(1, limiter.queued());
+        assertThrows(RequestRejectedException.class, () -> limiter.submit(ran::incrementAndGet));
+
+        limiter.release();
+        assertEquals(2, ran.get());
+        assertEquals(0, limiter.queued());
+        assertEquals(1, limiter.inFlight());
+    }
+
+    @Test
+    public void synchronousReleaseDoesNotRecurse() {
+        int tasks = 100_000;
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(OperationType.SEARCH, 1, tasks);
+        AtomicInteger ran = new AtomicInteger();
+        // 占住唯一的名额，后面的任务全部排队
+        limiter.submit(() -> {
+        });
+        for (int i = 0; i < tasks; i++) {
+            // 模拟请求在调用线程上同步失败，立即释放名额
+            limiter.submit(() -> {
+                ran.incrementAndGet();
+                limiter.release();
+            });
+        }
+        limiter.release();
+        assertEquals(tasks, ran.get());
+        assertEquals(0, limiter.queued());
+        assertEquals(0, limiter.inFlight());
+    }
+}
@@ -0,0 +1,60 @@
+package cn.king.export;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/21 11:00
+ * @version: 1.0.0
+ * @description: 导出检查点的读写和 slice 总数校验
+ */
+public class IndexExporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void checkpointKeepsConsumedHits() throws IOException {
+        Path file = dir.resolve("product-0.checkpoint");
+        // 处理了 10 条命中，其中 2 条没有 _source
+        new SliceCheckpoint(4, 10, 8, 1024, false).save(file);
+        SliceCheckpoint checkpoint = SliceCheckpoint.load(file);
+        assertEquals(4, checkpoint.getSlices());
+        assertEquals(10, checkpoint.getHits());
+        assertEquals(8, checkpoint.getDocs());
+        assertEquals(1024, checkpoint.getBytes());
+        assertFalse(checkpoint.isDone());
+        assertFalse(Files.exists(dir.resolve("product-0.checkpoint.tmp")));
+    }
+
+    @Test
+    public void missingCheckpointStartsFromScratch() throws IOException {
+        SliceCheckpoint checkpoint = SliceCheckpoint.load(dir.resolve("product-0.checkpoint"));
+        assertEquals(0, checkpoint.getHits());
+        assertEquals(0, checkpoint.getBytes());
+        assertFalse(checkpoint.isDone());
+    }
+
+    @Test
+    public void rejectDifferentSliceCount() throws IOException {
+        new SliceCheckpoint(4, 10, 10, 100, true).save(dir.resolve("product-0.checkpoint"));
+        new SliceCheckpoint(4, 10, 10, 100, false).save(dir.resolve("product-3.checkpoint"));
+        assertDoesNotThrow(() -> IndexExporter.checkSlices("product", dir, 4));
+        assertThrows(IllegalStateException.class, () -> IndexExporter.checkSlices("product", dir, 8));
+        assertThrows(IllegalStateException.class, () -> IndexExporter.checkSlices("product", dir, 2));
+        // 其他索引的检查点不影响
+        assertDoesNotThrow(() -> IndexExporter.checkSlices("order", dir, 2));
+        assertTrue(Files.exists(dir.resolve("product-0.checkpoint")));
+    }
+}
@@ -0,0 +1,48 @@
+package cn.king.mapping;
+
+import cn.king.entity.Product;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 17:35
+ * @version: 1.0.0
+ * @description: 池化序列化的往返和缓冲区复用
+ */
+public class DocumentSerializerTest {
+
+    private final DocumentSerializer serializer = new DocumentSerializer(new BytesPool(4, 16, 1024));
+
+    private final Product product = new Product("1", "小浣熊", 1.5, "2022-02-02", "小浣熊很好吃");
+
+    @Test
+    public void roundTripJson() {
+        PooledIndexRequest request = serializer.indexRequest("product", "1", product, ProductEncoder.INSTANCE);
+        assertEquals("{\"title\":\"小浣熊\",\"price\":1.5,\"create_time\":\"2022-02-02\",\"desc\":\"小浣熊很好吃\"}",
+                request.source().utf8ToString());
+        Product decoded = HitDecoder.decode("1", request.source(), ProductDecoder.INSTANCE);
+        assertEquals(product.toString(), decoded.toString());
+        request.release();
+    }
+
+    @Test
+    public void roundTripSmile() {
+        PooledBytes bytes = serializer.serialize(product, ProductEncoder.INSTANCE, XContentType.SMILE);
+        Product decoded = HitDecoder.decode("1", bytes.bytes(), ProductDecoder.INSTANCE);
+        assertEquals(product.toString(), decoded.toString());
+        bytes.release();
+    }
+
+    @Test
+    public void buffersAreReused() {
+        BytesPool pool = serializer.getPool();
+        for (int i = 0; i < 100; i++) {
+            serializer.serialize(product, ProductEncoder.INSTANCE, XContentType.JSON).release();
+        }
+        assertEquals(1, pool.allocations());
+        assertEquals(99, pool.reuses());
+    }
+}
@@ -0,0 +1,64 @@
+package cn.king.mapping;
+
+import cn.king.entity.Product;
+import com.fasterxml.jackson.core.JsonParser;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 16:45
+ * @version: 1.0.0
+ * @description: _source 直接解码为 Product
+ */
+public class HitDecoderTest {
+
+    private static final String SOURCE = "{\"title\":\"小浣熊\",\"price\":1.5,\"create_time\":\"2022-02-02\"," +
+            "\"desc\":\"小浣熊很好吃\",\"tags\":[\"a\",{\"b\":1}]}";
+
+    @Test
+    public void decodeSource() {
+        Product product = HitDecoder.decode("1", new BytesArray(SOURCE), ProductDecoder.INSTANCE);
+        assertEquals("1", product.getId());
+        assertEquals("小浣熊", product.getTitle());
+        assertEquals(1.5, product.getPrice());
+        assertEquals("2022-02-02", product.getCreateTime());
+        assertEquals("小浣熊很好吃", product.getDesc());
+    }
+
+    @Test
+    public void decodePartialSource() {
+        Product product = HitDecoder.decode("2", new BytesArray("{\"title\":\"大浣熊\",\"desc\":null}"),
+                ProductDecoder.INSTANCE);
+        assertEquals("大浣熊", product.getTitle());
+        assertEquals(0, product.getPrice());
+        assertNull(product.getDesc());
+    }
+
+    @Test
+    public void parseSearchResponse() throws Exception {
+        String response = "{\"took\":3,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1}," +
+                "\"hits\":{\"total\":{\"value\":2,\"relation\":\"eq\"},\"max_score\":null,\"hits\":[" +
+                "{\"_index\":\"product\",\"_type\":\"_doc\",\"_id\":\"1\",\"_score\":null,\"_source\":" + SOURCE + ",\"sort\":[1.5,7]}," +
+                "{\"_index\":\"product\",\"_type\":\"_doc\",\"_id\":\"2\",\"_score\":null,\"_source\":{\"price\":0.5},\"sort\":[0.5,9]}" +
+                "]},\"aggregations\":{\"price_avg\":{\"value\":1.0}}}";
+        try (JsonParser parser = SourceParsers.parser(XContentType.JSON,
+                new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)))) {
+            TypedSearchResponse<Product> result = HitDecoder.parseSearchResponse(parser, ProductDecoder.INSTANCE);
+            assertEquals(3, result.getTook());
+            assertEquals(2, result.getTotalHits());
+            assertEquals(2, result.getHits().size());
+            assertEquals("小浣熊", result.getHits().get(0).getTitle());
+            assertEquals("2", result.getHits().get(1).getId());
+            assertArrayEquals(new Object[]{0.5, 9L}, result.getLastSortValues());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package cn.king.mapping;
+
+import cn.king.entity.Product;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 18:30
+ * @version: 1.0.0
+ * @description: 按各个格式编码的 _source 能被 HitDecoder 原样解码回来。体积和 cpu 的对比见 benchmark 模块的 WireFormatBenchmark
+ */
+public class WireFormatRoundTripTest {
+
+    private final DocumentSerializer serializer = new DocumentSerializer(new BytesPool(4, 256, 64 * 1024));
+
+    @Test
+    public void json() throws IOException {
+        roundTrip(XContentType.JSON);
+    }
+
+    @Test
+    public void smile() throws IOException {
+        roundTrip(XContentType.SMILE);
+    }
+
+    @Test
+    public void cbor() throws IOException {
+        roundTrip(XContentType.CBOR);
+    }
+
+    private void roundTrip(XContentType type) throws IOException {
+        Product product = new Product("7", "小浣熊干脆面", 1.5, "2022-02-10", "香辣蟹味、烤肉味、鸡肉味可选");
+        PooledBytes encoded = serializer.serialize(product, ProductEncoder.INSTANCE, type);
+        try {
+            BytesReference source = encoded.bytes();
+            assertEquals(type, SourceParsers.detect(source));
+            Product decoded = HitDecoder.decode("7", source, ProductDecoder.INSTANCE);
+            assertEquals("7", decoded.getId());
+            assertEquals(product.getTitle(), decoded.getTitle());
+            assertEquals(product.getPrice(), decoded.getPrice());
+            assertEquals(product.getCreateTime(), decoded.getCreateTime());
+            assertEquals(product.getDesc(), decoded.getDesc());
+        } finally {
+            encoded.release();
+        }
+    }
+}
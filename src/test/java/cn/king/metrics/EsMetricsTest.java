@@ -0,0 +1,87 @@
+package cn.king.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 15:00
+ * @version: 1.0.0
+ * @description: 请求路径识别和 meter 缓存
+ */
+public class EsMetricsTest {
+
+    @Test
+    public void operationOf() {
+        assertEquals(EsOperation.SEARCH, EsOperation.of("POST", "/products/_search?typed_keys=true"));
+        assertEquals(EsOperation.SEARCH, EsOperation.of("POST", "/_search"));
+        assertEquals(EsOperation.SCROLL, EsOperation.of("POST", "/_search/scroll"));
+        assertEquals(EsOperation.MSEARCH, EsOperation.of("POST", "/_msearch"));
+        assertEquals(EsOperation.GET, EsOperation.of("GET", "/products/_doc/1"));
+        assertEquals(EsOperation.INDEX, EsOperation.of("PUT", "/products/_doc/1"));
+        assertEquals(EsOperation.INDEX, EsOperation.of("PUT", "/products/_create/1"));
+        assertEquals(EsOperation.DELETE, EsOperation.of("DELETE", "/products/_doc/1"));
+        assertEquals(EsOperation.UPDATE, EsOperation.of("POST", "/products/_update/1"));
+        assertEquals(EsOperation.BULK, EsOperation.of("POST", "/_bulk?timeout=1m"));
+        assertEquals(EsOperation.MGET, EsOperation.of("POST", "/products/_mget"));
+        assertEquals(EsOperation.COUNT, EsOperation.of("POST", "/products/_count"));
+        assertEquals(EsOperation.SEARCH, EsOperation.of("POST", "http://es01:9200/products/_search"));
+        assertEquals(EsOperation.OTHER, EsOperation.of("PUT", "/products"));
+        assertEquals(EsOperation.OTHER, EsOperation.of("GET", "/_cluster/health"));
+        assertEquals(EsOperation.OTHER, EsOperation.of("GET", "/"));
+    }
+
+    @Test
+    public void indexMetersAreCached() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EsMetrics metrics = new EsMetrics(registry, new MetricsProperties());
+        EsMetrics.IndexMeters first = metrics.meters("POST", "/products/_search");
+        assertEquals("products", first.index);
+        assertSame(first, metrics.meters("POST", "/products/_search?size=10"));
+        assertEquals(EsMetrics.ALL_INDICES, metrics.meters("POST", "/_bulk").index);
+    }
+
+    @Test
+    public void indexCardinalityIsCapped() {
+        MetricsProperties properties = new MetricsProperties();
+        properties.setMaxIndices(2);
+        EsMetrics metrics = new EsMetrics(new SimpleMeterRegistry(), properties);
+        metrics.meters("POST", "/logs-1/_search");
+        metrics.meters("POST", "/logs-2/_search");
+        assertEquals(EsMetrics.OTHER_INDICES, metrics.meters("POST", "/logs-3/_search").index);
+        assertEquals("logs-1", metrics.meters("POST", "/logs-1/_search").index);
+    }
+
+    @Test
+    public void recordsLatencyStatusAndBytes() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EsMetrics metrics = new EsMetrics(registry, new MetricsProperties());
+        HttpContext context = new BasicHttpContext();
+        BasicHttpEntityEnclosingRequest request = new BasicHttpEntityEnclosingRequest("POST", "/products/_search");
+        request.setEntity(new ByteArrayEntity(new byte[42]));
+        metrics.onRequest(request, context);
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 429, "Too Many Requests");
+        response.setEntity(new ByteArrayEntity(new byte[7]));
+        metrics.onResponse(response, context);
+
+        Timer timer = registry.find("es.client.requests").tags("operation", "search", "index", "products").timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+        assertEquals(1, registry.get("es.client.responses").tag("status", "429").counter().count());
+        assertEquals(42, registry.get("es.client.request.size").tags("operation", "search", "index", "products")
+                .summary().totalAmount());
+        assertEquals(7, registry.get("es.client.response.size").tags("operation", "search", "index", "products")
+                .summary().totalAmount());
+    }
+}
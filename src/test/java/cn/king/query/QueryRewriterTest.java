@@ -0,0 +1,155 @@
+package cn.king.query;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.ScriptSortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 22:55
+ * @version: 1.0.0
+ * @description: 查询改写规则
+ */
+public class QueryRewriterTest {
+
+    private QueryRewriter rewriter;
+
+    @BeforeEach
+    public void setUp() {
+        QueryRewriteProperties properties = new QueryRewriteProperties();
+        properties.getExactFields().add("title");
+        rewriter = new QueryRewriter(properties);
+    }
+
+    @Test
+    public void postFilterBecomesFilter() {
+        // test14 的写法
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(QueryBuilders.termQuery("desc", "浣熊"))
+                .postFilter(QueryBuilders.rangeQuery("price").gte(0).lte(1.5));
+        RewriteResult result = rewriter.rewrite(source);
+        assertTrue(result.isChanged());
+        assertNull(result.getRewritten().postFilter());
+        BoolQueryBuilder bool = (BoolQueryBuilder) result.getRewritten().query();
+        assertEquals(1, bool.must().size());
+        assertEquals(1, bool.filter().size());
+        // 原对象不变
+        assertNotNull(source.postFilter());
+        assertEquals("term", source.query().getName());
+    }
+
+    @Test
+    public void postFilterKeptWithAggregations() {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(QueryBuilders.matchQuery("desc", "好吃"))
+                .postFilter(QueryBuilders.rangeQuery("price").lte(1.5))
+                .aggregation(AggregationBuilders.terms("price_group").field("price"));
+        assertFalse(rewriter.rewrite(source).isChanged());
+    }
+
+    @Test
+    public void exactClausesMoveToFilter() {
+        SearchSourceBuilder source = new SearchSourceBuilder().query(QueryBuilders.boolQuery()
+                .must(QueryBuilders.matchQuery("desc", "好吃"))
+                .must(QueryBuilders.termQuery("title", "苹果"))
+                .must(QueryBuilders.termQuery("desc", "浣熊"))
+                .must(QueryBuilders.existsQuery("price")));
+        RewriteResult result = rewriter.rewrite(source);
+        BoolQueryBuilder bool = (BoolQueryBuilder) result.getRewritten().query();
+        assertEquals(2, bool.must().size());
+        assertEquals(2, bool.filter().size());
+        assertEquals(2, result.getChanges().size());
+    }
+
+    @Test
+    public void fieldSortSkipsScoring() {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(QueryBuilders.matchQuery("desc", "好吃"))
+                .sort("price", SortOrder.DESC);
+        BoolQueryBuilder bool = (BoolQueryBuilder) rewriter.rewrite(source).getRewritten().query();
+        assertTrue(bool.must().isEmpty());
+        assertEquals("match", bool.filter().get(0).getName());
+    }
+
+    @Test
+    public void shouldOnlyKeepsMinimumShouldMatch() {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(QueryBuilders.boolQuery()
+                        .should(QueryBuilders.matchQuery("desc", "好吃"))
+                        .should(QueryBuilders.matchQuery("desc", "浣熊")))
+                .postFilter(QueryBuilders.rangeQuery("price").lte(1.5));
+        BoolQueryBuilder bool = (BoolQueryBuilder) rewriter.rewrite(source).getRewritten().query();
+        assertEquals("1", bool.minimumShouldMatch());
+        assertEquals(1, bool.filter().size());
+    }
+
+    @Test
+    public void nestedShouldKeptWhenScoring() {
+        // 满足第一个分支的文档多一个常数分，移走会改变两个分支之间的排序
+        SearchSourceBuilder source = new SearchSourceBuilder().query(QueryBuilders.boolQuery()
+                .should(QueryBuilders.boolQuery()
+                        .must(QueryBuilders.matchQuery("desc", "好吃"))
+                        .must(QueryBuilders.rangeQuery("price").lte(1.5)))
+                .should(QueryBuilders.matchQuery("desc", "浣熊")));
+        assertFalse(rewriter.rewrite(source).isChanged());
+
+        // 不打分时照常改写
+        source.sort("price", SortOrder.ASC);
+        BoolQueryBuilder bool = (BoolQueryBuilder) rewriter.rewrite(source).getRewritten().query();
+        BoolQueryBuilder should = (BoolQueryBuilder) ((BoolQueryBuilder) bool.filter().get(0)).should().get(0);
+        assertEquals(1, should.must().size());
+        assertEquals(1, should.filter().size());
+    }
+
+    @Test
+    public void filterContextRewrittenWhenScoring() {
+        SearchSourceBuilder source = new SearchSourceBuilder().query(QueryBuilders.boolQuery()
+                .must(QueryBuilders.matchQuery("desc", "好吃"))
+                .filter(QueryBuilders.boolQuery()
+                        .should(QueryBuilders.boolQuery()
+                                .must(QueryBuilders.matchQuery("desc", "浣熊"))
+                                .must(QueryBuilders.existsQuery("price")))));
+        BoolQueryBuilder bool = (BoolQueryBuilder) rewriter.rewrite(source).getRewritten().query();
+        BoolQueryBuilder nested = (BoolQueryBuilder) ((BoolQueryBuilder) bool.filter().get(0)).should().get(0);
+        assertEquals(1, nested.filter().size());
+    }
+
+    @Test
+    public void minScoreKeepsMust() {
+        SearchSourceBuilder source = new SearchSourceBuilder().minScore(1.0f).query(QueryBuilders.boolQuery()
+                .must(QueryBuilders.matchQuery("desc", "好吃"))
+                .must(QueryBuilders.rangeQuery("price").lte(1.5)));
+        assertFalse(rewriter.rewrite(source).isChanged());
+    }
+
+    @Test
+    public void scriptSortNeedsScores() {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(QueryBuilders.matchQuery("desc", "好吃"))
+                .sort(SortBuilders.scriptSort(new Script("_score * doc['price'].value"),
+                        ScriptSortBuilder.ScriptSortType.NUMBER));
+        assertFalse(rewriter.rewrite(source).isChanged());
+    }
+
+    @Test
+    public void scoredQueryUnchanged() {
+        SearchSourceBuilder source = new SearchSourceBuilder().query(QueryBuilders.matchQuery("desc", "好吃"));
+        RewriteResult result = rewriter.rewrite(source);
+        assertFalse(result.isChanged());
+        assertSame(source, result.getRewritten());
+    }
+}
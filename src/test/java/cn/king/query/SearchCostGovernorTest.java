@@ -0,0 +1,86 @@
+package cn.king.query;
+
+import cn.king.mapping.ProductDecoder;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.SearchContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 23:35
+ * @version: 1.0.0
+ * @description: 按接口策略调整搜索请求
+ */
+public class SearchCostGovernorTest {
+
+    private SearchCostGovernor governor;
+
+    @BeforeEach
+    public void setUp() {
+        CostGovernorProperties properties = new CostGovernorProperties();
+        properties.getDefaults().setTrimSource(true);
+        properties.getDefaults().setRequestCacheForAggregations(true);
+        CostGovernorProperties.Policy list = new CostGovernorProperties.Policy();
+        list.setTrackTotalHitsUpTo(1000);
+        properties.getEndpoints().put("product-list", list);
+        CostGovernorProperties.Policy exists = new CostGovernorProperties.Policy();
+        exists.setExistenceCheck(true);
+        properties.getEndpoints().put("product-exists", exists);
+        governor = new SearchCostGovernor(properties);
+    }
+
+    @Test
+    public void listCapsTotalHitsAndTrimsSource() {
+        SearchSourceBuilder source = new SearchSourceBuilder().query(QueryBuilders.matchAllQuery());
+        SearchRequest governed = governor.govern("product-list", new SearchRequest("product").source(source),
+                ProductDecoder.INSTANCE);
+        assertEquals(1000, governed.source().trackTotalHitsUpTo());
+        assertArrayEquals(ProductDecoder.INSTANCE.fields(), governed.source().fetchSource().includes());
+        // 原请求不变
+        assertNull(source.fetchSource());
+    }
+
+    @Test
+    public void explicitTrackTotalHitsKept() {
+        SearchSourceBuilder source = new SearchSourceBuilder().query(QueryBuilders.matchAllQuery()).trackTotalHits(true);
+        SearchRequest governed = governor.govern("product-list", new SearchRequest("product").source(source));
+        assertEquals(SearchContext.TRACK_TOTAL_HITS_ACCURATE, governed.source().trackTotalHitsUpTo());
+        assertEquals(0, governor.totalHitsCapped());
+    }
+
+    @Test
+    public void capAboveDefaultDoesNotRaise() {
+        CostGovernorProperties properties = new CostGovernorProperties();
+        properties.getDefaults().setTrackTotalHitsUpTo(50_000);
+        SearchCostGovernor governor = new SearchCostGovernor(properties);
+        SearchRequest governed = governor.govern("product-list", new SearchRequest("product")
+                .source(new SearchSourceBuilder().query(QueryBuilders.matchAllQuery())));
+        assertNull(governed.source().trackTotalHitsUpTo());
+    }
+
+    @Test
+    public void aggregationOnlyUsesRequestCache() {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .aggregation(AggregationBuilders.avg("price_avg").field("price"))
+                .size(0);
+        SearchRequest governed = governor.govern("fruit-dashboard", new SearchRequest("fruit").source(source));
+        assertTrue(governed.requestCache());
+    }
+
+    @Test
+    public void existenceCheckTerminatesEarly() {
+        SearchSourceBuilder source = new SearchSourceBuilder().query(QueryBuilders.termQuery("title", "苹果"));
+        SearchRequest governed = governor.govern("product-exists", new SearchRequest("product").source(source));
+        assertEquals(0, governed.source().size());
+        assertEquals(1, governed.source().terminateAfter());
+    }
+}
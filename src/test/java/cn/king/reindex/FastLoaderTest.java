@@ -0,0 +1,49 @@
+package cn.king.reindex;
+
+import org.elasticsearch.common.settings.Settings;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/21 10:00
+ * @version: 1.0.0
+ * @description: 重建时复制旧索引的 settings，以及别名切换前的检查
+ */
+public class FastLoaderTest {
+
+    @Test
+    public void copySettingsWithoutGeneratedKeys() {
+        Settings settings = Settings.builder()
+                .put("index.number_of_shards", 3)
+                .put("index.number_of_replicas", 2)
+                .put("index.analysis.analyzer.ik.tokenizer", "ik_max_word")
+                .put("index.uuid", "abc")
+                .put("index.creation_date", 1L)
+                .put("index.provided_name", "product")
+                .put("index.version.created", 7120199)
+                .put("index.blocks.write", true)
+                .build();
+        Settings copied = FastLoader.copyableSettings(settings);
+        assertEquals(3, copied.getAsInt("index.number_of_shards", 0));
+        assertEquals(2, copied.getAsInt("index.number_of_replicas", 0));
+        assertEquals("ik_max_word", copied.get("index.analysis.analyzer.ik.tokenizer"));
+        assertNull(copied.get("index.uuid"));
+        assertNull(copied.get("index.creation_date"));
+        assertNull(copied.get("index.provided_name"));
+        assertNull(copied.get("index.version.created"));
+        assertNull(copied.get("index.blocks.write"));
+        assertEquals(Settings.EMPTY, FastLoader.copyableSettings(null));
+    }
+
+    @Test
+    public void refuseToDropConcreteIndexUnlessDeleteOld() {
+        assertThrows(IllegalStateException.class, () -> FastLoader.checkSwappable("product", true, false));
+        assertDoesNotThrow(() -> FastLoader.checkSwappable("product", true, true));
+        assertDoesNotThrow(() -> FastLoader.checkSwappable("product", false, false));
+    }
+}
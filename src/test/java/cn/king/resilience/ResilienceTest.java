@@ -0,0 +1,117 @@
+package cn.king.resilience;
+
+import cn.king.client.RequestRejectedException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 12:10
+ * @version: 1.0.0
+ * @description: 熔断器、令牌桶、自适应并发上限
+ */
+public class ResilienceTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    @Test
+    public void breakerOpensAndRecovers() {
+        ResilienceProperties.Breaker properties = new ResilienceProperties.Breaker();
+        properties.setMinimumCalls(4);
+        properties.setWindowSize(10);
+        properties.setHalfOpenCalls(2);
+        properties.setOpenDuration(Duration.ofSeconds(5));
+        CircuitBreaker breaker = new CircuitBreaker(properties, now::get);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        // 半开状态只放行 halfOpenCalls 个试探请求
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    public void halfOpenFailureReopens() {
+        ResilienceProperties.Breaker properties = new ResilienceProperties.Breaker();
+        properties.setMinimumCalls(1);
+        CircuitBreaker breaker = new CircuitBreaker(properties, now::get);
+        breaker.tryAcquire();
+        breaker.onFailure();
+        now.addAndGet(properties.getOpenDuration().toNanos());
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    public void tokenBucketRefills() {
+        TokenBucket bucket = new TokenBucket(10, 2, now::get);
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    public void limiterShrinksWhenLatencyGrows() {
+        ResilienceProperties.Adaptive properties = new ResilienceProperties.Adaptive();
+        properties.setInitialLimit(10);
+        AdaptiveLimiter limiter = new AdaptiveLimiter(properties, now::get);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        limiter.onSuccess(TimeUnit.MILLISECONDS.toNanos(5));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        limiter.onSuccess(TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(9, limiter.limit());
+    }
+
+    @Test
+    public void classify() {
+        assertEquals(OperationGuard.Outcome.OVERLOAD, Resilience.classify(new CompletionException(
+                new ElasticsearchStatusException("rejected", RestStatus.TOO_MANY_REQUESTS))));
+        assertEquals(OperationGuard.Outcome.SUCCESS, Resilience.classify(
+                new ElasticsearchStatusException("bad query", RestStatus.BAD_REQUEST)));
+        assertEquals(OperationGuard.Outcome.OVERLOAD, Resilience.classify(new TimeoutException()));
+        assertEquals(OperationGuard.Outcome.IGNORED, Resilience.classify(new CancellationException()));
+    }
+
+    @Test
+    public void guardRejectsWhenOpen() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.getBreaker().setMinimumCalls(1);
+        OperationGuard guard = new Resilience(properties).guard(cn.king.client.OperationType.SEARCH);
+        guard.acquire().complete(OperationGuard.Outcome.OVERLOAD);
+        try {
+            guard.acquire();
+        } catch (RequestRejectedException e) {
+            assertEquals(1, guard.getBreakerRejections());
+            return;
+        }
+        throw new AssertionError("熔断后应当拒绝");
+    }
+}
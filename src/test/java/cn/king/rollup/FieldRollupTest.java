@@ -0,0 +1,118 @@
+package cn.king.rollup;
+
+import cn.king.client.DocumentWriteEvent;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 21:30
+ * @version: 1.0.0
+ * @description: 增量聚合在 index/update/delete 下的差量计算
+ */
+public class FieldRollupTest {
+
+    private FieldRollup rollup;
+
+    private long seqNo;
+
+    @BeforeEach
+    public void setUp() {
+        rollup = new FieldRollup("fruit", "price", RollupProperties.NumberType.DOUBLE);
+        rollup.beginRebuild();
+        rollup.finishRebuild(new FieldRollup.State());
+    }
+
+    @Test
+    public void indexUpdateDelete() {
+        write(DocumentWriteEvent.Type.INDEX, "1", "{\"title\":\"苹果\",\"price\":1.5}");
+        write(DocumentWriteEvent.Type.INDEX, "2", "{\"title\":\"香蕉\",\"price\":1.5}");
+        write(DocumentWriteEvent.Type.INDEX, "3", "{\"title\":\"西瓜\",\"price\":5}");
+        assertStats(3, 8, 1.5, 5);
+
+        // 不涉及 price 的局部更新不影响聚合
+        write(DocumentWriteEvent.Type.UPDATE, "3", "{\"title\":\"大西瓜\"}");
+        write(DocumentWriteEvent.Type.UPDATE, "3", "{\"price\":\"6\"}");
+        assertStats(3, 9, 1.5, 6);
+
+        rollup.apply(rollup.delta(new DocumentWriteEvent("fruit", "1", DocumentWriteEvent.Type.DELETE,
+                null, null, ++seqNo, 1)));
+        assertStats(2, 7.5, 1.5, 6);
+
+        List<RollupBucket> terms = rollup.terms(10);
+        assertEquals(2, terms.size());
+        assertEquals(1.5, terms.get(0).getKey());
+        assertEquals(1, terms.get(0).getDocCount());
+    }
+
+    @Test
+    public void termsOrderedByCountThenKey() {
+        write(DocumentWriteEvent.Type.INDEX, "1", "{\"price\":3}");
+        write(DocumentWriteEvent.Type.INDEX, "2", "{\"price\":2}");
+        write(DocumentWriteEvent.Type.INDEX, "3", "{\"price\":3}");
+        write(DocumentWriteEvent.Type.INDEX, "4", "{\"price\":1}");
+        List<RollupBucket> terms = rollup.terms(2);
+        assertEquals(3.0, terms.get(0).getKey());
+        assertEquals(2, terms.get(0).getDocCount());
+        assertEquals(1.0, terms.get(1).getKey());
+    }
+
+    @Test
+    public void staleEventIsIgnored() {
+        rollup.apply(rollup.delta(event(DocumentWriteEvent.Type.INDEX, "1", "{\"price\":2}", 5)));
+        rollup.apply(rollup.delta(event(DocumentWriteEvent.Type.INDEX, "1", "{\"price\":1}", 4)));
+        assertStats(1, 2, 2, 2);
+    }
+
+    @Test
+    public void staleIndexAfterDeleteIsIgnored() {
+        rollup.apply(rollup.delta(event(DocumentWriteEvent.Type.INDEX, "1", "{\"price\":2}", 3)));
+        rollup.apply(rollup.delta(new DocumentWriteEvent("fruit", "1", DocumentWriteEvent.Type.DELETE,
+                null, null, 5, 1)));
+        // 删除之前的写入晚到，不能把文档加回来
+        rollup.apply(rollup.delta(event(DocumentWriteEvent.Type.INDEX, "1", "{\"price\":1}", 4)));
+        assertStats(0, 0, Double.NaN, Double.NaN);
+        assertEquals(0, rollup.documents());
+
+        // 删除之后的写入照常生效，墓碑在重建后清空
+        rollup.apply(rollup.delta(event(DocumentWriteEvent.Type.INDEX, "1", "{\"price\":3}", 6)));
+        assertStats(1, 3, 3, 3);
+        rollup.beginRebuild();
+        rollup.finishRebuild(new FieldRollup.State());
+        rollup.apply(rollup.delta(event(DocumentWriteEvent.Type.INDEX, "2", "{\"price\":1}", 1)));
+        assertStats(1, 1, 1, 1);
+    }
+
+    @Test
+    public void scriptUpdateMarksDirty() {
+        rollup.apply(rollup.delta(new DocumentWriteEvent("fruit", "1", DocumentWriteEvent.Type.UPDATE,
+                null, null, 1, 1)));
+        assertTrue(rollup.isDirty());
+    }
+
+    private void write(DocumentWriteEvent.Type type, String id, String json) {
+        FieldRollup.Delta delta = rollup.delta(event(type, id, json, ++seqNo));
+        if (delta != null) {
+            rollup.apply(delta);
+        }
+    }
+
+    private static DocumentWriteEvent event(DocumentWriteEvent.Type type, String id, String json, long seqNo) {
+        return new DocumentWriteEvent("fruit", id, type, new BytesArray(json), XContentType.JSON, seqNo, 1);
+    }
+
+    private void assertStats(long count, double sum, double min, double max) {
+        RollupStats stats = rollup.stats();
+        assertEquals(count, stats.getCount());
+        assertEquals(sum, stats.getSum(), 1e-9);
+        assertEquals(min, stats.getMin());
+        assertEquals(max, stats.getMax());
+    }
+}
@@ -0,0 +1,154 @@
+package cn.king.routing;
+
+import cn.king.client.AsyncEsClient;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/22 10:30
+ * @version: 1.0.0
+ * @description: 对冲请求。AsyncEsClient 用 mock，按请求发出时固定的节点返回各自的 future，由测试控制完成顺序
+ */
+public class HedgingClientTest {
+
+    private final HttpHost fast = new HttpHost("es01", 9200);
+
+    private final HttpHost slow = new HttpHost("es02", 9200);
+
+    private RestHighLevelClient restClient;
+
+    private HedgingClient hedging;
+
+    /**
+     * 每个节点收到的请求对应的 future
+     */
+    private final Map<HttpHost, CompletableFuture<SearchResponse>> attempts = new ConcurrentHashMap<>();
+
+    /**
+     * 请求发出的节点，按发出顺序
+     */
+    private final List<HttpHost> pins = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        restClient = new RestHighLevelClient(RestClient.builder(fast, slow));
+        PoolingNHttpClientConnectionManager connectionManager = mock(PoolingNHttpClientConnectionManager.class);
+        when(connectionManager.getStats(any(HttpRoute.class))).thenReturn(new PoolStats(0, 0, 0, 100));
+        RoutingProperties properties = new RoutingProperties();
+        properties.getHedge().setEnabled(true);
+        properties.getHedge().setMaxDelay(Duration.ofMillis(20));
+        NodeLatencyTracker tracker = new NodeLatencyTracker(connectionManager, properties);
+        tracker.record(fast, TimeUnit.MILLISECONDS.toNanos(5), false);
+        tracker.record(slow, TimeUnit.MILLISECONDS.toNanos(50), false);
+        AsyncEsClient client = mock(AsyncEsClient.class);
+        when(client.search(any(SearchRequest.class))).thenAnswer(invocation -> {
+            HttpHost host = NodePin.current();
+            pins.add(host);
+            return attempts.computeIfAbsent(host, h -> new CompletableFuture<>());
+        });
+        hedging = new HedgingClient(client, restClient, tracker, properties);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        hedging.close();
+        restClient.close();
+    }
+
+    @Test
+    public void fastResponseDoesNotHedge() throws Exception {
+        SearchResponse response = mock(SearchResponse.class);
+        attempts.put(fast, CompletableFuture.completedFuture(response));
+        assertSame(response, hedging.search(new SearchRequest("product")).get(1, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(Arrays.asList(fast), pins);
+        assertEquals(0, hedging.hedges());
+        assertEquals(1, hedging.requests());
+    }
+
+    @Test
+    public void hedgeFiresAndFirstResponseWins() throws Exception {
+        SearchResponse response = mock(SearchResponse.class);
+        // 主请求一直不返回，对冲请求立即返回
+        attempts.put(slow, CompletableFuture.completedFuture(response));
+        CompletableFuture<SearchResponse> result = hedging.search(new SearchRequest("product"));
+        assertSame(response, result.get(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(fast, slow), pins);
+        assertEquals(1, hedging.hedges());
+        assertEquals(1, hedging.hedgeWins());
+        // 输掉的请求被取消，AsyncEsClient 据此中断 http 请求
+        assertTrue(attempts.get(fast).isCancelled());
+    }
+
+    @Test
+    public void primaryWinsAfterHedgeFired() throws Exception {
+        CompletableFuture<SearchResponse> result = hedging.search(new SearchRequest("product"));
+        while (pins.size() < 2) {
+            Thread.sleep(5);
+        }
+        SearchResponse response = mock(SearchResponse.class);
+        attempts.get(fast).complete(response);
+        assertSame(response, result.get(1, TimeUnit.SECONDS));
+        assertTrue(attempts.get(slow).isCancelled());
+        assertEquals(1, hedging.hedges());
+        assertEquals(0, hedging.hedgeWins());
+    }
+
+    @Test
+    public void failsOnlyWhenBothAttemptsFail() throws Exception {
+        CompletableFuture<SearchResponse> result = hedging.search(new SearchRequest("product"));
+        // 主请求失败后立即对冲，不等对冲延迟
+        attempts.get(fast).completeExceptionally(new IOException("es01 断开"));
+        assertEquals(Arrays.asList(fast, slow), pins);
+        assertFalse(result.isDone());
+
+        attempts.get(slow).completeExceptionally(new IOException("es02 断开"));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IOException);
+        assertEquals(1, hedging.hedges());
+        assertEquals(0, hedging.hedgeWins());
+    }
+
+    @Test
+    public void pinnedSelectorKeepsOnlyPinnedNode() {
+        List<Node> nodes = new ArrayList<>(Arrays.asList(new Node(fast), new Node(slow)));
+        NodePin.run(slow, () -> NodePin.selector(all -> {
+            throw new AssertionError("固定节点时不应该调用原来的 selector");
+        }).select(nodes));
+        assertEquals(1, nodes.size());
+        assertEquals(slow, nodes.get(0).getHost());
+        assertEquals(null, NodePin.current());
+    }
+}
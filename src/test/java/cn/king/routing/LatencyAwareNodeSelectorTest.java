@@ -0,0 +1,81 @@
+package cn.king.routing;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.elasticsearch.client.Node;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 10:50
+ * @version: 1.0.0
+ * @description: 按延迟过滤节点
+ */
+public class LatencyAwareNodeSelectorTest {
+
+    private final HttpHost fast = new HttpHost("es01", 9200);
+
+    private final HttpHost slow = new HttpHost("es02", 9200);
+
+    private final HttpHost fresh = new HttpHost("es03", 9200);
+
+    private NodeLatencyTracker tracker;
+
+    private LatencyAwareNodeSelector selector;
+
+    @BeforeEach
+    public void setUp() {
+        PoolingNHttpClientConnectionManager connectionManager = mock(PoolingNHttpClientConnectionManager.class);
+        when(connectionManager.getStats(any(HttpRoute.class))).thenReturn(new PoolStats(0, 0, 0, 100));
+        RoutingProperties properties = new RoutingProperties();
+        tracker = new NodeLatencyTracker(connectionManager, properties);
+        selector = new LatencyAwareNodeSelector(tracker, properties);
+    }
+
+    @Test
+    public void slowNodeIsExcluded() {
+        tracker.record(fast, TimeUnit.MILLISECONDS.toNanos(5), false);
+        tracker.record(slow, TimeUnit.MILLISECONDS.toNanos(200), false);
+        List<Node> nodes = nodes(fast, slow, fresh);
+        selector.select(nodes);
+        // 没有样本的节点保留，等待被测量
+        assertEquals(Arrays.asList(fast, fresh), hosts(nodes));
+        assertEquals(Arrays.asList(fresh, fast, slow), tracker.rank(nodes(fast, slow, fresh)));
+    }
+
+    @Test
+    public void comparableNodesAreAllKept() {
+        tracker.record(fast, TimeUnit.MILLISECONDS.toNanos(10), false);
+        tracker.record(slow, TimeUnit.MILLISECONDS.toNanos(12), false);
+        List<Node> nodes = nodes(fast, slow);
+        selector.select(nodes);
+        assertEquals(2, nodes.size());
+    }
+
+    private static List<Node> nodes(HttpHost... hosts) {
+        List<Node> nodes = new ArrayList<>();
+        for (HttpHost host : hosts) {
+            nodes.add(new Node(host));
+        }
+        return nodes;
+    }
+
+    private static List<HttpHost> hosts(List<Node> nodes) {
+        List<HttpHost> hosts = new ArrayList<>();
+        nodes.forEach(node -> hosts.add(node.getHost()));
+        return hosts;
+    }
+}
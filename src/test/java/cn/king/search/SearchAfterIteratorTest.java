@@ -0,0 +1,117 @@
+package cn.king.search;
+
+import cn.king.client.AsyncEsClient;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/21 15:30
+ * @version: 1.0.0
+ * @description: pit + search_after 的翻页、结束和 pit 释放
+ */
+public class SearchAfterIteratorTest {
+
+    private AsyncEsClient client;
+
+    private RestClient lowLevelClient;
+
+    private final List<SearchRequest> requests = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        client = mock(AsyncEsClient.class);
+        lowLevelClient = mock(RestClient.class);
+    }
+
+    private void respond(SearchHit[]... pages) {
+        List<CompletableFuture<SearchResponse>> responses = new ArrayList<>();
+        for (SearchHit[] page : pages) {
+            SearchResponse response = mock(SearchResponse.class);
+            when(response.getHits()).thenReturn(new SearchHits(page, new TotalHits(page.length, TotalHits.Relation.EQUAL_TO), 1.0f));
+            responses.add(CompletableFuture.completedFuture(response));
+        }
+        when(client.search(any(SearchRequest.class))).thenAnswer(invocation -> {
+            requests.add(invocation.getArgument(0));
+            return responses.get(requests.size() - 1);
+        });
+    }
+
+    private static SearchHit hit(int id) {
+        SearchHit hit = new SearchHit(id, Integer.toString(id), new Text("_doc"), Collections.emptyMap(), Collections.emptyMap());
+        hit.sortValues(new Object[]{id}, new DocValueFormat[]{DocValueFormat.RAW});
+        return hit;
+    }
+
+    private SearchAfterIterator iterator(int pageSize) {
+        return new SearchAfterIterator(client, lowLevelClient, "pit-1", TimeValue.timeValueMinutes(1),
+                new SearchSourceBuilder().size(pageSize));
+    }
+
+    @Test
+    public void pageUntilShortPage() throws IOException {
+        respond(new SearchHit[]{hit(1), hit(2)}, new SearchHit[]{hit(3)});
+        SearchAfterIterator iterator = iterator(2);
+        List<String> ids = new ArrayList<>();
+        iterator.forEachRemaining(hit -> ids.add(hit.getId()));
+        assertEquals(3, ids.size());
+        assertEquals(2, requests.size());
+        assertArrayEquals(new Object[]{2}, requests.get(1).source().searchAfter());
+        verifyPitClosed();
+    }
+
+    @Test
+    public void emptyPageEndsIteration() throws IOException {
+        // 上一页刚好满页，下一页为空
+        respond(new SearchHit[]{hit(1), hit(2)}, new SearchHit[0]);
+        SearchAfterIterator iterator = iterator(2);
+        iterator.next();
+        iterator.next();
+        assertFalse(iterator.hasNext());
+        assertFalse(iterator.hasNext());
+        assertEquals(2, requests.size());
+        verifyPitClosed();
+    }
+
+    @Test
+    public void rejectNonPositivePageSize() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> iterator(0));
+        verify(client, never()).search(any(SearchRequest.class));
+    }
+
+    private void verifyPitClosed() throws IOException {
+        ArgumentCaptor<Request> captor = ArgumentCaptor.forClass(Request.class);
+        verify(lowLevelClient, times(1)).performRequest(captor.capture());
+        assertEquals("DELETE", captor.getValue().getMethod());
+        assertEquals("/_pit", captor.getValue().getEndpoint());
+    }
+}
@@ -0,0 +1,166 @@
+package cn.king.session;
+
+import cn.king.client.AsyncEsClient;
+import cn.king.client.DocumentWriteEvent;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchResponseSections;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.action.update.UpdateResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 15:00
+ * @version: 1.0.0
+ * @description: 会话写入对搜索结果的修正
+ */
+public class PendingWritesTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final OverlayCounters counters = new OverlayCounters();
+
+    private final PendingWrites writes = new PendingWrites(3, TimeUnit.SECONDS.toNanos(10), clock::get, counters);
+
+    private static SearchHit hit(String id, long seqNo, String source) {
+        SearchHit hit = new SearchHit(0, id, new Text("_doc"), Collections.emptyMap(), Collections.emptyMap());
+        hit.sourceRef(new BytesArray(source));
+        hit.setSeqNo(seqNo);
+        hit.setPrimaryTerm(1);
+        hit.shard(new SearchShardTarget("node", new ShardId("product", "_na_", 0), null, OriginalIndices.NONE));
+        return hit;
+    }
+
+    private static SearchResponse response(SearchHit... hits) {
+        SearchHits searchHits = new SearchHits(hits, new TotalHits(hits.length, TotalHits.Relation.EQUAL_TO), 1.0f);
+        SearchResponseSections sections = new SearchResponseSections(searchHits, null, null, false, null, null, 1);
+        return new SearchResponse(sections, null, 1, 1, 0, 3, ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+    }
+
+    private static DocumentWriteEvent event(String id, DocumentWriteEvent.Type type, String source, long seqNo) {
+        return new DocumentWriteEvent("product", id, type, source == null ? null : new BytesArray(source),
+                source == null ? null : XContentType.JSON, seqNo, 1);
+    }
+
+    @Test
+    public void patchUpdatedHit() {
+        writes.record(event("1", DocumentWriteEvent.Type.UPDATE, "{\"price\":2.5}", 5));
+        SearchResponse response = writes.apply(new SearchRequest("product"),
+                response(hit("1", 3, "{\"title\":\"小浣熊\",\"price\":1.0}"), hit("2", 4, "{\"title\":\"大浣熊\"}")));
+        Map<String, Object> source = response.getHits().getHits()[0].getSourceAsMap();
+        assertEquals("小浣熊", source.get("title"));
+        assertEquals(2.5, source.get("price"));
+        assertEquals("大浣熊", response.getHits().getHits()[1].getSourceAsMap().get("title"));
+        assertEquals(1, counters.patched.sum());
+        assertEquals(1, writes.size());
+    }
+
+    @Test
+    public void dropDeletedHit() {
+        writes.record(event("1", DocumentWriteEvent.Type.DELETE, null, 5));
+        SearchResponse response = writes.apply(new SearchRequest("product"),
+                response(hit("1", 3, "{}"), hit("2", 4, "{}")));
+        assertEquals(1, response.getHits().getHits().length);
+        assertEquals("2", response.getHits().getHits()[0].getId());
+        assertEquals(1, response.getHits().getTotalHits().value);
+    }
+
+    @Test
+    public void retireRefreshedWrite() {
+        writes.record(event("1", DocumentWriteEvent.Type.UPDATE, "{\"price\":2.5}", 5));
+        SearchResponse original = response(hit("1", 5, "{\"price\":2.5,\"title\":\"小浣熊\"}"));
+        SearchResponse response = writes.apply(new SearchRequest("product"), original);
+        assertSame(original, response);
+        assertEquals(0, counters.patched.sum());
+        assertEquals(1, counters.retired.sum());
+        assertTrue(writes.isEmpty());
+    }
+
+    @Test
+    public void expireAfterTtl() {
+        writes.record(event("1", DocumentWriteEvent.Type.DELETE, null, 5));
+        assertFalse(writes.isEmpty());
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(writes.isEmpty());
+        assertEquals(1, counters.expired.sum());
+    }
+
+    @Test
+    public void mergeWritesAndFilterSource() {
+        writes.record(event("1", DocumentWriteEvent.Type.INDEX, "{\"title\":\"小浣熊\",\"price\":1.0,\"desc\":\"好吃\"}", 5));
+        writes.record(event("1", DocumentWriteEvent.Type.UPDATE, "{\"price\":2.5}", 6));
+        // 响应乱序到达，旧的写入不能覆盖新的
+        writes.record(event("1", DocumentWriteEvent.Type.UPDATE, "{\"price\":0.5}", 4));
+        SearchRequest request = new SearchRequest("product")
+                .source(new SearchSourceBuilder().fetchSource(new String[]{"title", "price"}, null));
+        SearchResponse response = writes.apply(request, response(hit("1", 3, "{\"title\":\"旧\",\"price\":0.1}")));
+        Map<String, Object> source = response.getHits().getHits()[0].getSourceAsMap();
+        assertEquals("小浣熊", source.get("title"));
+        assertEquals(2.5, source.get("price"));
+        assertFalse(source.containsKey("desc"));
+    }
+
+    @Test
+    public void evictOldest() {
+        for (int i = 0; i < 5; i++) {
+            writes.record(event(Integer.toString(i), DocumentWriteEvent.Type.DELETE, null, i + 1));
+        }
+        assertEquals(3, writes.size());
+        assertEquals(2, counters.evicted.sum());
+        SearchResponse response = writes.apply(new SearchRequest("product"), response(hit("0", 0, "{}"), hit("4", 0, "{}")));
+        assertEquals(1, response.getHits().getHits().length);
+        assertEquals("0", response.getHits().getHits()[0].getId());
+    }
+
+    @Test
+    public void getDoesNotRetireWrite() {
+        AsyncEsClient client = mock(AsyncEsClient.class);
+        when(client.update(any(UpdateRequest.class))).thenReturn(CompletableFuture.completedFuture(
+                new UpdateResponse(new ShardId("product", "_na_", 0), "_doc", "1", 5, 1, 2, DocWriteResponse.Result.UPDATED)));
+        // 实时 get 读到了这次写入
+        when(client.get(any(GetRequest.class))).thenReturn(CompletableFuture.completedFuture(new GetResponse(
+                new GetResult("product", "_doc", "1", 5, 1, 2, true, new BytesArray("{\"title\":\"小浣熊\",\"price\":2.5}"),
+                        Collections.emptyMap(), Collections.emptyMap()))));
+        // 搜索还没有 refresh
+        when(client.search(any(SearchRequest.class))).thenReturn(CompletableFuture.completedFuture(
+                response(hit("1", 3, "{\"title\":\"小浣熊\",\"price\":1.0}"))));
+        ReadYourWritesSession session = new ReadYourWritesSession("s1", client, writes);
+
+        session.update(new UpdateRequest("product", "1").doc("{\"price\":2.5}", XContentType.JSON)).join();
+        assertEquals(2.5, session.get(new GetRequest("product", "1")).join().getSourceAsMap().get("price"));
+        assertEquals(1, session.pending());
+        SearchResponse response = session.search(new SearchRequest("product")).join();
+        assertEquals(2.5, response.getHits().getHits()[0].getSourceAsMap().get("price"));
+        assertEquals(0, counters.retired.sum());
+    }
+}
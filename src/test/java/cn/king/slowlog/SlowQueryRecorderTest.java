@@ -0,0 +1,95 @@
+package cn.king.slowlog;
+
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/19 17:00
+ * @version: 1.0.0
+ * @description: 慢查询阈值、环形缓冲区和 ndjson 文件。profile 重跑需要真实集群，这里把抽样比例设为 0
+ */
+public class SlowQueryRecorderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void capturesOnlySlowQueries() throws Exception {
+        RestHighLevelClient client = mock(RestHighLevelClient.class);
+        SlowQueryRecorder recorder = new SlowQueryRecorder(client, properties(3));
+        SearchRequest request = new SearchRequest("products")
+                .source(new SearchSourceBuilder().query(QueryBuilders.termQuery("brand", "king")));
+
+        recorder.onSearch(request, response(), TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(0, recorder.getCaptured());
+
+        recorder.onSearch(request, response(), TimeUnit.MILLISECONDS.toNanos(800));
+        List<SlowQuery> recent = recorder.recent();
+        assertEquals(1, recent.size());
+        SlowQuery slowQuery = recent.get(0);
+        assertEquals(800, slowQuery.getElapsedMillis());
+        assertEquals(120, slowQuery.getTookMillis());
+        assertEquals(5, slowQuery.getTotalHits());
+        assertTrue(slowQuery.getSource().contains("\"brand\""));
+        verifyNoInteractions(client);
+
+        recorder.close();
+        List<String> lines = Files.readAllLines(dir.resolve("slow.ndjson"), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"timestamp\":"));
+        assertTrue(lines.get(0).contains("\"indices\":[\"products\"]"));
+    }
+
+    @Test
+    public void ringBufferKeepsLatest() {
+        SlowQueryRecorder recorder = new SlowQueryRecorder(mock(RestHighLevelClient.class), properties(3));
+        for (int i = 1; i <= 5; i++) {
+            recorder.onSearch(new SearchRequest("index-" + i), response(), TimeUnit.SECONDS.toNanos(1));
+        }
+        List<SlowQuery> recent = recorder.recent();
+        assertEquals(3, recent.size());
+        assertEquals("index-3", recent.get(0).getIndices()[0]);
+        assertEquals("index-5", recent.get(2).getIndices()[0]);
+    }
+
+    private SlowQueryProperties properties(int bufferSize) {
+        SlowQueryProperties properties = new SlowQueryProperties();
+        properties.setThreshold(Duration.ofMillis(500));
+        properties.setProfileSampleRate(0);
+        properties.setBufferSize(bufferSize);
+        properties.setFile(dir.resolve("slow.ndjson").toString());
+        return properties;
+    }
+
+    private static SearchResponse response() {
+        SearchResponse response = mock(SearchResponse.class);
+        when(response.getTook()).thenReturn(TimeValue.timeValueMillis(120));
+        when(response.getHits()).thenReturn(new SearchHits(new SearchHit[0],
+                new TotalHits(5, TotalHits.Relation.EQUAL_TO), 1.0f));
+        when(response.getTotalShards()).thenReturn(1);
+        return response;
+    }
+}
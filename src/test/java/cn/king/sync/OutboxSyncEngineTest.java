@@ -0,0 +1,216 @@
+package cn.king.sync;
+
+import cn.king.client.AsyncEsClient;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.engine.VersionConflictEngineException;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 17:00
+ * @version: 1.0.0
+ * @description: outbox 同步，用内嵌的 h2 代替业务库，es 用 mock
+ */
+public class OutboxSyncEngineTest {
+
+    private EmbeddedDatabase database;
+
+    private OutboxStore store;
+
+    private JdbcTemplate jdbc;
+
+    private AsyncEsClient client;
+
+    /**
+     * 每次 bulk 的请求
+     */
+    private final List<BulkRequest> bulks = new ArrayList<>();
+
+    /**
+     * 按文档 id 指定的失败状态，没有指定的成功
+     */
+    private final Map<String, RestStatus> failures = new HashMap<>();
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbc = new JdbcTemplate(database);
+        store = new OutboxStore(jdbc, properties(1));
+        store.createSchema();
+        client = mock(AsyncEsClient.class);
+        when(client.bulk(any(BulkRequest.class))).thenAnswer(invocation -> {
+            BulkRequest bulk = invocation.getArgument(0);
+            bulks.add(bulk);
+            return CompletableFuture.completedFuture(respond(bulk));
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    private static SyncProperties properties(int partitions) {
+        SyncProperties properties = new SyncProperties();
+        properties.setPartitions(partitions);
+        properties.setSettleDelay(Duration.ZERO);
+        properties.setBatchSize(100);
+        return properties;
+    }
+
+    private BulkResponse respond(BulkRequest bulk) {
+        List<DocWriteRequest<?>> requests = bulk.requests();
+        BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+        for (int i = 0; i < items.length; i++) {
+            DocWriteRequest<?> request = requests.get(i);
+            RestStatus status = failures.get(request.id());
+            if (status == null) {
+                items[i] = new BulkItemResponse(i, request.opType(), new IndexResponse(new ShardId(request.index(), "_na_", 0),
+                        "_doc", request.id(), 1, 1, request.version(), true));
+            } else {
+                Exception cause = status == RestStatus.CONFLICT
+                        ? new VersionConflictEngineException(new ShardId(request.index(), "_na_", 0), request.id(), "旧版本")
+                        : new ElasticsearchStatusException("拒绝", status);
+                items[i] = new BulkItemResponse(i, request.opType(),
+                        new BulkItemResponse.Failure(request.index(), "_doc", request.id(), cause));
+            }
+        }
+        return new BulkResponse(items, 1);
+    }
+
+    @Test
+    public void applyLatestVersionWithExternalVersioning() {
+        store.append("product", "1", OutboxEvent.Op.INDEX, 1, "{\"title\":\"小浣熊\"}");
+        store.append("product", "1", OutboxEvent.Op.INDEX, 2, "{\"title\":\"大浣熊\"}");
+        store.append("product", "2", OutboxEvent.Op.DELETE, 5, null);
+        OutboxSyncEngine engine = new OutboxSyncEngine(client, store, properties(1));
+        engine.loadOffsets();
+        engine.drain(0);
+
+        assertEquals(1, bulks.size());
+        List<DocWriteRequest<?>> requests = bulks.get(0).requests();
+        assertEquals(2, requests.size());
+        assertEquals(2, requests.get(0).version());
+        assertEquals(VersionType.EXTERNAL, requests.get(0).versionType());
+        assertTrue(requests.get(1) instanceof DeleteRequest);
+        assertEquals(3, engine.lastId(0));
+        // 已应用的行被删除，高水位持久化，重启后从高水位继续
+        assertTrue(store.poll(0, 1, 0, Long.MAX_VALUE, 100).isEmpty());
+        assertEquals(3L, store.loadOffsets(1).get(0));
+        assertEquals(0, engine.lagMillis(0));
+    }
+
+    @Test
+    public void conflictIsAppliedAndFailureHoldsHighWaterMark() {
+        store.append("product", "1", OutboxEvent.Op.INDEX, 1, "{}");
+        store.append("product", "2", OutboxEvent.Op.INDEX, 1, "{}");
+        store.append("product", "3", OutboxEvent.Op.INDEX, 1, "{}");
+        failures.put("1", RestStatus.CONFLICT);
+        failures.put("2", RestStatus.TOO_MANY_REQUESTS);
+        OutboxSyncEngine engine = new OutboxSyncEngine(client, store, properties(1));
+        engine.loadOffsets();
+        engine.drain(0);
+        // 1 冲突视为已应用，2 失败，高水位停在 2 之前
+        assertEquals(1, engine.lastId(0));
+
+        failures.clear();
+        engine.drain(0);
+        assertEquals(2, bulks.size());
+        assertEquals(2, bulks.get(1).requests().size());
+        assertEquals(3, engine.lastId(0));
+    }
+
+    @Test
+    public void partitionByDocumentId() {
+        for (int i = 0; i < 20; i++) {
+            store.append("product", Integer.toString(i), OutboxEvent.Op.INDEX, 1, "{}");
+        }
+        int total = 0;
+        for (int p = 0; p < 3; p++) {
+            for (OutboxEvent event : store.poll(p, 3, 0, Long.MAX_VALUE, 100)) {
+                assertEquals(p, OutboxStore.partition(event.getDocId(), 3));
+                total++;
+            }
+        }
+        assertEquals(20, total);
+    }
+
+    @Test
+    public void repartitionRestartsFromLowestHighWaterMark() {
+        store.saveOffset(0, 2, 10);
+        store.saveOffset(1, 2, 4);
+        Map<Integer, Long> offsets = store.loadOffsets(3);
+        assertEquals(3, offsets.size());
+        offsets.values().forEach(lastId -> assertEquals(4L, lastId));
+        assertEquals(offsets, store.loadOffsets(3));
+    }
+
+    @Test
+    public void partitionWithoutOffsetCountsAsZero() {
+        // 原来 3 个分区，分区 2 一直没有变更，没有保存过高水位
+        store.saveOffset(0, 3, 10);
+        store.saveOffset(1, 3, 4);
+        store.loadOffsets(2).values().forEach(lastId -> assertEquals(0L, lastId));
+    }
+
+    @Test
+    public void keepOffsetsWhenPartitionCountUnchanged() {
+        store.saveOffset(0, 3, 10);
+        store.saveOffset(1, 3, 4);
+        Map<Integer, Long> offsets = store.loadOffsets(3);
+        assertEquals(10L, offsets.get(0));
+        assertEquals(4L, offsets.get(1));
+        assertEquals(0L, offsets.get(2));
+    }
+
+    @Test
+    public void applyChangeCommittedAfterHighWaterMark() {
+        store.append("product", "1", OutboxEvent.Op.INDEX, 1, "{}");
+        store.append("product", "2", OutboxEvent.Op.INDEX, 1, "{}");
+        store.append("product", "3", OutboxEvent.Op.INDEX, 1, "{}");
+        // id 2 的事务还没提交，同步时不可见
+        Map<String, Object> row = jdbc.queryForMap("SELECT * FROM es_outbox WHERE id = 2");
+        jdbc.update("DELETE FROM es_outbox WHERE id = 2");
+        OutboxSyncEngine engine = new OutboxSyncEngine(client, store, properties(1));
+        engine.loadOffsets();
+        engine.drain(0);
+        assertEquals(3, engine.lastId(0));
+
+        jdbc.update("INSERT INTO es_outbox (id, doc_index, doc_id, doc_hash, op, version, payload, created_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", row.get("ID"), row.get("DOC_INDEX"), row.get("DOC_ID"),
+                row.get("DOC_HASH"), row.get("OP"), row.get("VERSION"), row.get("PAYLOAD"), row.get("CREATED_AT"));
+        engine.drain(0);
+        assertEquals(2, bulks.size());
+        assertEquals("2", bulks.get(1).requests().get(0).id());
+        assertEquals(3, engine.lastId(0));
+        assertTrue(store.pollLate(0, 1, 3, 100).isEmpty());
+    }
+}
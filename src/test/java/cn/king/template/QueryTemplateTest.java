@@ -0,0 +1,197 @@
+package cn.king.template;
+
+import cn.king.client.AsyncEsClient;
+import cn.king.mapping.BytesPool;
+import cn.king.mapping.PooledBytes;
+import cn.king.mapping.ProductDecoder;
+import cn.king.mapping.TypedSearchClient;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/20 10:10
+ * @version: 1.0.0
+ * @description: 模板渲染的结果和直接用 SearchSourceBuilder 构建的查询一致
+ */
+public class QueryTemplateTest {
+
+    private final BytesPool pool = new BytesPool(4, 256, 4096);
+
+    /**
+     * test13 的查询形状：term 查询、价格倒序、_source 过滤、高亮
+     */
+    private static SearchSourceBuilder shape(Object keyword) {
+        HighlightBuilder highlightBuilder = new HighlightBuilder()
+                .requireFieldMatch(Boolean.FALSE)
+                .field("desc")
+                .field("title")
+                .preTags("<span style='color:red'>")
+                .postTags("</span>");
+        return new SearchSourceBuilder()
+                .query(QueryBuilders.termQuery("desc", keyword))
+                .sort("price", SortOrder.DESC)
+                .fetchSource(new String[]{"title", "desc"}, new String[]{})
+                .highlighter(highlightBuilder);
+    }
+
+    private static QueryTemplate template() {
+        return QueryTemplate.builder("test13")
+                .source(shape("{{keyword}}"))
+                .param("keyword", ParamType.STRING)
+                .pageable()
+                .build();
+    }
+
+    private Map<String, Object> render(QueryTemplate.Params params) {
+        PooledBytes out = pool.acquire();
+        try {
+            params.template().render(params, out);
+            return XContentHelper.convertToMap(out.bytes(), false, XContentType.JSON).v2();
+        } finally {
+            out.release();
+        }
+    }
+
+    private static Map<String, Object> expected(SearchSourceBuilder source) throws Exception {
+        BytesReference bytes = XContentHelper.toXContent(source, XContentType.JSON, false);
+        return XContentHelper.convertToMap(bytes, false, XContentType.JSON).v2();
+    }
+
+    @Test
+    public void renderMatchesBuilder() throws Exception {
+        QueryTemplate template = template();
+        Map<String, Object> rendered = render(template.params().set("keyword", "好吃").page(20, 10));
+        assertEquals(expected(shape("好吃").from(20).size(10)), rendered);
+    }
+
+    @Test
+    public void escapeString() throws Exception {
+        QueryTemplate template = template();
+        String keyword = "\"引号\"\\反斜杠\n换行\u0001\uD83D\uDE00";
+        Map<String, Object> rendered = render(template.params().set("keyword", keyword).page(0, 20));
+        assertEquals(expected(shape(keyword).from(0).size(20)), rendered);
+    }
+
+    @Test
+    public void numbersAndArrays() {
+        QueryTemplate template = QueryTemplate.builder("numbers")
+                .source(new SearchSourceBuilder().query(QueryBuilders.boolQuery()
+                        .filter(QueryBuilders.termsQuery("tags", "{{tags}}"))
+                        .filter(QueryBuilders.rangeQuery("price").gte("{{min}}"))
+                        .filter(QueryBuilders.termQuery("stock", "{{stock}}"))
+                        .filter(QueryBuilders.termQuery("on_sale", "{{on_sale}}"))))
+                .param("tags", ParamType.STRINGS)
+                .param("min", ParamType.DOUBLE)
+                .param("stock", ParamType.LONG)
+                .param("on_sale", ParamType.BOOLEAN)
+                .build();
+        String json = render(template.params()
+                .set("tags", "a", "b\"c")
+                .set("min", 1.5)
+                .set("stock", -42L)
+                .set("on_sale", true)).toString();
+        assertTrue(json.contains("tags=[a, b\"c]"), json);
+        assertTrue(json.contains("from=1.5"), json);
+        assertTrue(json.contains("value=-42"), json);
+        assertTrue(json.contains("value=true"), json);
+    }
+
+    @Test
+    public void reuseParams() {
+        QueryTemplate template = template();
+        QueryTemplate.Params params = template.params();
+        Map<String, Object> first = render(params.set("keyword", "a").page(0, 10));
+        params.clear();
+        Map<String, Object> second = render(params.set("keyword", "b").page(10, 10));
+        assertEquals(0, first.get("from"));
+        assertEquals(10, second.get("from"));
+    }
+
+    @Test
+    public void missingParam() {
+        QueryTemplate template = template();
+        assertThrows(IllegalStateException.class, () -> render(template.params().set("keyword", "a")));
+        assertThrows(IllegalArgumentException.class, () -> template.params().set("keyword", 1L));
+        assertThrows(IllegalArgumentException.class, () -> template.params().set("unknown", "a"));
+    }
+
+    @Test
+    public void invalidTemplate() {
+        // 声明了但没有使用
+        assertThrows(IllegalArgumentException.class, () -> QueryTemplate.builder("unused")
+                .source(shape("好吃")).param("keyword", ParamType.STRING).build());
+        // 使用了但没有声明
+        assertThrows(IllegalArgumentException.class, () -> QueryTemplate.builder("undeclared")
+                .source(shape("{{keyword}}")).build());
+        // 和其他文字拼在一起
+        assertThrows(IllegalArgumentException.class, () -> QueryTemplate.builder("partial")
+                .source(shape("前缀{{keyword}}")).param("keyword", ParamType.STRING).build());
+        // 数组参数不是数组中唯一的元素
+        assertThrows(IllegalArgumentException.class, () -> QueryTemplate.builder("array")
+                .source(new SearchSourceBuilder().query(QueryBuilders.termsQuery("tags", "x", "{{tags}}")))
+                .param("tags", ParamType.STRINGS).build());
+    }
+
+    @Test
+    public void mustache() {
+        QueryTemplate template = QueryTemplate.builder("stored")
+                .source(new SearchSourceBuilder().query(QueryBuilders.boolQuery()
+                        .must(QueryBuilders.termQuery("desc", "{{keyword}}"))
+                        .filter(QueryBuilders.termsQuery("tags", "{{tags}}"))))
+                .param("keyword", ParamType.STRING)
+                .param("tags", ParamType.STRINGS)
+                .pageable()
+                .build();
+        String mustache = template.toMustache();
+        assertTrue(mustache.contains("\"value\":\"{{keyword}}\""), mustache);
+        assertTrue(mustache.contains("\"tags\":{{#toJson}}tags{{/toJson}}"), mustache);
+        assertTrue(mustache.endsWith("\"from\":{{from}},\"size\":{{size}}}"), mustache);
+        assertEquals(Arrays.asList("a", "b"), template.params().set("keyword", "k").set("tags", "a", "b")
+                .page(0, 10).asMap().get("tags"));
+    }
+
+    @Test
+    public void entityDoesNotShareThePooledBuffer() throws Exception {
+        TypedSearchClient typedSearchClient = mock(TypedSearchClient.class);
+        Request[] sent = new Request[1];
+        // 请求一直没有结束，模拟 http 客户端还在发送请求体
+        when(typedSearchClient.search(any(Request.class), any())).thenAnswer(invocation -> {
+            sent[0] = invocation.getArgument(0);
+            return new CompletableFuture<>();
+        });
+        TemplateSearchClient client = new TemplateSearchClient(mock(AsyncEsClient.class), typedSearchClient);
+        client.search("product", template().params().set("keyword", "好吃").page(0, 10), ProductDecoder.INSTANCE);
+        byte[] entity = EntityUtils.toByteArray(sent[0].getEntity());
+
+        // 缓冲区已经归还，被下一个请求借出并覆盖
+        PooledBytes reused = client.pool().acquire();
+        reused.write(new byte[entity.length]);
+        assertEquals(new String(entity, StandardCharsets.UTF_8),
+                new String(EntityUtils.toByteArray(sent[0].getEntity()), StandardCharsets.UTF_8));
+        assertEquals(expected(shape("好吃").from(0).size(10)),
+                XContentHelper.convertToMap(new BytesArray(entity), false, XContentType.JSON).v2());
+        reused.release();
+    }
+}
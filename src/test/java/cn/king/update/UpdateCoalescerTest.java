@@ -0,0 +1,116 @@
+package cn.king.update;
+
+import cn.king.client.AsyncEsClient;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.action.update.UpdateResponse;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author: wjl@king.cn
+ * @time: 2026/10/18 18:40
+ * @version: 1.0.0
+ * @description: 局部更新的合并和按文档串行
+ */
+public class UpdateCoalescerTest {
+
+    private AsyncEsClient client;
+
+    private UpdateCoalescer coalescer;
+
+    @BeforeEach
+    public void setUp() {
+        client = mock(AsyncEsClient.class);
+        coalescer = new UpdateCoalescer(client, new UpdateBufferProperties());
+    }
+
+    @Test
+    public void updatesToSameDocAreMerged() {
+        when(client.bulk(any(BulkRequest.class))).thenAnswer(invocation -> CompletableFuture.completedFuture(
+                success(invocation.getArgument(0))));
+        CompletableFuture<UpdateResponse> first = coalescer.update("product", "1", Collections.singletonMap("price", 1.0));
+        CompletableFuture<UpdateResponse> second = coalescer.update("product", "1", Collections.singletonMap("title", "苹果"));
+        CompletableFuture<UpdateResponse> third = coalescer.update("product", "1", Collections.singletonMap("price", 2.0));
+        coalescer.update("product", "2", Collections.singletonMap("price", 3.0));
+        coalescer.flush();
+
+        ArgumentCaptor<BulkRequest> captor = ArgumentCaptor.forClass(BulkRequest.class);
+        verify(client).bulk(captor.capture());
+        List<DocWriteRequest<?>> requests = captor.getValue().requests();
+        assertEquals(2, requests.size());
+        UpdateRequest merged = (UpdateRequest) requests.stream().filter(r -> "1".equals(r.id())).findFirst().get();
+        Map<String, Object> doc = merged.doc().sourceAsMap();
+        assertEquals(2.0, doc.get("price"));
+        assertEquals("苹果", doc.get("title"));
+        assertSame(first.join(), third.join());
+        assertSame(first.join(), second.join());
+        assertEquals(4, coalescer.received());
+        assertEquals(2, coalescer.sent());
+    }
+
+    @Test
+    public void nestedObjectsAreMergedRecursively() {
+        Map<String, Object> target = new HashMap<>();
+        UpdateCoalescer.merge(target, Collections.singletonMap("stock", Collections.singletonMap("beijing", 1)));
+        UpdateCoalescer.merge(target, Collections.singletonMap("stock", Collections.singletonMap("shanghai", 2)));
+        Map<?, ?> stock = (Map<?, ?>) target.get("stock");
+        assertEquals(1, stock.get("beijing"));
+        assertEquals(2, stock.get("shanghai"));
+    }
+
+    @Test
+    public void inFlightDocWaitsForNextWindow() {
+        CompletableFuture<BulkResponse> firstBulk = new CompletableFuture<>();
+        ArgumentCaptor<BulkRequest> captor = ArgumentCaptor.forClass(BulkRequest.class);
+        when(client.bulk(captor.capture())).thenReturn(firstBulk)
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(success(invocation.getArgument(0))));
+
+        coalescer.update("product", "1", Collections.singletonMap("price", 1.0));
+        coalescer.flush();
+        CompletableFuture<UpdateResponse> later = coalescer.update("product", "1", Collections.singletonMap("price", 2.0));
+        coalescer.flush();
+        verify(client, times(1)).bulk(any(BulkRequest.class));
+        assertEquals(1, coalescer.pendingSize());
+
+        firstBulk.complete(success(captor.getAllValues().get(0)));
+        coalescer.flush();
+        verify(client, times(2)).bulk(any(BulkRequest.class));
+        assertTrue(later.isDone());
+        assertFalse(later.isCompletedExceptionally());
+    }
+
+    private static BulkResponse success(BulkRequest bulk) {
+        List<DocWriteRequest<?>> requests = bulk.requests();
+        BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+        for (int i = 0; i < items.length; i++) {
+            DocWriteRequest<?> request = requests.get(i);
+            UpdateResponse response = new UpdateResponse(new ShardId(request.index(), "_na_", 0), "_doc",
+                    request.id(), i, 1, 2, DocWriteResponse.Result.UPDATED);
+            items[i] = new BulkItemResponse(i, DocWriteRequest.OpType.UPDATE, response);
+        }
+        return new BulkResponse(items, 1);
+    }
+}